@@ -19,7 +19,8 @@ CREATE TABLE  Region (
 		provider_hrr VARCHAR(50) NOT NULL, 
 		FOREIGN KEY (provider_state) 
 		REFERENCES State (state), 
-		CONSTRAINT PK_Region_provider_city_provider_state PRIMARY KEY(provider_city, provider_state)
+		CONSTRAINT PK_Region_provider_city_provider_state PRIMARY KEY(provider_city, provider_state), 
+		INDEX IX_Region_provider_hrr (provider_hrr)
 );
 
 CREATE TABLE Provider (
@@ -33,7 +34,8 @@ CREATE TABLE Provider (
 		REFERENCES Region (provider_city), 
 		FOREIGN KEY (provider_state) 
 		REFERENCES Region (provider_state), 
-		CONSTRAINT PK_provider_id PRIMARY KEY(provider_id)
+		CONSTRAINT PK_provider_id PRIMARY KEY(provider_id), 
+		INDEX IX_Provider_provider_city_provider_state (provider_city, provider_state)
 );
 
 CREATE TABLE DRG (
@@ -52,7 +54,10 @@ CREATE TABLE Charge (
 		REFERENCES DRG (drg_id), 
 		FOREIGN KEY (provider_id) 
 		REFERENCES Provider (provider_id), 
-		CONSTRAINT PK_Charge_drg_id_provider_id PRIMARY KEY(drg_id, provider_id)
+		CONSTRAINT PK_Charge_drg_id_provider_id PRIMARY KEY(drg_id, provider_id), 
+		INDEX IX_Charge_drg_id_avg_charges (drg_id, avg_charges), 
+		INDEX IX_Charge_drg_id_avg_payments (drg_id, avg_payments), 
+		INDEX IX_Charge_drg_id_avg_medicare_payments (drg_id, avg_medicare_payments)
 );
 
 /*Procedures*/
@@ -145,8 +150,16 @@ DELIMITER //
 CREATE PROCEDURE getCharges(IN drg_id_in INT, IN provider_id_in INT, 
 		OUT proc_success TINYINT(1))
 BEGIN
-	DECLARE row_num INT DEFAULT 0;
 	DECLARE total_num INT DEFAULT 0;
+	DECLARE charges_in DECIMAL(9,2) DEFAULT NULL;
+	DECLARE payments_in DECIMAL(9,2) DEFAULT NULL;
+	DECLARE medicare_payments_in DECIMAL(9,2) DEFAULT NULL;
+
+	SELECT c.avg_charges, c.avg_payments, c.avg_medicare_payments 
+		INTO charges_in, payments_in, medicare_payments_in 
+		FROM Charge c 
+		WHERE c.drg_id = drg_id_in 
+		AND c.provider_id = provider_id_in;
 
 	SELECT c.avg_charges AS 'avg charges', c.avg_payments AS 'avg payments', 
 		c.avg_medicare_payments AS 'avg medicare payments'
@@ -154,70 +167,26 @@ BEGIN
 		WHERE c.drg_id = drg_id_in 
 		AND c.provider_id = provider_id_in;
 
-	DROP TEMPORARY TABLE IF EXISTS Rank;
-
-	CREATE TEMPORARY TABLE Rank (rank_id INT, provider_id INT, 
-		avg_charges DECIMAL(9, 2), 
-		PRIMARY KEY (rank_id));
-
-	INSERT INTO Rank SELECT @rank:=@rank+1 AS rank, c.provider_id, c.avg_charges 
-		FROM DRG d, Charge c, (SELECT @rank := 0) r 
-		WHERE d.drg_id = c.drg_id 
-		AND c.drg_id = drg_id_in 
-		ORDER BY c.avg_charges;
-
-	SELECT r.rank_id INTO row_num 
-		FROM Rank r 
-		WHERE r.provider_id = provider_id_in;
-
-	SELECT COUNT(*) INTO total_num 
-		FROM Rank;
-
-	SELECT (100*((row_num-0.5)/total_num)) AS 'avg charges percentile';
-
-	DROP TEMPORARY TABLE IF EXISTS Rank;
-
-	CREATE TEMPORARY TABLE Rank (rank_id INT, provider_id INT, 
-		avg_payments DECIMAL(9, 2), 
-		PRIMARY KEY (rank_id));
-
-	INSERT INTO Rank SELECT @rank:=@rank+1 AS rank, c.provider_id, c.avg_payments 
-		FROM DRG d, Charge c, (SELECT @rank := 0) r 
-		WHERE d.drg_id = c.drg_id 
-		AND c.drg_id = drg_id_in 
-		ORDER BY c.avg_payments;
-
-	SELECT r.rank_id INTO row_num 
-		FROM Rank r 
-		WHERE r.provider_id = provider_id_in;
-
 	SELECT COUNT(*) INTO total_num 
-		FROM Rank;
-
-	SELECT (100*((row_num-0.5)/total_num)) AS 'avg payments percentile';
-
-	DROP TEMPORARY TABLE IF EXISTS Rank;
-
-	CREATE TEMPORARY TABLE Rank (rank_id INT, provider_id INT, 
-		avg_medicare_payments DECIMAL(9, 2), 
-		PRIMARY KEY (rank_id));
-
-	INSERT INTO Rank SELECT @rank:=@rank+1 AS rank, c.provider_id, c.avg_medicare_payments 
-		FROM DRG d, Charge c, (SELECT @rank := 0) r 
-		WHERE d.drg_id = c.drg_id 
-		AND c.drg_id = drg_id_in 
-		ORDER BY c.avg_medicare_payments;
-
-	SELECT r.rank_id INTO row_num 
-		FROM Rank r 
-		WHERE r.provider_id = provider_id_in;
+		FROM Charge c 
+		WHERE c.drg_id = drg_id_in;
 
-	SELECT COUNT(*) INTO total_num 
-		FROM Rank;
+	/* the rank of a value is one more than the number of smaller values, and
+	   zero for a provider without a charge, whose percentile rank is negative */
+	SELECT (100*((IF(charges_in IS NULL, 0, COUNT(*)+1)-0.5)/total_num)) AS 'avg charges percentile' 
+		FROM Charge c 
+		WHERE c.drg_id = drg_id_in 
+		AND c.avg_charges < charges_in;
 
-	SELECT (100*((row_num-0.5)/total_num)) AS 'avg medicare payments percentile';
+	SELECT (100*((IF(payments_in IS NULL, 0, COUNT(*)+1)-0.5)/total_num)) AS 'avg payments percentile' 
+		FROM Charge c 
+		WHERE c.drg_id = drg_id_in 
+		AND c.avg_payments < payments_in;
 
-	DROP TEMPORARY TABLE Rank;
+	SELECT (100*((IF(medicare_payments_in IS NULL, 0, COUNT(*)+1)-0.5)/total_num)) AS 'avg medicare payments percentile' 
+		FROM Charge c 
+		WHERE c.drg_id = drg_id_in 
+		AND c.avg_medicare_payments < medicare_payments_in;
 
 SET proc_success = 1;
 
@@ -237,39 +206,15 @@ BEGIN
 	WHERE r.provider_state = state_in 
 	AND r.provider_city = city_in;
 
-	DROP TEMPORARY TABLE IF EXISTS Location;
-
-	CREATE TEMPORARY TABLE Location(
-		temp_city VARCHAR(50) NOT NULL, 
-		temp_state VARCHAR(50) NOT NULL, 
-		PRIMARY KEY (temp_city, temp_state)
-	);
-
-	INSERT INTO Location SELECT r.provider_city, r.provider_state 
-		FROM Region r 
-		WHERE r.provider_hrr = var;
-
-	DROP TEMPORARY TABLE IF EXISTS RegionalProvider;
-
-	CREATE TEMPORARY TABLE RegionalProvider(
-		provider_id INT NOT NULL, 
-		PRIMARY KEY (provider_id)
-	);
-
-	INSERT INTO RegionalProvider SELECT DISTINCT p.provider_id 
-		FROM Provider p, Location l 
-		WHERE p.provider_state = l.temp_state 
-		AND p.provider_city = l.temp_city;
-
 	SELECT DISTINCT d.drg_id AS 'drg id', d.drg_definition AS 'drg definition'
-		FROM DRG d, RegionalProvider rp, Charge c 
-		WHERE c.provider_id = rp.provider_id 
+		FROM Region r, Provider p, Charge c, DRG d 
+		WHERE r.provider_hrr = var 
+		AND p.provider_city = r.provider_city 
+		AND p.provider_state = r.provider_state 
+		AND c.provider_id = p.provider_id 
 		AND d.drg_id = c.drg_id
 		ORDER BY d.drg_definition;
 
-	DROP TEMPORARY TABLE Location;
-	DROP TEMPORARY TABLE RegionalProvider;
-
 SET proc_success = 1;
 
 END ; //
@@ -288,51 +233,20 @@ BEGIN
 	WHERE r.provider_state = state_in 
 	AND r.provider_city = city_in;
 
-	DROP TEMPORARY TABLE IF EXISTS Location;
-
-	CREATE TEMPORARY TABLE Location(
-		temp_city VARCHAR(50) NOT NULL, 
-		temp_state VARCHAR(50) NOT NULL, 
-		PRIMARY KEY (temp_city, temp_state)
-	);
-
-	INSERT INTO Location SELECT r.provider_city, r.provider_state 
-		FROM Region r 
-		WHERE r.provider_hrr = var;
-
-	DROP TEMPORARY TABLE IF EXISTS RegionalProvider;
-
-	CREATE TEMPORARY TABLE RegionalProvider(
-		provider_id INT NOT NULL, 
-		provider_name VARCHAR(50) NOT NULL, 
-		provider_street VARCHAR(50) NOT NULL, 
-		provider_city VARCHAR(50) NOT NULL, 
-		provider_state VARCHAR(50) NOT NULL, 
-		provider_zip VARCHAR(50) NOT NULL, 
-		PRIMARY KEY (provider_id)
-	);
-
-	INSERT INTO RegionalProvider SELECT DISTINCT p.provider_id, 
-		p.provider_name, p.provider_street, p.provider_city, 
-		p.provider_state, p.provider_zip 
-		FROM Provider p, Location l 
-		WHERE p.provider_state = l.temp_state 
-		AND p.provider_city = l.temp_city;
-
-	SELECT rp.provider_id AS 'provider id', rp.provider_name AS 'provider name', 
-		rp.provider_street AS 'provider street', rp.provider_city AS 'provider city', 
-		rp.provider_state AS 'provider state', rp.provider_zip AS 'provider zip', 
+	SELECT p.provider_id AS 'provider id', p.provider_name AS 'provider name', 
+		p.provider_street AS 'provider street', p.provider_city AS 'provider city', 
+		p.provider_state AS 'provider state', p.provider_zip AS 'provider zip', 
 		d.drg_id AS 'drg id', d.drg_definition AS 'drg definition', 
 		c.avg_charges AS 'avg charges', c.avg_payments AS 'avg payments', 
 		c.avg_medicare_payments  AS 'avg medicare payments'
-		FROM Charge c, RegionalProvider rp, DRG d 
-		WHERE c.provider_id = rp.provider_id 
+		FROM Region r, Provider p, Charge c, DRG d 
+		WHERE r.provider_hrr = var 
+		AND p.provider_city = r.provider_city 
+		AND p.provider_state = r.provider_state 
+		AND c.provider_id = p.provider_id 
 		AND c.drg_id = d.drg_id 
 		AND c.drg_id = drg_id_in
-		ORDER BY rp.provider_name;
-
-	DROP TEMPORARY TABLE Location;
-	DROP TEMPORARY TABLE RegionalProvider;
+		ORDER BY p.provider_name;
 
 SET proc_success = 1;
 
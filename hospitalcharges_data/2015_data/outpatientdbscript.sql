@@ -19,7 +19,8 @@ CREATE TABLE  Region (
 		provider_hrr VARCHAR(50) NOT NULL, 
 		FOREIGN KEY (provider_state) 
 		REFERENCES State (state), 
-		CONSTRAINT PK_Region_provider_city_provider_state PRIMARY KEY(provider_city, provider_state)
+		CONSTRAINT PK_Region_provider_city_provider_state PRIMARY KEY(provider_city, provider_state), 
+		INDEX IX_Region_provider_hrr (provider_hrr)
 );
 
 CREATE TABLE Provider (
@@ -33,7 +34,8 @@ CREATE TABLE Provider (
 		REFERENCES Region (provider_city), 
 		FOREIGN KEY (provider_state) 
 		REFERENCES Region (provider_state), 
-		CONSTRAINT PK_provider_id PRIMARY KEY(provider_id)
+		CONSTRAINT PK_provider_id PRIMARY KEY(provider_id), 
+		INDEX IX_Provider_provider_city_provider_state (provider_city, provider_state)
 );
 
 CREATE TABLE APC (
@@ -51,7 +53,9 @@ CREATE TABLE Charge (
 		REFERENCES APC (apc_id), 
 		FOREIGN KEY (provider_id) 
 		REFERENCES Provider (provider_id), 
-		CONSTRAINT PK_Charge_apc_id_provider_id PRIMARY KEY(apc_id, provider_id)
+		CONSTRAINT PK_Charge_apc_id_provider_id PRIMARY KEY(apc_id, provider_id), 
+		INDEX IX_Charge_apc_id_avg_charges (apc_id, avg_charges), 
+		INDEX IX_Charge_apc_id_avg_payments (apc_id, avg_payments)
 );
 
 /*Procedures*/
@@ -144,57 +148,36 @@ DELIMITER //
 CREATE PROCEDURE getCharges(IN apc_id_in INT, IN provider_id_in INT, 
 		OUT proc_success TINYINT(1))
 BEGIN
-	DECLARE row_num INT DEFAULT 0;
 	DECLARE total_num INT DEFAULT 0;
-	
-	SELECT c.avg_charges AS 'avg charges', c.avg_payments AS 'avg payments'
+	DECLARE charges_in DECIMAL(8,2) DEFAULT NULL;
+	DECLARE payments_in DECIMAL(8,2) DEFAULT NULL;
+
+	SELECT c.avg_charges, c.avg_payments 
+		INTO charges_in, payments_in 
 		FROM Charge c 
 		WHERE c.apc_id = apc_id_in 
 		AND c.provider_id = provider_id_in;
 
-	DROP TEMPORARY TABLE IF EXISTS Rank;
-
-	CREATE TEMPORARY TABLE Rank (rank_id INT, provider_id INT, 
-		avg_charges DECIMAL(8, 2), 
-		PRIMARY KEY (rank_id));
-
-	INSERT INTO Rank SELECT @rank:=@rank+1 AS rank, c.provider_id, c.avg_charges 
-		FROM APC a, Charge c, (SELECT @rank := 0) r 
-		WHERE a.apc_id = c.apc_id 
-		AND c.apc_id = apc_id_in 
-		ORDER BY c.avg_charges;
-
-	SELECT r.rank_id INTO row_num 
-		FROM Rank r 
-		WHERE r.provider_id = provider_id_in;
-
-	SELECT COUNT(*) INTO total_num 
-		FROM Rank;
-
-	SELECT (100*((row_num-0.5)/total_num)) AS 'avg charges percentile';
-
-	DROP TEMPORARY TABLE IF EXISTS Rank;
-
-	CREATE TEMPORARY TABLE Rank (rank_id INT, provider_id INT, 
-		avg_payments DECIMAL(8, 2), 
-		PRIMARY KEY (rank_id));
-
-	INSERT INTO Rank SELECT @rank:=@rank+1 AS rank, c.provider_id, c.avg_payments 
-		FROM APC a, Charge c, (SELECT @rank := 0) r 
-		WHERE a.apc_id = c.apc_id 
-		AND c.apc_id = apc_id_in 
-		ORDER BY c.avg_payments;
-
-	SELECT r.rank_id INTO row_num 
-		FROM Rank r 
-		WHERE r.provider_id = provider_id_in;
+	SELECT c.avg_charges AS 'avg charges', c.avg_payments AS 'avg payments'
+		FROM Charge c 
+		WHERE c.apc_id = apc_id_in 
+		AND c.provider_id = provider_id_in;
 
 	SELECT COUNT(*) INTO total_num 
-		FROM Rank;
+		FROM Charge c 
+		WHERE c.apc_id = apc_id_in;
 
-	SELECT (100*((row_num-0.5)/total_num)) AS 'avg payments percentile';
+	/* the rank of a value is one more than the number of smaller values, and
+	   zero for a provider without a charge, whose percentile rank is negative */
+	SELECT (100*((IF(charges_in IS NULL, 0, COUNT(*)+1)-0.5)/total_num)) AS 'avg charges percentile' 
+		FROM Charge c 
+		WHERE c.apc_id = apc_id_in 
+		AND c.avg_charges < charges_in;
 
-	DROP TEMPORARY TABLE Rank;
+	SELECT (100*((IF(payments_in IS NULL, 0, COUNT(*)+1)-0.5)/total_num)) AS 'avg payments percentile' 
+		FROM Charge c 
+		WHERE c.apc_id = apc_id_in 
+		AND c.avg_payments < payments_in;
 
 SET proc_success = 1;
 
@@ -214,39 +197,15 @@ BEGIN
 	WHERE r.provider_state = state_in 
 	AND r.provider_city = city_in;
 
-	DROP TEMPORARY TABLE IF EXISTS Location;
-
-	CREATE TEMPORARY TABLE Location(
-		temp_city VARCHAR(50) NOT NULL, 
-		temp_state VARCHAR(50) NOT NULL, 
-		PRIMARY KEY (temp_city, temp_state)
-	);
-
-	INSERT INTO Location SELECT r.provider_city, r.provider_state 
-		FROM Region r 
-		WHERE r.provider_hrr = var;
-
-	DROP TEMPORARY TABLE IF EXISTS RegionalProvider;
-
-	CREATE TEMPORARY TABLE RegionalProvider(
-		provider_id INT NOT NULL, 
-		PRIMARY KEY (provider_id)
-	);
-
-	INSERT INTO RegionalProvider SELECT DISTINCT p.provider_id 
-		FROM Provider p, Location l 
-		WHERE p.provider_state = l.temp_state 
-		AND p.provider_city = l.temp_city;
-
 	SELECT DISTINCT a.apc_id AS 'apc id', a.apc_definition AS 'apc definition'
-		FROM APC a, RegionalProvider rp, Charge c 
-		WHERE a.apc_id = c.apc_id 
-		AND c.provider_id = rp.provider_id
+		FROM Region r, Provider p, Charge c, APC a 
+		WHERE r.provider_hrr = var 
+		AND p.provider_city = r.provider_city 
+		AND p.provider_state = r.provider_state 
+		AND c.provider_id = p.provider_id 
+		AND a.apc_id = c.apc_id
 		ORDER BY a.apc_definition;
 
-	DROP TEMPORARY TABLE Location;
-	DROP TEMPORARY TABLE RegionalProvider;
-
 SET proc_success = 1;
 
 END ; //
@@ -265,50 +224,19 @@ BEGIN
 	WHERE r.provider_state = state_in 
 	AND r.provider_city = city_in;
 
-	DROP TEMPORARY TABLE IF EXISTS Location;
-
-	CREATE TEMPORARY TABLE Location(
-		temp_city VARCHAR(50) NOT NULL, 
-		temp_state VARCHAR(50) NOT NULL, 
-		PRIMARY KEY (temp_city, temp_state)
-	);
-
-	INSERT INTO Location SELECT r.provider_city, r.provider_state 
-		FROM Region r 
-		WHERE r.provider_hrr = var;
-
-	DROP TEMPORARY TABLE IF EXISTS RegionalProvider;
-
-	CREATE TEMPORARY TABLE RegionalProvider(
-		provider_id INT NOT NULL, 
-		provider_name VARCHAR(50) NOT NULL, 
-		provider_street VARCHAR(50) NOT NULL, 
-		provider_city VARCHAR(50) NOT NULL, 
-		provider_state VARCHAR(50) NOT NULL, 
-		provider_zip VARCHAR(50) NOT NULL, 
-		PRIMARY KEY (provider_id)
-	);
-
-	INSERT INTO RegionalProvider SELECT DISTINCT p.provider_id, 
-		p.provider_name, p.provider_street, p.provider_city, 
-		p.provider_state, p.provider_zip 
-		FROM Provider p, Location l 
-		WHERE p.provider_state = l.temp_state 
-		AND p.provider_city = l.temp_city;
-
-	SELECT rp.provider_id AS 'provider id', rp.provider_name AS 'provider name', 
-		rp.provider_street AS 'provider street', rp.provider_city AS 'provider city', 
-		rp.provider_state AS 'provider state', rp.provider_zip AS 'provider zip', 
+	SELECT p.provider_id AS 'provider id', p.provider_name AS 'provider name', 
+		p.provider_street AS 'provider street', p.provider_city AS 'provider city', 
+		p.provider_state AS 'provider state', p.provider_zip AS 'provider zip', 
 		a.apc_id AS 'apc id', a.apc_definition AS 'apc definition', 
 		c.avg_charges AS 'avg charges', c.avg_payments AS 'avg payments'
-		FROM Charge c, RegionalProvider rp, APC a 
-		WHERE c.provider_id = rp.provider_id
+		FROM Region r, Provider p, Charge c, APC a 
+		WHERE r.provider_hrr = var 
+		AND p.provider_city = r.provider_city 
+		AND p.provider_state = r.provider_state 
+		AND c.provider_id = p.provider_id 
 		AND c.apc_id = a.apc_id 
 		AND c.apc_id = apc_id_in
-		ORDER BY rp.provider_name;
-
-	DROP TEMPORARY TABLE Location;
-	DROP TEMPORARY TABLE RegionalProvider;
+		ORDER BY p.provider_name;
 
 SET proc_success = 1;
 
@@ -0,0 +1,139 @@
+package com.daniel.hospitalcharges.chart;
+
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class keeps the rendered histogram images in a bounded cache. The
+ * least recently used image is dropped when the cache is full, and the whole
+ * cache is cleared when the dataset version changes.
+ *
+ * @author Bryan Daniel
+ */
+public class ChartCache {
+
+    /**
+     * The default number of images kept
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    /**
+     * The chart type of diagnosis-related groups
+     */
+    public static final String DRG = "drg";
+
+    /**
+     * The chart type of ambulatory payment classifications
+     */
+    public static final String APC = "apc";
+
+    /**
+     * The single instance of the cache
+     */
+    private static final ChartCache cache = new ChartCache();
+
+    /**
+     * The images by key, in access order
+     */
+    private final LinkedHashMap<String, byte[]> charts;
+
+    /**
+     * The maximum number of images kept
+     */
+    private int maximumSize;
+
+    /**
+     * The dataset version of the cached images
+     */
+    private long version;
+
+    /**
+     * The private constructor ensures that only a single instance of
+     * ChartCache is created.
+     */
+    private ChartCache() {
+        maximumSize = DEFAULT_MAXIMUM_SIZE;
+        version = ChargeEngineManager.getDatasetVersion();
+        charts = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * This static method returns the ChartCache object.
+     *
+     * @return the ChartCache object
+     */
+    public static ChartCache getInstance() {
+        return cache;
+    }
+
+    /**
+     * Returns the cache key of a chart.
+     *
+     * @param type the chart type, DRG or APC
+     * @param id the DRG or APC ID
+     * @return the key
+     */
+    public static String getKey(String type, int id) {
+        return type + "-" + id;
+    }
+
+    /**
+     * Sets the maximum number of images kept.
+     *
+     * @param maximumSize the maximum size
+     */
+    public synchronized void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns the image of a chart for the current dataset version.
+     *
+     * @param key the chart key
+     * @return the PNG image or null if it is not cached
+     */
+    public synchronized byte[] get(String key) {
+        checkVersion();
+        return charts.get(key);
+    }
+
+    /**
+     * Stores the image of a chart. The image is discarded if it was rendered
+     * for an earlier dataset version.
+     *
+     * @param key the chart key
+     * @param datasetVersion the dataset version the image was rendered from
+     * @param png the PNG image
+     */
+    public synchronized void put(String key, long datasetVersion, byte[] png) {
+        checkVersion();
+        if (datasetVersion == version) {
+            charts.put(key, png);
+        }
+    }
+
+    /**
+     * Removes all images.
+     */
+    public synchronized void clear() {
+        charts.clear();
+        version = ChargeEngineManager.getDatasetVersion();
+    }
+
+    /**
+     * Clears the cache if the dataset version has changed.
+     */
+    private void checkVersion() {
+        if (version != ChargeEngineManager.getDatasetVersion()) {
+            clear();
+        }
+    }
+}
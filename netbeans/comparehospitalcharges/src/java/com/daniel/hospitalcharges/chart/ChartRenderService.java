@@ -0,0 +1,306 @@
+package com.daniel.hospitalcharges.chart;
+
+import com.daniel.hospitalcharges.data.InpatientIO;
+import com.daniel.hospitalcharges.data.OutpatientIO;
+import com.daniel.hospitalcharges.data.StatisticsIO;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import com.daniel.hospitalcharges.data.memory.DataRefreshListener;
+import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
+import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
+import com.daniel.hospitalcharges.model.StatisticsResult;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This class renders the histograms on a dedicated pool of threads so that
+ * chart rendering never runs on a container thread. The number of concurrent
+ * renders and the number of queued renders are bounded, a chart is never
+ * rendered twice at the same time, and every DRG and APC chart is rendered
+ * into the chart cache in the background after startup and after each data
+ * refresh.
+ *
+ * @author Bryan Daniel
+ */
+public class ChartRenderService implements DataRefreshListener {
+
+    /**
+     * The default number of render threads
+     */
+    public static final int DEFAULT_THREADS = 2;
+
+    /**
+     * The default number of renders waiting for a thread
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+
+    /**
+     * The default time in milliseconds a request waits for a chart
+     */
+    public static final long DEFAULT_TIMEOUT = 5000;
+
+    /**
+     * The single instance of the service
+     */
+    private static final ChartRenderService service = new ChartRenderService();
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(ChartRenderService.class);
+
+    /**
+     * The renders in progress by chart key and dataset version
+     */
+    private final ConcurrentHashMap<String, Future<byte[]>> renders = new ConcurrentHashMap<>();
+
+    /**
+     * The render threads
+     */
+    private volatile ThreadPoolExecutor executor;
+
+    /**
+     * The thread pre-rendering the charts
+     */
+    private Thread prerenderThread;
+
+    /**
+     * The time in milliseconds a request waits for a chart
+     */
+    private volatile long timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * The private constructor ensures that only a single instance of
+     * ChartRenderService is created.
+     */
+    private ChartRenderService() {
+    }
+
+    /**
+     * This static method returns the ChartRenderService object.
+     *
+     * @return the ChartRenderService object
+     */
+    public static ChartRenderService getInstance() {
+        return service;
+    }
+
+    /**
+     * Starts the render threads, replacing any threads already started.
+     *
+     * @param threads the number of render threads
+     * @param queueSize the number of renders waiting for a thread
+     * @param timeout the time in milliseconds a request waits for a chart
+     */
+    public synchronized void start(int threads, int queueSize, long timeout) {
+        shutdown();
+        this.timeout = timeout;
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "chart-render-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        logger.info("Chart rendering started with " + threads + " threads and a queue of " + queueSize + ".");
+    }
+
+    /**
+     * Stops the render threads and the pre-rendering.
+     */
+    public synchronized void shutdown() {
+        if (prerenderThread != null) {
+            prerenderThread.interrupt();
+            prerenderThread = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        renders.clear();
+    }
+
+    /**
+     * Returns the image of a chart, waiting for it to be rendered if it is not
+     * in the chart cache.
+     *
+     * @param type the chart type, DRG or APC
+     * @param id the DRG or APC ID
+     * @return the PNG image or null if the chart has no data
+     * @throws TimeoutException if the chart is not ready within the timeout
+     * or cannot be queued
+     * @throws IOException if the chart cannot be rendered
+     */
+    public byte[] getChart(String type, int id) throws TimeoutException, IOException {
+        byte[] png = ChartCache.getInstance().get(ChartCache.getKey(type, id));
+        if (png != null) {
+            return png;
+        }
+        Future<byte[]> render;
+        try {
+            render = submit(type, id);
+        } catch (RejectedExecutionException e) {
+            throw new TimeoutException("The chart render queue is full.");
+        }
+        try {
+            return render.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for a chart.");
+        } catch (ExecutionException e) {
+            throw new IOException("The chart could not be rendered.", e.getCause());
+        }
+    }
+
+    /**
+     * Renders every DRG and APC chart into the chart cache on a background
+     * thread, one chart at a time so that requests keep the remaining render
+     * threads.
+     */
+    public synchronized void prerender() {
+        if (executor == null) {
+            return;
+        }
+        if (prerenderThread != null) {
+            prerenderThread.interrupt();
+        }
+        prerenderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    prerenderAll();
+                } catch (RuntimeException e) {
+                    logger.error("A RuntimeException occurred while pre-rendering the charts.", e);
+                }
+            }
+        }, "chart-prerender");
+        prerenderThread.setDaemon(true);
+        prerenderThread.start();
+    }
+
+    /**
+     * Pre-renders the charts of the new data.
+     *
+     * @param datasetVersion the new dataset version
+     */
+    @Override
+    public void dataRefreshed(long datasetVersion) {
+        prerender();
+    }
+
+    /**
+     * Queues the render of a chart unless it is already being rendered. The
+     * chart is rendered on the calling thread if the service is not started.
+     *
+     * @param type the chart type
+     * @param id the DRG or APC ID
+     * @return the render
+     */
+    private Future<byte[]> submit(final String type, final int id) {
+        ThreadPoolExecutor current = executor;
+        final String key = ChartCache.getKey(type, id);
+        final long version = ChargeEngineManager.getDatasetVersion();
+        final String renderKey = key + "-" + version;
+        FutureTask<byte[]> task = new FutureTask<>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                try {
+                    StatisticsResult stats = ChartCache.DRG.equals(type)
+                            ? StatisticsIO.getDiagnosisRelatedGroupStats(id)
+                            : StatisticsIO.getAmbulatoryPaymentClassificationStats(id);
+                    byte[] png = stats == null ? null : ChartRenderer.renderHistogram(stats);
+                    if (png != null) {
+                        ChartCache.getInstance().put(key, version, png);
+                    }
+                    return png;
+                } finally {
+                    renders.remove(renderKey);
+                }
+            }
+        });
+        Future<byte[]> render = renders.putIfAbsent(renderKey, task);
+        if (render != null) {
+            return render;
+        }
+        if (current == null) {
+            //not started, render on the calling thread
+            task.run();
+            return task;
+        }
+        try {
+            current.execute(task);
+        } catch (RejectedExecutionException e) {
+            renders.remove(renderKey, task);
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * Renders the charts of all DRGs and APCs that are not cached.
+     */
+    private void prerenderAll() {
+        long start = System.currentTimeMillis();
+        int rendered = 0;
+        ArrayList<DiagnosisRelatedGroup> drgs = InpatientIO.getDiagnosisRelatedGroups();
+        if (drgs != null) {
+            for (DiagnosisRelatedGroup drg : drgs) {
+                if (!prerender(ChartCache.DRG, drg.getDrgId())) {
+                    return;
+                }
+                rendered++;
+            }
+        }
+        ArrayList<AmbulatoryPaymentClassification> apcs = OutpatientIO.getAmbulatoryPaymentClassifications();
+        if (apcs != null) {
+            for (AmbulatoryPaymentClassification apc : apcs) {
+                if (!prerender(ChartCache.APC, apc.getApcId())) {
+                    return;
+                }
+                rendered++;
+            }
+        }
+        logger.info("Pre-rendered " + rendered + " charts in " + (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    /**
+     * Renders a chart if it is not cached and waits for the render to finish.
+     *
+     * @param type the chart type
+     * @param id the DRG or APC ID
+     * @return false if the pre-rendering was interrupted
+     */
+    private boolean prerender(String type, int id) {
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        if (ChartCache.getInstance().get(ChartCache.getKey(type, id)) != null) {
+            return true;
+        }
+        try {
+            submit(type, id).get();
+        } catch (InterruptedException e) {
+            return false;
+        } catch (RejectedExecutionException | ExecutionException e) {
+            logger.warn("The " + type + " " + id + " chart could not be pre-rendered.", e);
+        }
+        return true;
+    }
+}
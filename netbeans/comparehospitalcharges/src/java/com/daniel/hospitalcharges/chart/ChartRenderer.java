@@ -0,0 +1,198 @@
+package com.daniel.hospitalcharges.chart;
+
+import com.daniel.hospitalcharges.model.StatisticsResult;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartUtilities;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYBarRenderer;
+import org.jfree.data.statistics.SimpleHistogramBin;
+import org.jfree.data.statistics.SimpleHistogramDataset;
+
+/**
+ * This class renders the histograms for the statistics page as PNG images
+ *
+ * @author Bryan Daniel
+ */
+public class ChartRenderer {
+
+    /**
+     * The ending x coordinate for the histogram bar color gradient
+     */
+    private static final float BAR_GRADIENT_END_X_COORDINATE = 15.0f;
+
+    /**
+     * The x-axis offset for the chart shadow
+     */
+    private static final double SHADOW_X_OFFSET = 3.0;
+
+    /**
+     * The y-axis offset for the chart shadow
+     */
+    private static final double SHADOW_Y_OFFSET = 1.5;
+
+    /**
+     * The width of the stroke for the border
+     */
+    private static final float STROKE_WIDTH = 5.0f;
+
+    /**
+     * The width of the chart
+     */
+    private static final int CHART_WIDTH = 750;
+
+    /**
+     * The height of the chart
+     */
+    private static final int CHART_HEIGHT = 550;
+
+    /**
+     * The width of the only bin when all charges are equal
+     */
+    private static final double SINGLE_VALUE_BIN_WIDTH = 1.0;
+
+    /**
+     * The message shown while a chart is being rendered
+     */
+    private static final String PLACEHOLDER_MESSAGE = "The chart is being prepared. Please refresh shortly.";
+
+    /**
+     * The font size of the placeholder message
+     */
+    private static final int PLACEHOLDER_FONT_SIZE = 18;
+
+    /**
+     * The image shown while a chart is being rendered
+     */
+    private static byte[] placeholder = null;
+
+    // not called
+    private ChartRenderer() {
+    }
+
+    /**
+     * Returns the image shown in place of a chart that is not rendered yet.
+     * The image is rendered once.
+     *
+     * @return the PNG image
+     * @throws IOException if the image cannot be encoded
+     */
+    public static synchronized byte[] getPlaceholder() throws IOException {
+        if (placeholder == null) {
+            BufferedImage image = new BufferedImage(CHART_WIDTH, CHART_HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, CHART_WIDTH, CHART_HEIGHT);
+            graphics.setColor(Color.BLACK);
+            graphics.setStroke(new BasicStroke(STROKE_WIDTH));
+            graphics.drawRect(0, 0, CHART_WIDTH - 1, CHART_HEIGHT - 1);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, PLACEHOLDER_FONT_SIZE));
+            int width = graphics.getFontMetrics().stringWidth(PLACEHOLDER_MESSAGE);
+            graphics.drawString(PLACEHOLDER_MESSAGE, (CHART_WIDTH - width) / 2, CHART_HEIGHT / 2);
+            graphics.dispose();
+            placeholder = ChartUtilities.encodeAsPNG(image);
+        }
+        return placeholder;
+    }
+
+    /**
+     * Renders a histogram displaying the distribution of charges.
+     *
+     * @param stats the statistics holding the histogram bins
+     * @return the PNG image or null if there are no charges
+     * @throws IOException if the image cannot be encoded
+     */
+    public static byte[] renderHistogram(StatisticsResult stats) throws IOException {
+        int[] counts = stats.getHistogramCounts();
+        if (counts == null || counts.length == 0) {
+            return null;
+        }
+        SimpleHistogramDataset dataset = getDataset(counts, stats.getHistogramEdges());
+
+        boolean legend = true;
+        boolean tooltips = false;
+        boolean urls = false;
+
+        //get the chart
+        JFreeChart chart = ChartFactory.createHistogram(
+                "Price Distribution", "charge in dollars", "number of providers",
+                dataset, PlotOrientation.VERTICAL, legend, tooltips, urls);
+
+        chart.setBorderPaint(Color.BLACK);
+        chart.setBorderStroke(new BasicStroke(STROKE_WIDTH));
+        chart.setBorderVisible(true);
+
+        XYPlot plot = chart.getXYPlot();
+
+        //setting bar color
+        final XYBarRenderer renderer = (XYBarRenderer) plot.getRenderer();
+        GradientPaint gp = getCoolPaint();
+        renderer.setSeriesPaint(0, gp);
+
+        //creating a shadow
+        renderer.setShadowXOffset(SHADOW_X_OFFSET);
+        renderer.setShadowYOffset(SHADOW_Y_OFFSET);
+        renderer.setShadowVisible(true);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ChartUtilities.writeChartAsPNG(outputStream, chart, CHART_WIDTH, CHART_HEIGHT);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Creates the histogram dataset from precomputed bin counts and edges.
+     * Empty bins without width are left out since the dataset does not accept
+     * overlapping or empty bins.
+     *
+     * @param counts the number of charges in each bin
+     * @param edges the bin edges
+     * @return the dataset
+     */
+    private static SimpleHistogramDataset getDataset(int[] counts, double[] edges) {
+        SimpleHistogramDataset dataset = new SimpleHistogramDataset("number of providers");
+        dataset.setAdjustForBinSize(false);
+        for (int i = 0; i < counts.length; i++) {
+            double lower = edges[i];
+            double upper = edges[i + 1];
+            if (lower == upper) {
+                if (counts[i] == 0) {
+                    continue;
+                }
+                //all charges are equal, so give their bin a visible width
+                lower -= SINGLE_VALUE_BIN_WIDTH / 2;
+                upper += SINGLE_VALUE_BIN_WIDTH / 2;
+            }
+            boolean includeUpper = i == counts.length - 1;
+            SimpleHistogramBin bin = new SimpleHistogramBin(lower, upper, true, includeUpper);
+            bin.setItemCount(counts[i]);
+            dataset.addBin(bin);
+        }
+        return dataset;
+    }
+
+    /**
+     * Returns a nice gradient paint for the histogram bars.
+     *
+     * @return the gradient paint
+     */
+    private static GradientPaint getCoolPaint() {
+        Point2D start = new Point2D.Float(0, 0);
+        Point2D end = new Point2D.Float(BAR_GRADIENT_END_X_COORDINATE, 0);
+        GradientPaint p
+                = new GradientPaint(start, Color.GREEN, end, Color.GREEN.darker().darker());
+        return p;
+    }
+}
@@ -0,0 +1,280 @@
+package com.daniel.hospitalcharges.concurrent;
+
+import com.daniel.hospitalcharges.utility.ManagementUtility;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ObjectName;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This class stops calls to a failing resource. The circuit opens after a
+ * number of consecutive failures and rejects calls for the open duration, so
+ * callers fail at once instead of waiting on the resource. A single trial call
+ * is then allowed: its success closes the circuit and its failure opens it
+ * again. The state of each circuit breaker is published as a JMX MXBean.
+ *
+ * @author Bryan Daniel
+ */
+public class CircuitBreaker implements CircuitBreakerMXBean {
+
+    /**
+     * The default number of consecutive failures opening the circuit
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * The default time in milliseconds the circuit stays open
+     */
+    public static final long DEFAULT_OPEN_DURATION = 30000;
+
+    /**
+     * The states of the circuit
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(CircuitBreaker.class);
+
+    /**
+     * The name of the circuit
+     */
+    private final String name;
+
+    /**
+     * The state of the circuit
+     */
+    private State state = State.CLOSED;
+
+    /**
+     * The number of consecutive failures
+     */
+    private int consecutiveFailures;
+
+    /**
+     * The time in nanoseconds the circuit last opened
+     */
+    private long openedAt;
+
+    /**
+     * The number of consecutive failures opening the circuit
+     */
+    private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+    /**
+     * The time in milliseconds the circuit stays open
+     */
+    private volatile long openDuration = DEFAULT_OPEN_DURATION;
+
+    /**
+     * The number of times the circuit opened
+     */
+    private final AtomicLong openCount = new AtomicLong();
+
+    /**
+     * The number of calls rejected
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * The name under which the MXBean is registered
+     */
+    private volatile ObjectName objectName;
+
+    /**
+     * Creates a closed circuit breaker and registers its MXBean.
+     *
+     * @param name the name of the circuit
+     */
+    public CircuitBreaker(String name) {
+        this.name = name;
+        objectName = ManagementUtility.register("CircuitBreaker", name, this);
+    }
+
+    /**
+     * Returns whether a call may be made. An open circuit allows a single
+     * trial call once the open duration has passed.
+     *
+     * @return true if the call may be made, false if it is rejected
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN
+                && System.nanoTime() - openedAt >= TimeUnit.MILLISECONDS.toNanos(openDuration)) {
+            state = State.HALF_OPEN;
+            logger.info("The " + name + " circuit is half open; a trial call is allowed.");
+            return true;
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records a successful call, closing the circuit.
+     */
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("The " + name + " circuit is closed.");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Records a failed call, opening the circuit if the trial call failed or
+     * the failure threshold is reached.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            open();
+        }
+    }
+
+    /**
+     * Records a call cancelled by its caller, which neither closes nor opens
+     * the circuit. A cancelled trial call allows another trial call at once.
+     */
+    public synchronized void recordCancelled() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    /**
+     * Returns the state of the circuit.
+     *
+     * @return the state
+     */
+    public synchronized State getCircuitState() {
+        return state;
+    }
+
+    /**
+     * Returns the state of the circuit: CLOSED, OPEN or HALF_OPEN.
+     *
+     * @return the state
+     */
+    @Override
+    public String getState() {
+        return getCircuitState().name();
+    }
+
+    /**
+     * Returns the number of consecutive failures.
+     *
+     * @return the consecutive failure count
+     */
+    @Override
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Returns the number of times the circuit opened.
+     *
+     * @return the open count
+     */
+    @Override
+    public long getOpenCount() {
+        return openCount.get();
+    }
+
+    /**
+     * Returns the number of calls rejected while the circuit was open.
+     *
+     * @return the rejected count
+     */
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Returns the number of consecutive failures opening the circuit.
+     *
+     * @return the failure threshold
+     */
+    @Override
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive failures opening the circuit.
+     *
+     * @param failureThreshold the failure threshold
+     */
+    @Override
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+    }
+
+    /**
+     * Returns the time in milliseconds the circuit stays open before a trial
+     * call is allowed.
+     *
+     * @return the open duration
+     */
+    @Override
+    public long getOpenDurationMillis() {
+        return openDuration;
+    }
+
+    /**
+     * Sets the time in milliseconds the circuit stays open before a trial
+     * call is allowed.
+     *
+     * @param openDurationMillis the open duration
+     */
+    @Override
+    public void setOpenDurationMillis(long openDurationMillis) {
+        this.openDuration = openDurationMillis;
+    }
+
+    /**
+     * Opens the circuit.
+     */
+    @Override
+    public synchronized void trip() {
+        open();
+    }
+
+    /**
+     * Closes the circuit and clears the consecutive failures.
+     */
+    @Override
+    public synchronized void reset() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Removes the MXBean of the circuit breaker from the platform MBean
+     * server.
+     */
+    public void unregister() {
+        ManagementUtility.unregister(objectName);
+        objectName = null;
+    }
+
+    /**
+     * Opens the circuit for the open duration.
+     */
+    private void open() {
+        if (state != State.OPEN) {
+            openCount.incrementAndGet();
+            logger.warn("The " + name + " circuit is open after " + consecutiveFailures
+                    + " consecutive failures.");
+        }
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+}
@@ -0,0 +1,78 @@
+package com.daniel.hospitalcharges.concurrent;
+
+/**
+ * This interface exposes the state and settings of a circuit breaker through
+ * JMX.
+ *
+ * @author Bryan Daniel
+ */
+public interface CircuitBreakerMXBean {
+
+    /**
+     * Returns the state of the circuit: CLOSED, OPEN or HALF_OPEN.
+     *
+     * @return the state
+     */
+    public String getState();
+
+    /**
+     * Returns the number of consecutive failures.
+     *
+     * @return the consecutive failure count
+     */
+    public int getConsecutiveFailures();
+
+    /**
+     * Returns the number of times the circuit opened.
+     *
+     * @return the open count
+     */
+    public long getOpenCount();
+
+    /**
+     * Returns the number of calls rejected while the circuit was open.
+     *
+     * @return the rejected count
+     */
+    public long getRejectedCount();
+
+    /**
+     * Returns the number of consecutive failures opening the circuit.
+     *
+     * @return the failure threshold
+     */
+    public int getFailureThreshold();
+
+    /**
+     * Sets the number of consecutive failures opening the circuit.
+     *
+     * @param failureThreshold the failure threshold
+     */
+    public void setFailureThreshold(int failureThreshold);
+
+    /**
+     * Returns the time in milliseconds the circuit stays open before a trial
+     * call is allowed.
+     *
+     * @return the open duration
+     */
+    public long getOpenDurationMillis();
+
+    /**
+     * Sets the time in milliseconds the circuit stays open before a trial
+     * call is allowed.
+     *
+     * @param openDurationMillis the open duration
+     */
+    public void setOpenDurationMillis(long openDurationMillis);
+
+    /**
+     * Opens the circuit.
+     */
+    public void trip();
+
+    /**
+     * Closes the circuit and clears the consecutive failures.
+     */
+    public void reset();
+}
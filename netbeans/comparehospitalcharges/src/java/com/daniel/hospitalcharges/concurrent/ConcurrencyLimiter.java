@@ -0,0 +1,277 @@
+package com.daniel.hospitalcharges.concurrent;
+
+import com.daniel.hospitalcharges.utility.ManagementUtility;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ObjectName;
+
+/**
+ * This class limits the number of calls in flight to a resource, adapting the
+ * limit to the time the calls take. A recent average of the call time is
+ * compared with a baseline, the shortest recent call time: while the recent
+ * calls are not much slower, the limit grows by about its square root to
+ * probe for more capacity, and when they become slower, queueing has begun
+ * and the limit shrinks in proportion. Failed calls shrink the limit further.
+ * Calls over the limit are rejected at once instead of waiting. The state of
+ * each limiter is published as a JMX MXBean.
+ *
+ * @author Bryan Daniel
+ */
+public class ConcurrencyLimiter implements ConcurrencyLimiterMXBean {
+
+    /**
+     * The default initial limit
+     */
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+    /**
+     * The default smallest limit
+     */
+    public static final int DEFAULT_MINIMUM_LIMIT = 4;
+
+    /**
+     * The default largest limit, the size of the connection pools
+     */
+    public static final int DEFAULT_MAXIMUM_LIMIT = 100;
+
+    /**
+     * The number of calls averaged by the short-term call time
+     */
+    private static final int SHORT_WINDOW = 10;
+
+    /**
+     * The number of calls over which the baseline call time may rise by a
+     * factor of e, so it follows a slower resource
+     */
+    private static final int BASELINE_WINDOW = 600;
+
+    /**
+     * How much slower the recent calls may be before the limit shrinks
+     */
+    private static final double TOLERANCE = 1.5;
+
+    /**
+     * The weight of a new limit against the current limit
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * The factor applied to the limit when a call fails
+     */
+    private static final double BACKOFF = 0.9;
+
+    /**
+     * The limit, kept fractional so small changes accumulate
+     */
+    private double limit = DEFAULT_INITIAL_LIMIT;
+
+    /**
+     * The number of calls in flight
+     */
+    private int inFlight;
+
+    /**
+     * The short-term average call time in nanoseconds
+     */
+    private double shortRtt;
+
+    /**
+     * The baseline call time in nanoseconds
+     */
+    private double baselineRtt;
+
+    /**
+     * The smallest limit
+     */
+    private int minimumLimit = DEFAULT_MINIMUM_LIMIT;
+
+    /**
+     * The largest limit
+     */
+    private int maximumLimit = DEFAULT_MAXIMUM_LIMIT;
+
+    /**
+     * The number of calls rejected
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * The name under which the MXBean is registered
+     */
+    private volatile ObjectName objectName;
+
+    /**
+     * Creates a limiter and registers its MXBean.
+     *
+     * @param name the name of the limiter
+     */
+    public ConcurrencyLimiter(String name) {
+        objectName = ManagementUtility.register("ConcurrencyLimiter", name, this);
+    }
+
+    /**
+     * Starts a call if the limit allows it. A started call must be ended by
+     * release.
+     *
+     * @return the start time of the call in nanoseconds, or -1 if the call is
+     * rejected
+     */
+    public long acquire() {
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                rejectedCount.incrementAndGet();
+                return -1;
+            }
+            inFlight++;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends a call and adjusts the limit to its time.
+     *
+     * @param start the start time returned by acquire
+     * @param failed whether the call failed
+     */
+    public void release(long start, boolean failed) {
+        long rtt = System.nanoTime() - start;
+        synchronized (this) {
+            int callsInFlight = inFlight--;
+            if (failed) {
+                limit = Math.max(minimumLimit, limit * BACKOFF);
+                return;
+            }
+            if (baselineRtt == 0) {
+                shortRtt = rtt;
+                baselineRtt = rtt;
+                return;
+            }
+            shortRtt += (rtt - shortRtt) * 2 / (SHORT_WINDOW + 1);
+            baselineRtt = Math.min(rtt, baselineRtt * (1 + 1.0 / BASELINE_WINDOW));
+            if (callsInFlight < limit / 2) {
+                //the limit is not being used, so its fit cannot be judged
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineRtt / shortRtt));
+            double newLimit = limit * gradient + Math.sqrt(limit);
+            limit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+            limit = Math.max(minimumLimit, Math.min(maximumLimit, limit));
+        }
+    }
+
+    /**
+     * Ends a call without adjusting the limit, as for a call cancelled by its
+     * caller.
+     */
+    public synchronized void abandon() {
+        inFlight--;
+    }
+
+    /**
+     * Returns the number of calls currently allowed in flight.
+     *
+     * @return the limit
+     */
+    @Override
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Returns the number of calls in flight.
+     *
+     * @return the in-flight count
+     */
+    @Override
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Returns the number of calls rejected because the limit was reached.
+     *
+     * @return the rejected count
+     */
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Returns the recent average call time in milliseconds.
+     *
+     * @return the short-term call time
+     */
+    @Override
+    public synchronized double getShortRttMillis() {
+        return shortRtt / 1000000.0;
+    }
+
+    /**
+     * Returns the baseline call time in milliseconds, the shortest recent call
+     * time, which the recent average is compared with.
+     *
+     * @return the baseline call time
+     */
+    @Override
+    public synchronized double getBaselineRttMillis() {
+        return baselineRtt / 1000000.0;
+    }
+
+    /**
+     * Returns the smallest limit.
+     *
+     * @return the minimum limit
+     */
+    @Override
+    public synchronized int getMinimumLimit() {
+        return minimumLimit;
+    }
+
+    /**
+     * Sets the smallest limit.
+     *
+     * @param minimumLimit the minimum limit
+     */
+    @Override
+    public synchronized void setMinimumLimit(int minimumLimit) {
+        this.minimumLimit = Math.max(1, minimumLimit);
+        limit = Math.max(this.minimumLimit, limit);
+    }
+
+    /**
+     * Returns the largest limit.
+     *
+     * @return the maximum limit
+     */
+    @Override
+    public synchronized int getMaximumLimit() {
+        return maximumLimit;
+    }
+
+    /**
+     * Sets the largest limit.
+     *
+     * @param maximumLimit the maximum limit
+     */
+    @Override
+    public synchronized void setMaximumLimit(int maximumLimit) {
+        this.maximumLimit = Math.max(minimumLimit, maximumLimit);
+        limit = Math.min(this.maximumLimit, limit);
+    }
+
+    /**
+     * Resets the rejected count.
+     */
+    @Override
+    public void resetStatistics() {
+        rejectedCount.set(0);
+    }
+
+    /**
+     * Removes the MXBean of the limiter from the platform MBean server.
+     */
+    public void unregister() {
+        ManagementUtility.unregister(objectName);
+        objectName = null;
+    }
+}
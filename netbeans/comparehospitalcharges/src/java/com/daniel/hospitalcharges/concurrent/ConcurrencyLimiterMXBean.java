@@ -0,0 +1,79 @@
+package com.daniel.hospitalcharges.concurrent;
+
+/**
+ * This interface exposes the state and settings of a concurrency limiter
+ * through JMX.
+ *
+ * @author Bryan Daniel
+ */
+public interface ConcurrencyLimiterMXBean {
+
+    /**
+     * Returns the number of calls currently allowed in flight.
+     *
+     * @return the limit
+     */
+    public int getLimit();
+
+    /**
+     * Returns the number of calls in flight.
+     *
+     * @return the in-flight count
+     */
+    public int getInFlight();
+
+    /**
+     * Returns the number of calls rejected because the limit was reached.
+     *
+     * @return the rejected count
+     */
+    public long getRejectedCount();
+
+    /**
+     * Returns the recent average call time in milliseconds.
+     *
+     * @return the short-term call time
+     */
+    public double getShortRttMillis();
+
+    /**
+     * Returns the baseline call time in milliseconds, the shortest recent call
+     * time, which the recent average is compared with.
+     *
+     * @return the baseline call time
+     */
+    public double getBaselineRttMillis();
+
+    /**
+     * Returns the smallest limit.
+     *
+     * @return the minimum limit
+     */
+    public int getMinimumLimit();
+
+    /**
+     * Sets the smallest limit.
+     *
+     * @param minimumLimit the minimum limit
+     */
+    public void setMinimumLimit(int minimumLimit);
+
+    /**
+     * Returns the largest limit.
+     *
+     * @return the maximum limit
+     */
+    public int getMaximumLimit();
+
+    /**
+     * Sets the largest limit.
+     *
+     * @param maximumLimit the maximum limit
+     */
+    public void setMaximumLimit(int maximumLimit);
+
+    /**
+     * Resets the rejected count.
+     */
+    public void resetStatistics();
+}
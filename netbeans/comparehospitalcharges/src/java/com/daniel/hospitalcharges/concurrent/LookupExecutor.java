@@ -0,0 +1,230 @@
+package com.daniel.hospitalcharges.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This class runs independent database and cache lookups concurrently so that
+ * a request waits for the slowest lookup instead of the sum of all lookups.
+ * Lookups run on virtual threads when the JDK provides them and on a pool of
+ * daemon threads otherwise. Each request joins its lookups against a single
+ * deadline. Lookups run on the calling thread when the executor is not
+ * started.
+ *
+ * @author Bryan Daniel
+ */
+public class LookupExecutor {
+
+    /**
+     * The default number of lookup threads when virtual threads are not used
+     */
+    public static final int DEFAULT_THREADS = 16;
+
+    /**
+     * The default time in milliseconds a request waits for its lookups
+     */
+    public static final long DEFAULT_TIMEOUT = 10000;
+
+    /**
+     * The single instance of the executor
+     */
+    private static final LookupExecutor lookupExecutor = new LookupExecutor();
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(LookupExecutor.class);
+
+    /**
+     * The lookup threads
+     */
+    private volatile ExecutorService executor;
+
+    /**
+     * Indicates if the lookups run on virtual threads
+     */
+    private volatile boolean virtual;
+
+    /**
+     * The time in milliseconds a request waits for its lookups
+     */
+    private volatile long timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * The private constructor ensures that only a single instance of
+     * LookupExecutor is created.
+     */
+    private LookupExecutor() {
+    }
+
+    /**
+     * This static method returns the LookupExecutor object.
+     *
+     * @return the LookupExecutor object
+     */
+    public static LookupExecutor getInstance() {
+        return lookupExecutor;
+    }
+
+    /**
+     * Starts the lookup threads, replacing any threads already started.
+     *
+     * @param virtualThreads true to use virtual threads if the JDK provides
+     * them
+     * @param threads the number of lookup threads when virtual threads are not
+     * used
+     * @param timeout the time in milliseconds a request waits for its lookups
+     */
+    public synchronized void start(boolean virtualThreads, int threads, long timeout) {
+        shutdown();
+        this.timeout = timeout;
+        ExecutorService started = virtualThreads ? createVirtualThreadExecutor() : null;
+        virtual = started != null;
+        if (started == null) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "lookup-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            pool.allowCoreThreadTimeOut(true);
+            started = pool;
+        }
+        executor = started;
+        logger.info("Lookups started on " + (virtual ? "virtual threads." : threads + " threads."));
+    }
+
+    /**
+     * Stops the lookup threads. Later lookups run on the calling thread.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        virtual = false;
+    }
+
+    /**
+     * Indicates if the lookups run on virtual threads.
+     *
+     * @return true if virtual threads are used
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Returns the deadline of lookups started now, for use with join.
+     *
+     * @return the deadline in System.nanoTime units
+     */
+    public long getDeadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    }
+
+    /**
+     * Starts a lookup. The lookup runs on the calling thread if the executor
+     * is not started or is shutting down. The tracked request of the calling
+     * thread, if any, is bound to the thread running the lookup.
+     *
+     * @param <T> the type of the lookup result
+     * @param lookup the lookup
+     * @return the pending result
+     */
+    public <T> Future<T> submit(Callable<T> lookup) {
+        TrackedRequest request = TrackedRequest.current();
+        FutureTask<T> task = new FutureTask<>(request == null ? lookup : bind(request, lookup));
+        ExecutorService current = executor;
+        if (current != null) {
+            try {
+                current.execute(task);
+                return task;
+            } catch (RejectedExecutionException e) {
+                //shutting down, so run the lookup here
+            }
+        }
+        task.run();
+        return task;
+    }
+
+    /**
+     * Waits for a lookup until the deadline. A lookup that is late is
+     * cancelled.
+     *
+     * @param <T> the type of the lookup result
+     * @param lookup the pending result
+     * @param deadline the deadline in System.nanoTime units
+     * @param description the lookup description used in log messages
+     * @return the result or null if the lookup failed or is late
+     */
+    public <T> T join(Future<T> lookup, long deadline, String description) {
+        try {
+            return lookup.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            lookup.cancel(true);
+            logger.warn("The " + description + " lookup did not finish in time.");
+        } catch (InterruptedException e) {
+            lookup.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("An exception occurred in the " + description + " lookup.", e.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * Wraps a lookup so it runs with the given request bound to its thread.
+     *
+     * @param <T> the type of the lookup result
+     * @param request the tracked request
+     * @param lookup the lookup
+     * @return the wrapped lookup
+     */
+    private static <T> Callable<T> bind(final TrackedRequest request, final Callable<T> lookup) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                TrackedRequest previous = request.bind();
+                try {
+                    return lookup.call();
+                } finally {
+                    TrackedRequest.unbind(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per lookup.
+     *
+     * @return the executor or null if the JDK has no virtual threads
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.daniel.hospitalcharges.concurrent;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class keeps the latest query of each property of a session-scoped
+ * bean. Starting a query cancels the query still running for the same
+ * property, including its database statement, and a bean applies the answer
+ * of a query only if it was not cancelled, so only the latest selection is
+ * computed and shown.
+ *
+ * @author Bryan Daniel
+ */
+public class RequestTracker implements Serializable {
+
+    /**
+     * Serial version UID
+     */
+    private static final long serialVersionUID = 4310577618234201984L;
+
+    /**
+     * The running request of each property
+     */
+    private transient Map<String, TrackedRequest> requests;
+
+    /**
+     * Starts a query for a property, cancelling the running query for the
+     * same property, and binds it to the current thread until it is finished.
+     *
+     * @param property the property queried
+     * @return the request
+     */
+    public TrackedRequest start(String property) {
+        TrackedRequest request = new TrackedRequest(property);
+        TrackedRequest previous;
+        synchronized (this) {
+            if (requests == null) {
+                requests = new HashMap<>();
+            }
+            previous = requests.put(property, request);
+        }
+        if (previous != null) {
+            previous.cancel();
+        }
+        request.previous = request.bind();
+        return request;
+    }
+
+    /**
+     * Finishes a query and unbinds it from the current thread.
+     *
+     * @param request the request
+     */
+    public void finish(TrackedRequest request) {
+        TrackedRequest.unbind(request.previous);
+        synchronized (this) {
+            if (requests != null && requests.get(request.getProperty()) == request) {
+                requests.remove(request.getProperty());
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.daniel.hospitalcharges.concurrent;
+
+import com.daniel.hospitalcharges.utility.ManagementUtility;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ObjectName;
+
+/**
+ * This class coalesces identical concurrent calls. The first call for a key
+ * runs its work, and every call for the same key made while it is in flight
+ * waits for and receives the same result or exception. Nothing is kept after
+ * the work finishes, so later calls always see fresh data and a call retried
+ * after a shared failure starts a new flight. Callers sharing a
+ * result share the same object. The counts of each group are published as a
+ * JMX MXBean.
+ *
+ * @author Bryan Daniel
+ */
+public class SingleFlight implements SingleFlightMXBean {
+
+    /**
+     * A call in flight and the number of calls waiting for its result
+     */
+    private static class Flight {
+
+        /**
+         * The work of the call
+         */
+        private final FutureTask<?> task;
+
+        /**
+         * The number of calls waiting for the result
+         */
+        private final AtomicInteger followers = new AtomicInteger();
+
+        /**
+         * Creates a flight.
+         *
+         * @param task the work of the call
+         */
+        private Flight(FutureTask<?> task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * The calls in flight by key
+     */
+    private final ConcurrentHashMap<Object, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * The number of calls
+     */
+    private final AtomicLong callCount = new AtomicLong();
+
+    /**
+     * The number of calls that ran their work
+     */
+    private final AtomicLong executionCount = new AtomicLong();
+
+    /**
+     * The number of calls that shared a result
+     */
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * The name under which the MXBean is registered
+     */
+    private volatile ObjectName objectName;
+
+    /**
+     * Creates a single-flight group and registers its MXBean.
+     *
+     * @param name the name of the group
+     */
+    public SingleFlight(String name) {
+        objectName = ManagementUtility.register("SingleFlight", name, this);
+    }
+
+    /**
+     * Runs the work for a key unless a call with an equal key is in flight,
+     * in which case its result is returned instead.
+     *
+     * @param <T> the type of the result
+     * @param key the key identifying identical calls
+     * @param work the work
+     * @return the result
+     * @throws ExecutionException if the work threw an exception
+     * @throws InterruptedException if interrupted while waiting for a call in
+     * flight
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Callable<T> work) throws ExecutionException, InterruptedException {
+        callCount.incrementAndGet();
+        FutureTask<T> task = new FutureTask<>(work);
+        Flight ownFlight = new Flight(task);
+        Flight flight = flights.putIfAbsent(key, ownFlight);
+        if (flight != null) {
+            coalescedCount.incrementAndGet();
+            flight.followers.incrementAndGet();
+            try {
+                return (T) flight.task.get();
+            } finally {
+                flight.followers.decrementAndGet();
+                //the leader may not have removed the finished flight yet
+                if (flight.task.isDone()) {
+                    flights.remove(key, flight);
+                }
+            }
+        }
+        executionCount.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            flights.remove(key, ownFlight);
+        }
+        return task.get();
+    }
+
+    /**
+     * Returns whether other calls are waiting for the result of the call in
+     * flight for a key, in which case the work must not be cancelled for the
+     * sake of the calling one.
+     *
+     * @param key the key identifying identical calls
+     * @return true if the call in flight has followers
+     */
+    public boolean hasFollowers(Object key) {
+        Flight flight = flights.get(key);
+        return flight != null && flight.followers.get() > 0;
+    }
+
+    /**
+     * Returns the number of calls made through the group.
+     *
+     * @return the call count
+     */
+    @Override
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    /**
+     * Returns the number of calls that ran their work.
+     *
+     * @return the execution count
+     */
+    @Override
+    public long getExecutionCount() {
+        return executionCount.get();
+    }
+
+    /**
+     * Returns the number of calls that shared the result of a call already in
+     * flight.
+     *
+     * @return the coalesced count
+     */
+    @Override
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of calls in flight.
+     *
+     * @return the in-flight count
+     */
+    @Override
+    public int getInFlightCount() {
+        return flights.size();
+    }
+
+    /**
+     * Resets the call, execution and coalesced counts.
+     */
+    @Override
+    public void resetStatistics() {
+        callCount.set(0);
+        executionCount.set(0);
+        coalescedCount.set(0);
+    }
+
+    /**
+     * Removes the MXBean of the group from the platform MBean server.
+     */
+    public void unregister() {
+        ManagementUtility.unregister(objectName);
+        objectName = null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.daniel.hospitalcharges.concurrent;
+
+/**
+ * This interface exposes the statistics of a single-flight group through JMX.
+ *
+ * @author Bryan Daniel
+ */
+public interface SingleFlightMXBean {
+
+    /**
+     * Returns the number of calls made through the group.
+     *
+     * @return the call count
+     */
+    public long getCallCount();
+
+    /**
+     * Returns the number of calls that ran their work.
+     *
+     * @return the execution count
+     */
+    public long getExecutionCount();
+
+    /**
+     * Returns the number of calls that shared the result of a call already in
+     * flight.
+     *
+     * @return the coalesced count
+     */
+    public long getCoalescedCount();
+
+    /**
+     * Returns the number of calls in flight.
+     *
+     * @return the in-flight count
+     */
+    public int getInFlightCount();
+
+    /**
+     * Resets the call, execution and coalesced counts.
+     */
+    public void resetStatistics();
+}
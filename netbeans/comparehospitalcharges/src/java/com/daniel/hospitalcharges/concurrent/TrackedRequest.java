@@ -0,0 +1,169 @@
+package com.daniel.hospitalcharges.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class represents a query started for a property of a session, which is
+ * cancelled when a newer query for the same property starts. The request is
+ * bound to the thread running it, so the data layer can refuse to start work
+ * for a cancelled request and can attach its running statements, which are
+ * cancelled with the request.
+ *
+ * @author Bryan Daniel
+ */
+public class TrackedRequest {
+
+    /**
+     * The work of a request that can be cancelled.
+     */
+    public interface Cancellation {
+
+        /**
+         * Cancels the work.
+         */
+        public void cancel();
+    }
+
+    /**
+     * The request bound to each thread
+     */
+    private static final ThreadLocal<TrackedRequest> currentRequest = new ThreadLocal<>();
+
+    /**
+     * The number of requests cancelled
+     */
+    private static final AtomicLong cancelledCount = new AtomicLong();
+
+    /**
+     * The property queried
+     */
+    private final String property;
+
+    /**
+     * Whether the request is cancelled
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * The running work of the request
+     */
+    private final List<Cancellation> cancellations = new ArrayList<>();
+
+    /**
+     * The request bound to the starting thread before this one
+     */
+    TrackedRequest previous;
+
+    /**
+     * Creates a request.
+     *
+     * @param property the property queried
+     */
+    TrackedRequest(String property) {
+        this.property = property;
+    }
+
+    /**
+     * Returns the request bound to the current thread.
+     *
+     * @return the request or null if none is bound
+     */
+    public static TrackedRequest current() {
+        return currentRequest.get();
+    }
+
+    /**
+     * Returns the number of requests cancelled by newer requests.
+     *
+     * @return the cancelled count
+     */
+    public static long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * Returns the property queried.
+     *
+     * @return the property
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Returns whether a newer request for the same property has started.
+     *
+     * @return true if the request is cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Attaches running work to the request.
+     *
+     * @param cancellation the work
+     * @return false if the request is already cancelled, so the work must not
+     * run
+     */
+    public synchronized boolean attach(Cancellation cancellation) {
+        if (cancelled) {
+            return false;
+        }
+        cancellations.add(cancellation);
+        return true;
+    }
+
+    /**
+     * Detaches finished work from the request.
+     *
+     * @param cancellation the work
+     */
+    public synchronized void detach(Cancellation cancellation) {
+        cancellations.remove(cancellation);
+    }
+
+    /**
+     * Cancels the request and its running work.
+     */
+    void cancel() {
+        List<Cancellation> running;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            running = new ArrayList<>(cancellations);
+        }
+        cancelledCount.incrementAndGet();
+        for (Cancellation cancellation : running) {
+            cancellation.cancel();
+        }
+    }
+
+    /**
+     * Binds the request to the current thread.
+     *
+     * @return the request bound before
+     */
+    TrackedRequest bind() {
+        TrackedRequest previous = currentRequest.get();
+        currentRequest.set(this);
+        return previous;
+    }
+
+    /**
+     * Restores the request bound to the current thread before this one.
+     *
+     * @param previous the request bound before
+     */
+    static void unbind(TrackedRequest previous) {
+        if (previous == null) {
+            currentRequest.remove();
+        } else {
+            currentRequest.set(previous);
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package com.daniel.hospitalcharges.data;
 
-import com.daniel.hospitalcharges.data.pool.InpatientConnectionPool;
+import com.daniel.hospitalcharges.data.access.Procedure;
+import com.daniel.hospitalcharges.data.access.ResultHandler;
+import com.daniel.hospitalcharges.data.access.ResultHandlers;
+import com.daniel.hospitalcharges.data.access.ResultReader;
+import com.daniel.hospitalcharges.data.access.RowMapper;
+import com.daniel.hospitalcharges.data.access.RowMappers;
+import com.daniel.hospitalcharges.data.memory.ChargeColumn;
+import com.daniel.hospitalcharges.data.memory.ChargeEngine;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import com.daniel.hospitalcharges.data.pool.ConnectionPool;
 import com.daniel.hospitalcharges.model.InpatientComparisonResult;
 import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
 import com.daniel.hospitalcharges.model.Provider;
-import com.daniel.hospitalcharges.data.utility.DatabaseUtility;
 import java.math.BigDecimal;
-import java.sql.CallableStatement;
-import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 /**
- * This class retrieves provider data from the database.
+ * This class retrieves provider data from the in-memory charge engine when it
+ * is loaded and from the database otherwise.
  *
  * @author Bryan Daniel
  */
@@ -37,47 +45,186 @@ public class InpatientIO {
     private static Logger logger = LogManager.getLogger(InpatientIO.class);
 
     /**
-     * This method retrieves the complete list of diagnosis-related group
-     * definitions.
-     *
-     * @return the list of DRG definitions or null if an error occurs
+     * The getDRGs procedure
      */
-    public static ArrayList<DiagnosisRelatedGroup> getDiagnosisRelatedGroups() {
-        InpatientConnectionPool pool = InpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-        ArrayList<DiagnosisRelatedGroup> diagnosisRelatedGroups = new ArrayList<>();
+    private static final Procedure GET_DRGS = new Procedure("getDRGs", 0);
 
-        try {
-            callableStatement = connection.prepareCall("{CALL getDRGs(?)}");
-            callableStatement.registerOutParameter(1, java.sql.Types.TINYINT);
+    /**
+     * The getStates procedure
+     */
+    private static final Procedure GET_STATES = new Procedure("getStates", 1);
 
-            //reads true if result set exists
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
+    /**
+     * The getCitiesToCompare procedure
+     */
+    private static final Procedure GET_CITIES_TO_COMPARE = new Procedure("getCitiesToCompare", 2);
+
+    /**
+     * The getCities procedure
+     */
+    private static final Procedure GET_CITIES = new Procedure("getCities", 1);
+
+    /**
+     * The getProviders procedure
+     */
+    private static final Procedure GET_PROVIDERS = new Procedure("getProviders", 3);
+
+    /**
+     * The getRegionalDRGs procedure
+     */
+    private static final Procedure GET_REGIONAL_DRGS = new Procedure("getRegionalDRGs", 2);
+
+    /**
+     * The getCharges procedure
+     */
+    private static final Procedure GET_CHARGES = new Procedure("getCharges", 2);
+
+    /**
+     * The getRegionalCharges procedure
+     */
+    private static final Procedure GET_REGIONAL_CHARGES = new Procedure("getRegionalCharges", 3);
+
+    /**
+     * Reads the DRGs of getDRGs, keeping the first row of each DRG ID
+     */
+    private static final ResultHandler<ArrayList<DiagnosisRelatedGroup>> DRGS_HANDLER
+            = new ResultHandler<ArrayList<DiagnosisRelatedGroup>>() {
+        private final RowMapper<DiagnosisRelatedGroup> mapper = createDiagnosisRelatedGroupMapper();
+
+        @Override
+        public ArrayList<DiagnosisRelatedGroup> handle(ResultReader reader) throws SQLException {
+            ArrayList<DiagnosisRelatedGroup> diagnosisRelatedGroups = new ArrayList<>();
+            HashSet<Integer> ids = new HashSet<>();
+            for (DiagnosisRelatedGroup diagnosisRelatedGroup : reader.list(mapper)) {
+                if (ids.add(diagnosisRelatedGroup.getDrgId())) {
+                    diagnosisRelatedGroups.add(diagnosisRelatedGroup);
+                }
             }
-            resultSet = callableStatement.getResultSet();
+            return diagnosisRelatedGroups;
+        }
+    };
+
+    /**
+     * Reads the states of getStates
+     */
+    private static final ResultHandler<ArrayList<String>> STATES_HANDLER
+            = ResultHandlers.distinct(RowMappers.string("state"));
+
+    /**
+     * Reads the cities of getCitiesToCompare
+     */
+    private static final ResultHandler<ArrayList<String>> CITIES_TO_COMPARE_HANDLER
+            = ResultHandlers.distinct(RowMappers.string("city"));
+
+    /**
+     * Reads the cities of getCities
+     */
+    private static final ResultHandler<ArrayList<String>> CITIES_HANDLER
+            = ResultHandlers.distinct(RowMappers.string("city"));
+
+    /**
+     * Reads the providers of getProviders
+     */
+    private static final ResultHandler<ArrayList<Provider>> PROVIDERS_HANDLER
+            = ResultHandlers.list(RowMappers.provider("provider id"));
+
+    /**
+     * Reads the DRGs of getRegionalDRGs
+     */
+    private static final ResultHandler<ArrayList<DiagnosisRelatedGroup>> REGIONAL_DRGS_HANDLER
+            = ResultHandlers.list(createDiagnosisRelatedGroupMapper());
 
-            while (resultSet.next()) {
+    /**
+     * Reads the charge amounts and their percentile ranks from the four result
+     * sets of getCharges
+     */
+    private static final ResultHandler<DiagnosisRelatedGroup> CHARGES_HANDLER
+            = new ResultHandler<DiagnosisRelatedGroup>() {
+        private final RowMapper<DiagnosisRelatedGroup> amounts
+                = new RowMapper<DiagnosisRelatedGroup>("avg charges", "avg payments", "avg medicare payments") {
+            @Override
+            public DiagnosisRelatedGroup map(ResultSet resultSet, int[] columns) throws SQLException {
                 DiagnosisRelatedGroup diagnosisRelatedGroup = new DiagnosisRelatedGroup();
-                diagnosisRelatedGroup.setDrgId(resultSet.getInt("drg id"));
-                diagnosisRelatedGroup.setDrgDefinition(resultSet.getString("drg definition"));
-                if (!diagnosisRelatedGroups.contains(diagnosisRelatedGroup)) {
-                    diagnosisRelatedGroups.add(diagnosisRelatedGroup);
+                diagnosisRelatedGroup.setAvgCharges(resultSet.getString(columns[0]));
+                diagnosisRelatedGroup.setAvgPayments(resultSet.getString(columns[1]));
+                diagnosisRelatedGroup.setAvgMedicarePayments(resultSet.getString(columns[2]));
+                return diagnosisRelatedGroup;
+            }
+        };
+        private final RowMapper<BigDecimal> avgChargesPercentile
+                = RowMappers.decimal("avg charges percentile", SCALE);
+        private final RowMapper<BigDecimal> avgPaymentsPercentile
+                = RowMappers.decimal("avg payments percentile", SCALE);
+        private final RowMapper<BigDecimal> avgMedicarePaymentsPercentile
+                = RowMappers.decimal("avg medicare payments percentile", SCALE);
+
+        @Override
+        public DiagnosisRelatedGroup handle(ResultReader reader) throws SQLException {
+            DiagnosisRelatedGroup diagnosisRelatedGroup = reader.last(amounts);
+            if (diagnosisRelatedGroup == null) {
+                diagnosisRelatedGroup = new DiagnosisRelatedGroup();
+            }
+            if (!reader.next()) {
+                return null;
+            }
+            diagnosisRelatedGroup.setAvgChargesPercentileRank(reader.last(avgChargesPercentile));
+            if (!reader.next()) {
+                return null;
+            }
+            diagnosisRelatedGroup.setAvgPaymentsPercentileRank(reader.last(avgPaymentsPercentile));
+            if (!reader.next()) {
+                return null;
+            }
+            diagnosisRelatedGroup.setAvgMedicarePaymentsPercentileRank(reader.last(avgMedicarePaymentsPercentile));
+            return diagnosisRelatedGroup;
+        }
+    };
+
+    /**
+     * Reads the charges of getRegionalCharges
+     */
+    private static final ResultHandler<ArrayList<InpatientComparisonResult>> REGIONAL_CHARGES_HANDLER
+            = ResultHandlers.list(new RowMapper<InpatientComparisonResult>(
+                    RowMappers.concat(RowMappers.getProviderLabels("provider id"), "drg id", "drg definition",
+                            "avg charges", "avg payments", "avg medicare payments")) {
+                @Override
+                public InpatientComparisonResult map(ResultSet resultSet, int[] columns) throws SQLException {
+                    int column = RowMappers.PROVIDER_COLUMNS;
+                    InpatientComparisonResult inpatientComparisonResult = new InpatientComparisonResult();
+                    DiagnosisRelatedGroup diagnosisRelatedGroup = new DiagnosisRelatedGroup();
+                    diagnosisRelatedGroup.setDrgId(resultSet.getInt(columns[column++]));
+                    diagnosisRelatedGroup.setDrgDefinition(resultSet.getString(columns[column++]));
+                    diagnosisRelatedGroup.setAvgCharges(resultSet.getString(columns[column++]));
+                    diagnosisRelatedGroup.setAvgPayments(resultSet.getString(columns[column++]));
+                    diagnosisRelatedGroup.setAvgMedicarePayments(resultSet.getString(columns[column]));
+                    inpatientComparisonResult.setProvider(RowMappers.readProvider(resultSet, columns, 0));
+                    inpatientComparisonResult.setDrg(diagnosisRelatedGroup);
+                    return inpatientComparisonResult;
                 }
+            });
+
+    /**
+     * This method retrieves the complete list of diagnosis-related group
+     * definitions.
+     *
+     * @return the list of DRG definitions or null if an error occurs
+     */
+    public static ArrayList<DiagnosisRelatedGroup> getDiagnosisRelatedGroups() {
+        ChargeEngine engine = ChargeEngineManager.getInpatientEngine();
+        if (engine != null) {
+            ArrayList<DiagnosisRelatedGroup> diagnosisRelatedGroups = new ArrayList<>(engine.getClassificationCount());
+            for (int i = 0; i < engine.getClassificationCount(); i++) {
+                diagnosisRelatedGroups.add(getDiagnosisRelatedGroup(engine, i));
             }
+            return diagnosisRelatedGroups;
+        }
 
+        try {
+            return GET_DRGS.call(ConnectionPool.getInpatientPool(), DRGS_HANDLER);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getDiagnosisRelatedGroups method.", e);
+            Procedure.logFailure(logger, "getDiagnosisRelatedGroups", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return diagnosisRelatedGroups;
     }
 
     /**
@@ -87,37 +234,16 @@ public class InpatientIO {
      * @return the list of states or null if an error occurs
      */
     public static ArrayList<String> getStates(int drgId) {
-        InpatientConnectionPool pool = InpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
+        ChargeEngine engine = ChargeEngineManager.getInpatientEngine();
+        if (engine != null) {
+            return engine.getStates(drgId);
+        }
 
         try {
-            callableStatement = connection.prepareCall("{CALL getStates(?, ?)}");
-            callableStatement.setInt(1, drgId);
-            callableStatement.registerOutParameter(2, java.sql.Types.TINYINT);
-
-            //reads true if result set exists
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-            ArrayList<String> states = new ArrayList<>();
-            while (resultSet.next()) {
-                String state = resultSet.getString("state");
-                if (!states.contains(state)) {
-                    states.add(state);
-                }
-            }
-            return states;
+            return GET_STATES.call(ConnectionPool.getInpatientPool(), STATES_HANDLER, drgId);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getStates method.", e);
+            Procedure.logFailure(logger, "getStates", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
     }
 
@@ -130,38 +256,17 @@ public class InpatientIO {
      * @return the list of cities or null if an error occurs
      */
     public static ArrayList<String> getCitiesToCompare(int drgId, String providerState) {
-        InpatientConnectionPool pool = InpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
+        ChargeEngine engine = ChargeEngineManager.getInpatientEngine();
+        if (engine != null) {
+            return engine.getCitiesToCompare(drgId, providerState);
+        }
 
         try {
-            callableStatement = connection.prepareCall("{CALL getCitiesToCompare(?, ?, ?)}");
-            callableStatement.setInt(1, drgId);
-            callableStatement.setString(2, providerState);
-            callableStatement.registerOutParameter(3, java.sql.Types.TINYINT);
-
-            //reads true if result set exists
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-            ArrayList<String> cities = new ArrayList<>();
-            while (resultSet.next()) {
-                String city = resultSet.getString("city");
-                if (!cities.contains(city)) {
-                    cities.add(city);
-                }
-            }
-            return cities;
+            return GET_CITIES_TO_COMPARE.call(ConnectionPool.getInpatientPool(), CITIES_TO_COMPARE_HANDLER,
+                    drgId, providerState);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getCitiesToCompare method.", e);
+            Procedure.logFailure(logger, "getCitiesToCompare", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
     }
 
@@ -172,37 +277,16 @@ public class InpatientIO {
      * @return the list of cities or null if an error occurs
      */
     public static ArrayList<String> getCities(String providerState) {
-        InpatientConnectionPool pool = InpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
+        ChargeEngine engine = ChargeEngineManager.getInpatientEngine();
+        if (engine != null) {
+            return engine.getCities(providerState);
+        }
 
         try {
-            callableStatement = connection.prepareCall("{CALL getCities(?, ?)}");
-            callableStatement.setString(1, providerState);
-            callableStatement.registerOutParameter(2, java.sql.Types.TINYINT);
-
-            //reads true if result set exists
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-            ArrayList<String> cities = new ArrayList<>();
-            while (resultSet.next()) {
-                String city = resultSet.getString("city");
-                if (!cities.contains(city)) {
-                    cities.add(city);
-                }
-            }
-            return cities;
+            return GET_CITIES.call(ConnectionPool.getInpatientPool(), CITIES_HANDLER, providerState);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getCities method.", e);
+            Procedure.logFailure(logger, "getCities", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
     }
 
@@ -216,45 +300,21 @@ public class InpatientIO {
      */
     public static ArrayList<Provider> getProviders(String state, String city,
             int drgId) {
-        InpatientConnectionPool pool = InpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-        ArrayList<Provider> providers = new ArrayList<>();
-
-        try {
-            callableStatement = connection.prepareCall("{CALL getProviders(?, ?, ?, ?)}");
-            callableStatement.setInt(1, drgId);
-            callableStatement.setString(2, city);
-            callableStatement.setString(3, state);
-            callableStatement.registerOutParameter(4, java.sql.Types.TINYINT);
-
-            //reads true if result set exists
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-            while (resultSet.next()) {
-                Provider provider = new Provider();
-                provider.setId(resultSet.getInt("provider id"));
-                provider.setName(resultSet.getString("provider name"));
-                provider.setStreet(resultSet.getString("provider street"));
-                provider.setCity(resultSet.getString("provider city"));
-                provider.setState(resultSet.getString("provider state"));
-                provider.setZipCode(resultSet.getString("provider zip"));
-                providers.add(provider);
+        ChargeEngine engine = ChargeEngineManager.getInpatientEngine();
+        if (engine != null) {
+            ArrayList<Provider> providers = new ArrayList<>();
+            for (int position : engine.getProviders(state, city, drgId)) {
+                providers.add(engine.getProvider(position));
             }
+            return providers;
+        }
 
+        try {
+            return GET_PROVIDERS.call(ConnectionPool.getInpatientPool(), PROVIDERS_HANDLER, drgId, city, state);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getProviders method.", e);
+            Procedure.logFailure(logger, "getProviders", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return providers;
     }
 
     /**
@@ -267,40 +327,22 @@ public class InpatientIO {
      */
     public static ArrayList<DiagnosisRelatedGroup> getDiagnosisRelatedGroupsByRegion(String selectedState,
             String selectedCity) {
-        InpatientConnectionPool pool = InpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-        ArrayList<DiagnosisRelatedGroup> diagnosisRelatedGroups = new ArrayList<>();
-
-        try {
-            callableStatement = connection.prepareCall("{CALL getRegionalDRGs(?, ?, ?)}");
-            callableStatement.setString(1, selectedCity);
-            callableStatement.setString(2, selectedState);
-            callableStatement.registerOutParameter(3, java.sql.Types.TINYINT);
-
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                DiagnosisRelatedGroup diagnosisRelatedGroup = new DiagnosisRelatedGroup();
-                diagnosisRelatedGroup.setDrgId(resultSet.getInt("drg id"));
-                diagnosisRelatedGroup.setDrgDefinition(resultSet.getString("drg definition"));
-                diagnosisRelatedGroups.add(diagnosisRelatedGroup);
+        ChargeEngine engine = ChargeEngineManager.getInpatientEngine();
+        if (engine != null) {
+            ArrayList<DiagnosisRelatedGroup> diagnosisRelatedGroups = new ArrayList<>();
+            for (int position : engine.getRegionalClassifications(selectedState, selectedCity)) {
+                diagnosisRelatedGroups.add(getDiagnosisRelatedGroup(engine, position));
             }
+            return diagnosisRelatedGroups;
+        }
 
+        try {
+            return GET_REGIONAL_DRGS.call(ConnectionPool.getInpatientPool(), REGIONAL_DRGS_HANDLER,
+                    selectedCity, selectedState);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getDiagnosisRelatedGroupsByRegion method.", e);
+            Procedure.logFailure(logger, "getDiagnosisRelatedGroupsByRegion", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return diagnosisRelatedGroups;
     }
 
     /**
@@ -312,72 +354,35 @@ public class InpatientIO {
      * @return the charges or null if an error occurs
      */
     public static DiagnosisRelatedGroup getCharges(int drgId, int providerId) {
-
-        InpatientConnectionPool pool = InpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-        DiagnosisRelatedGroup diagnosisRelatedGroup = new DiagnosisRelatedGroup();
-
-        try {
-            callableStatement = connection.prepareCall("{CALL getCharges(?, ?, ?)}");
-            callableStatement.setInt(1, drgId);
-            callableStatement.setInt(2, providerId);
-            callableStatement.registerOutParameter(3, java.sql.Types.TINYINT);
-
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                diagnosisRelatedGroup.setAvgCharges(resultSet.getString("avg charges"));
-                diagnosisRelatedGroup.setAvgPayments(resultSet.getString("avg payments"));
-                diagnosisRelatedGroup.setAvgMedicarePayments(resultSet.getString("avg medicare payments"));
-            }
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                diagnosisRelatedGroup.setAvgChargesPercentileRank(resultSet.getBigDecimal("avg charges percentile")
-                        .setScale(SCALE, BigDecimal.ROUND_HALF_UP));
-            }
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
+        ChargeEngine engine = ChargeEngineManager.getInpatientEngine();
+        if (engine != null) {
+            DiagnosisRelatedGroup diagnosisRelatedGroup = new DiagnosisRelatedGroup();
+            int row = engine.findChargeRow(drgId, providerId);
+            if (row != ChargeEngine.NOT_FOUND) {
+                setAmounts(diagnosisRelatedGroup, engine, row);
+                diagnosisRelatedGroup.setAvgChargesPercentileRank(
+                        engine.getPercentileRank(row, ChargeColumn.AVG_CHARGES));
+                diagnosisRelatedGroup.setAvgPaymentsPercentileRank(
+                        engine.getPercentileRank(row, ChargeColumn.AVG_PAYMENTS));
+                diagnosisRelatedGroup.setAvgMedicarePaymentsPercentileRank(
+                        engine.getPercentileRank(row, ChargeColumn.AVG_MEDICARE_PAYMENTS));
+            } else {
+                diagnosisRelatedGroup.setAvgChargesPercentileRank(
+                        engine.getMissingPercentileRank(drgId, ChargeColumn.AVG_CHARGES));
+                diagnosisRelatedGroup.setAvgPaymentsPercentileRank(
+                        engine.getMissingPercentileRank(drgId, ChargeColumn.AVG_PAYMENTS));
+                diagnosisRelatedGroup.setAvgMedicarePaymentsPercentileRank(
+                        engine.getMissingPercentileRank(drgId, ChargeColumn.AVG_MEDICARE_PAYMENTS));
             }
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                diagnosisRelatedGroup.setAvgPaymentsPercentileRank(resultSet.getBigDecimal("avg payments percentile")
-                        .setScale(SCALE, BigDecimal.ROUND_HALF_UP));
-            }
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
+            return diagnosisRelatedGroup;
+        }
 
-            while (resultSet.next()) {
-                diagnosisRelatedGroup.setAvgMedicarePaymentsPercentileRank(resultSet.getBigDecimal("avg medicare payments percentile")
-                        .setScale(SCALE, BigDecimal.ROUND_HALF_UP));
-            }
+        try {
+            return GET_CHARGES.call(ConnectionPool.getInpatientPool(), CHARGES_HANDLER, drgId, providerId);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getCharges method.", e);
+            Procedure.logFailure(logger, "getCharges", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return diagnosisRelatedGroup;
     }
 
     /**
@@ -392,52 +397,73 @@ public class InpatientIO {
     public static ArrayList<InpatientComparisonResult> getRegionalResults(String state,
             String city, int drgId) {
         ArrayList<InpatientComparisonResult> results = new ArrayList<>();
-        InpatientConnectionPool pool = InpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-
-        try {
-            callableStatement = connection.prepareCall("{CALL getRegionalCharges(?, ?, ?, ?)}");
-
-            callableStatement.setInt(1, drgId);
-            callableStatement.setString(2, city);
-            callableStatement.setString(3, state);
-            callableStatement.registerOutParameter(4, java.sql.Types.TINYINT);
-
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
+        ChargeEngine engine = ChargeEngineManager.getInpatientEngine();
+        if (engine != null) {
+            for (int row : engine.getRegionalCharges(state, city, drgId)) {
                 InpatientComparisonResult inpatientComparisonResult = new InpatientComparisonResult();
-                DiagnosisRelatedGroup diagnosisRelatedGroup = new DiagnosisRelatedGroup();
-                Provider provider = new Provider();
-                provider.setId(resultSet.getInt("provider id"));
-                provider.setName(resultSet.getString("provider name"));
-                provider.setStreet(resultSet.getString("provider street"));
-                provider.setCity(resultSet.getString("provider city"));
-                provider.setState(resultSet.getString("provider state"));
-                provider.setZipCode(resultSet.getString("provider zip"));
-                diagnosisRelatedGroup.setDrgId(resultSet.getInt("drg id"));
-                diagnosisRelatedGroup.setDrgDefinition(resultSet.getString("drg definition"));
-                diagnosisRelatedGroup.setAvgCharges(resultSet.getString("avg charges"));
-                diagnosisRelatedGroup.setAvgPayments(resultSet.getString("avg payments"));
-                diagnosisRelatedGroup.setAvgMedicarePayments(resultSet.getString("avg medicare payments"));
-                inpatientComparisonResult.setProvider(provider);
+                DiagnosisRelatedGroup diagnosisRelatedGroup
+                        = getDiagnosisRelatedGroup(engine, engine.getChargeClassification(row));
+                setAmounts(diagnosisRelatedGroup, engine, row);
+                inpatientComparisonResult.setProvider(engine.getProvider(engine.getChargeProvider(row)));
                 inpatientComparisonResult.setDrg(diagnosisRelatedGroup);
                 results.add(inpatientComparisonResult);
             }
+            return results;
+        }
+
+        try {
+            return GET_REGIONAL_CHARGES.call(ConnectionPool.getInpatientPool(), REGIONAL_CHARGES_HANDLER,
+                    drgId, city, state);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getRegionalResults method.", e);
+            Procedure.logFailure(logger, "getRegionalResults", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return results;
+    }
+
+    /**
+     * Creates a mapper reading the ID and definition of a diagnosis-related
+     * group.
+     *
+     * @return the mapper
+     */
+    private static RowMapper<DiagnosisRelatedGroup> createDiagnosisRelatedGroupMapper() {
+        return new RowMapper<DiagnosisRelatedGroup>("drg id", "drg definition") {
+            @Override
+            public DiagnosisRelatedGroup map(ResultSet resultSet, int[] columns) throws SQLException {
+                DiagnosisRelatedGroup diagnosisRelatedGroup = new DiagnosisRelatedGroup();
+                diagnosisRelatedGroup.setDrgId(resultSet.getInt(columns[0]));
+                diagnosisRelatedGroup.setDrgDefinition(resultSet.getString(columns[1]));
+                return diagnosisRelatedGroup;
+            }
+        };
+    }
+
+    /**
+     * Creates a diagnosis-related group holding the ID and definition of the
+     * engine classification at the given position.
+     *
+     * @param engine the charge engine
+     * @param position the classification position
+     * @return the diagnosis-related group
+     */
+    private static DiagnosisRelatedGroup getDiagnosisRelatedGroup(ChargeEngine engine, int position) {
+        DiagnosisRelatedGroup diagnosisRelatedGroup = new DiagnosisRelatedGroup();
+        diagnosisRelatedGroup.setDrgId(engine.getClassificationId(position));
+        diagnosisRelatedGroup.setDrgDefinition(engine.getClassificationDefinition(position));
+        return diagnosisRelatedGroup;
+    }
+
+    /**
+     * Sets the charge amounts of the given engine charge row.
+     *
+     * @param diagnosisRelatedGroup the diagnosis-related group
+     * @param engine the charge engine
+     * @param row the charge row
+     */
+    private static void setAmounts(DiagnosisRelatedGroup diagnosisRelatedGroup, ChargeEngine engine, int row) {
+        diagnosisRelatedGroup.setAvgCharges(ChargeEngine.format(engine.getAmount(row, ChargeColumn.AVG_CHARGES)));
+        diagnosisRelatedGroup.setAvgPayments(ChargeEngine.format(engine.getAmount(row, ChargeColumn.AVG_PAYMENTS)));
+        diagnosisRelatedGroup.setAvgMedicarePayments(
+                ChargeEngine.format(engine.getAmount(row, ChargeColumn.AVG_MEDICARE_PAYMENTS)));
     }
 }
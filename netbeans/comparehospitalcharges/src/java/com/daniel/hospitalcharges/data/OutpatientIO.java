@@ -1,21 +1,29 @@
 package com.daniel.hospitalcharges.data;
 
-import com.daniel.hospitalcharges.data.pool.OutpatientConnectionPool;
+import com.daniel.hospitalcharges.data.access.Procedure;
+import com.daniel.hospitalcharges.data.access.ResultHandler;
+import com.daniel.hospitalcharges.data.access.ResultHandlers;
+import com.daniel.hospitalcharges.data.access.ResultReader;
+import com.daniel.hospitalcharges.data.access.RowMapper;
+import com.daniel.hospitalcharges.data.access.RowMappers;
+import com.daniel.hospitalcharges.data.memory.ChargeColumn;
+import com.daniel.hospitalcharges.data.memory.ChargeEngine;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import com.daniel.hospitalcharges.data.pool.ConnectionPool;
 import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
 import com.daniel.hospitalcharges.model.OutpatientComparisonResult;
 import com.daniel.hospitalcharges.model.Provider;
-import com.daniel.hospitalcharges.data.utility.DatabaseUtility;
 import java.math.BigDecimal;
-import java.sql.CallableStatement;
-import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 /**
- * This class retrieves provider data from the database.
+ * This class retrieves provider data from the in-memory charge engine when it
+ * is loaded and from the database otherwise.
  *
  * @author Bryan Daniel
  */
@@ -37,46 +45,179 @@ public class OutpatientIO {
     private static Logger logger = LogManager.getLogger(OutpatientIO.class);
 
     /**
-     * This method retrieves the complete list of ambulatory payment
-     * classification definitions.
-     *
-     * @return the list of APC definitions or null if an error occurs
+     * The getAPCs procedure
      */
-    public static ArrayList<AmbulatoryPaymentClassification> getAmbulatoryPaymentClassifications() {
-        OutpatientConnectionPool pool = OutpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-        ArrayList<AmbulatoryPaymentClassification> ambulatoryPaymentClassifications = new ArrayList<>();
+    private static final Procedure GET_APCS = new Procedure("getAPCs", 0);
 
-        try {
-            callableStatement = connection.prepareCall("{CALL getAPCs(?)}");
-            callableStatement.registerOutParameter(1, java.sql.Types.TINYINT);
+    /**
+     * The getStates procedure
+     */
+    private static final Procedure GET_STATES = new Procedure("getStates", 1);
 
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
+    /**
+     * The getCitiesToCompare procedure
+     */
+    private static final Procedure GET_CITIES_TO_COMPARE = new Procedure("getCitiesToCompare", 2);
+
+    /**
+     * The getCities procedure
+     */
+    private static final Procedure GET_CITIES = new Procedure("getCities", 1);
+
+    /**
+     * The getProviders procedure
+     */
+    private static final Procedure GET_PROVIDERS = new Procedure("getProviders", 3);
+
+    /**
+     * The getRegionalAPCs procedure
+     */
+    private static final Procedure GET_REGIONAL_APCS = new Procedure("getRegionalAPCs", 2);
+
+    /**
+     * The getCharges procedure
+     */
+    private static final Procedure GET_CHARGES = new Procedure("getCharges", 2);
+
+    /**
+     * The getRegionalCharges procedure
+     */
+    private static final Procedure GET_REGIONAL_CHARGES = new Procedure("getRegionalCharges", 3);
+
+    /**
+     * Reads the APCs of getAPCs, keeping the first row of each APC ID
+     */
+    private static final ResultHandler<ArrayList<AmbulatoryPaymentClassification>> APCS_HANDLER
+            = new ResultHandler<ArrayList<AmbulatoryPaymentClassification>>() {
+        private final RowMapper<AmbulatoryPaymentClassification> mapper = createAmbulatoryPaymentClassificationMapper();
+
+        @Override
+        public ArrayList<AmbulatoryPaymentClassification> handle(ResultReader reader) throws SQLException {
+            ArrayList<AmbulatoryPaymentClassification> ambulatoryPaymentClassifications = new ArrayList<>();
+            HashSet<Integer> ids = new HashSet<>();
+            for (AmbulatoryPaymentClassification ambulatoryPaymentClassification : reader.list(mapper)) {
+                if (ids.add(ambulatoryPaymentClassification.getApcId())) {
+                    ambulatoryPaymentClassifications.add(ambulatoryPaymentClassification);
+                }
             }
-            resultSet = callableStatement.getResultSet();
+            return ambulatoryPaymentClassifications;
+        }
+    };
+
+    /**
+     * Reads the states of getStates
+     */
+    private static final ResultHandler<ArrayList<String>> STATES_HANDLER
+            = ResultHandlers.distinct(RowMappers.string("state"));
+
+    /**
+     * Reads the cities of getCitiesToCompare
+     */
+    private static final ResultHandler<ArrayList<String>> CITIES_TO_COMPARE_HANDLER
+            = ResultHandlers.distinct(RowMappers.string("city"));
 
-            while (resultSet.next()) {
+    /**
+     * Reads the cities of getCities
+     */
+    private static final ResultHandler<ArrayList<String>> CITIES_HANDLER
+            = ResultHandlers.distinct(RowMappers.string("city"));
+
+    /**
+     * Reads the providers of getProviders
+     */
+    private static final ResultHandler<ArrayList<Provider>> PROVIDERS_HANDLER
+            = ResultHandlers.list(RowMappers.provider("provider id"));
+
+    /**
+     * Reads the APCs of getRegionalAPCs
+     */
+    private static final ResultHandler<ArrayList<AmbulatoryPaymentClassification>> REGIONAL_APCS_HANDLER
+            = ResultHandlers.list(createAmbulatoryPaymentClassificationMapper());
+
+    /**
+     * Reads the charge amounts and their percentile ranks from the three result
+     * sets of getCharges
+     */
+    private static final ResultHandler<AmbulatoryPaymentClassification> CHARGES_HANDLER
+            = new ResultHandler<AmbulatoryPaymentClassification>() {
+        private final RowMapper<AmbulatoryPaymentClassification> amounts
+                = new RowMapper<AmbulatoryPaymentClassification>("avg charges", "avg payments") {
+            @Override
+            public AmbulatoryPaymentClassification map(ResultSet resultSet, int[] columns) throws SQLException {
                 AmbulatoryPaymentClassification ambulatoryPaymentClassification = new AmbulatoryPaymentClassification();
-                ambulatoryPaymentClassification.setApcId(resultSet.getInt("apc id"));
-                ambulatoryPaymentClassification.setApcDefinition(resultSet.getString("apc definition"));
-                if (!ambulatoryPaymentClassifications.contains(ambulatoryPaymentClassification)) {
-                    ambulatoryPaymentClassifications.add(ambulatoryPaymentClassification);
+                ambulatoryPaymentClassification.setAvgCharges(resultSet.getString(columns[0]));
+                ambulatoryPaymentClassification.setAvgPayments(resultSet.getString(columns[1]));
+                return ambulatoryPaymentClassification;
+            }
+        };
+        private final RowMapper<BigDecimal> avgChargesPercentile
+                = RowMappers.decimal("avg charges percentile", SCALE);
+        private final RowMapper<BigDecimal> avgPaymentsPercentile
+                = RowMappers.decimal("avg payments percentile", SCALE);
+
+        @Override
+        public AmbulatoryPaymentClassification handle(ResultReader reader) throws SQLException {
+            AmbulatoryPaymentClassification ambulatoryPaymentClassification = reader.last(amounts);
+            if (ambulatoryPaymentClassification == null) {
+                ambulatoryPaymentClassification = new AmbulatoryPaymentClassification();
+            }
+            if (!reader.next()) {
+                return null;
+            }
+            ambulatoryPaymentClassification.setAvgChargesPercentileRank(reader.last(avgChargesPercentile));
+            if (!reader.next()) {
+                return null;
+            }
+            ambulatoryPaymentClassification.setAvgPaymentsPercentileRank(reader.last(avgPaymentsPercentile));
+            return ambulatoryPaymentClassification;
+        }
+    };
+
+    /**
+     * Reads the charges of getRegionalCharges
+     */
+    private static final ResultHandler<ArrayList<OutpatientComparisonResult>> REGIONAL_CHARGES_HANDLER
+            = ResultHandlers.list(new RowMapper<OutpatientComparisonResult>(
+                    RowMappers.concat(RowMappers.getProviderLabels("provider id"), "apc id", "apc definition",
+                            "avg charges", "avg payments")) {
+                @Override
+                public OutpatientComparisonResult map(ResultSet resultSet, int[] columns) throws SQLException {
+                    int column = RowMappers.PROVIDER_COLUMNS;
+                    OutpatientComparisonResult outpatientComparisonResult = new OutpatientComparisonResult();
+                    AmbulatoryPaymentClassification ambulatoryPaymentClassification = new AmbulatoryPaymentClassification();
+                    ambulatoryPaymentClassification.setApcId(resultSet.getInt(columns[column++]));
+                    ambulatoryPaymentClassification.setApcDefinition(resultSet.getString(columns[column++]));
+                    ambulatoryPaymentClassification.setAvgCharges(resultSet.getString(columns[column++]));
+                    ambulatoryPaymentClassification.setAvgPayments(resultSet.getString(columns[column]));
+                    outpatientComparisonResult.setProvider(RowMappers.readProvider(resultSet, columns, 0));
+                    outpatientComparisonResult.setApc(ambulatoryPaymentClassification);
+                    return outpatientComparisonResult;
                 }
+            });
+
+    /**
+     * This method retrieves the complete list of ambulatory payment
+     * classification definitions.
+     *
+     * @return the list of APC definitions or null if an error occurs
+     */
+    public static ArrayList<AmbulatoryPaymentClassification> getAmbulatoryPaymentClassifications() {
+        ChargeEngine engine = ChargeEngineManager.getOutpatientEngine();
+        if (engine != null) {
+            ArrayList<AmbulatoryPaymentClassification> ambulatoryPaymentClassifications
+                    = new ArrayList<>(engine.getClassificationCount());
+            for (int i = 0; i < engine.getClassificationCount(); i++) {
+                ambulatoryPaymentClassifications.add(getAmbulatoryPaymentClassification(engine, i));
             }
+            return ambulatoryPaymentClassifications;
+        }
 
+        try {
+            return GET_APCS.call(ConnectionPool.getOutpatientPool(), APCS_HANDLER);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getAmbulatoryPaymentClassifications method.", e);
+            Procedure.logFailure(logger, "getAmbulatoryPaymentClassifications", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return ambulatoryPaymentClassifications;
     }
 
     /**
@@ -87,37 +228,16 @@ public class OutpatientIO {
      * @return the list of states or null if an error occurs
      */
     public static ArrayList<String> getStates(int apcId) {
-        OutpatientConnectionPool pool = OutpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
+        ChargeEngine engine = ChargeEngineManager.getOutpatientEngine();
+        if (engine != null) {
+            return engine.getStates(apcId);
+        }
 
         try {
-            callableStatement = connection.prepareCall("{CALL getStates(?, ?)}");
-            callableStatement.setInt(1, apcId);
-            callableStatement.registerOutParameter(2, java.sql.Types.TINYINT);
-
-            //reads true if result set exists
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-            ArrayList<String> states = new ArrayList<>();
-            while (resultSet.next()) {
-                String state = resultSet.getString("state");
-                if (!states.contains(state)) {
-                    states.add(state);
-                }
-            }
-            return states;
+            return GET_STATES.call(ConnectionPool.getOutpatientPool(), STATES_HANDLER, apcId);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getStates method.", e);
+            Procedure.logFailure(logger, "getStates", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
     }
 
@@ -130,38 +250,17 @@ public class OutpatientIO {
      * @return the list of cities or null if an error occurs
      */
     public static ArrayList<String> getCitiesToCompare(int apcId, String providerState) {
-        OutpatientConnectionPool pool = OutpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
+        ChargeEngine engine = ChargeEngineManager.getOutpatientEngine();
+        if (engine != null) {
+            return engine.getCitiesToCompare(apcId, providerState);
+        }
 
         try {
-            callableStatement = connection.prepareCall("{CALL getCitiesToCompare(?, ?, ?)}");
-            callableStatement.setInt(1, apcId);
-            callableStatement.setString(2, providerState);
-            callableStatement.registerOutParameter(3, java.sql.Types.TINYINT);
-
-            //reads true if result set exists
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-            ArrayList<String> cities = new ArrayList<>();
-            while (resultSet.next()) {
-                String city = resultSet.getString("city");
-                if (!cities.contains(city)) {
-                    cities.add(city);
-                }
-            }
-            return cities;
+            return GET_CITIES_TO_COMPARE.call(ConnectionPool.getOutpatientPool(), CITIES_TO_COMPARE_HANDLER,
+                    apcId, providerState);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getCitiesToCompare method.", e);
+            Procedure.logFailure(logger, "getCitiesToCompare", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
     }
 
@@ -172,37 +271,16 @@ public class OutpatientIO {
      * @return the list of cities or null if an error occurs
      */
     public static ArrayList<String> getCities(String providerState) {
-        OutpatientConnectionPool pool = OutpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
+        ChargeEngine engine = ChargeEngineManager.getOutpatientEngine();
+        if (engine != null) {
+            return engine.getCities(providerState);
+        }
 
         try {
-            callableStatement = connection.prepareCall("{CALL getCities(?, ?)}");
-            callableStatement.setString(1, providerState);
-            callableStatement.registerOutParameter(2, java.sql.Types.TINYINT);
-
-            //reads true if result set exists
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-            ArrayList<String> cities = new ArrayList<>();
-            while (resultSet.next()) {
-                String city = resultSet.getString("city");
-                if (!cities.contains(city)) {
-                    cities.add(city);
-                }
-            }
-            return cities;
+            return GET_CITIES.call(ConnectionPool.getOutpatientPool(), CITIES_HANDLER, providerState);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getCities method.", e);
+            Procedure.logFailure(logger, "getCities", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
     }
 
@@ -217,44 +295,21 @@ public class OutpatientIO {
      */
     public static ArrayList<Provider> getProviders(String state, String city,
             int apcId) {
-        OutpatientConnectionPool pool = OutpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-        ArrayList<Provider> providers = new ArrayList<>();
+        ChargeEngine engine = ChargeEngineManager.getOutpatientEngine();
+        if (engine != null) {
+            ArrayList<Provider> providers = new ArrayList<>();
+            for (int position : engine.getProviders(state, city, apcId)) {
+                providers.add(engine.getProvider(position));
+            }
+            return providers;
+        }
 
         try {
-            callableStatement = connection.prepareCall("{CALL getProviders(?, ?, ?, ?)}");
-            callableStatement.setInt(1, apcId);
-            callableStatement.setString(2, city);
-            callableStatement.setString(3, state);
-            callableStatement.registerOutParameter(4, java.sql.Types.TINYINT);
-
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                Provider provider = new Provider();
-                provider.setId(resultSet.getInt("provider id"));
-                provider.setName(resultSet.getString("provider name"));
-                provider.setStreet(resultSet.getString("provider street"));
-                provider.setCity(resultSet.getString("provider city"));
-                provider.setState(resultSet.getString("provider state"));
-                provider.setZipCode(resultSet.getString("provider zip"));
-                providers.add(provider);
-            }
+            return GET_PROVIDERS.call(ConnectionPool.getOutpatientPool(), PROVIDERS_HANDLER, apcId, city, state);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getProviders method.", e);
+            Procedure.logFailure(logger, "getProviders", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return providers;
     }
 
     /**
@@ -267,39 +322,22 @@ public class OutpatientIO {
      */
     public static ArrayList<AmbulatoryPaymentClassification> getAmbulatoryPaymentClassificationsByRegion(String selectedState,
             String selectedCity) {
-        OutpatientConnectionPool pool = OutpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-        ArrayList<AmbulatoryPaymentClassification> ambulatoryPaymentClassifications = new ArrayList<>();
-
-        try {
-            callableStatement = connection.prepareCall("{CALL getRegionalAPCs(?, ?, ?)}");
-            callableStatement.setString(1, selectedCity);
-            callableStatement.setString(2, selectedState);
-            callableStatement.registerOutParameter(3, java.sql.Types.TINYINT);
-
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
+        ChargeEngine engine = ChargeEngineManager.getOutpatientEngine();
+        if (engine != null) {
+            ArrayList<AmbulatoryPaymentClassification> ambulatoryPaymentClassifications = new ArrayList<>();
+            for (int position : engine.getRegionalClassifications(selectedState, selectedCity)) {
+                ambulatoryPaymentClassifications.add(getAmbulatoryPaymentClassification(engine, position));
             }
-            resultSet = callableStatement.getResultSet();
+            return ambulatoryPaymentClassifications;
+        }
 
-            while (resultSet.next()) {
-                AmbulatoryPaymentClassification ambulatoryPaymentClassification = new AmbulatoryPaymentClassification();
-                ambulatoryPaymentClassification.setApcId(resultSet.getInt("apc id"));
-                ambulatoryPaymentClassification.setApcDefinition(resultSet.getString("apc definition"));
-                ambulatoryPaymentClassifications.add(ambulatoryPaymentClassification);
-            }
+        try {
+            return GET_REGIONAL_APCS.call(ConnectionPool.getOutpatientPool(), REGIONAL_APCS_HANDLER,
+                    selectedCity, selectedState);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getAmbulatoryPaymentClassificationsByRegion method.", e);
+            Procedure.logFailure(logger, "getAmbulatoryPaymentClassificationsByRegion", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return ambulatoryPaymentClassifications;
     }
 
     /**
@@ -311,61 +349,31 @@ public class OutpatientIO {
      * @return the APC charges or null if an error occurs
      */
     public static AmbulatoryPaymentClassification getCharges(int apcId, int providerId) {
-
-        OutpatientConnectionPool pool = OutpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-        AmbulatoryPaymentClassification ambulatoryPaymentClassification = new AmbulatoryPaymentClassification();
-
-        try {
-            callableStatement = connection.prepareCall("{CALL getCharges(?, ?, ?)}");
-            callableStatement.setInt(1, apcId);
-            callableStatement.setInt(2, providerId);
-            callableStatement.registerOutParameter(3, java.sql.Types.TINYINT);
-
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                ambulatoryPaymentClassification.setAvgCharges(resultSet.getString("avg charges"));
-                ambulatoryPaymentClassification.setAvgPayments(resultSet.getString("avg payments"));
-            }
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                ambulatoryPaymentClassification.setAvgChargesPercentileRank(resultSet.getBigDecimal("avg charges percentile")
-                        .setScale(SCALE, BigDecimal.ROUND_HALF_UP));
-            }
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                ambulatoryPaymentClassification.setAvgPaymentsPercentileRank(resultSet.getBigDecimal("avg payments percentile")
-                        .setScale(SCALE, BigDecimal.ROUND_HALF_UP));
+        ChargeEngine engine = ChargeEngineManager.getOutpatientEngine();
+        if (engine != null) {
+            AmbulatoryPaymentClassification ambulatoryPaymentClassification = new AmbulatoryPaymentClassification();
+            int row = engine.findChargeRow(apcId, providerId);
+            if (row != ChargeEngine.NOT_FOUND) {
+                setAmounts(ambulatoryPaymentClassification, engine, row);
+                ambulatoryPaymentClassification.setAvgChargesPercentileRank(
+                        engine.getPercentileRank(row, ChargeColumn.AVG_CHARGES));
+                ambulatoryPaymentClassification.setAvgPaymentsPercentileRank(
+                        engine.getPercentileRank(row, ChargeColumn.AVG_PAYMENTS));
+            } else {
+                ambulatoryPaymentClassification.setAvgChargesPercentileRank(
+                        engine.getMissingPercentileRank(apcId, ChargeColumn.AVG_CHARGES));
+                ambulatoryPaymentClassification.setAvgPaymentsPercentileRank(
+                        engine.getMissingPercentileRank(apcId, ChargeColumn.AVG_PAYMENTS));
             }
+            return ambulatoryPaymentClassification;
+        }
 
+        try {
+            return GET_CHARGES.call(ConnectionPool.getOutpatientPool(), CHARGES_HANDLER, apcId, providerId);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getCharges method.", e);
+            Procedure.logFailure(logger, "getCharges", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return ambulatoryPaymentClassification;
     }
 
     /**
@@ -380,51 +388,76 @@ public class OutpatientIO {
     public static ArrayList<OutpatientComparisonResult> getRegionalResults(String state,
             String city, int apcId) {
         ArrayList<OutpatientComparisonResult> results = new ArrayList<>();
-        OutpatientConnectionPool pool = OutpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-
-        try {
-            callableStatement = connection.prepareCall("{CALL getRegionalCharges(?, ?, ?, ?)}");
-
-            callableStatement.setInt(1, apcId);
-            callableStatement.setString(2, city);
-            callableStatement.setString(3, state);
-            callableStatement.registerOutParameter(4, java.sql.Types.TINYINT);
-
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
+        ChargeEngine engine = ChargeEngineManager.getOutpatientEngine();
+        if (engine != null) {
+            for (int row : engine.getRegionalCharges(state, city, apcId)) {
                 OutpatientComparisonResult outpatientComparisonResult = new OutpatientComparisonResult();
-                AmbulatoryPaymentClassification ambulatoryPaymentClassification = new AmbulatoryPaymentClassification();
-                Provider provider = new Provider();
-                provider.setId(resultSet.getInt("provider id"));
-                provider.setName(resultSet.getString("provider name"));
-                provider.setStreet(resultSet.getString("provider street"));
-                provider.setCity(resultSet.getString("provider city"));
-                provider.setState(resultSet.getString("provider state"));
-                provider.setZipCode(resultSet.getString("provider zip"));
-                ambulatoryPaymentClassification.setApcId(resultSet.getInt("apc id"));
-                ambulatoryPaymentClassification.setApcDefinition(resultSet.getString("apc definition"));
-                ambulatoryPaymentClassification.setAvgCharges(resultSet.getString("avg charges"));
-                ambulatoryPaymentClassification.setAvgPayments(resultSet.getString("avg payments"));
-                outpatientComparisonResult.setProvider(provider);
+                AmbulatoryPaymentClassification ambulatoryPaymentClassification
+                        = getAmbulatoryPaymentClassification(engine, engine.getChargeClassification(row));
+                setAmounts(ambulatoryPaymentClassification, engine, row);
+                outpatientComparisonResult.setProvider(engine.getProvider(engine.getChargeProvider(row)));
                 outpatientComparisonResult.setApc(ambulatoryPaymentClassification);
                 results.add(outpatientComparisonResult);
             }
+            return results;
+        }
+
+        try {
+            return GET_REGIONAL_CHARGES.call(ConnectionPool.getOutpatientPool(), REGIONAL_CHARGES_HANDLER,
+                    apcId, city, state);
         } catch (SQLException e) {
-            logger.error("SQLException occurred in getRegionalResults method.", e);
+            Procedure.logFailure(logger, "getRegionalResults", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return results;
+    }
+
+    /**
+     * Creates a mapper reading the ID and definition of an ambulatory payment
+     * classification.
+     *
+     * @return the mapper
+     */
+    private static RowMapper<AmbulatoryPaymentClassification> createAmbulatoryPaymentClassificationMapper() {
+        return new RowMapper<AmbulatoryPaymentClassification>("apc id", "apc definition") {
+            @Override
+            public AmbulatoryPaymentClassification map(ResultSet resultSet, int[] columns) throws SQLException {
+                AmbulatoryPaymentClassification ambulatoryPaymentClassification = new AmbulatoryPaymentClassification();
+                ambulatoryPaymentClassification.setApcId(resultSet.getInt(columns[0]));
+                ambulatoryPaymentClassification.setApcDefinition(resultSet.getString(columns[1]));
+                return ambulatoryPaymentClassification;
+            }
+        };
+    }
+
+    /**
+     * Creates an ambulatory payment classification holding the ID and
+     * definition of the engine classification at the given position.
+     *
+     * @param engine the charge engine
+     * @param position the classification position
+     * @return the ambulatory payment classification
+     */
+    private static AmbulatoryPaymentClassification getAmbulatoryPaymentClassification(ChargeEngine engine,
+            int position) {
+        AmbulatoryPaymentClassification ambulatoryPaymentClassification = new AmbulatoryPaymentClassification();
+        ambulatoryPaymentClassification.setApcId(engine.getClassificationId(position));
+        ambulatoryPaymentClassification.setApcDefinition(engine.getClassificationDefinition(position));
+        return ambulatoryPaymentClassification;
+    }
+
+    /**
+     * Sets the charge amounts of the given engine charge row.
+     *
+     * @param ambulatoryPaymentClassification the ambulatory payment
+     * classification
+     * @param engine the charge engine
+     * @param row the charge row
+     */
+    private static void setAmounts(AmbulatoryPaymentClassification ambulatoryPaymentClassification,
+            ChargeEngine engine, int row) {
+        ambulatoryPaymentClassification.setAvgCharges(
+                ChargeEngine.format(engine.getAmount(row, ChargeColumn.AVG_CHARGES)));
+        ambulatoryPaymentClassification.setAvgPayments(
+                ChargeEngine.format(engine.getAmount(row, ChargeColumn.AVG_PAYMENTS)));
     }
 }
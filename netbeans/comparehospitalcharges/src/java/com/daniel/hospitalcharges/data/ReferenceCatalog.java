@@ -0,0 +1,337 @@
+package com.daniel.hospitalcharges.data;
+
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
+import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds the reference data shared by all sessions: the DRGs, the
+ * APCs, the states of each DRG and APC, the cities of each state and the
+ * cities of each DRG or APC and state. Each list is read from the IO classes
+ * once and copied with its strings interned into an unmodifiable list, since
+ * the IO results may be shared with other callers. Only lists that are not
+ * empty are kept, so keys naming nothing in the dataset are not remembered.
+ * The DRGs and APCs can also be looked up by ID. A new catalog is started
+ * whenever the dataset version changes or invalidate is called.
+ *
+ * @author Bryan Daniel
+ */
+public class ReferenceCatalog {
+
+    /**
+     * The catalog of the current dataset version
+     */
+    private static volatile ReferenceCatalog catalog = new ReferenceCatalog(ChargeEngineManager.getDatasetVersion());
+
+    /**
+     * The dataset version of the catalog
+     */
+    private final long version;
+
+    /**
+     * The interned strings
+     */
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+    /**
+     * The diagnosis-related groups in definition order
+     */
+    private volatile List<DiagnosisRelatedGroup> diagnosisRelatedGroups;
+
+    /**
+     * The diagnosis-related groups by ID
+     */
+    private volatile Map<Integer, DiagnosisRelatedGroup> diagnosisRelatedGroupsById;
+
+    /**
+     * The ambulatory payment classifications in definition order
+     */
+    private volatile List<AmbulatoryPaymentClassification> ambulatoryPaymentClassifications;
+
+    /**
+     * The ambulatory payment classifications by ID
+     */
+    private volatile Map<Integer, AmbulatoryPaymentClassification> ambulatoryPaymentClassificationsById;
+
+    /**
+     * The inpatient states by DRG ID
+     */
+    private final ConcurrentHashMap<String, List<String>> inpatientStates = new ConcurrentHashMap<>();
+
+    /**
+     * The inpatient cities by state
+     */
+    private final ConcurrentHashMap<String, List<String>> inpatientCities = new ConcurrentHashMap<>();
+
+    /**
+     * The inpatient cities to compare by DRG ID and state
+     */
+    private final ConcurrentHashMap<String, List<String>> inpatientCitiesToCompare = new ConcurrentHashMap<>();
+
+    /**
+     * The outpatient states by APC ID
+     */
+    private final ConcurrentHashMap<String, List<String>> outpatientStates = new ConcurrentHashMap<>();
+
+    /**
+     * The outpatient cities by state
+     */
+    private final ConcurrentHashMap<String, List<String>> outpatientCities = new ConcurrentHashMap<>();
+
+    /**
+     * The outpatient cities to compare by APC ID and state
+     */
+    private final ConcurrentHashMap<String, List<String>> outpatientCitiesToCompare = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty catalog for a dataset version.
+     *
+     * @param version the dataset version
+     */
+    private ReferenceCatalog(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns the catalog of the current dataset version.
+     *
+     * @return the catalog
+     */
+    public static ReferenceCatalog getInstance() {
+        ReferenceCatalog current = catalog;
+        long datasetVersion = ChargeEngineManager.getDatasetVersion();
+        if (current.version != datasetVersion) {
+            synchronized (ReferenceCatalog.class) {
+                current = catalog;
+                if (current.version != datasetVersion) {
+                    current = new ReferenceCatalog(datasetVersion);
+                    catalog = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Discards all cataloged data.
+     */
+    public static void invalidate() {
+        catalog = new ReferenceCatalog(ChargeEngineManager.getDatasetVersion());
+    }
+
+    /**
+     * Returns the dataset version of the catalog.
+     *
+     * @return the dataset version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns all diagnosis-related groups.
+     *
+     * @return the unmodifiable list of DRGs or null if an error occurs
+     */
+    public List<DiagnosisRelatedGroup> getDiagnosisRelatedGroups() {
+        if (diagnosisRelatedGroups == null) {
+            synchronized (this) {
+                if (diagnosisRelatedGroups == null) {
+                    ArrayList<DiagnosisRelatedGroup> loaded = InpatientIO.getDiagnosisRelatedGroups();
+                    if (loaded == null) {
+                        return null;
+                    }
+                    List<DiagnosisRelatedGroup> copies = new ArrayList<>(loaded.size());
+                    HashMap<Integer, DiagnosisRelatedGroup> byId = new HashMap<>(loaded.size() * 2);
+                    for (DiagnosisRelatedGroup drg : loaded) {
+                        DiagnosisRelatedGroup copy = new DiagnosisRelatedGroup(drg);
+                        copy.setDrgDefinition(intern(drg.getDrgDefinition()));
+                        copies.add(copy);
+                        byId.put(copy.getDrgId(), copy);
+                    }
+                    diagnosisRelatedGroupsById = byId;
+                    diagnosisRelatedGroups = Collections.unmodifiableList(copies);
+                }
+            }
+        }
+        return diagnosisRelatedGroups;
+    }
+
+    /**
+     * Finds a diagnosis-related group by its ID.
+     *
+     * @param drgId the DRG ID
+     * @return the DRG or null if it is not found
+     */
+    public DiagnosisRelatedGroup getDiagnosisRelatedGroup(int drgId) {
+        return getDiagnosisRelatedGroups() == null ? null : diagnosisRelatedGroupsById.get(drgId);
+    }
+
+    /**
+     * Returns all ambulatory payment classifications.
+     *
+     * @return the unmodifiable list of APCs or null if an error occurs
+     */
+    public List<AmbulatoryPaymentClassification> getAmbulatoryPaymentClassifications() {
+        if (ambulatoryPaymentClassifications == null) {
+            synchronized (this) {
+                if (ambulatoryPaymentClassifications == null) {
+                    ArrayList<AmbulatoryPaymentClassification> loaded
+                            = OutpatientIO.getAmbulatoryPaymentClassifications();
+                    if (loaded == null) {
+                        return null;
+                    }
+                    List<AmbulatoryPaymentClassification> copies = new ArrayList<>(loaded.size());
+                    HashMap<Integer, AmbulatoryPaymentClassification> byId = new HashMap<>(loaded.size() * 2);
+                    for (AmbulatoryPaymentClassification apc : loaded) {
+                        AmbulatoryPaymentClassification copy = new AmbulatoryPaymentClassification(apc);
+                        copy.setApcDefinition(intern(apc.getApcDefinition()));
+                        copies.add(copy);
+                        byId.put(copy.getApcId(), copy);
+                    }
+                    ambulatoryPaymentClassificationsById = byId;
+                    ambulatoryPaymentClassifications = Collections.unmodifiableList(copies);
+                }
+            }
+        }
+        return ambulatoryPaymentClassifications;
+    }
+
+    /**
+     * Finds an ambulatory payment classification by its ID.
+     *
+     * @param apcId the APC ID
+     * @return the APC or null if it is not found
+     */
+    public AmbulatoryPaymentClassification getAmbulatoryPaymentClassification(int apcId) {
+        return getAmbulatoryPaymentClassifications() == null ? null
+                : ambulatoryPaymentClassificationsById.get(apcId);
+    }
+
+    /**
+     * Returns the states with a charge for a diagnosis-related group.
+     *
+     * @param drgId the DRG ID
+     * @return the unmodifiable list of states or null if an error occurs
+     */
+    public List<String> getInpatientStates(int drgId) {
+        String key = String.valueOf(drgId);
+        List<String> states = inpatientStates.get(key);
+        return states != null ? states : share(inpatientStates, key, InpatientIO.getStates(drgId));
+    }
+
+    /**
+     * Returns the inpatient cities of a state.
+     *
+     * @param state the state
+     * @return the unmodifiable list of cities or null if an error occurs
+     */
+    public List<String> getInpatientCities(String state) {
+        String key = String.valueOf(state);
+        List<String> cities = inpatientCities.get(key);
+        return cities != null ? cities : share(inpatientCities, key, InpatientIO.getCities(state));
+    }
+
+    /**
+     * Returns the cities of a state with a charge for a diagnosis-related
+     * group.
+     *
+     * @param drgId the DRG ID
+     * @param state the state
+     * @return the unmodifiable list of cities or null if an error occurs
+     */
+    public List<String> getInpatientCitiesToCompare(int drgId, String state) {
+        String key = drgId + "|" + state;
+        List<String> cities = inpatientCitiesToCompare.get(key);
+        return cities != null ? cities
+                : share(inpatientCitiesToCompare, key, InpatientIO.getCitiesToCompare(drgId, state));
+    }
+
+    /**
+     * Returns the states with a charge for an ambulatory payment
+     * classification.
+     *
+     * @param apcId the APC ID
+     * @return the unmodifiable list of states or null if an error occurs
+     */
+    public List<String> getOutpatientStates(int apcId) {
+        String key = String.valueOf(apcId);
+        List<String> states = outpatientStates.get(key);
+        return states != null ? states : share(outpatientStates, key, OutpatientIO.getStates(apcId));
+    }
+
+    /**
+     * Returns the outpatient cities of a state.
+     *
+     * @param state the state
+     * @return the unmodifiable list of cities or null if an error occurs
+     */
+    public List<String> getOutpatientCities(String state) {
+        String key = String.valueOf(state);
+        List<String> cities = outpatientCities.get(key);
+        return cities != null ? cities : share(outpatientCities, key, OutpatientIO.getCities(state));
+    }
+
+    /**
+     * Returns the cities of a state with a charge for an ambulatory payment
+     * classification.
+     *
+     * @param apcId the APC ID
+     * @param state the state
+     * @return the unmodifiable list of cities or null if an error occurs
+     */
+    public List<String> getOutpatientCitiesToCompare(int apcId, String state) {
+        String key = apcId + "|" + state;
+        List<String> cities = outpatientCitiesToCompare.get(key);
+        return cities != null ? cities
+                : share(outpatientCitiesToCompare, key, OutpatientIO.getCitiesToCompare(apcId, state));
+    }
+
+    /**
+     * Copies a loaded list with its strings interned and stores the copy as
+     * an unmodifiable list, unless another thread stored the list first. An
+     * empty list is not stored, since the keys of the lists come from
+     * requests and only keys found in the dataset have entries.
+     *
+     * @param lists the cataloged lists
+     * @param key the key of the list
+     * @param loaded the loaded list or null if an error occurred
+     * @return the shared list or null
+     */
+    private List<String> share(ConcurrentHashMap<String, List<String>> lists, String key,
+            ArrayList<String> loaded) {
+        if (loaded == null) {
+            return null;
+        }
+        if (loaded.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> copy = new ArrayList<>(loaded.size());
+        for (String value : loaded) {
+            copy.add(intern(value));
+        }
+        List<String> shared = Collections.unmodifiableList(copy);
+        List<String> existing = lists.putIfAbsent(key, shared);
+        return existing != null ? existing : shared;
+    }
+
+    /**
+     * Returns the catalog's single copy of a string.
+     *
+     * @param value the string
+     * @return the interned string
+     */
+    private String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = strings.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+}
@@ -0,0 +1,258 @@
+package com.daniel.hospitalcharges.data;
+
+import com.daniel.hospitalcharges.data.memory.ChargeColumn;
+import com.daniel.hospitalcharges.data.memory.ChargeEngine;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import com.daniel.hospitalcharges.data.memory.DataRefreshListener;
+import com.daniel.hospitalcharges.data.memory.PercentileIndex;
+import com.daniel.hospitalcharges.model.StatisticsResult;
+import com.daniel.hospitalcharges.utility.HistogramUtility;
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This class holds the DRG and APC charge statistics in memory. When the
+ * charge engines are loaded, the statistics of every DRG and APC are computed
+ * once from the engines. Otherwise, the results of the getDRGStats and
+ * getAPCStats procedures are kept after the first request. The cache is
+ * discarded whenever the dataset version changes or invalidate is called.
+ *
+ * @author Bryan Daniel
+ */
+public class StatisticsCache implements DataRefreshListener {
+
+    /**
+     * The single instance of the cache
+     */
+    private static final StatisticsCache cache = new StatisticsCache();
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(StatisticsCache.class);
+
+    /**
+     * The cached statistics for the current dataset version
+     */
+    private volatile Snapshot snapshot = new Snapshot(-1);
+
+    /**
+     * The private constructor ensures that only a single instance of
+     * StatisticsCache is created.
+     */
+    private StatisticsCache() {
+    }
+
+    /**
+     * This static method returns the StatisticsCache object.
+     *
+     * @return the StatisticsCache object
+     */
+    public static StatisticsCache getInstance() {
+        return cache;
+    }
+
+    /**
+     * Returns a copy of the cached statistics for a diagnosis-related group.
+     *
+     * @param drgId the DRG ID
+     * @return the statistics or null if they are not cached
+     */
+    public StatisticsResult getDiagnosisRelatedGroupStats(int drgId) {
+        return get(getSnapshot().drgStats, ChargeEngineManager.getInpatientEngine(), drgId);
+    }
+
+    /**
+     * Returns a copy of the cached statistics for an ambulatory payment
+     * classification.
+     *
+     * @param apcId the APC ID
+     * @return the statistics or null if they are not cached
+     */
+    public StatisticsResult getAmbulatoryPaymentClassificationStats(int apcId) {
+        return get(getSnapshot().apcStats, ChargeEngineManager.getOutpatientEngine(), apcId);
+    }
+
+    /**
+     * Stores the statistics for a diagnosis-related group.
+     *
+     * @param drgId the DRG ID
+     * @param statsResult the statistics
+     */
+    public void putDiagnosisRelatedGroupStats(int drgId, StatisticsResult statsResult) {
+        getSnapshot().drgStats.put(drgId, new StatisticsResult(statsResult));
+    }
+
+    /**
+     * Stores the statistics for an ambulatory payment classification.
+     *
+     * @param apcId the APC ID
+     * @param statsResult the statistics
+     */
+    public void putAmbulatoryPaymentClassificationStats(int apcId, StatisticsResult statsResult) {
+        getSnapshot().apcStats.put(apcId, new StatisticsResult(statsResult));
+    }
+
+    /**
+     * Computes the statistics of every DRG and APC from the loaded charge
+     * engines and replaces the cache contents with them.
+     */
+    public void refresh() {
+        long version = ChargeEngineManager.getDatasetVersion();
+        Snapshot refreshed = new Snapshot(version);
+        computeAll(ChargeEngineManager.getInpatientEngine(), refreshed.drgStats);
+        computeAll(ChargeEngineManager.getOutpatientEngine(), refreshed.apcStats);
+        snapshot = refreshed;
+        logger.info("Statistics cache refreshed with " + refreshed.drgStats.size() + " DRGs and "
+                + refreshed.apcStats.size() + " APCs for dataset version " + version + ".");
+    }
+
+    /**
+     * Discards all cached statistics.
+     */
+    public void invalidate() {
+        snapshot = new Snapshot(ChargeEngineManager.getDatasetVersion());
+    }
+
+    /**
+     * Refreshes the cache when the charge engines change.
+     *
+     * @param datasetVersion the new dataset version
+     */
+    @Override
+    public void dataRefreshed(long datasetVersion) {
+        refresh();
+    }
+
+    /**
+     * Computes the statistics of a classification from a charge engine, as
+     * the getDRGStats and getAPCStats procedures would.
+     *
+     * @param engine the charge engine
+     * @param position the classification position
+     * @return the statistics
+     */
+    static StatisticsResult compute(ChargeEngine engine, int position) {
+        StatisticsResult statsResult = new StatisticsResult();
+        PercentileIndex index = engine.getPercentileIndex(ChargeColumn.AVG_CHARGES);
+        int count = index.getCount(position);
+        double[] charges = new double[count];
+        for (int rank = 1; rank <= count; rank++) {
+            charges[rank - 1] = index.getValue(position, rank) / 100.0;
+        }
+        HistogramUtility.setHistogram(statsResult, charges, count);
+        if (count == 0) {
+            return statsResult;
+        }
+
+        long min = index.getValue(position, 1);
+        long max = index.getValue(position, count);
+        long sum = 0;
+        int minRow = ChargeEngine.NOT_FOUND;
+        int maxRow = ChargeEngine.NOT_FOUND;
+        for (int row = engine.getFirstChargeRow(position); row < engine.getEndChargeRow(position); row++) {
+            long value = engine.getAmount(row, ChargeColumn.AVG_CHARGES);
+            sum += value;
+            if (value == min) {
+                minRow = row;
+            }
+            if (value == max) {
+                maxRow = row;
+            }
+        }
+        double mean = (double) sum / count;
+        double squares = 0;
+        for (int row = engine.getFirstChargeRow(position); row < engine.getEndChargeRow(position); row++) {
+            double difference = engine.getAmount(row, ChargeColumn.AVG_CHARGES) - mean;
+            squares += difference * difference;
+        }
+        long median = index.getValue(position, (count + 1) / 2) + index.getValue(position, (count + 2) / 2);
+
+        statsResult.setAvgCharge(BigDecimal.valueOf(sum, ChargeEngine.SCALE)
+                .divide(BigDecimal.valueOf(count), ChargeEngine.SCALE, BigDecimal.ROUND_HALF_UP));
+        statsResult.setMedian(BigDecimal.valueOf(median, ChargeEngine.SCALE)
+                .divide(BigDecimal.valueOf(2), ChargeEngine.SCALE, BigDecimal.ROUND_HALF_UP));
+        statsResult.setStdDeviation(BigDecimal.valueOf(Math.sqrt(squares / count))
+                .movePointLeft(ChargeEngine.SCALE).setScale(ChargeEngine.SCALE, BigDecimal.ROUND_HALF_UP));
+        statsResult.setRange(BigDecimal.valueOf(max - min, ChargeEngine.SCALE));
+        statsResult.setMinCharge(BigDecimal.valueOf(min, ChargeEngine.SCALE));
+        statsResult.setMaxCharge(BigDecimal.valueOf(max, ChargeEngine.SCALE));
+        statsResult.setMinProvider(engine.getProvider(engine.getChargeProvider(minRow)));
+        statsResult.setMaxProvider(engine.getProvider(engine.getChargeProvider(maxRow)));
+        return statsResult;
+    }
+
+    /**
+     * Returns the snapshot for the current dataset version, discarding the
+     * cached statistics of an earlier version.
+     *
+     * @return the current snapshot
+     */
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current.version != ChargeEngineManager.getDatasetVersion()) {
+            synchronized (this) {
+                current = snapshot;
+                if (current.version != ChargeEngineManager.getDatasetVersion()) {
+                    current = new Snapshot(ChargeEngineManager.getDatasetVersion());
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns a copy of the cached statistics, computing them from the engine
+     * if it is loaded and they are not cached yet.
+     *
+     * @param stats the cached statistics
+     * @param engine the charge engine or null
+     * @param id the DRG or APC ID
+     * @return the statistics or null
+     */
+    private static StatisticsResult get(ConcurrentHashMap<Integer, StatisticsResult> stats,
+            ChargeEngine engine, int id) {
+        StatisticsResult statsResult = stats.get(id);
+        if (statsResult == null && engine != null) {
+            int position = engine.findClassification(id);
+            if (position != ChargeEngine.NOT_FOUND) {
+                statsResult = compute(engine, position);
+                stats.put(id, statsResult);
+            }
+        }
+        return statsResult == null ? null : new StatisticsResult(statsResult);
+    }
+
+    /**
+     * Computes the statistics of every classification of an engine.
+     *
+     * @param engine the charge engine or null
+     * @param stats the map receiving the statistics
+     */
+    private static void computeAll(ChargeEngine engine, ConcurrentHashMap<Integer, StatisticsResult> stats) {
+        if (engine == null) {
+            return;
+        }
+        for (int i = 0; i < engine.getClassificationCount(); i++) {
+            stats.put(engine.getClassificationId(i), compute(engine, i));
+        }
+    }
+
+    /**
+     * The statistics cached for one dataset version
+     */
+    private static class Snapshot {
+
+        final long version;
+        final ConcurrentHashMap<Integer, StatisticsResult> drgStats = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Integer, StatisticsResult> apcStats = new ConcurrentHashMap<>();
+
+        Snapshot(long version) {
+            this.version = version;
+        }
+    }
+}
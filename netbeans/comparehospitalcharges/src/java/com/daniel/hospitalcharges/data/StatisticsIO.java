@@ -1,22 +1,23 @@
 package com.daniel.hospitalcharges.data;
 
-import com.daniel.hospitalcharges.data.pool.OutpatientConnectionPool;
-import com.daniel.hospitalcharges.data.pool.InpatientConnectionPool;
+import com.daniel.hospitalcharges.data.access.Procedure;
+import com.daniel.hospitalcharges.data.access.ResultHandler;
+import com.daniel.hospitalcharges.data.access.ResultReader;
+import com.daniel.hospitalcharges.data.access.RowMapper;
+import com.daniel.hospitalcharges.data.access.RowMappers;
+import com.daniel.hospitalcharges.data.pool.ConnectionPool;
 import com.daniel.hospitalcharges.model.Provider;
 import com.daniel.hospitalcharges.model.StatisticsResult;
-import com.daniel.hospitalcharges.data.utility.DatabaseUtility;
-import java.math.BigDecimal;
-import java.sql.CallableStatement;
-import java.sql.Connection;
+import com.daniel.hospitalcharges.utility.HistogramUtility;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 /**
  * Connects to the databases to retrieve statistical information on DRG or APC
- * charges
+ * charges. Statistics are served from the StatisticsCache when available, and
+ * the results of the database are stored there for later requests.
  *
  * @author Bryan Daniel
  */
@@ -28,195 +29,142 @@ public class StatisticsIO {
     @SuppressWarnings("FieldMayBeFinal")
     private static Logger logger = LogManager.getLogger(StatisticsIO.class);
 
+    /**
+     * The getDRGStats procedure
+     */
+    private static final Procedure GET_DRG_STATS = new Procedure("getDRGStats", 1);
+
+    /**
+     * The getAPCStats procedure
+     */
+    private static final Procedure GET_APC_STATS = new Procedure("getAPCStats", 1);
+
+    /**
+     * Reads the result sets of getDRGStats
+     */
+    private static final ResultHandler<StatisticsResult> DRG_STATS_HANDLER = createStatisticsHandler();
+
+    /**
+     * Reads the result sets of getAPCStats
+     */
+    private static final ResultHandler<StatisticsResult> APC_STATS_HANDLER = createStatisticsHandler();
+
     /**
      * Retrieves the diagnosis-related group charge statistics.
      *
      * @param drgId the DRG ID
-     * @return the statistics or null if an error occurs
+     * @return a copy of the statistics or null if an error occurs
      */
     public static StatisticsResult getDiagnosisRelatedGroupStats(int drgId) {
-        InpatientConnectionPool pool = InpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-        StatisticsResult statsResult = new StatisticsResult();
+        StatisticsCache cache = StatisticsCache.getInstance();
+        StatisticsResult cachedResult = cache.getDiagnosisRelatedGroupStats(drgId);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
 
+        StatisticsResult statsResult;
         try {
-            callableStatement = connection.prepareCall("{CALL getDRGStats(?, ?)}");
-            callableStatement.setInt(1, drgId);
-            callableStatement.registerOutParameter(2, java.sql.Types.TINYINT);
-
-            //reads true if result set exists
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-
-            //single stats
-            resultSet = callableStatement.getResultSet();
-            while (resultSet.next()) {
-                statsResult.setAvgCharge(resultSet.getBigDecimal("avg charge"));
-                statsResult.setMedian(resultSet.getBigDecimal("median"));
-                statsResult.setStdDeviation(resultSet.getBigDecimal("std deviation"));
-                statsResult.setRange(resultSet.getBigDecimal("range"));
-                statsResult.setMinCharge(resultSet.getBigDecimal("min charge"));
-                statsResult.setMaxCharge(resultSet.getBigDecimal("max charge"));
-            }
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
-            }
-
-            //all charges for the histogram
-            resultSet = callableStatement.getResultSet();
-            ArrayList<BigDecimal> charges = new ArrayList<>();
-            while (resultSet.next()) {
-                charges.add(resultSet.getBigDecimal("avg charges"));
-            }
-            statsResult.setAllCharges(charges);
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
-            }
-
-            //max charge provider
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                Provider provider = new Provider();
-                provider.setId(resultSet.getInt("max provider id"));
-                provider.setName(resultSet.getString("provider name"));
-                provider.setStreet(resultSet.getString("provider street"));
-                provider.setCity(resultSet.getString("provider city"));
-                provider.setState(resultSet.getString("provider state"));
-                provider.setZipCode(resultSet.getString("provider zip"));
-                statsResult.setMaxProvider(provider);
-            }
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
-            }
-
-            //min charge provider
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                Provider provider = new Provider();
-                provider.setId(resultSet.getInt("min provider id"));
-                provider.setName(resultSet.getString("provider name"));
-                provider.setStreet(resultSet.getString("provider street"));
-                provider.setCity(resultSet.getString("provider city"));
-                provider.setState(resultSet.getString("provider state"));
-                provider.setZipCode(resultSet.getString("provider zip"));
-                statsResult.setMinProvider(provider);
-            }
+            statsResult = GET_DRG_STATS.call(ConnectionPool.getInpatientPool(), DRG_STATS_HANDLER, drgId);
         } catch (SQLException e) {
-            logger.error("A SQLException occurred in the getDiagnosisRelatedGroupStats method.", e);
+            Procedure.logFailure(logger, "getDiagnosisRelatedGroupStats", e);
+            return null;
+        }
+        if (statsResult == null) {
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return statsResult;
+        cache.putDiagnosisRelatedGroupStats(drgId, statsResult);
+        //the procedure result may be shared with other requests, so the caller gets a copy
+        return new StatisticsResult(statsResult);
     }
 
     /**
      * Retrieves the ambulatory payment classification charge statistics
      *
      * @param apcId the APC ID
-     * @return the statistics or null if an error occurs
+     * @return a copy of the statistics or null if an error occurs
      */
     public static StatisticsResult getAmbulatoryPaymentClassificationStats(int apcId) {
-        OutpatientConnectionPool pool = OutpatientConnectionPool.getInstance();
-        Connection connection = pool.getConnection();
-        CallableStatement callableStatement = null;
-        ResultSet resultSet = null;
-        StatisticsResult statsResult = new StatisticsResult();
+        StatisticsCache cache = StatisticsCache.getInstance();
+        StatisticsResult cachedResult = cache.getAmbulatoryPaymentClassificationStats(apcId);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
 
+        StatisticsResult statsResult;
         try {
-            callableStatement = connection.prepareCall("{CALL getAPCStats(?, ?)}");
-            callableStatement.setInt(1, apcId);
-            callableStatement.registerOutParameter(2, java.sql.Types.TINYINT);
-
-            //reads true if result set exists
-            boolean success = callableStatement.execute();
-            if (!success) {
-                return null;
-            }
-
-            //single stats
-            resultSet = callableStatement.getResultSet();
-            while (resultSet.next()) {
-                statsResult.setAvgCharge(resultSet.getBigDecimal("avg charge"));
-                statsResult.setMedian(resultSet.getBigDecimal("median"));
-                statsResult.setStdDeviation(resultSet.getBigDecimal("std deviation"));
-                statsResult.setRange(resultSet.getBigDecimal("range"));
-                statsResult.setMinCharge(resultSet.getBigDecimal("min charge"));
-                statsResult.setMaxCharge(resultSet.getBigDecimal("max charge"));
-            }
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
-            }
-
-            //all charges for the histogram
-            resultSet = callableStatement.getResultSet();
-            ArrayList<BigDecimal> charges = new ArrayList<>();
-            while (resultSet.next()) {
-                charges.add(resultSet.getBigDecimal("avg charges"));
-            }
-            statsResult.setAllCharges(charges);
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
-            }
-
-            //max charge provider
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                Provider provider = new Provider();
-                provider.setId(resultSet.getInt("max provider id"));
-                provider.setName(resultSet.getString("provider name"));
-                provider.setStreet(resultSet.getString("provider street"));
-                provider.setCity(resultSet.getString("provider city"));
-                provider.setState(resultSet.getString("provider state"));
-                provider.setZipCode(resultSet.getString("provider zip"));
-                statsResult.setMaxProvider(provider);
-            }
-
-            success = callableStatement.getMoreResults();
-            if (!success) {
-                return null;
-            }
-
-            //min charge provider
-            resultSet = callableStatement.getResultSet();
-
-            while (resultSet.next()) {
-                Provider provider = new Provider();
-                provider.setId(resultSet.getInt("min provider id"));
-                provider.setName(resultSet.getString("provider name"));
-                provider.setStreet(resultSet.getString("provider street"));
-                provider.setCity(resultSet.getString("provider city"));
-                provider.setState(resultSet.getString("provider state"));
-                provider.setZipCode(resultSet.getString("provider zip"));
-                statsResult.setMinProvider(provider);
-            }
+            statsResult = GET_APC_STATS.call(ConnectionPool.getOutpatientPool(), APC_STATS_HANDLER, apcId);
         } catch (SQLException e) {
-            logger.error("A SQLException occurred in the getAmbulatoryPaymentClassificationStats method.", e);
+            Procedure.logFailure(logger, "getAmbulatoryPaymentClassificationStats", e);
             return null;
-        } finally {
-            DatabaseUtility.closeResultSet(resultSet);
-            DatabaseUtility.closeCallableStatement(callableStatement);
-            pool.freeConnection(connection);
         }
-        return statsResult;
+        if (statsResult == null) {
+            return null;
+        }
+        cache.putAmbulatoryPaymentClassificationStats(apcId, statsResult);
+        //the procedure result may be shared with other requests, so the caller gets a copy
+        return new StatisticsResult(statsResult);
+    }
+
+    /**
+     * Creates a handler reading the four result sets of a statistics
+     * procedure: the single statistics, all charges for the histogram, the
+     * maximum charge provider and the minimum charge provider.
+     *
+     * @return the handler
+     */
+    private static ResultHandler<StatisticsResult> createStatisticsHandler() {
+        return new ResultHandler<StatisticsResult>() {
+            private final RowMapper<StatisticsResult> stats = new RowMapper<StatisticsResult>(
+                    "avg charge", "median", "std deviation", "range", "min charge", "max charge") {
+                @Override
+                public StatisticsResult map(ResultSet resultSet, int[] columns) throws SQLException {
+                    StatisticsResult statsResult = new StatisticsResult();
+                    statsResult.setAvgCharge(resultSet.getBigDecimal(columns[0]));
+                    statsResult.setMedian(resultSet.getBigDecimal(columns[1]));
+                    statsResult.setStdDeviation(resultSet.getBigDecimal(columns[2]));
+                    statsResult.setRange(resultSet.getBigDecimal(columns[3]));
+                    statsResult.setMinCharge(resultSet.getBigDecimal(columns[4]));
+                    statsResult.setMaxCharge(resultSet.getBigDecimal(columns[5]));
+                    return statsResult;
+                }
+            };
+            private final RowMapper<Provider> maxProvider = RowMappers.provider("max provider id");
+            private final RowMapper<Provider> minProvider = RowMappers.provider("min provider id");
+
+            @Override
+            public StatisticsResult handle(ResultReader reader) throws SQLException {
+                //single stats
+                StatisticsResult statsResult = reader.last(stats);
+                if (statsResult == null) {
+                    statsResult = new StatisticsResult();
+                }
+                if (!reader.next()) {
+                    return null;
+                }
+
+                //all charges for the histogram
+                double[] charges = reader.readDoubles("avg charges");
+                HistogramUtility.setHistogram(statsResult, charges, charges.length);
+                if (!reader.next()) {
+                    return null;
+                }
+
+                //max charge provider
+                Provider provider = reader.last(maxProvider);
+                if (provider != null) {
+                    statsResult.setMaxProvider(provider);
+                }
+                if (!reader.next()) {
+                    return null;
+                }
+
+                //min charge provider
+                provider = reader.last(minProvider);
+                if (provider != null) {
+                    statsResult.setMinProvider(provider);
+                }
+                return statsResult;
+            }
+        };
     }
 }
@@ -0,0 +1,142 @@
+package com.daniel.hospitalcharges.data.access;
+
+import com.daniel.hospitalcharges.utility.ManagementUtility;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ObjectName;
+
+/**
+ * This class keeps the last successful result of each procedure call, so a
+ * call can be answered with it while the database fails or its circuit is
+ * open. The least recently used results are dropped when the cache is full.
+ *
+ * @author Bryan Daniel
+ */
+public class LastKnownGoodCache implements LastKnownGoodCacheMXBean {
+
+    /**
+     * The default number of results kept
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 5000;
+
+    /**
+     * The results by call, in access order
+     */
+    private final LinkedHashMap<List<Object>, Object> results;
+
+    /**
+     * The maximum number of results kept
+     */
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    /**
+     * The number of calls answered with a kept result
+     */
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    /**
+     * The name under which the MXBean is registered
+     */
+    private volatile ObjectName objectName;
+
+    /**
+     * Creates a cache and registers its MXBean.
+     *
+     * @param name the name of the cache
+     */
+    public LastKnownGoodCache(String name) {
+        results = new LinkedHashMap<List<Object>, Object>(64, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Object> eldest) {
+                return size() > maximumSize;
+            }
+        };
+        objectName = ManagementUtility.register("LastKnownGoodCache", name, this);
+    }
+
+    /**
+     * Keeps the result of a successful call.
+     *
+     * @param key the call
+     * @param result the result
+     */
+    public synchronized void put(List<Object> key, Object result) {
+        results.put(key, result);
+    }
+
+    /**
+     * Returns the last successful result of a call and counts it as a
+     * fallback.
+     *
+     * @param key the call
+     * @return the result or null if none is kept
+     */
+    public synchronized Object getFallback(List<Object> key) {
+        Object result = results.get(key);
+        if (result != null) {
+            fallbackCount.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of results kept.
+     *
+     * @return the size
+     */
+    @Override
+    public synchronized int getSize() {
+        return results.size();
+    }
+
+    /**
+     * Returns the maximum number of results kept.
+     *
+     * @return the maximum size
+     */
+    @Override
+    public synchronized int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Sets the maximum number of results kept.
+     *
+     * @param maximumSize the maximum size
+     */
+    @Override
+    public synchronized void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns the number of calls answered with a kept result because the
+     * database failed or its circuit was open.
+     *
+     * @return the fallback count
+     */
+    @Override
+    public long getFallbackCount() {
+        return fallbackCount.get();
+    }
+
+    /**
+     * Removes all kept results.
+     */
+    @Override
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * Removes the MXBean of the cache from the platform MBean server.
+     */
+    public void unregister() {
+        ManagementUtility.unregister(objectName);
+        objectName = null;
+    }
+}
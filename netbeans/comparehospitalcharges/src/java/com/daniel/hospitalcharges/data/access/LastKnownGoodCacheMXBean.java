@@ -0,0 +1,43 @@
+package com.daniel.hospitalcharges.data.access;
+
+/**
+ * This interface exposes the last known good procedure results through JMX.
+ *
+ * @author Bryan Daniel
+ */
+public interface LastKnownGoodCacheMXBean {
+
+    /**
+     * Returns the number of results kept.
+     *
+     * @return the size
+     */
+    public int getSize();
+
+    /**
+     * Returns the maximum number of results kept.
+     *
+     * @return the maximum size
+     */
+    public int getMaximumSize();
+
+    /**
+     * Sets the maximum number of results kept.
+     *
+     * @param maximumSize the maximum size
+     */
+    public void setMaximumSize(int maximumSize);
+
+    /**
+     * Returns the number of calls answered with a kept result because the
+     * database failed or its circuit was open.
+     *
+     * @return the fallback count
+     */
+    public long getFallbackCount();
+
+    /**
+     * Removes all kept results.
+     */
+    public void clear();
+}
@@ -0,0 +1,442 @@
+package com.daniel.hospitalcharges.data.access;
+
+import com.daniel.hospitalcharges.concurrent.CircuitBreaker;
+import com.daniel.hospitalcharges.concurrent.ConcurrencyLimiter;
+import com.daniel.hospitalcharges.concurrent.SingleFlight;
+import com.daniel.hospitalcharges.concurrent.TrackedRequest;
+import com.daniel.hospitalcharges.data.pool.ConnectionPool;
+import com.daniel.hospitalcharges.data.utility.DatabaseUtility;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import org.apache.log4j.Logger;
+
+/**
+ * This class calls a stored procedure of the hospital charges databases. Every
+ * procedure takes its input parameters followed by a TINYINT output
+ * parameter. The call string is built once, so the pooled connections can
+ * reuse the prepared call. Identical calls made while one is in flight share
+ * its execution and result instead of querying the database again. Each call
+ * is limited by the query timeout of its pool and guarded by the circuit
+ * breaker and the concurrency limiter of its pool, and a call rejected by an
+ * open circuit or a reached limit, or failing to reach the database in time,
+ * is answered with the last known good result when there is one. A call made for a tracked request is
+ * not started once the request is superseded, and its running statement is
+ * cancelled with the request unless other calls share its result.
+ *
+ * @author Bryan Daniel
+ */
+public class Procedure {
+
+    /**
+     * The group coalescing identical calls of all procedures
+     */
+    private static final SingleFlight calls = new SingleFlight("procedures");
+
+    /**
+     * The last successful results of all procedures
+     */
+    private static final LastKnownGoodCache lastKnownGood = new LastKnownGoodCache("procedures");
+
+    /**
+     * The SQL state of a cancelled call
+     */
+    private static final String CANCELLED_STATE = "HY008";
+
+    /**
+     * The SQL state of a statement cancelled by the MySQL Connector/J 5.1
+     * driver
+     */
+    private static final String DRIVER_CANCELLED_STATE = "S1008";
+
+    /**
+     * The SQL states of a statement timeout, standard and as set by the MySQL
+     * Connector/J 5.1 driver
+     */
+    private static final String[] TIMEOUT_STATES = {"HYT00", "S1T00"};
+
+    /**
+     * The SQL state class of connection failures
+     */
+    private static final String CONNECTION_STATE_CLASS = "08";
+
+    /**
+     * The most executions of a call whose shared executions are cancelled for
+     * the sake of other requests
+     */
+    private static final int MAXIMUM_ATTEMPTS = 3;
+
+    /**
+     * The name of the procedure
+     */
+    private final String name;
+
+    /**
+     * The number of input parameters
+     */
+    private final int parameterCount;
+
+    /**
+     * The call string
+     */
+    private final String sql;
+
+    /**
+     * Creates a procedure.
+     *
+     * @param name the name of the procedure
+     * @param parameterCount the number of input parameters
+     */
+    public Procedure(String name, int parameterCount) {
+        this.name = name;
+        this.parameterCount = parameterCount;
+        StringBuilder builder = new StringBuilder("{CALL ").append(name).append('(');
+        for (int i = 0; i < parameterCount; i++) {
+            builder.append("?, ");
+        }
+        this.sql = builder.append("?)}").toString();
+    }
+
+    /**
+     * Returns the name of the procedure.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the call string of the procedure.
+     *
+     * @return the call string
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Calls the procedure and reads its result sets with the given handler.
+     * The connection, call and result sets are always released. Callers of an
+     * identical call in flight, with the same pool, handler and parameters,
+     * receive its result, and a call rejected or failing to reach the
+     * database may be answered with an earlier result, so the result must not
+     * be modified. Cancelled calls and errors of the call itself are never
+     * answered with an earlier result.
+     *
+     * @param <T> the type of the result
+     * @param pool the connection pool
+     * @param handler the result handler
+     * @param parameters the input parameters
+     * @return the result or null if the procedure returned no result set
+     * @throws SQLException if the call fails and is not answered with an
+     * earlier result
+     */
+    public <T> T call(final ConnectionPool pool, final ResultHandler<T> handler, final Object... parameters)
+            throws SQLException {
+        if (parameters.length != parameterCount) {
+            throw new IllegalArgumentException(name + " takes " + parameterCount + " parameters.");
+        }
+        TrackedRequest request = TrackedRequest.current();
+        if (request != null && request.isCancelled()) {
+            throw new SQLException("The call of " + name + " was superseded.", CANCELLED_STATE);
+        }
+        List<Object> key = new ArrayList<>(parameters.length + 3);
+        key.add(pool.getName());
+        key.add(name);
+        key.add(handler);
+        key.addAll(Arrays.asList(parameters));
+
+        CircuitBreaker circuitBreaker = pool.getCircuitBreaker();
+        T result;
+        try {
+            if (!circuitBreaker.allowRequest()) {
+                throw new SQLTransientConnectionException("The " + pool.getName() + " circuit is open.");
+            }
+            result = coalesce(key, pool, handler, parameters);
+        } catch (SQLException e) {
+            if (!isUnavailable(e)) {
+                throw e;
+            }
+            @SuppressWarnings("unchecked")
+            T fallback = (T) lastKnownGood.getFallback(key);
+            if (fallback == null) {
+                throw e;
+            }
+            return fallback;
+        }
+        if (result != null) {
+            lastKnownGood.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether a call failed because it was cancelled, either before it
+     * started or by the driver while it ran, rather than by a database error.
+     *
+     * @param e the exception of the call
+     * @return true if the call was cancelled
+     */
+    public static boolean isCancelled(SQLException e) {
+        return CANCELLED_STATE.equals(e.getSQLState()) || DRIVER_CANCELLED_STATE.equals(e.getSQLState());
+    }
+
+    /**
+     * Logs the failure of a call made by an IO method: a cancelled call at
+     * debug level, since its request was superseded, and any other failure
+     * as an error.
+     *
+     * @param logger the logger of the IO class
+     * @param method the name of the IO method
+     * @param e the exception of the call
+     */
+    public static void logFailure(Logger logger, String method, SQLException e) {
+        if (isCancelled(e)) {
+            logger.debug("The " + method + " call was superseded.");
+        } else {
+            logger.error("SQLException occurred in " + method + " method.", e);
+        }
+    }
+
+    /**
+     * Returns whether a call failed because the database was unavailable: the
+     * call was rejected by an open circuit or a reached limit, or failed to
+     * connect or timed out. Such a call may be answered with an earlier
+     * result, unlike a cancelled call or an error of the call itself.
+     *
+     * @param e the exception of the call
+     * @return true if the database was unavailable
+     */
+    static boolean isUnavailable(SQLException e) {
+        if (isCancelled(e)) {
+            return false;
+        }
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        if (state == null) {
+            return false;
+        }
+        for (String timeoutState : TIMEOUT_STATES) {
+            if (timeoutState.equals(state)) {
+                return true;
+            }
+        }
+        return state.startsWith(CONNECTION_STATE_CLASS);
+    }
+
+    /**
+     * Returns the group coalescing identical calls of all procedures.
+     *
+     * @return the single-flight group
+     */
+    public static SingleFlight getCalls() {
+        return calls;
+    }
+
+    /**
+     * Returns the last successful results of all procedures.
+     *
+     * @return the last known good cache
+     */
+    public static LastKnownGoodCache getLastKnownGood() {
+        return lastKnownGood;
+    }
+
+    /**
+     * Executes the procedure unless an identical call is in flight, in which
+     * case its result is shared. A shared execution cancelled because the
+     * request that started it was superseded is retried, since the request
+     * of this call may still be current.
+     *
+     * @param <T> the type of the result
+     * @param key the call
+     * @param pool the connection pool
+     * @param handler the result handler
+     * @param parameters the input parameters
+     * @return the result or null if the procedure returned no result set
+     * @throws SQLException if the call fails
+     */
+    private <T> T coalesce(List<Object> key, ConnectionPool pool, ResultHandler<T> handler,
+            Object[] parameters) throws SQLException {
+        TrackedRequest request = TrackedRequest.current();
+        for (int attempt = 1;; attempt++) {
+            try {
+                return share(key, pool, handler, parameters);
+            } catch (SQLException e) {
+                if (!isCancelled(e) || (request != null && request.isCancelled()) || attempt == MAXIMUM_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes the procedure unless an identical call is in flight, in which
+     * case its result is shared. An execution is rejected if the concurrency
+     * limit of the pool is reached, and its time and outcome are recorded by
+     * the concurrency limiter and circuit breaker of the pool.
+     *
+     * @param <T> the type of the result
+     * @param key the call
+     * @param pool the connection pool
+     * @param handler the result handler
+     * @param parameters the input parameters
+     * @return the result or null if the procedure returned no result set
+     * @throws SQLException if the call fails
+     */
+    private <T> T share(final List<Object> key, final ConnectionPool pool, final ResultHandler<T> handler,
+            final Object[] parameters) throws SQLException {
+        try {
+            return calls.execute(key, new Callable<T>() {
+                @Override
+                public T call() throws SQLException {
+                    ConcurrencyLimiter concurrencyLimiter = pool.getConcurrencyLimiter();
+                    long start = concurrencyLimiter.acquire();
+                    if (start < 0) {
+                        //a rejected call never reached the database, so another trial call may follow
+                        pool.getCircuitBreaker().recordCancelled();
+                        throw new SQLTransientConnectionException("The " + pool.getName()
+                                + " concurrency limit is reached.");
+                    }
+                    boolean failed = false;
+                    boolean cancelled = false;
+                    try {
+                        return execute(key, pool, handler, parameters);
+                    } catch (SQLException e) {
+                        failed = true;
+                        cancelled = isCancelled(e);
+                        throw e;
+                    } finally {
+                        //a cancelled call says nothing about the health of the database
+                        if (cancelled) {
+                            concurrencyLimiter.abandon();
+                            pool.getCircuitBreaker().recordCancelled();
+                        } else {
+                            concurrencyLimiter.release(start, failed);
+                            //only database failures count against the circuit
+                            if (failed) {
+                                pool.getCircuitBreaker().recordFailure();
+                            } else {
+                                pool.getCircuitBreaker().recordSuccess();
+                            }
+                        }
+                    }
+                }
+            });
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SQLException("The call of " + name + " failed.", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("The call of " + name + " was interrupted.", e);
+        }
+    }
+
+    /**
+     * Executes the procedure on a connection of the pool. The statement is
+     * attached to the tracked request of the current thread, if any, so it is
+     * cancelled when the request is superseded, unless other calls are waiting
+     * for its result.
+     *
+     * @param <T> the type of the result
+     * @param key the call
+     * @param pool the connection pool
+     * @param handler the result handler
+     * @param parameters the input parameters
+     * @return the result or null if the procedure returned no result set
+     * @throws SQLException if the call fails
+     */
+    private <T> T execute(final List<Object> key, ConnectionPool pool, ResultHandler<T> handler,
+            Object[] parameters) throws SQLException {
+        TrackedRequest request = TrackedRequest.current();
+        TrackedRequest.Cancellation cancellation = null;
+        Connection connection = null;
+        CallableStatement callableStatement = null;
+        ResultReader reader = null;
+        try {
+            connection = pool.getConnection(name);
+            callableStatement = connection.prepareCall(sql);
+            callableStatement.setQueryTimeout(pool.getQueryTimeoutSeconds());
+            if (request != null) {
+                final CallableStatement statement = callableStatement;
+                cancellation = new TrackedRequest.Cancellation() {
+                    @Override
+                    public void cancel() {
+                        if (calls.hasFollowers(key)) {
+                            return;
+                        }
+                        try {
+                            statement.cancel();
+                        } catch (SQLException e) {
+                            //the statement has finished or its connection is gone
+                        }
+                    }
+                };
+                if (!request.attach(cancellation)) {
+                    throw new SQLException("The call of " + name + " was superseded.", CANCELLED_STATE);
+                }
+            }
+            for (int i = 0; i < parameters.length; i++) {
+                setParameter(callableStatement, i + 1, parameters[i]);
+            }
+            callableStatement.registerOutParameter(parameterCount + 1, Types.TINYINT);
+
+            reader = new ResultReader(callableStatement);
+            if (!reader.execute()) {
+                return null;
+            }
+            return handler.handle(reader);
+        } finally {
+            if (cancellation != null) {
+                request.detach(cancellation);
+            }
+            if (reader != null) {
+                reader.close();
+            }
+            DatabaseUtility.closeCallableStatement(callableStatement);
+            pool.freeConnection(connection);
+        }
+    }
+
+    /**
+     * Sets an input parameter of the call.
+     *
+     * @param callableStatement the call
+     * @param index the parameter index
+     * @param value the parameter value
+     * @throws SQLException if the parameter cannot be set
+     */
+    private static void setParameter(CallableStatement callableStatement, int index, Object value)
+            throws SQLException {
+        if (value instanceof Integer) {
+            callableStatement.setInt(index, (Integer) value);
+        } else if (value instanceof String) {
+            callableStatement.setString(index, (String) value);
+        } else if (value == null) {
+            callableStatement.setNull(index, Types.VARCHAR);
+        } else {
+            callableStatement.setObject(index, value);
+        }
+    }
+}
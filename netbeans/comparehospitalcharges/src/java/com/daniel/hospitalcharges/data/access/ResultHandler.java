@@ -0,0 +1,22 @@
+package com.daniel.hospitalcharges.data.access;
+
+import java.sql.SQLException;
+
+/**
+ * This interface turns the result sets of a stored procedure call into a
+ * result.
+ *
+ * @author Bryan Daniel
+ * @param <T> the type of the result
+ */
+public interface ResultHandler<T> {
+
+    /**
+     * Reads the result sets of a call positioned on its first result set.
+     *
+     * @param reader the result reader
+     * @return the result or null if a result set is missing
+     * @throws SQLException if a result set cannot be read
+     */
+    public T handle(ResultReader reader) throws SQLException;
+}
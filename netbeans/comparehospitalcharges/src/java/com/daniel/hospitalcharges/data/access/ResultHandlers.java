@@ -0,0 +1,51 @@
+package com.daniel.hospitalcharges.data.access;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
+/**
+ * This class creates the result handlers for procedures returning a single
+ * result set.
+ *
+ * @author Bryan Daniel
+ */
+public class ResultHandlers {
+
+    // not called
+    private ResultHandlers() {
+    }
+
+    /**
+     * Creates a handler mapping every row of the result set.
+     *
+     * @param <T> the type of the mapped objects
+     * @param mapper the row mapper
+     * @return the handler
+     */
+    public static <T> ResultHandler<ArrayList<T>> list(final RowMapper<T> mapper) {
+        return new ResultHandler<ArrayList<T>>() {
+            @Override
+            public ArrayList<T> handle(ResultReader reader) throws SQLException {
+                return reader.list(mapper);
+            }
+        };
+    }
+
+    /**
+     * Creates a handler mapping the rows of the result set and dropping
+     * duplicates while keeping the row order.
+     *
+     * @param <T> the type of the mapped objects
+     * @param mapper the row mapper
+     * @return the handler
+     */
+    public static <T> ResultHandler<ArrayList<T>> distinct(final RowMapper<T> mapper) {
+        return new ResultHandler<ArrayList<T>>() {
+            @Override
+            public ArrayList<T> handle(ResultReader reader) throws SQLException {
+                return new ArrayList<>(reader.read(mapper, new LinkedHashSet<T>()));
+            }
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package com.daniel.hospitalcharges.data.access;
+
+import com.daniel.hospitalcharges.data.utility.DatabaseUtility;
+import java.sql.CallableStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * This class reads the result sets returned by a stored procedure call one
+ * after another, as the getCharges and statistics procedures return several.
+ *
+ * @author Bryan Daniel
+ */
+public class ResultReader {
+
+    /**
+     * The initial capacity of the array reading a column of doubles
+     */
+    private static final int INITIAL_DOUBLES_SIZE = 1024;
+
+    /**
+     * The executed call
+     */
+    private final CallableStatement callableStatement;
+
+    /**
+     * The current result set
+     */
+    private ResultSet resultSet;
+
+    /**
+     * Creates a reader for an executed call.
+     *
+     * @param callableStatement the call
+     */
+    ResultReader(CallableStatement callableStatement) {
+        this.callableStatement = callableStatement;
+    }
+
+    /**
+     * Executes the call and moves to its first result set.
+     *
+     * @return true if the call returned a result set
+     * @throws SQLException if the call fails
+     */
+    boolean execute() throws SQLException {
+        if (!callableStatement.execute()) {
+            return false;
+        }
+        resultSet = callableStatement.getResultSet();
+        return true;
+    }
+
+    /**
+     * Closes the current result set and moves to the next one.
+     *
+     * @return true if there is another result set
+     * @throws SQLException if the next result cannot be read
+     */
+    public boolean next() throws SQLException {
+        close();
+        if (!callableStatement.getMoreResults()) {
+            return false;
+        }
+        resultSet = callableStatement.getResultSet();
+        return true;
+    }
+
+    /**
+     * Maps every row of the current result set into a list.
+     *
+     * @param <T> the type of the mapped objects
+     * @param mapper the row mapper
+     * @return the list of mapped rows
+     * @throws SQLException if a row cannot be read
+     */
+    public <T> ArrayList<T> list(RowMapper<T> mapper) throws SQLException {
+        return read(mapper, new ArrayList<T>());
+    }
+
+    /**
+     * Maps every row of the current result set into the given collection.
+     *
+     * @param <T> the type of the mapped objects
+     * @param <C> the type of the collection
+     * @param mapper the row mapper
+     * @param target the collection
+     * @return the collection
+     * @throws SQLException if a row cannot be read
+     */
+    public <T, C extends Collection<T>> C read(RowMapper<T> mapper, C target) throws SQLException {
+        int[] columns = mapper.resolve(resultSet);
+        while (resultSet.next()) {
+            target.add(mapper.map(resultSet, columns));
+        }
+        return target;
+    }
+
+    /**
+     * Maps the last row of the current result set.
+     *
+     * @param <T> the type of the mapped object
+     * @param mapper the row mapper
+     * @return the mapped row or null if the result set is empty
+     * @throws SQLException if a row cannot be read
+     */
+    public <T> T last(RowMapper<T> mapper) throws SQLException {
+        int[] columns = mapper.resolve(resultSet);
+        T result = null;
+        while (resultSet.next()) {
+            result = mapper.map(resultSet, columns);
+        }
+        return result;
+    }
+
+    /**
+     * Reads one column of the current result set as doubles.
+     *
+     * @param label the column label
+     * @return the values in row order
+     * @throws SQLException if the column cannot be read
+     */
+    public double[] readDoubles(String label) throws SQLException {
+        int column = resultSet.findColumn(label);
+        double[] values = new double[INITIAL_DOUBLES_SIZE];
+        int size = 0;
+        while (resultSet.next()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = resultSet.getDouble(column);
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Closes the current result set.
+     */
+    void close() {
+        DatabaseUtility.closeResultSet(resultSet);
+        resultSet = null;
+    }
+}
@@ -0,0 +1,103 @@
+package com.daniel.hospitalcharges.data.access;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * This class maps the rows of a stored procedure result set to objects. The
+ * column labels are resolved to column indexes once and reused for every
+ * later result set with the same column labels in the same order, so rows are
+ * read by index instead of by label. A result set whose columns differ, as
+ * when a procedure changes or the mapper reads another procedure, is resolved
+ * again.
+ *
+ * @author Bryan Daniel
+ * @param <T> the type of the mapped objects
+ */
+public abstract class RowMapper<T> {
+
+    /**
+     * The column labels read by the mapper
+     */
+    private final String[] labels;
+
+    /**
+     * The column indexes resolved from the last result set
+     */
+    private volatile Resolution resolution;
+
+    /**
+     * Creates a mapper reading the given columns.
+     *
+     * @param labels the column labels
+     */
+    protected RowMapper(String... labels) {
+        this.labels = labels.clone();
+    }
+
+    /**
+     * Returns the indexes of the mapper columns in the given result set,
+     * resolving the labels only if the columns of the result set differ from
+     * those of the last one.
+     *
+     * @param resultSet the result set
+     * @return the column indexes in label order
+     * @throws SQLException if a column is missing
+     */
+    public int[] resolve(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        String[] resultLabels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < resultLabels.length; i++) {
+            resultLabels[i] = metaData.getColumnLabel(i + 1);
+        }
+        Resolution current = resolution;
+        if (current == null || !Arrays.equals(current.resultLabels, resultLabels)) {
+            int[] columns = new int[labels.length];
+            for (int i = 0; i < labels.length; i++) {
+                columns[i] = resultSet.findColumn(labels[i]);
+            }
+            current = new Resolution(resultLabels, columns);
+            resolution = current;
+        }
+        return current.columns;
+    }
+
+    /**
+     * Maps the current row of the result set.
+     *
+     * @param resultSet the result set
+     * @param columns the column indexes in label order
+     * @return the mapped object
+     * @throws SQLException if a column cannot be read
+     */
+    public abstract T map(ResultSet resultSet, int[] columns) throws SQLException;
+
+    /**
+     * Holds the column indexes resolved for the columns of a result set.
+     */
+    private static class Resolution {
+
+        /**
+         * The column labels of the result set
+         */
+        private final String[] resultLabels;
+
+        /**
+         * The column indexes in label order
+         */
+        private final int[] columns;
+
+        /**
+         * Creates a resolution.
+         *
+         * @param resultLabels the column labels of the result set
+         * @param columns the column indexes
+         */
+        private Resolution(String[] resultLabels, int[] columns) {
+            this.resultLabels = resultLabels;
+            this.columns = columns;
+        }
+    }
+}
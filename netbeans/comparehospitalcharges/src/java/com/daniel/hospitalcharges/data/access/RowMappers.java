@@ -0,0 +1,119 @@
+package com.daniel.hospitalcharges.data.access;
+
+import com.daniel.hospitalcharges.model.Provider;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * This class creates the row mappers shared by the inpatient, outpatient and
+ * statistics procedures.
+ *
+ * @author Bryan Daniel
+ */
+public class RowMappers {
+
+    /**
+     * The number of columns read by readProvider
+     */
+    public static final int PROVIDER_COLUMNS = 6;
+
+    // not called
+    private RowMappers() {
+    }
+
+    /**
+     * Creates a mapper reading a single string column.
+     *
+     * @param label the column label
+     * @return the mapper
+     */
+    public static RowMapper<String> string(String label) {
+        return new RowMapper<String>(label) {
+            @Override
+            public String map(ResultSet resultSet, int[] columns) throws SQLException {
+                return resultSet.getString(columns[0]);
+            }
+        };
+    }
+
+    /**
+     * Creates a mapper reading a single decimal column rounded half up to the
+     * given scale.
+     *
+     * @param label the column label
+     * @param scale the scale
+     * @return the mapper
+     */
+    public static RowMapper<BigDecimal> decimal(String label, final int scale) {
+        return new RowMapper<BigDecimal>(label) {
+            @Override
+            public BigDecimal map(ResultSet resultSet, int[] columns) throws SQLException {
+                BigDecimal value = resultSet.getBigDecimal(columns[0]);
+                return value == null ? null : value.setScale(scale, BigDecimal.ROUND_HALF_UP);
+            }
+        };
+    }
+
+    /**
+     * Creates a mapper reading a provider.
+     *
+     * @param idLabel the label of the provider ID column
+     * @return the mapper
+     */
+    public static RowMapper<Provider> provider(String idLabel) {
+        return new RowMapper<Provider>(getProviderLabels(idLabel)) {
+            @Override
+            public Provider map(ResultSet resultSet, int[] columns) throws SQLException {
+                return readProvider(resultSet, columns, 0);
+            }
+        };
+    }
+
+    /**
+     * Returns the column labels of a provider, in the order read by
+     * readProvider.
+     *
+     * @param idLabel the label of the provider ID column
+     * @return the column labels
+     */
+    public static String[] getProviderLabels(String idLabel) {
+        return new String[]{idLabel, "provider name", "provider street",
+            "provider city", "provider state", "provider zip"};
+    }
+
+    /**
+     * Reads a provider from the current row.
+     *
+     * @param resultSet the result set
+     * @param columns the resolved column indexes
+     * @param offset the position of the provider ID column in the indexes
+     * @return the provider
+     * @throws SQLException if a column cannot be read
+     */
+    public static Provider readProvider(ResultSet resultSet, int[] columns, int offset)
+            throws SQLException {
+        Provider provider = new Provider();
+        provider.setId(resultSet.getInt(columns[offset]));
+        provider.setName(resultSet.getString(columns[offset + 1]));
+        provider.setStreet(resultSet.getString(columns[offset + 2]));
+        provider.setCity(resultSet.getString(columns[offset + 3]));
+        provider.setState(resultSet.getString(columns[offset + 4]));
+        provider.setZipCode(resultSet.getString(columns[offset + 5]));
+        return provider;
+    }
+
+    /**
+     * Joins column labels into one array.
+     *
+     * @param first the leading labels
+     * @param rest the remaining labels
+     * @return the labels
+     */
+    public static String[] concat(String[] first, String... rest) {
+        String[] labels = new String[first.length + rest.length];
+        System.arraycopy(first, 0, labels, 0, first.length);
+        System.arraycopy(rest, 0, labels, first.length, rest.length);
+        return labels;
+    }
+}
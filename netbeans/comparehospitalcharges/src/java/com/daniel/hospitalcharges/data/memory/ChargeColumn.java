@@ -0,0 +1,22 @@
+package com.daniel.hospitalcharges.data.memory;
+
+/**
+ * This enum identifies the amount columns of the Charge table.
+ *
+ * @author Bryan Daniel
+ */
+public enum ChargeColumn {
+
+    /**
+     * The average covered charges
+     */
+    AVG_CHARGES,
+    /**
+     * The average total payments
+     */
+    AVG_PAYMENTS,
+    /**
+     * The average Medicare payments, recorded for inpatient charges only
+     */
+    AVG_MEDICARE_PAYMENTS
+}
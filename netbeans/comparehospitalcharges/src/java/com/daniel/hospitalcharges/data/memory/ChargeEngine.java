@@ -0,0 +1,873 @@
+package com.daniel.hospitalcharges.data.memory;
+
+import com.daniel.hospitalcharges.data.memory.ChargeEngineLoader.ChargeRow;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineLoader.ClassificationRow;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineLoader.ProviderRow;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineLoader.RegionRow;
+import com.daniel.hospitalcharges.model.Provider;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This class holds a read-only copy of one charge database in primitive-array
+ * columns and answers the lookups of the stored procedures from memory.
+ * Classifications (DRGs or APCs) are ordered by definition, providers by ID,
+ * and the charge rows are grouped by classification and ordered by provider
+ * within each group. Amounts are stored in cents and strings are
+ * dictionary-encoded. The providers and the charged classifications of each
+ * hospital referral region are indexed so that regional lookups read a slice
+ * of an array.
+ *
+ * @author Bryan Daniel
+ */
+public class ChargeEngine {
+
+    /**
+     * The scale of the stored decimal amounts
+     */
+    public static final int SCALE = 2;
+
+    /**
+     * The value returned when a row is not found
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(ChargeEngine.class);
+
+    /**
+     * The schema of the source database
+     */
+    private final ChargeSchema schema;
+
+    /**
+     * The city dictionary
+     */
+    private final StringDictionary cities;
+
+    /**
+     * The state dictionary
+     */
+    private final StringDictionary states;
+
+    /**
+     * The hospital referral region dictionary
+     */
+    private final StringDictionary hrrs;
+
+    /**
+     * The classification IDs ordered by definition
+     */
+    private final int[] classificationIds;
+
+    /**
+     * The classification definitions ordered by definition
+     */
+    private final String[] classificationDefinitions;
+
+    /**
+     * The classification IDs in ascending order
+     */
+    private final int[] sortedClassificationIds;
+
+    /**
+     * The classification positions parallel to sortedClassificationIds
+     */
+    private final int[] classificationPositions;
+
+    /**
+     * The provider IDs in ascending order
+     */
+    private final int[] providerIds;
+
+    /**
+     * The provider names
+     */
+    private final String[] providerNames;
+
+    /**
+     * The provider streets
+     */
+    private final String[] providerStreets;
+
+    /**
+     * The provider zip codes
+     */
+    private final String[] providerZipCodes;
+
+    /**
+     * The provider city codes
+     */
+    private final int[] providerCities;
+
+    /**
+     * The provider state codes
+     */
+    private final int[] providerStates;
+
+    /**
+     * The provider hospital referral region codes
+     */
+    private final int[] providerHrrs;
+
+    /**
+     * The rank of each provider when ordered by name
+     */
+    private final int[] providerNameRanks;
+
+    /**
+     * The city codes of the regions
+     */
+    private final int[] regionCities;
+
+    /**
+     * The state codes of the regions
+     */
+    private final int[] regionStates;
+
+    /**
+     * The hospital referral region codes of the regions
+     */
+    private final int[] regionHrrs;
+
+    /**
+     * The city and state keys of the regions in ascending order
+     */
+    private final long[] locationKeys;
+
+    /**
+     * The hospital referral region codes parallel to locationKeys
+     */
+    private final int[] locationHrrs;
+
+    /**
+     * The first entry of each hospital referral region in hrrProviders, with
+     * a final entry holding the number of entries
+     */
+    private final int[] hrrProviderOffsets;
+
+    /**
+     * The provider positions grouped by hospital referral region and ordered
+     * by name within each region
+     */
+    private final int[] hrrProviders;
+
+    /**
+     * The first entry of each hospital referral region in
+     * hrrClassifications, with a final entry holding the number of entries
+     */
+    private final int[] hrrClassificationOffsets;
+
+    /**
+     * The positions of the classifications charged in each hospital referral
+     * region, grouped by region and in definition order within each region
+     */
+    private final int[] hrrClassifications;
+
+    /**
+     * The first charge row of each classification, with a final entry holding
+     * the number of charge rows
+     */
+    private final int[] chargeOffsets;
+
+    /**
+     * The classification position of each charge row
+     */
+    private final int[] chargeClassifications;
+
+    /**
+     * The provider position of each charge row
+     */
+    private final int[] chargeProviders;
+
+    /**
+     * The average charges in cents
+     */
+    private final long[] avgCharges;
+
+    /**
+     * The average payments in cents
+     */
+    private final long[] avgPayments;
+
+    /**
+     * The average Medicare payments in cents or null for outpatient charges
+     */
+    private final long[] avgMedicarePayments;
+
+    /**
+     * The percentile index of the average charges
+     */
+    private final PercentileIndex avgChargesIndex;
+
+    /**
+     * The percentile index of the average payments
+     */
+    private final PercentileIndex avgPaymentsIndex;
+
+    /**
+     * The percentile index of the average Medicare payments or null for
+     * outpatient charges
+     */
+    private final PercentileIndex avgMedicarePaymentsIndex;
+
+    /**
+     * Builds the columns from the rows collected by the loader.
+     *
+     * @param loader the loader
+     */
+    ChargeEngine(ChargeEngineLoader loader) {
+        schema = loader.getSchema();
+
+        ArrayList<String> cityValues = new ArrayList<>();
+        ArrayList<String> stateValues = new ArrayList<>();
+        ArrayList<String> hrrValues = new ArrayList<>();
+        for (RegionRow r : loader.regions) {
+            cityValues.add(r.city);
+            stateValues.add(r.state);
+            hrrValues.add(r.hrr);
+        }
+        for (ProviderRow p : loader.providers) {
+            cityValues.add(p.city);
+            stateValues.add(p.state);
+        }
+        cities = new StringDictionary(cityValues);
+        states = new StringDictionary(stateValues);
+        hrrs = new StringDictionary(hrrValues);
+
+        // regions
+        int regionCount = loader.regions.size();
+        regionCities = new int[regionCount];
+        regionStates = new int[regionCount];
+        regionHrrs = new int[regionCount];
+        HashMap<Long, Integer> hrrByLocation = new HashMap<>(regionCount * 2);
+        for (int i = 0; i < regionCount; i++) {
+            RegionRow r = loader.regions.get(i);
+            regionCities[i] = cities.getCode(r.city);
+            regionStates[i] = states.getCode(r.state);
+            regionHrrs[i] = hrrs.getCode(r.hrr);
+            hrrByLocation.put(locationKey(regionCities[i], regionStates[i]), regionHrrs[i]);
+        }
+        locationKeys = new long[hrrByLocation.size()];
+        int locationCount = 0;
+        for (Long key : hrrByLocation.keySet()) {
+            locationKeys[locationCount++] = key;
+        }
+        Arrays.sort(locationKeys);
+        locationHrrs = new int[locationKeys.length];
+        for (int i = 0; i < locationKeys.length; i++) {
+            locationHrrs[i] = hrrByLocation.get(locationKeys[i]);
+        }
+
+        // classifications ordered by definition
+        ArrayList<ClassificationRow> classificationRows = new ArrayList<>(loader.classifications);
+        Collections.sort(classificationRows, new Comparator<ClassificationRow>() {
+            @Override
+            public int compare(ClassificationRow first, ClassificationRow second) {
+                int result = StringDictionary.COLLATION.compare(first.definition, second.definition);
+                return result != 0 ? result : Integer.compare(first.id, second.id);
+            }
+        });
+        int classificationCount = classificationRows.size();
+        classificationIds = new int[classificationCount];
+        classificationDefinitions = new String[classificationCount];
+        long[] idAndPosition = new long[classificationCount];
+        for (int i = 0; i < classificationCount; i++) {
+            classificationIds[i] = classificationRows.get(i).id;
+            classificationDefinitions[i] = classificationRows.get(i).definition;
+            idAndPosition[i] = ((long) classificationIds[i] << 32) | i;
+        }
+        Arrays.sort(idAndPosition);
+        sortedClassificationIds = new int[classificationCount];
+        classificationPositions = new int[classificationCount];
+        for (int i = 0; i < classificationCount; i++) {
+            sortedClassificationIds[i] = (int) (idAndPosition[i] >> 32);
+            classificationPositions[i] = (int) idAndPosition[i];
+        }
+
+        // providers ordered by ID
+        ArrayList<ProviderRow> providerRows = new ArrayList<>(loader.providers);
+        Collections.sort(providerRows, new Comparator<ProviderRow>() {
+            @Override
+            public int compare(ProviderRow first, ProviderRow second) {
+                return Integer.compare(first.id, second.id);
+            }
+        });
+        int providerCount = providerRows.size();
+        providerIds = new int[providerCount];
+        providerNames = new String[providerCount];
+        providerStreets = new String[providerCount];
+        providerZipCodes = new String[providerCount];
+        providerCities = new int[providerCount];
+        providerStates = new int[providerCount];
+        providerHrrs = new int[providerCount];
+        for (int i = 0; i < providerCount; i++) {
+            ProviderRow p = providerRows.get(i);
+            providerIds[i] = p.id;
+            providerNames[i] = p.name;
+            providerStreets[i] = p.street;
+            providerZipCodes[i] = p.zipCode;
+            providerCities[i] = cities.getCode(p.city);
+            providerStates[i] = states.getCode(p.state);
+            Integer hrr = hrrByLocation.get(locationKey(providerCities[i], providerStates[i]));
+            providerHrrs[i] = hrr == null ? NOT_FOUND : hrr;
+        }
+        Integer[] byName = new Integer[providerCount];
+        for (int i = 0; i < providerCount; i++) {
+            byName[i] = i;
+        }
+        Arrays.sort(byName, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                int result = StringDictionary.COLLATION.compare(providerNames[first], providerNames[second]);
+                return result != 0 ? result : Integer.compare(first, second);
+            }
+        });
+        providerNameRanks = new int[providerCount];
+        for (int i = 0; i < providerCount; i++) {
+            providerNameRanks[byName[i]] = i;
+        }
+
+        // providers grouped by hospital referral region and ordered by name
+        hrrProviderOffsets = new int[hrrs.size() + 1];
+        for (int i = 0; i < providerCount; i++) {
+            if (providerHrrs[i] != NOT_FOUND) {
+                hrrProviderOffsets[providerHrrs[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < hrrs.size(); i++) {
+            hrrProviderOffsets[i + 1] += hrrProviderOffsets[i];
+        }
+        hrrProviders = new int[hrrProviderOffsets[hrrs.size()]];
+        int[] next = Arrays.copyOf(hrrProviderOffsets, hrrs.size());
+        for (Integer provider : byName) {
+            if (providerHrrs[provider] != NOT_FOUND) {
+                hrrProviders[next[providerHrrs[provider]]++] = provider;
+            }
+        }
+
+        // charges grouped by classification and ordered by provider
+        final int[] rowClassifications = new int[loader.charges.size()];
+        final int[] rowProviders = new int[loader.charges.size()];
+        ArrayList<Integer> order = new ArrayList<>(loader.charges.size());
+        for (int i = 0; i < loader.charges.size(); i++) {
+            ChargeRow c = loader.charges.get(i);
+            rowClassifications[i] = findClassification(c.classificationId);
+            rowProviders[i] = findProvider(c.providerId);
+            if (rowClassifications[i] != NOT_FOUND && rowProviders[i] != NOT_FOUND) {
+                order.add(i);
+            }
+        }
+        if (order.size() < loader.charges.size()) {
+            logger.warn((loader.charges.size() - order.size())
+                    + " charge rows without a matching classification or provider were skipped.");
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                int result = Integer.compare(rowClassifications[first], rowClassifications[second]);
+                return result != 0 ? result : Integer.compare(rowProviders[first], rowProviders[second]);
+            }
+        });
+        int chargeCount = order.size();
+        chargeOffsets = new int[classificationCount + 1];
+        chargeClassifications = new int[chargeCount];
+        chargeProviders = new int[chargeCount];
+        avgCharges = new long[chargeCount];
+        avgPayments = new long[chargeCount];
+        avgMedicarePayments = schema.hasMedicarePayments() ? new long[chargeCount] : null;
+        for (int i = 0; i < chargeCount; i++) {
+            int source = order.get(i);
+            ChargeRow c = loader.charges.get(source);
+            chargeClassifications[i] = rowClassifications[source];
+            chargeProviders[i] = rowProviders[source];
+            avgCharges[i] = c.avgCharges;
+            avgPayments[i] = c.avgPayments;
+            if (avgMedicarePayments != null) {
+                avgMedicarePayments[i] = c.avgMedicarePayments;
+            }
+            chargeOffsets[chargeClassifications[i] + 1]++;
+        }
+        for (int i = 0; i < classificationCount; i++) {
+            chargeOffsets[i + 1] += chargeOffsets[i];
+        }
+
+        // classifications charged in each hospital referral region
+        long[] hrrAndClassification = new long[chargeCount];
+        int pairCount = 0;
+        for (int i = 0; i < chargeCount; i++) {
+            int hrr = providerHrrs[chargeProviders[i]];
+            if (hrr != NOT_FOUND) {
+                hrrAndClassification[pairCount++] = ((long) hrr << 32) | chargeClassifications[i];
+            }
+        }
+        Arrays.sort(hrrAndClassification, 0, pairCount);
+        hrrClassificationOffsets = new int[hrrs.size() + 1];
+        int[] classifications = new int[pairCount];
+        int distinctCount = 0;
+        for (int i = 0; i < pairCount; i++) {
+            if (i == 0 || hrrAndClassification[i] != hrrAndClassification[i - 1]) {
+                classifications[distinctCount++] = (int) hrrAndClassification[i];
+                hrrClassificationOffsets[(int) (hrrAndClassification[i] >> 32) + 1]++;
+            }
+        }
+        for (int i = 0; i < hrrs.size(); i++) {
+            hrrClassificationOffsets[i + 1] += hrrClassificationOffsets[i];
+        }
+        hrrClassifications = Arrays.copyOf(classifications, distinctCount);
+
+        // percentile ranks
+        avgChargesIndex = new PercentileIndex(avgCharges, chargeOffsets);
+        avgPaymentsIndex = new PercentileIndex(avgPayments, chargeOffsets);
+        avgMedicarePaymentsIndex = avgMedicarePayments == null ? null
+                : new PercentileIndex(avgMedicarePayments, chargeOffsets);
+    }
+
+    /**
+     * Returns the schema of the source database
+     *
+     * @return the schema
+     */
+    public ChargeSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Returns the number of classifications
+     *
+     * @return the number of classifications
+     */
+    public int getClassificationCount() {
+        return classificationIds.length;
+    }
+
+    /**
+     * Returns the ID of the classification at the given position
+     *
+     * @param position the position in definition order
+     * @return the DRG or APC ID
+     */
+    public int getClassificationId(int position) {
+        return classificationIds[position];
+    }
+
+    /**
+     * Returns the definition of the classification at the given position
+     *
+     * @param position the position in definition order
+     * @return the DRG or APC definition
+     */
+    public String getClassificationDefinition(int position) {
+        return classificationDefinitions[position];
+    }
+
+    /**
+     * Finds the position of a classification by its ID.
+     *
+     * @param classificationId the DRG or APC ID
+     * @return the position or NOT_FOUND
+     */
+    public final int findClassification(int classificationId) {
+        int index = Arrays.binarySearch(sortedClassificationIds, classificationId);
+        return index < 0 ? NOT_FOUND : classificationPositions[index];
+    }
+
+    /**
+     * Returns the number of providers
+     *
+     * @return the number of providers
+     */
+    public int getProviderCount() {
+        return providerIds.length;
+    }
+
+    /**
+     * Finds the position of a provider by its ID.
+     *
+     * @param providerId the provider ID
+     * @return the position or NOT_FOUND
+     */
+    public final int findProvider(int providerId) {
+        int index = Arrays.binarySearch(providerIds, providerId);
+        return index < 0 ? NOT_FOUND : index;
+    }
+
+    /**
+     * Creates a provider object for the provider at the given position.
+     *
+     * @param position the provider position
+     * @return the provider
+     */
+    public Provider getProvider(int position) {
+        Provider provider = new Provider();
+        provider.setId(providerIds[position]);
+        provider.setName(providerNames[position]);
+        provider.setStreet(providerStreets[position]);
+        provider.setCity(cities.getValue(providerCities[position]));
+        provider.setState(states.getValue(providerStates[position]));
+        provider.setZipCode(providerZipCodes[position]);
+        return provider;
+    }
+
+    /**
+     * Returns the states of the providers with a charge for the given
+     * classification, as returned by the getStates procedure.
+     *
+     * @param classificationId the DRG or APC ID
+     * @return the ordered list of states
+     */
+    public ArrayList<String> getStates(int classificationId) {
+        int classification = findClassification(classificationId);
+        boolean[] found = new boolean[states.size()];
+        if (classification != NOT_FOUND) {
+            for (int row = chargeOffsets[classification]; row < chargeOffsets[classification + 1]; row++) {
+                found[providerStates[chargeProviders[row]]] = true;
+            }
+        }
+        return collect(found, states);
+    }
+
+    /**
+     * Returns the cities of the given state, as returned by the getCities
+     * procedure.
+     *
+     * @param state the state
+     * @return the ordered list of cities
+     */
+    public ArrayList<String> getCities(String state) {
+        int stateCode = states.getCode(state);
+        boolean[] found = new boolean[cities.size()];
+        for (int i = 0; i < regionStates.length; i++) {
+            if (regionStates[i] == stateCode) {
+                found[regionCities[i]] = true;
+            }
+        }
+        return collect(found, cities);
+    }
+
+    /**
+     * Returns the cities of the given state with a provider charging for the
+     * given classification, as returned by the getCitiesToCompare procedure.
+     *
+     * @param classificationId the DRG or APC ID
+     * @param state the state
+     * @return the ordered list of cities
+     */
+    public ArrayList<String> getCitiesToCompare(int classificationId, String state) {
+        int classification = findClassification(classificationId);
+        int stateCode = states.getCode(state);
+        boolean[] found = new boolean[cities.size()];
+        if (classification != NOT_FOUND && stateCode != StringDictionary.NOT_FOUND) {
+            for (int row = chargeOffsets[classification]; row < chargeOffsets[classification + 1]; row++) {
+                int provider = chargeProviders[row];
+                if (providerStates[provider] == stateCode && providerHrrs[provider] != NOT_FOUND) {
+                    found[providerCities[provider]] = true;
+                }
+            }
+        }
+        return collect(found, cities);
+    }
+
+    /**
+     * Returns the providers in the given city with a charge for the given
+     * classification, as returned by the getProviders procedure.
+     *
+     * @param state the state
+     * @param city the city
+     * @param classificationId the DRG or APC ID
+     * @return the provider positions ordered by provider name
+     */
+    public int[] getProviders(String state, String city, int classificationId) {
+        int classification = findClassification(classificationId);
+        int stateCode = states.getCode(state);
+        int cityCode = cities.getCode(city);
+        if (classification == NOT_FOUND || stateCode == StringDictionary.NOT_FOUND
+                || cityCode == StringDictionary.NOT_FOUND) {
+            return new int[0];
+        }
+        int[] result = new int[chargeOffsets[classification + 1] - chargeOffsets[classification]];
+        int count = 0;
+        for (int row = chargeOffsets[classification]; row < chargeOffsets[classification + 1]; row++) {
+            int provider = chargeProviders[row];
+            if (providerStates[provider] == stateCode && providerCities[provider] == cityCode) {
+                result[count++] = provider;
+            }
+        }
+        return sortByProviderName(Arrays.copyOf(result, count));
+    }
+
+    /**
+     * Returns the classifications charged by the providers in the hospital
+     * referral region of the given city, as returned by the getRegionalDRGs
+     * and getRegionalAPCs procedures.
+     *
+     * @param state the state
+     * @param city the city
+     * @return the classification positions in definition order
+     */
+    public int[] getRegionalClassifications(String state, String city) {
+        int hrr = findHrr(state, city);
+        if (hrr == NOT_FOUND) {
+            return new int[0];
+        }
+        return Arrays.copyOfRange(hrrClassifications, hrrClassificationOffsets[hrr],
+                hrrClassificationOffsets[hrr + 1]);
+    }
+
+    /**
+     * Returns the charges for the given classification by the providers in
+     * the hospital referral region of the given city, as returned by the
+     * getRegionalCharges procedure.
+     *
+     * @param state the state
+     * @param city the city
+     * @param classificationId the DRG or APC ID
+     * @return the charge rows ordered by provider name
+     */
+    public int[] getRegionalCharges(String state, String city, int classificationId) {
+        int hrr = findHrr(state, city);
+        int classification = findClassification(classificationId);
+        if (hrr == NOT_FOUND || classification == NOT_FOUND) {
+            return new int[0];
+        }
+        int[] rows = new int[hrrProviderOffsets[hrr + 1] - hrrProviderOffsets[hrr]];
+        int count = 0;
+        for (int i = hrrProviderOffsets[hrr]; i < hrrProviderOffsets[hrr + 1]; i++) {
+            int row = findCharge(classification, hrrProviders[i]);
+            if (row != NOT_FOUND) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Finds the charge row of a provider for a classification.
+     *
+     * @param classificationId the DRG or APC ID
+     * @param providerId the provider ID
+     * @return the charge row or NOT_FOUND
+     */
+    public int findChargeRow(int classificationId, int providerId) {
+        int classification = findClassification(classificationId);
+        int provider = findProvider(providerId);
+        if (classification == NOT_FOUND || provider == NOT_FOUND) {
+            return NOT_FOUND;
+        }
+        return findCharge(classification, provider);
+    }
+
+    /**
+     * Returns the first charge row of a classification.
+     *
+     * @param position the classification position
+     * @return the first charge row
+     */
+    public int getFirstChargeRow(int position) {
+        return chargeOffsets[position];
+    }
+
+    /**
+     * Returns the row following the last charge row of a classification.
+     *
+     * @param position the classification position
+     * @return the end of the charge rows
+     */
+    public int getEndChargeRow(int position) {
+        return chargeOffsets[position + 1];
+    }
+
+    /**
+     * Returns the classification position of a charge row
+     *
+     * @param row the charge row
+     * @return the classification position
+     */
+    public int getChargeClassification(int row) {
+        return chargeClassifications[row];
+    }
+
+    /**
+     * Returns the provider position of a charge row
+     *
+     * @param row the charge row
+     * @return the provider position
+     */
+    public int getChargeProvider(int row) {
+        return chargeProviders[row];
+    }
+
+    /**
+     * Returns an amount of a charge row in cents.
+     *
+     * @param row the charge row
+     * @param column the amount column
+     * @return the amount in cents
+     */
+    public long getAmount(int row, ChargeColumn column) {
+        return getColumn(column)[row];
+    }
+
+    /**
+     * Returns the percentile rank of a charge row among the charges of its
+     * classification, computed as in the getCharges procedure.
+     *
+     * @param row the charge row
+     * @param column the amount column
+     * @return the percentile rank
+     */
+    public BigDecimal getPercentileRank(int row, ChargeColumn column) {
+        return getPercentileIndex(column).getPercentileRank(chargeClassifications[row], getAmount(row, column));
+    }
+
+    /**
+     * Returns the percentile rank the getCharges procedure reports for a
+     * provider without a charge for the given classification.
+     *
+     * @param classificationId the DRG or APC ID
+     * @param column the amount column
+     * @return the negative percentile rank or null if the classification has
+     * no charges
+     */
+    public BigDecimal getMissingPercentileRank(int classificationId, ChargeColumn column) {
+        int classification = findClassification(classificationId);
+        return classification == NOT_FOUND ? null
+                : getPercentileIndex(column).getMissingPercentileRank(classification);
+    }
+
+    /**
+     * Returns the percentile index of the given column.
+     *
+     * @param column the column
+     * @return the percentile index
+     */
+    public PercentileIndex getPercentileIndex(ChargeColumn column) {
+        switch (column) {
+            case AVG_CHARGES:
+                return avgChargesIndex;
+            case AVG_PAYMENTS:
+                return avgPaymentsIndex;
+            default:
+                if (avgMedicarePaymentsIndex == null) {
+                    throw new IllegalArgumentException("The " + schema + " schema has no Medicare payments.");
+                }
+                return avgMedicarePaymentsIndex;
+        }
+    }
+
+    /**
+     * Formats an amount in cents the way the database returns a DECIMAL
+     * column as a string.
+     *
+     * @param cents the amount in cents
+     * @return the formatted amount
+     */
+    public static String format(long cents) {
+        return BigDecimal.valueOf(cents, SCALE).toPlainString();
+    }
+
+    /**
+     * Returns the array holding the given column.
+     *
+     * @param column the column
+     * @return the column array
+     */
+    private long[] getColumn(ChargeColumn column) {
+        switch (column) {
+            case AVG_CHARGES:
+                return avgCharges;
+            case AVG_PAYMENTS:
+                return avgPayments;
+            default:
+                if (avgMedicarePayments == null) {
+                    throw new IllegalArgumentException("The " + schema + " schema has no Medicare payments.");
+                }
+                return avgMedicarePayments;
+        }
+    }
+
+    /**
+     * Finds the charge row of a provider within a classification group.
+     *
+     * @param classification the classification position
+     * @param provider the provider position
+     * @return the charge row or NOT_FOUND
+     */
+    private int findCharge(int classification, int provider) {
+        int index = Arrays.binarySearch(chargeProviders, chargeOffsets[classification],
+                chargeOffsets[classification + 1], provider);
+        return index < 0 ? NOT_FOUND : index;
+    }
+
+    /**
+     * Finds the hospital referral region of a city.
+     *
+     * @param state the state
+     * @param city the city
+     * @return the hospital referral region code or NOT_FOUND
+     */
+    private int findHrr(String state, String city) {
+        int stateCode = states.getCode(state);
+        int cityCode = cities.getCode(city);
+        if (stateCode == StringDictionary.NOT_FOUND || cityCode == StringDictionary.NOT_FOUND) {
+            return NOT_FOUND;
+        }
+        int index = Arrays.binarySearch(locationKeys, locationKey(cityCode, stateCode));
+        return index < 0 ? NOT_FOUND : locationHrrs[index];
+    }
+
+    /**
+     * Sorts provider positions by provider name.
+     *
+     * @param providers the provider positions
+     * @return the sorted provider positions
+     */
+    private int[] sortByProviderName(int[] providers) {
+        long[] keys = new long[providers.length];
+        for (int i = 0; i < providers.length; i++) {
+            keys[i] = ((long) providerNameRanks[providers[i]] << 32) | providers[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            providers[i] = (int) keys[i];
+        }
+        return providers;
+    }
+
+    /**
+     * Collects the dictionary values of the flagged codes in code order.
+     *
+     * @param found the flags indexed by code
+     * @param dictionary the dictionary
+     * @return the ordered list of values
+     */
+    private static ArrayList<String> collect(boolean[] found, StringDictionary dictionary) {
+        ArrayList<String> values = new ArrayList<>();
+        for (int code = 0; code < found.length; code++) {
+            if (found[code]) {
+                values.add(dictionary.getValue(code));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Combines city and state codes into a single key.
+     *
+     * @param city the city code
+     * @param state the state code
+     * @return the key
+     */
+    private static long locationKey(int city, int state) {
+        return ((long) city << 32) | (state & 0xFFFFFFFFL);
+    }
+}
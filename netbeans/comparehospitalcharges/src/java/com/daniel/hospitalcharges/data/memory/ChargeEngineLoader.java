@@ -0,0 +1,260 @@
+package com.daniel.hospitalcharges.data.memory;
+
+import com.daniel.hospitalcharges.data.utility.DatabaseUtility;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+
+/**
+ * This class collects the rows of the Region, Provider, classification and
+ * Charge tables and builds a charge engine from them.
+ *
+ * @author Bryan Daniel
+ */
+public class ChargeEngineLoader {
+
+    /**
+     * The schema of the database being loaded
+     */
+    private final ChargeSchema schema;
+
+    /**
+     * The region rows
+     */
+    final ArrayList<RegionRow> regions = new ArrayList<>();
+
+    /**
+     * The provider rows
+     */
+    final ArrayList<ProviderRow> providers = new ArrayList<>();
+
+    /**
+     * The classification rows
+     */
+    final ArrayList<ClassificationRow> classifications = new ArrayList<>();
+
+    /**
+     * The charge rows
+     */
+    final ArrayList<ChargeRow> charges = new ArrayList<>();
+
+    /**
+     * Creates a loader for the given schema.
+     *
+     * @param schema the schema
+     */
+    public ChargeEngineLoader(ChargeSchema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * Reads the complete contents of the charge tables over the given
+     * connection and builds a charge engine from them.
+     *
+     * @param connection the connection
+     * @param schema the schema of the database
+     * @return the charge engine
+     * @throws SQLException if the tables cannot be read
+     */
+    public static ChargeEngine load(Connection connection, ChargeSchema schema) throws SQLException {
+        ChargeEngineLoader loader = new ChargeEngineLoader(schema);
+        Statement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            statement = connection.createStatement();
+
+            resultSet = statement.executeQuery("SELECT provider_city, provider_state, provider_hrr FROM Region");
+            while (resultSet.next()) {
+                loader.addRegion(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3));
+            }
+            DatabaseUtility.closeResultSet(resultSet);
+
+            resultSet = statement.executeQuery("SELECT provider_id, provider_name, provider_street, "
+                    + "provider_city, provider_state, provider_zip FROM Provider");
+            while (resultSet.next()) {
+                loader.addProvider(resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3),
+                        resultSet.getString(4), resultSet.getString(5), resultSet.getString(6));
+            }
+            DatabaseUtility.closeResultSet(resultSet);
+
+            resultSet = statement.executeQuery("SELECT " + schema.getIdColumn() + ", "
+                    + schema.getDefinitionColumn() + " FROM " + schema.getClassificationTable());
+            while (resultSet.next()) {
+                loader.addClassification(resultSet.getInt(1), resultSet.getString(2));
+            }
+            DatabaseUtility.closeResultSet(resultSet);
+
+            String medicareColumn = schema.hasMedicarePayments() ? ", avg_medicare_payments" : "";
+            resultSet = statement.executeQuery("SELECT " + schema.getIdColumn()
+                    + ", provider_id, avg_charges, avg_payments" + medicareColumn + " FROM Charge");
+            while (resultSet.next()) {
+                long medicarePayments = schema.hasMedicarePayments() ? toCents(resultSet.getBigDecimal(5)) : 0L;
+                loader.addCharge(resultSet.getInt(1), resultSet.getInt(2), toCents(resultSet.getBigDecimal(3)),
+                        toCents(resultSet.getBigDecimal(4)), medicarePayments);
+            }
+        } finally {
+            DatabaseUtility.closeResultSet(resultSet);
+            DatabaseUtility.closeCallableStatement(statement);
+        }
+        return loader.build();
+    }
+
+    /**
+     * Converts a decimal dollar amount to cents.
+     *
+     * @param amount the amount in dollars
+     * @return the amount in cents
+     */
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(ChargeEngine.SCALE, BigDecimal.ROUND_HALF_UP).unscaledValue().longValue();
+    }
+
+    /**
+     * Adds a row of the Region table.
+     *
+     * @param city the provider city
+     * @param state the provider state
+     * @param hrr the hospital referral region
+     */
+    public void addRegion(String city, String state, String hrr) {
+        regions.add(new RegionRow(city, state, hrr));
+    }
+
+    /**
+     * Adds a row of the Provider table.
+     *
+     * @param id the provider ID
+     * @param name the provider name
+     * @param street the provider street
+     * @param city the provider city
+     * @param state the provider state
+     * @param zipCode the provider zip code
+     */
+    public void addProvider(int id, String name, String street, String city,
+            String state, String zipCode) {
+        providers.add(new ProviderRow(id, name, street, city, state, zipCode));
+    }
+
+    /**
+     * Adds a row of the DRG or APC table.
+     *
+     * @param id the classification ID
+     * @param definition the classification definition
+     */
+    public void addClassification(int id, String definition) {
+        classifications.add(new ClassificationRow(id, definition));
+    }
+
+    /**
+     * Adds a row of the Charge table.
+     *
+     * @param classificationId the DRG or APC ID
+     * @param providerId the provider ID
+     * @param avgCharges the average charges in cents
+     * @param avgPayments the average payments in cents
+     * @param avgMedicarePayments the average Medicare payments in cents
+     */
+    public void addCharge(int classificationId, int providerId, long avgCharges,
+            long avgPayments, long avgMedicarePayments) {
+        charges.add(new ChargeRow(classificationId, providerId, avgCharges,
+                avgPayments, avgMedicarePayments));
+    }
+
+    /**
+     * Builds the charge engine from the collected rows.
+     *
+     * @return the charge engine
+     */
+    public ChargeEngine build() {
+        return new ChargeEngine(this);
+    }
+
+    /**
+     * Returns the schema of the database being loaded
+     *
+     * @return the schema
+     */
+    public ChargeSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * A row of the Region table
+     */
+    static class RegionRow {
+
+        final String city;
+        final String state;
+        final String hrr;
+
+        RegionRow(String city, String state, String hrr) {
+            this.city = city;
+            this.state = state;
+            this.hrr = hrr;
+        }
+    }
+
+    /**
+     * A row of the Provider table
+     */
+    static class ProviderRow {
+
+        final int id;
+        final String name;
+        final String street;
+        final String city;
+        final String state;
+        final String zipCode;
+
+        ProviderRow(int id, String name, String street, String city, String state, String zipCode) {
+            this.id = id;
+            this.name = name;
+            this.street = street;
+            this.city = city;
+            this.state = state;
+            this.zipCode = zipCode;
+        }
+    }
+
+    /**
+     * A row of the DRG or APC table
+     */
+    static class ClassificationRow {
+
+        final int id;
+        final String definition;
+
+        ClassificationRow(int id, String definition) {
+            this.id = id;
+            this.definition = definition;
+        }
+    }
+
+    /**
+     * A row of the Charge table
+     */
+    static class ChargeRow {
+
+        final int classificationId;
+        final int providerId;
+        final long avgCharges;
+        final long avgPayments;
+        final long avgMedicarePayments;
+
+        ChargeRow(int classificationId, int providerId, long avgCharges,
+                long avgPayments, long avgMedicarePayments) {
+            this.classificationId = classificationId;
+            this.providerId = providerId;
+            this.avgCharges = avgCharges;
+            this.avgPayments = avgPayments;
+            this.avgMedicarePayments = avgMedicarePayments;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.daniel.hospitalcharges.data.memory;
+
+import com.daniel.hospitalcharges.data.pool.ConnectionPool;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This class loads and holds the charge engines for the inpatient and
+ * outpatient databases. The engines are loaded from the databases or, in
+ * the embedded mode, from the SQL scripts populating them. Until an engine is
+ * loaded, the IO classes retrieve their data from the database.
+ *
+ * @author Bryan Daniel
+ */
+public class ChargeEngineManager {
+
+    /**
+     * The engine for the hospital charges database
+     */
+    private static volatile ChargeEngine inpatientEngine = null;
+
+    /**
+     * The engine for the outpatient database
+     */
+    private static volatile ChargeEngine outpatientEngine = null;
+
+    /**
+     * The version of the loaded data, incremented on every load
+     */
+    private static final AtomicLong datasetVersion = new AtomicLong();
+
+    /**
+     * The listeners notified when the engines change
+     */
+    private static final CopyOnWriteArrayList<DataRefreshListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(ChargeEngineManager.class);
+
+    // not called
+    private ChargeEngineManager() {
+    }
+
+    /**
+     * Returns the engine for the hospital charges database.
+     *
+     * @return the inpatient engine or null if it is not loaded
+     */
+    public static ChargeEngine getInpatientEngine() {
+        return inpatientEngine;
+    }
+
+    /**
+     * Returns the engine for the outpatient database.
+     *
+     * @return the outpatient engine or null if it is not loaded
+     */
+    public static ChargeEngine getOutpatientEngine() {
+        return outpatientEngine;
+    }
+
+    /**
+     * Returns the version of the loaded data.
+     *
+     * @return the dataset version
+     */
+    public static long getDatasetVersion() {
+        return datasetVersion.get();
+    }
+
+    /**
+     * Registers a listener to be notified whenever the engines are loaded,
+     * replaced or unloaded.
+     *
+     * @param listener the listener
+     */
+    public static void addRefreshListener(DataRefreshListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Removes a refresh listener.
+     *
+     * @param listener the listener
+     */
+    public static void removeRefreshListener(DataRefreshListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Loads both engines from their databases, replacing any engines already
+     * loaded. An engine that fails to load keeps its previous contents.
+     *
+     * @return true if both engines were loaded
+     */
+    public static synchronized boolean load() {
+        ChargeEngine inpatient = null;
+        ChargeEngine outpatient = null;
+
+        ConnectionPool inpatientPool = ConnectionPool.getInpatientPool();
+        Connection connection = null;
+        try {
+            connection = inpatientPool.getConnection("inpatient engine load");
+            inpatient = ChargeEngineLoader.load(connection, ChargeSchema.INPATIENT);
+        } catch (SQLException e) {
+            logger.error("SQLException occurred while loading the inpatient charge engine.", e);
+        } finally {
+            inpatientPool.freeConnection(connection);
+        }
+
+        ConnectionPool outpatientPool = ConnectionPool.getOutpatientPool();
+        connection = null;
+        try {
+            connection = outpatientPool.getConnection("outpatient engine load");
+            outpatient = ChargeEngineLoader.load(connection, ChargeSchema.OUTPATIENT);
+        } catch (SQLException e) {
+            logger.error("SQLException occurred while loading the outpatient charge engine.", e);
+        } finally {
+            outpatientPool.freeConnection(connection);
+        }
+
+        install(inpatient, outpatient);
+        return inpatient != null && outpatient != null;
+    }
+
+    /**
+     * Loads both engines from SQL scripts populating their tables, replacing
+     * any engines already loaded, so no database server is needed. An engine
+     * that fails to load keeps its previous contents.
+     *
+     * @param inpatientScript the location of the inpatient script, a file
+     * path or class path resource
+     * @param outpatientScript the location of the outpatient script, a file
+     * path or class path resource
+     * @return true if both engines were loaded
+     */
+    public static synchronized boolean loadScripts(String inpatientScript, String outpatientScript) {
+        ChargeEngine inpatient = null;
+        ChargeEngine outpatient = null;
+        try {
+            inpatient = ChargeScriptLoader.load(inpatientScript, ChargeSchema.INPATIENT);
+        } catch (IOException e) {
+            logger.error("IOException occurred while loading the inpatient charge engine from "
+                    + inpatientScript + ".", e);
+        }
+        try {
+            outpatient = ChargeScriptLoader.load(outpatientScript, ChargeSchema.OUTPATIENT);
+        } catch (IOException e) {
+            logger.error("IOException occurred while loading the outpatient charge engine from "
+                    + outpatientScript + ".", e);
+        }
+        install(inpatient, outpatient);
+        return inpatient != null && outpatient != null;
+    }
+
+    /**
+     * Installs the given engines. A null engine leaves the current engine in
+     * place.
+     *
+     * @param inpatient the inpatient engine
+     * @param outpatient the outpatient engine
+     */
+    public static synchronized void install(ChargeEngine inpatient, ChargeEngine outpatient) {
+        if (inpatient == null && outpatient == null) {
+            return;
+        }
+        if (inpatient != null) {
+            inpatientEngine = inpatient;
+            logger.info("Inpatient charge engine loaded with " + inpatient.getClassificationCount()
+                    + " DRGs and " + inpatient.getProviderCount() + " providers.");
+        }
+        if (outpatient != null) {
+            outpatientEngine = outpatient;
+            logger.info("Outpatient charge engine loaded with " + outpatient.getClassificationCount()
+                    + " APCs and " + outpatient.getProviderCount() + " providers.");
+        }
+        fireDataRefreshed(datasetVersion.incrementAndGet());
+    }
+
+    /**
+     * Removes both engines so that all lookups go to the databases.
+     */
+    public static synchronized void unload() {
+        inpatientEngine = null;
+        outpatientEngine = null;
+        fireDataRefreshed(datasetVersion.incrementAndGet());
+    }
+
+    /**
+     * Notifies the listeners of a new dataset version.
+     *
+     * @param version the dataset version
+     */
+    private static void fireDataRefreshed(long version) {
+        for (DataRefreshListener listener : listeners) {
+            try {
+                listener.dataRefreshed(version);
+            } catch (RuntimeException e) {
+                logger.error("A refresh listener failed for dataset version " + version + ".", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.daniel.hospitalcharges.data.memory;
+
+/**
+ * This enum describes the differences between the inpatient and outpatient
+ * database schemas that are relevant to loading the charge engine.
+ *
+ * @author Bryan Daniel
+ */
+public enum ChargeSchema {
+
+    /**
+     * The hospital charges database of diagnosis-related groups
+     */
+    INPATIENT("DRG", "drg_id", "drg_definition", true),
+    /**
+     * The outpatient database of ambulatory payment classifications
+     */
+    OUTPATIENT("APC", "apc_id", "apc_definition", false);
+
+    /**
+     * The name of the classification table
+     */
+    private final String classificationTable;
+
+    /**
+     * The name of the classification ID column
+     */
+    private final String idColumn;
+
+    /**
+     * The name of the classification definition column
+     */
+    private final String definitionColumn;
+
+    /**
+     * Indicates whether the Charge table has an avg_medicare_payments column
+     */
+    private final boolean medicarePayments;
+
+    /**
+     * Sets the table and column names of the schema.
+     *
+     * @param classificationTable the classification table
+     * @param idColumn the classification ID column
+     * @param definitionColumn the classification definition column
+     * @param medicarePayments whether Medicare payments are recorded
+     */
+    private ChargeSchema(String classificationTable, String idColumn,
+            String definitionColumn, boolean medicarePayments) {
+        this.classificationTable = classificationTable;
+        this.idColumn = idColumn;
+        this.definitionColumn = definitionColumn;
+        this.medicarePayments = medicarePayments;
+    }
+
+    /**
+     * Returns the name of the classification table
+     *
+     * @return the table name
+     */
+    public String getClassificationTable() {
+        return classificationTable;
+    }
+
+    /**
+     * Returns the name of the classification ID column
+     *
+     * @return the column name
+     */
+    public String getIdColumn() {
+        return idColumn;
+    }
+
+    /**
+     * Returns the name of the classification definition column
+     *
+     * @return the column name
+     */
+    public String getDefinitionColumn() {
+        return definitionColumn;
+    }
+
+    /**
+     * Returns true if the Charge table records average Medicare payments
+     *
+     * @return whether Medicare payments are recorded
+     */
+    public boolean hasMedicarePayments() {
+        return medicarePayments;
+    }
+}
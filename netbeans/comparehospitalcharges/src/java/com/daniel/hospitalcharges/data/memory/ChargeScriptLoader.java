@@ -0,0 +1,531 @@
+package com.daniel.hospitalcharges.data.memory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class builds a charge engine from a SQL script populating the charge
+ * tables, such as outpatientpopulator.sql, so the application can run without
+ * a database server. The INSERT statements of the Region, Provider,
+ * classification and Charge tables are read, with the values matched to the
+ * columns by name when the statement lists its columns, as mysqldump
+ * --complete-insert writes them, or otherwise taken in the column order of
+ * the database scripts. Every other statement is skipped. Values may be
+ * numbers, quoted strings, NULL or the TRUNCATE and ROUND functions used by
+ * the scripts.
+ *
+ * @author Bryan Daniel
+ */
+public class ChargeScriptLoader {
+
+    /**
+     * The schema of the database being loaded
+     */
+    private final ChargeSchema schema;
+
+    /**
+     * The loader collecting the rows
+     */
+    private final ChargeEngineLoader loader;
+
+    /**
+     * The script text
+     */
+    private String text;
+
+    /**
+     * The position in the script text
+     */
+    private int position;
+
+    /**
+     * Creates a script loader for the given schema.
+     *
+     * @param schema the schema
+     */
+    private ChargeScriptLoader(ChargeSchema schema) {
+        this.schema = schema;
+        this.loader = new ChargeEngineLoader(schema);
+    }
+
+    /**
+     * Reads the script at the given location, a file path or class path
+     * resource, and builds a charge engine from it.
+     *
+     * @param location the script location
+     * @param schema the schema of the database
+     * @return the charge engine
+     * @throws IOException if the script cannot be read or parsed
+     */
+    public static ChargeEngine load(String location, ChargeSchema schema) throws IOException {
+        if (location == null || location.trim().isEmpty()) {
+            throw new IOException("No " + schema + " script is configured.");
+        }
+        File file = new File(location);
+        InputStream input = file.isFile() ? new FileInputStream(file)
+                : ChargeScriptLoader.class.getResourceAsStream(location);
+        if (input == null) {
+            throw new IOException("The script " + location + " was not found.");
+        }
+        try (Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            return load(reader, schema);
+        }
+    }
+
+    /**
+     * Reads a script and builds a charge engine from it.
+     *
+     * @param reader the script
+     * @param schema the schema of the database
+     * @return the charge engine
+     * @throws IOException if the script cannot be read or parsed
+     */
+    public static ChargeEngine load(Reader reader, ChargeSchema schema) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[65536];
+        int count;
+        while ((count = reader.read(buffer)) != -1) {
+            builder.append(buffer, 0, count);
+        }
+        ChargeScriptLoader scriptLoader = new ChargeScriptLoader(schema);
+        scriptLoader.text = builder.toString();
+        scriptLoader.parse();
+        return scriptLoader.loader.build();
+    }
+
+    /**
+     * Reads the statements of the script.
+     *
+     * @throws IOException if the script cannot be parsed
+     */
+    private void parse() throws IOException {
+        while (true) {
+            skipSpace();
+            if (position >= text.length()) {
+                return;
+            }
+            if (matchKeyword("INSERT")) {
+                skipSpace();
+                matchKeyword("INTO");
+                skipSpace();
+                String table = readName();
+                skipSpace();
+                List<String> columns = null;
+                if (peek() == '(') {
+                    columns = readColumns();
+                    skipSpace();
+                }
+                if (!matchKeyword("VALUES")) {
+                    throw error("VALUES expected after INSERT INTO " + table);
+                }
+                readRows(table, columnOrder(table, columns));
+            } else {
+                skipStatement();
+            }
+        }
+    }
+
+    /**
+     * Reads the column list of an INSERT statement.
+     *
+     * @return the column names
+     * @throws IOException if the column list cannot be parsed
+     */
+    private List<String> readColumns() throws IOException {
+        expect('(');
+        List<String> columns = new ArrayList<>();
+        while (true) {
+            skipSpace();
+            columns.add(readName());
+            skipSpace();
+            if (peek() == ')') {
+                position++;
+                return columns;
+            }
+            expect(',');
+        }
+    }
+
+    /**
+     * Returns the columns of a charge table read by the loader, in the order
+     * of the database scripts.
+     *
+     * @param table the table name
+     * @return the column names or null if the table is not a charge table
+     */
+    private String[] tableColumns(String table) {
+        if (table.equalsIgnoreCase("Region")) {
+            return new String[]{"provider_city", "provider_state", "provider_hrr"};
+        } else if (table.equalsIgnoreCase("Provider")) {
+            return new String[]{"provider_id", "provider_name", "provider_street", "provider_city",
+                "provider_state", "provider_zip"};
+        } else if (table.equalsIgnoreCase(schema.getClassificationTable())) {
+            return new String[]{schema.getIdColumn(), schema.getDefinitionColumn()};
+        } else if (table.equalsIgnoreCase("Charge")) {
+            return schema.hasMedicarePayments()
+                    ? new String[]{schema.getIdColumn(), "provider_id", "avg_charges", "avg_payments",
+                        "avg_medicare_payments"}
+                    : new String[]{schema.getIdColumn(), "provider_id", "avg_charges", "avg_payments"};
+        }
+        return null;
+    }
+
+    /**
+     * Returns the position in the rows of an INSERT statement of each column
+     * read by the loader.
+     *
+     * @param table the table name
+     * @param columns the column list of the statement or null if it has none
+     * @return the value positions in the column order of the database
+     * scripts, or null if the table is not a charge table
+     * @throws IOException if the column list lacks a column read by the
+     * loader
+     */
+    private int[] columnOrder(String table, List<String> columns) throws IOException {
+        String[] names = tableColumns(table);
+        if (names == null) {
+            return null;
+        }
+        int[] order = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            order[i] = columns == null ? i : indexOf(columns, names[i]);
+            if (order[i] < 0) {
+                throw error("Column " + names[i] + " expected in INSERT INTO " + table);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Returns the position of a column in a column list, ignoring case.
+     *
+     * @param columns the column list
+     * @param name the column name
+     * @return the position or -1 if the column is not listed
+     */
+    private static int indexOf(List<String> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the rows of an INSERT statement up to its semicolon and adds
+     * those of the charge tables to the loader.
+     *
+     * @param table the table name
+     * @param order the position of each column read by the loader, or null
+     * if the table is not a charge table
+     * @throws IOException if the rows cannot be parsed
+     */
+    private void readRows(String table, int[] order) throws IOException {
+        while (true) {
+            skipSpace();
+            expect('(');
+            List<Object> values = new ArrayList<>();
+            while (true) {
+                skipSpace();
+                values.add(readValue());
+                skipSpace();
+                if (peek() == ')') {
+                    position++;
+                    break;
+                }
+                expect(',');
+            }
+            if (order != null) {
+                addRow(table, order, values);
+            }
+            skipSpace();
+            char next = peek();
+            position++;
+            if (next == ';') {
+                return;
+            } else if (next != ',') {
+                throw error("',' or ';' expected");
+            }
+        }
+    }
+
+    /**
+     * Adds a row of a charge table to the loader.
+     *
+     * @param table the table name
+     * @param order the position of each column read by the loader
+     * @param values the row values
+     * @throws IOException if the row has too few columns
+     */
+    private void addRow(String table, int[] order, List<Object> values) throws IOException {
+        try {
+            if (table.equalsIgnoreCase("Region")) {
+                loader.addRegion(string(values.get(order[0])), string(values.get(order[1])),
+                        string(values.get(order[2])));
+            } else if (table.equalsIgnoreCase("Provider")) {
+                loader.addProvider(number(values.get(order[0])).intValue(), string(values.get(order[1])),
+                        string(values.get(order[2])), string(values.get(order[3])),
+                        string(values.get(order[4])), string(values.get(order[5])));
+            } else if (table.equalsIgnoreCase(schema.getClassificationTable())) {
+                loader.addClassification(number(values.get(order[0])).intValue(), string(values.get(order[1])));
+            } else {
+                long medicarePayments = schema.hasMedicarePayments()
+                        ? ChargeEngineLoader.toCents(number(values.get(order[4]))) : 0L;
+                loader.addCharge(number(values.get(order[0])).intValue(),
+                        number(values.get(order[1])).intValue(),
+                        ChargeEngineLoader.toCents(number(values.get(order[2]))),
+                        ChargeEngineLoader.toCents(number(values.get(order[3]))), medicarePayments);
+            }
+        } catch (IndexOutOfBoundsException | ClassCastException | NullPointerException | NumberFormatException e) {
+            throw error("Unexpected " + table + " row " + values);
+        }
+    }
+
+    /**
+     * Reads a value: a number, a quoted string, NULL or a call of TRUNCATE or
+     * ROUND.
+     *
+     * @return the value, a BigDecimal, a String or null
+     * @throws IOException if the value cannot be parsed
+     */
+    private Object readValue() throws IOException {
+        char c = peek();
+        if (c == '\'' || c == '"') {
+            return readString(c);
+        }
+        if (c == '-' || c == '+' || c == '.' || Character.isDigit(c)) {
+            int start = position;
+            position++;
+            while (position < text.length() && (Character.isDigit(text.charAt(position))
+                    || ".eE+-".indexOf(text.charAt(position)) >= 0)) {
+                position++;
+            }
+            try {
+                return new BigDecimal(text.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw error("Invalid number " + text.substring(start, position));
+            }
+        }
+        String name = readName();
+        if (name.equalsIgnoreCase("NULL")) {
+            return null;
+        }
+        if (!name.equalsIgnoreCase("TRUNCATE") && !name.equalsIgnoreCase("ROUND")) {
+            throw error("Unsupported value " + name);
+        }
+        skipSpace();
+        expect('(');
+        skipSpace();
+        BigDecimal value = number(readValue());
+        skipSpace();
+        expect(',');
+        skipSpace();
+        int scale = number(readValue()).intValue();
+        skipSpace();
+        expect(')');
+        return value.setScale(scale, name.equalsIgnoreCase("ROUND") ? RoundingMode.HALF_UP : RoundingMode.DOWN);
+    }
+
+    /**
+     * Reads a quoted string, in which the quote is escaped by doubling it or
+     * by a backslash.
+     *
+     * @param quote the quote character
+     * @return the string
+     * @throws IOException if the string is not terminated
+     */
+    private String readString(char quote) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        position++;
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '\\' && position < text.length()) {
+                char escaped = text.charAt(position++);
+                builder.append(escaped == 'n' ? '\n' : escaped == 't' ? '\t' : escaped);
+            } else if (c == quote) {
+                if (position < text.length() && text.charAt(position) == quote) {
+                    builder.append(quote);
+                    position++;
+                } else {
+                    return builder.toString();
+                }
+            } else {
+                builder.append(c);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    /**
+     * Reads a name, which may be quoted with backticks.
+     *
+     * @return the name
+     * @throws IOException if no name is found
+     */
+    private String readName() throws IOException {
+        if (peek() == '`') {
+            int end = text.indexOf('`', position + 1);
+            if (end < 0) {
+                throw error("Unterminated name");
+            }
+            String name = text.substring(position + 1, end);
+            position = end + 1;
+            return name;
+        }
+        int start = position;
+        while (position < text.length()
+                && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')) {
+            position++;
+        }
+        if (start == position) {
+            throw error("Name expected");
+        }
+        return text.substring(start, position);
+    }
+
+    /**
+     * Skips a statement up to and including its semicolon, ignoring quoted
+     * text and comments.
+     */
+    private void skipStatement() {
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '\'' || c == '"') {
+                try {
+                    readString(c);
+                } catch (IOException e) {
+                    position = text.length();
+                }
+            } else if (startsComment()) {
+                skipSpace();
+            } else {
+                position++;
+                if (c == ';') {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Skips white space and comments.
+     */
+    private void skipSpace() {
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (Character.isWhitespace(c)) {
+                position++;
+            } else if (text.startsWith("/*", position)) {
+                int end = text.indexOf("*/", position + 2);
+                position = end < 0 ? text.length() : end + 2;
+            } else if (startsComment()) {
+                int end = text.indexOf('\n', position);
+                position = end < 0 ? text.length() : end + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns whether a comment starts at the current position.
+     *
+     * @return true if a comment starts there
+     */
+    private boolean startsComment() {
+        return text.startsWith("--", position) || text.startsWith("#", position)
+                || text.startsWith("/*", position);
+    }
+
+    /**
+     * Consumes a keyword at the current position, ignoring case.
+     *
+     * @param keyword the keyword
+     * @return true if the keyword was found
+     */
+    private boolean matchKeyword(String keyword) {
+        int end = position + keyword.length();
+        if (text.regionMatches(true, position, keyword, 0, keyword.length())
+                && (end >= text.length() || !Character.isLetterOrDigit(text.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consumes the given character.
+     *
+     * @param expected the character
+     * @throws IOException if another character is found
+     */
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) {
+            throw error("'" + expected + "' expected");
+        }
+        position++;
+    }
+
+    /**
+     * Returns the character at the current position.
+     *
+     * @return the character
+     * @throws IOException if the script ends
+     */
+    private char peek() throws IOException {
+        if (position >= text.length()) {
+            throw error("Unexpected end of script");
+        }
+        return text.charAt(position);
+    }
+
+    /**
+     * Creates an exception locating a parse error by its line.
+     *
+     * @param message the error message
+     * @return the exception
+     */
+    private IOException error(String message) {
+        int line = 1;
+        for (int i = 0; i < Math.min(position, text.length()); i++) {
+            if (text.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return new IOException(message + " at line " + line + ".");
+    }
+
+    /**
+     * Returns a value as a string.
+     *
+     * @param value the value
+     * @return the string or null
+     */
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Returns a value as a number.
+     *
+     * @param value the value
+     * @return the number
+     */
+    private static BigDecimal number(Object value) {
+        if (value instanceof String) {
+            return new BigDecimal(((String) value).trim());
+        }
+        return (BigDecimal) value;
+    }
+}
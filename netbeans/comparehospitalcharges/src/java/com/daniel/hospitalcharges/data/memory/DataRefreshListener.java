@@ -0,0 +1,18 @@
+package com.daniel.hospitalcharges.data.memory;
+
+/**
+ * This interface is implemented by classes holding data derived from the
+ * charge engines that must be rebuilt or discarded when the engines are
+ * reloaded.
+ *
+ * @author Bryan Daniel
+ */
+public interface DataRefreshListener {
+
+    /**
+     * Called after the charge engines have been loaded, replaced or unloaded.
+     *
+     * @param datasetVersion the new dataset version
+     */
+    public void dataRefreshed(long datasetVersion);
+}
@@ -0,0 +1,127 @@
+package com.daniel.hospitalcharges.data.memory;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * This class holds the values of one charge column sorted within each
+ * classification so that the percentile rank of any charge is found with a
+ * binary search. The index is built with the charge engine and is therefore
+ * rebuilt only when the data is reloaded.
+ *
+ * @author Bryan Daniel
+ */
+public class PercentileIndex {
+
+    /**
+     * The column values, sorted in ascending order within each classification
+     */
+    private final long[] sortedValues;
+
+    /**
+     * The first row of each classification, with a final entry holding the
+     * number of rows
+     */
+    private final int[] offsets;
+
+    /**
+     * Creates the index from the values of a column grouped by classification.
+     *
+     * @param values the column values
+     * @param offsets the first row of each classification group
+     */
+    PercentileIndex(long[] values, int[] offsets) {
+        this.offsets = offsets;
+        sortedValues = Arrays.copyOf(values, values.length);
+        for (int i = 0; i + 1 < offsets.length; i++) {
+            Arrays.sort(sortedValues, offsets[i], offsets[i + 1]);
+        }
+    }
+
+    /**
+     * Returns the rank of a value within a classification, where the smallest
+     * value has a rank of one and equal values share the lowest rank.
+     *
+     * @param classification the classification position
+     * @param value the value
+     * @return the rank
+     */
+    public int getRank(int classification, long value) {
+        int low = offsets[classification];
+        int high = offsets[classification + 1];
+        int start = low;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - start + 1;
+    }
+
+    /**
+     * Returns the percentile rank of a value within a classification, computed
+     * as in the getCharges procedure.
+     *
+     * @param classification the classification position
+     * @param value the value
+     * @return the percentile rank
+     */
+    public BigDecimal getPercentileRank(int classification, long value) {
+        return toPercentileRank(classification, getRank(classification, value));
+    }
+
+    /**
+     * Returns the percentile rank the getCharges procedure reports for a
+     * provider without a charge in a classification. The provider has a rank
+     * of zero, so its percentile rank is negative.
+     *
+     * @param classification the classification position
+     * @return the percentile rank or null if the classification has no
+     * charges
+     */
+    public BigDecimal getMissingPercentileRank(int classification) {
+        return toPercentileRank(classification, 0);
+    }
+
+    /**
+     * Returns the percentile rank of a rank within a classification, as
+     * 100 * (rank - 0.5) / count rounded half up to two places.
+     *
+     * @param classification the classification position
+     * @param rank the rank
+     * @return the percentile rank or null if the classification has no
+     * charges
+     */
+    private BigDecimal toPercentileRank(int classification, long rank) {
+        int total = offsets[classification + 1] - offsets[classification];
+        if (total == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(100 * rank - 50)
+                .divide(BigDecimal.valueOf(total), ChargeEngine.SCALE, BigDecimal.ROUND_HALF_UP);
+    }
+
+    /**
+     * Returns the value at the given rank within a classification.
+     *
+     * @param classification the classification position
+     * @param rank the rank, starting with one
+     * @return the value
+     */
+    public long getValue(int classification, int rank) {
+        return sortedValues[offsets[classification] + rank - 1];
+    }
+
+    /**
+     * Returns the number of values of a classification.
+     *
+     * @param classification the classification position
+     * @return the number of values
+     */
+    public int getCount(int classification) {
+        return offsets[classification + 1] - offsets[classification];
+    }
+}
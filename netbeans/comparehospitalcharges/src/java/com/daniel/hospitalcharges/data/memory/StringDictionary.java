@@ -0,0 +1,95 @@
+package com.daniel.hospitalcharges.data.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * This class dictionary-encodes a set of strings as int codes. The codes are
+ * assigned in sorted order, so iterating over the codes in ascending order
+ * returns the strings in the order the database would have sorted them.
+ *
+ * @author Bryan Daniel
+ */
+public class StringDictionary {
+
+    /**
+     * The code returned for a string that is not in the dictionary
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * The ordering used for the dictionary values. It approximates the
+     * case-insensitive collation of the MySQL databases.
+     */
+    public static final Comparator<String> COLLATION = new Comparator<String>() {
+        @Override
+        public int compare(String first, String second) {
+            int result = String.CASE_INSENSITIVE_ORDER.compare(first, second);
+            return result != 0 ? result : first.compareTo(second);
+        }
+    };
+
+    /**
+     * The values indexed by code
+     */
+    private final String[] values;
+
+    /**
+     * The codes by value
+     */
+    private final HashMap<String, Integer> codes;
+
+    /**
+     * Creates a dictionary holding the distinct values of the given
+     * collection.
+     *
+     * @param source the values to encode
+     */
+    public StringDictionary(Collection<String> source) {
+        ArrayList<String> sorted = new ArrayList<>(new LinkedHashSet<>(source));
+        Collections.sort(sorted, COLLATION);
+        values = new String[sorted.size()];
+        codes = new HashMap<>(sorted.size() * 2);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sorted.get(i);
+            codes.put(values[i], i);
+        }
+    }
+
+    /**
+     * Returns the code for the given value.
+     *
+     * @param value the value
+     * @return the code or NOT_FOUND if the value is not in the dictionary
+     */
+    public int getCode(String value) {
+        if (value == null) {
+            return NOT_FOUND;
+        }
+        Integer code = codes.get(value);
+        return code == null ? NOT_FOUND : code;
+    }
+
+    /**
+     * Returns the value for the given code.
+     *
+     * @param code the code
+     * @return the value
+     */
+    public String getValue(int code) {
+        return values[code];
+    }
+
+    /**
+     * Returns the number of values in the dictionary.
+     *
+     * @return the size of the dictionary
+     */
+    public int size() {
+        return values.length;
+    }
+}
@@ -0,0 +1,911 @@
+package com.daniel.hospitalcharges.data.pool;
+
+import com.daniel.hospitalcharges.concurrent.CircuitBreaker;
+import com.daniel.hospitalcharges.concurrent.ConcurrencyLimiter;
+import com.daniel.hospitalcharges.utility.ManagementUtility;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ObjectName;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This class returns and frees connections to the inpatient and outpatient
+ * databases. Each database has a single pool, created on first use without
+ * locking. A connection that cannot be obtained raises a SQLException instead
+ * of returning null, and the borrow wait times, active and idle counts,
+ * timeouts and leak suspects of each pool are published as a JMX MXBean.
+ * Every borrow records the IO method using the connection, and a sample of
+ * borrows also records the stack of the borrowing thread, so connections held
+ * longer than the leak threshold can be attributed. Their holders are logged
+ * when they are returned, when the pool is exhausted and by a periodic leak
+ * sweep, which also forgets connections closed without being freed, and the
+ * hold times of each IO method are kept in a histogram. The data source is looked up in
+ * JNDI by default and can be replaced, or combined with read replicas looked
+ * up in JNDI, across which the connections are then routed. Each pool also
+ * holds the circuit breaker, the concurrency limiter and the query timeout of
+ * the calls to its database.
+ *
+ * @author Bryan Daniel
+ */
+public class ConnectionPool implements ConnectionPoolMXBean {
+
+    /**
+     * The JNDI name of the inpatient data source
+     */
+    public static final String INPATIENT_DATA_SOURCE = "java:/comp/env/jdbc/hospital_hospitalcharges";
+
+    /**
+     * The JNDI name of the outpatient data source
+     */
+    public static final String OUTPATIENT_DATA_SOURCE = "java:/comp/env/jdbc/hospital_outpatient";
+
+    /**
+     * The default time in milliseconds after which a borrowed connection is a
+     * leak suspect, well below the removeAbandonedTimeout of the data sources
+     * so leaks are reported before the connections are removed
+     */
+    public static final long DEFAULT_LEAK_THRESHOLD = 10000;
+
+    /**
+     * The default time in milliseconds between leak sweeps
+     */
+    public static final long DEFAULT_LEAK_SWEEP_INTERVAL = 5000;
+
+    /**
+     * The default number of borrows per borrow recording its stack
+     */
+    public static final int DEFAULT_STACK_SAMPLE_RATE = 100;
+
+    /**
+     * The IO method recorded for borrows that do not name one
+     */
+    public static final String UNNAMED_METHOD = "unnamed";
+
+    /**
+     * The shortest time in milliseconds between reports of the holders of an
+     * exhausted pool
+     */
+    private static final long EXHAUSTION_REPORT_INTERVAL = 10000;
+
+    /**
+     * The default time in seconds a statement may run
+     */
+    public static final int DEFAULT_QUERY_TIMEOUT = 5;
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(ConnectionPool.class);
+
+    /**
+     * The name of the pool
+     */
+    private final String name;
+
+    /**
+     * The JNDI name of the data source
+     */
+    private final String jndiName;
+
+    /**
+     * The data source routing across the read replicas, if any
+     */
+    private ReplicaDataSource replicaDataSource;
+
+    /**
+     * The data source
+     */
+    private volatile DataSource dataSource;
+
+    /**
+     * The method of the data source returning its idle connection count
+     */
+    private volatile Method idleCountMethod;
+
+    /**
+     * A borrowed connection.
+     */
+    private static class Borrow {
+
+        /**
+         * The IO method using the connection
+         */
+        private final String method;
+
+        /**
+         * The name of the borrowing thread
+         */
+        private final String threadName;
+
+        /**
+         * The borrow time in milliseconds since the epoch
+         */
+        private final long time = System.currentTimeMillis();
+
+        /**
+         * The borrow time in System.nanoTime units
+         */
+        private final long nanoTime = System.nanoTime();
+
+        /**
+         * The stack of the borrowing thread, if sampled
+         */
+        private final Throwable stack;
+
+        /**
+         * Whether a leak sweep has logged the holder
+         */
+        private volatile boolean reported;
+
+        /**
+         * Creates a borrow record.
+         *
+         * @param method the IO method using the connection
+         * @param sampled whether to record the stack of the borrowing thread
+         */
+        private Borrow(String method, boolean sampled) {
+            this.method = method;
+            this.threadName = Thread.currentThread().getName();
+            this.stack = sampled ? new Throwable("Borrowed by " + threadName + " for " + method) : null;
+        }
+
+        /**
+         * Describes the borrow for reports.
+         *
+         * @param now the current time in milliseconds since the epoch
+         * @return the description
+         */
+        private String describe(long now) {
+            return method + " held " + (now - time) + "ms by " + threadName;
+        }
+    }
+
+    /**
+     * A borrowed connection compared by identity, since pooled connections
+     * may define equality by their underlying physical connection.
+     */
+    private static final class BorrowKey {
+
+        /**
+         * The connection
+         */
+        private final Connection connection;
+
+        /**
+         * Creates the key of a connection.
+         *
+         * @param connection the connection
+         */
+        private BorrowKey(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(connection);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof BorrowKey && ((BorrowKey) other).connection == connection;
+        }
+    }
+
+    /**
+     * The connections not yet freed, tracked without a shared lock
+     */
+    private final ConcurrentHashMap<BorrowKey, Borrow> borrowed = new ConcurrentHashMap<>();
+
+    /**
+     * The hold times by IO method
+     */
+    private final ConcurrentHashMap<String, HoldTimeHistogram> holdTimes = new ConcurrentHashMap<>();
+
+    /**
+     * The number of borrows per borrow recording its stack, zero for none
+     */
+    private volatile int stackSampleRate = DEFAULT_STACK_SAMPLE_RATE;
+
+    /**
+     * The number of connections freed after the leak threshold
+     */
+    private final AtomicLong longHoldCount = new AtomicLong();
+
+    /**
+     * The time in milliseconds the holders of the exhausted pool were last
+     * reported
+     */
+    private final AtomicLong lastExhaustionReport = new AtomicLong();
+
+    /**
+     * The number of connections borrowed
+     */
+    private final AtomicLong borrowCount = new AtomicLong();
+
+    /**
+     * The total time in nanoseconds spent waiting for connections
+     */
+    private final AtomicLong borrowWaitTotal = new AtomicLong();
+
+    /**
+     * The longest time in nanoseconds spent waiting for a connection
+     */
+    private final AtomicLong borrowWaitMaximum = new AtomicLong();
+
+    /**
+     * The number of connection requests that failed
+     */
+    private final AtomicLong failureCount = new AtomicLong();
+
+    /**
+     * The number of connection requests that timed out
+     */
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    /**
+     * The time in milliseconds after which a borrowed connection is a leak
+     * suspect
+     */
+    private volatile long leakThreshold = DEFAULT_LEAK_THRESHOLD;
+
+    /**
+     * The time in seconds a statement may run
+     */
+    private volatile int queryTimeout = DEFAULT_QUERY_TIMEOUT;
+
+    /**
+     * The circuit breaker of the calls to the database
+     */
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * The limiter of the calls in flight to the database
+     */
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * The name under which the MXBean is registered
+     */
+    private ObjectName objectName;
+
+    /**
+     * The thread running the leak sweeps
+     */
+    private ScheduledExecutorService leakSweeper;
+
+    /**
+     * Holds the inpatient pool until it is first used.
+     */
+    private static class InpatientHolder {
+
+        private static final ConnectionPool POOL = new ConnectionPool("inpatient", INPATIENT_DATA_SOURCE);
+    }
+
+    /**
+     * Holds the outpatient pool until it is first used.
+     */
+    private static class OutpatientHolder {
+
+        private static final ConnectionPool POOL = new ConnectionPool("outpatient", OUTPATIENT_DATA_SOURCE);
+    }
+
+    /**
+     * Creates a pool for the data source with the given JNDI name and
+     * registers its MXBean.
+     *
+     * @param name the name of the pool
+     * @param jndiName the JNDI name of the data source
+     */
+    private ConnectionPool(String name, String jndiName) {
+        this.name = name;
+        this.jndiName = jndiName;
+        this.circuitBreaker = new CircuitBreaker(name);
+        this.concurrencyLimiter = new ConcurrencyLimiter(name);
+        try {
+            InitialContext ic = new InitialContext();
+            setDataSource((DataSource) ic.lookup(jndiName));
+            logger.info("The " + name + " connection pool was successfully constructed.");
+        } catch (NamingException e) {
+            logger.error("The " + name + " connection pool could not find its data source.", e);
+        }
+        synchronized (this) {
+            objectName = ManagementUtility.register("ConnectionPool", name, this);
+        }
+    }
+
+    /**
+     * This static method returns the inpatient connection pool.
+     *
+     * @return the inpatient pool
+     */
+    public static ConnectionPool getInpatientPool() {
+        return InpatientHolder.POOL;
+    }
+
+    /**
+     * This static method returns the outpatient connection pool.
+     *
+     * @return the outpatient pool
+     */
+    public static ConnectionPool getOutpatientPool() {
+        return OutpatientHolder.POOL;
+    }
+
+    /**
+     * Returns the name of the pool.
+     *
+     * @return the name
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the data source of the pool.
+     *
+     * @return the data source or null if none is available
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Replaces the data source of the pool. Connections already borrowed are
+     * still freed normally.
+     *
+     * @param dataSource the data source
+     */
+    public void setDataSource(DataSource dataSource) {
+        Method method = null;
+        if (dataSource != null) {
+            try {
+                method = dataSource.getClass().getMethod("getNumIdle");
+            } catch (NoSuchMethodException e) {
+                //the data source does not report idle connections
+            }
+        }
+        this.idleCountMethod = method;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Routes the connections of the pool across its JNDI data source and the
+     * read replicas with the given JNDI names, replacing any earlier replicas.
+     * Names not starting with java: are resolved in java:/comp/env. The
+     * health checks of the replicas start at once.
+     *
+     * @param replicaJndiNames the JNDI names of the replica data sources
+     * @param maximumLagSeconds the largest replication lag in seconds of a
+     * replica preferred for reads
+     * @param checkIntervalMillis the time in milliseconds between health
+     * checks
+     * @return true if every data source was found and the replicas are used
+     */
+    public synchronized boolean useReplicas(List<String> replicaJndiNames, long maximumLagSeconds,
+            long checkIntervalMillis) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        try {
+            InitialContext ic = new InitialContext();
+            dataSources.put(jndiName, (DataSource) ic.lookup(jndiName));
+            for (String replicaJndiName : replicaJndiNames) {
+                String lookupName = replicaJndiName.startsWith("java:")
+                        ? replicaJndiName : "java:/comp/env/" + replicaJndiName;
+                dataSources.put(lookupName, (DataSource) ic.lookup(lookupName));
+            }
+        } catch (NamingException | ClassCastException e) {
+            logger.error("The " + name + " connection pool could not find its replica data sources.", e);
+            return false;
+        }
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+        }
+        replicaDataSource = new ReplicaDataSource(name, dataSources);
+        replicaDataSource.setMaximumLagSeconds(maximumLagSeconds);
+        replicaDataSource.start(checkIntervalMillis);
+        setDataSource(replicaDataSource);
+        logger.info("The " + name + " connection pool routes across " + dataSources.size() + " replicas.");
+        return true;
+    }
+
+    /**
+     * Returns the data source routing across the read replicas.
+     *
+     * @return the replica data source or null if no replicas are used
+     */
+    public synchronized ReplicaDataSource getReplicaDataSource() {
+        return replicaDataSource;
+    }
+
+    /**
+     * Returns the circuit breaker of the calls to the database.
+     *
+     * @return the circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Returns the limiter of the calls in flight to the database.
+     *
+     * @return the concurrency limiter
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * This method returns a connection to the database for an IO method that
+     * is not named.
+     *
+     * @return the connection
+     * @throws SQLException if no data source is available or no connection
+     * can be obtained
+     */
+    public Connection getConnection() throws SQLException {
+        return getConnection(UNNAMED_METHOD);
+    }
+
+    /**
+     * This method returns a connection to the database for the given IO
+     * method, whose hold times are recorded under that name.
+     *
+     * @param method the IO method using the connection
+     * @return the connection
+     * @throws SQLException if no data source is available or no connection
+     * can be obtained
+     */
+    public Connection getConnection(String method) throws SQLException {
+        DataSource current = dataSource;
+        if (current == null) {
+            failureCount.incrementAndGet();
+            throw new SQLException("The " + name + " data source is not available.");
+        }
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = current.getConnection();
+        } catch (SQLException e) {
+            failureCount.incrementAndGet();
+            if (e instanceof SQLTimeoutException || e.getCause() instanceof NoSuchElementException) {
+                timeoutCount.incrementAndGet();
+                reportExhaustion();
+            }
+            throw e;
+        }
+        long wait = System.nanoTime() - start;
+        borrowCount.incrementAndGet();
+        borrowWaitTotal.addAndGet(wait);
+        long maximum = borrowWaitMaximum.get();
+        while (wait > maximum && !borrowWaitMaximum.compareAndSet(maximum, wait)) {
+            maximum = borrowWaitMaximum.get();
+        }
+        int sampleRate = stackSampleRate;
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+        borrowed.put(new BorrowKey(connection), new Borrow(method, sampled));
+        return connection;
+    }
+
+    /**
+     * This method frees the connection to the database.
+     *
+     * @param connection the connection
+     */
+    public void freeConnection(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        Borrow borrow = borrowed.remove(new BorrowKey(connection));
+        if (borrow != null) {
+            recordHold(borrow);
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.error("Closing of given connection failed.", e);
+        }
+    }
+
+    /**
+     * Returns the number of connections borrowed.
+     *
+     * @return the borrow count
+     */
+    @Override
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * Returns the number of connection requests that failed.
+     *
+     * @return the failure count
+     */
+    @Override
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Returns the number of connection requests that timed out waiting for a
+     * connection.
+     *
+     * @return the timeout count
+     */
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Returns the average time in milliseconds spent waiting for a
+     * connection.
+     *
+     * @return the average borrow wait time
+     */
+    @Override
+    public double getAverageBorrowWaitMillis() {
+        long count = borrowCount.get();
+        return count == 0 ? 0 : borrowWaitTotal.get() / 1000000.0 / count;
+    }
+
+    /**
+     * Returns the longest time in milliseconds spent waiting for a
+     * connection.
+     *
+     * @return the maximum borrow wait time
+     */
+    @Override
+    public long getMaximumBorrowWaitMillis() {
+        return borrowWaitMaximum.get() / 1000000;
+    }
+
+    /**
+     * Returns the number of connections borrowed and not yet freed.
+     *
+     * @return the active count
+     */
+    @Override
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * Returns the number of idle connections reported by the underlying data
+     * source.
+     *
+     * @return the idle count or -1 if the data source does not report it
+     */
+    @Override
+    public int getIdleCount() {
+        Method method = idleCountMethod;
+        DataSource current = dataSource;
+        if (method == null || current == null) {
+            return -1;
+        }
+        try {
+            return ((Number) method.invoke(current)).intValue();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the number of borrowed connections held longer than the leak
+     * threshold.
+     *
+     * @return the leak suspect count
+     */
+    @Override
+    public int getLeakSuspectCount() {
+        return findLeakSuspects().size();
+    }
+
+    /**
+     * Describes the borrowed connections held longer than the leak
+     * threshold: the IO method, hold time and thread of each, followed by the
+     * borrowing stack if it was sampled.
+     *
+     * @return the leak suspects, longest held first
+     */
+    @Override
+    public String[] getLeakSuspects() {
+        long now = System.currentTimeMillis();
+        List<Borrow> suspects = findLeakSuspects();
+        String[] descriptions = new String[suspects.size()];
+        for (int i = 0; i < descriptions.length; i++) {
+            Borrow borrow = suspects.get(i);
+            StringBuilder builder = new StringBuilder(borrow.describe(now));
+            if (borrow.stack != null) {
+                for (StackTraceElement element : borrow.stack.getStackTrace()) {
+                    builder.append("\n\tat ").append(element);
+                }
+            }
+            descriptions[i] = builder.toString();
+        }
+        return descriptions;
+    }
+
+    /**
+     * Returns the number of connections freed after being held longer than
+     * the leak threshold.
+     *
+     * @return the long hold count
+     */
+    @Override
+    public long getLongHoldCount() {
+        return longHoldCount.get();
+    }
+
+    /**
+     * Returns a summary of the hold time histogram of each IO method.
+     *
+     * @return the hold time summaries by IO method
+     */
+    @Override
+    public Map<String, String> getHoldTimeHistograms() {
+        Map<String, String> summaries = new TreeMap<>();
+        for (Map.Entry<String, HoldTimeHistogram> entry : holdTimes.entrySet()) {
+            summaries.put(entry.getKey(), entry.getValue().getSummary());
+        }
+        return summaries;
+    }
+
+    /**
+     * Returns the number of borrows per borrow recording its stack.
+     *
+     * @return the stack sample rate, zero if no stacks are recorded
+     */
+    @Override
+    public int getStackSampleRate() {
+        return stackSampleRate;
+    }
+
+    /**
+     * Sets the number of borrows per borrow recording its stack; one records
+     * every stack and zero none.
+     *
+     * @param stackSampleRate the stack sample rate
+     */
+    @Override
+    public void setStackSampleRate(int stackSampleRate) {
+        this.stackSampleRate = Math.max(0, stackSampleRate);
+    }
+
+    /**
+     * Returns the time in milliseconds after which a borrowed connection is a
+     * leak suspect.
+     *
+     * @return the leak threshold
+     */
+    @Override
+    public long getLeakThresholdMillis() {
+        return leakThreshold;
+    }
+
+    /**
+     * Sets the time in milliseconds after which a borrowed connection is a
+     * leak suspect.
+     *
+     * @param leakThresholdMillis the leak threshold
+     */
+    @Override
+    public void setLeakThresholdMillis(long leakThresholdMillis) {
+        this.leakThreshold = leakThresholdMillis;
+    }
+
+    /**
+     * Returns the time in seconds a statement may run.
+     *
+     * @return the query timeout, zero for no limit
+     */
+    @Override
+    public int getQueryTimeoutSeconds() {
+        return queryTimeout;
+    }
+
+    /**
+     * Sets the time in seconds a statement may run.
+     *
+     * @param queryTimeoutSeconds the query timeout, zero for no limit
+     */
+    @Override
+    public void setQueryTimeoutSeconds(int queryTimeoutSeconds) {
+        this.queryTimeout = Math.max(0, queryTimeoutSeconds);
+    }
+
+    /**
+     * Resets the borrow, failure, timeout and hold time statistics.
+     */
+    @Override
+    public void resetStatistics() {
+        borrowCount.set(0);
+        borrowWaitTotal.set(0);
+        borrowWaitMaximum.set(0);
+        failureCount.set(0);
+        timeoutCount.set(0);
+        longHoldCount.set(0);
+        holdTimes.clear();
+    }
+
+    /**
+     * Sweeps the borrowed connections at the given interval, replacing any
+     * earlier sweeps.
+     *
+     * @param intervalMillis the time in milliseconds between sweeps, zero for
+     * none
+     */
+    public synchronized void startLeakSweep(long intervalMillis) {
+        stopLeakSweep();
+        if (intervalMillis <= 0) {
+            return;
+        }
+        leakSweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "leak-sweep-" + name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        leakSweeper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sweepLeaks();
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the leak sweeps.
+     */
+    public synchronized void stopLeakSweep() {
+        if (leakSweeper != null) {
+            leakSweeper.shutdownNow();
+            leakSweeper = null;
+        }
+    }
+
+    /**
+     * Forgets the borrowed connections closed without being freed, whose
+     * holders cannot return them, and logs the holder of each connection
+     * newly held longer than the leak threshold, so leaks are seen before the
+     * pool is exhausted.
+     */
+    public void sweepLeaks() {
+        for (Map.Entry<BorrowKey, Borrow> entry : borrowed.entrySet()) {
+            if (isClosed(entry.getKey().connection) && borrowed.remove(entry.getKey(), entry.getValue())) {
+                logger.debug("A " + name + " connection was closed without being freed: "
+                        + entry.getValue().describe(System.currentTimeMillis()));
+            }
+        }
+        long now = System.currentTimeMillis();
+        for (Borrow borrow : findLeakSuspects()) {
+            if (!borrow.reported) {
+                borrow.reported = true;
+                logger.warn("A " + name + " connection is held longer than " + leakThreshold + "ms: "
+                        + borrow.describe(now), borrow.stack);
+            }
+        }
+    }
+
+    /**
+     * Returns whether a borrowed connection is closed. A connection whose
+     * state cannot be read is taken as closed.
+     *
+     * @param connection the connection
+     * @return true if the connection is closed
+     */
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Returns the borrowed connections held longer than the leak threshold.
+     *
+     * @return the leak suspects, longest held first
+     */
+    private List<Borrow> findLeakSuspects() {
+        long oldest = System.currentTimeMillis() - leakThreshold;
+        List<Borrow> suspects = new ArrayList<>();
+        for (Borrow borrow : borrowed.values()) {
+            if (borrow.time < oldest) {
+                suspects.add(borrow);
+            }
+        }
+        Collections.sort(suspects, new Comparator<Borrow>() {
+            @Override
+            public int compare(Borrow first, Borrow second) {
+                return Long.compare(first.time, second.time);
+            }
+        });
+        return suspects;
+    }
+
+    /**
+     * Records the hold time of a freed connection and logs the holder if it
+     * was held longer than the leak threshold.
+     *
+     * @param borrow the borrow record
+     */
+    private void recordHold(Borrow borrow) {
+        long hold = System.nanoTime() - borrow.nanoTime;
+        HoldTimeHistogram histogram = holdTimes.get(borrow.method);
+        if (histogram == null) {
+            HoldTimeHistogram created = new HoldTimeHistogram();
+            histogram = holdTimes.putIfAbsent(borrow.method, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(hold);
+        if (TimeUnit.NANOSECONDS.toMillis(hold) >= leakThreshold) {
+            longHoldCount.incrementAndGet();
+            logger.warn("A " + name + " connection was returned after a long hold: "
+                    + borrow.describe(System.currentTimeMillis()), borrow.stack);
+        }
+    }
+
+    /**
+     * Logs the holders of the connections held longer than the leak
+     * threshold when a connection request times out, at most once in the
+     * report interval.
+     */
+    private void reportExhaustion() {
+        long now = System.currentTimeMillis();
+        long last = lastExhaustionReport.get();
+        if (now - last < EXHAUSTION_REPORT_INTERVAL || !lastExhaustionReport.compareAndSet(last, now)) {
+            return;
+        }
+        List<Borrow> suspects = findLeakSuspects();
+        logger.warn("The " + name + " connection pool is exhausted with " + getActiveCount()
+                + " connections borrowed, " + suspects.size() + " of them held longer than "
+                + leakThreshold + "ms.");
+        for (Borrow borrow : suspects) {
+            logger.warn("Long held " + name + " connection: " + borrow.describe(now), borrow.stack);
+        }
+    }
+
+    /**
+     * Removes the MXBeans of the pool, its circuit breaker and its
+     * concurrency limiter from the platform MBean server, and stops the leak
+     * sweeps and the health checks of its replicas.
+     */
+    public synchronized void unregister() {
+        stopLeakSweep();
+        ManagementUtility.unregister(objectName);
+        objectName = null;
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+        }
+        circuitBreaker.unregister();
+        concurrencyLimiter.unregister();
+    }
+}
@@ -0,0 +1,153 @@
+package com.daniel.hospitalcharges.data.pool;
+
+import java.util.Map;
+
+/**
+ * This interface exposes the statistics of a connection pool through JMX.
+ *
+ * @author Bryan Daniel
+ */
+public interface ConnectionPoolMXBean {
+
+    /**
+     * Returns the name of the pool.
+     *
+     * @return the name
+     */
+    public String getName();
+
+    /**
+     * Returns the number of connections borrowed.
+     *
+     * @return the borrow count
+     */
+    public long getBorrowCount();
+
+    /**
+     * Returns the number of connection requests that failed.
+     *
+     * @return the failure count
+     */
+    public long getFailureCount();
+
+    /**
+     * Returns the number of connection requests that timed out waiting for a
+     * connection.
+     *
+     * @return the timeout count
+     */
+    public long getTimeoutCount();
+
+    /**
+     * Returns the average time in milliseconds spent waiting for a
+     * connection.
+     *
+     * @return the average borrow wait time
+     */
+    public double getAverageBorrowWaitMillis();
+
+    /**
+     * Returns the longest time in milliseconds spent waiting for a
+     * connection.
+     *
+     * @return the maximum borrow wait time
+     */
+    public long getMaximumBorrowWaitMillis();
+
+    /**
+     * Returns the number of connections borrowed and not yet freed.
+     *
+     * @return the active count
+     */
+    public int getActiveCount();
+
+    /**
+     * Returns the number of idle connections reported by the underlying data
+     * source.
+     *
+     * @return the idle count or -1 if the data source does not report it
+     */
+    public int getIdleCount();
+
+    /**
+     * Returns the number of borrowed connections held longer than the leak
+     * threshold.
+     *
+     * @return the leak suspect count
+     */
+    public int getLeakSuspectCount();
+
+    /**
+     * Describes the borrowed connections held longer than the leak
+     * threshold: the IO method, hold time and thread of each, followed by the
+     * borrowing stack if it was sampled.
+     *
+     * @return the leak suspects, longest held first
+     */
+    public String[] getLeakSuspects();
+
+    /**
+     * Returns the number of connections freed after being held longer than
+     * the leak threshold.
+     *
+     * @return the long hold count
+     */
+    public long getLongHoldCount();
+
+    /**
+     * Returns a summary of the hold time histogram of each IO method.
+     *
+     * @return the hold time summaries by IO method
+     */
+    public Map<String, String> getHoldTimeHistograms();
+
+    /**
+     * Returns the number of borrows per borrow recording its stack.
+     *
+     * @return the stack sample rate, zero if no stacks are recorded
+     */
+    public int getStackSampleRate();
+
+    /**
+     * Sets the number of borrows per borrow recording its stack; one records
+     * every stack and zero none.
+     *
+     * @param stackSampleRate the stack sample rate
+     */
+    public void setStackSampleRate(int stackSampleRate);
+
+    /**
+     * Returns the time in milliseconds after which a borrowed connection is a
+     * leak suspect.
+     *
+     * @return the leak threshold
+     */
+    public long getLeakThresholdMillis();
+
+    /**
+     * Sets the time in milliseconds after which a borrowed connection is a
+     * leak suspect.
+     *
+     * @param leakThresholdMillis the leak threshold
+     */
+    public void setLeakThresholdMillis(long leakThresholdMillis);
+
+    /**
+     * Returns the time in seconds a statement may run.
+     *
+     * @return the query timeout, zero for no limit
+     */
+    public int getQueryTimeoutSeconds();
+
+    /**
+     * Sets the time in seconds a statement may run.
+     *
+     * @param queryTimeoutSeconds the query timeout, zero for no limit
+     */
+    public void setQueryTimeoutSeconds(int queryTimeoutSeconds);
+
+    /**
+     * Resets the borrow, failure, timeout and hold time statistics.
+     */
+    public void resetStatistics();
+}
@@ -0,0 +1,116 @@
+package com.daniel.hospitalcharges.data.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts the times connections are held, from borrow to return,
+ * in buckets growing roughly by factors of two and a half from one
+ * millisecond to a minute. Recording is lock-free, so it can be done on
+ * every return.
+ *
+ * @author Bryan Daniel
+ */
+public class HoldTimeHistogram {
+
+    /**
+     * The upper bounds in milliseconds of the buckets; longer holds fall in
+     * a last, open bucket
+     */
+    private static final long[] BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000,
+        30000, 60000};
+
+    /**
+     * The number of holds in each bucket
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+
+    /**
+     * The total hold time in nanoseconds
+     */
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * The longest hold time in nanoseconds
+     */
+    private final AtomicLong maximum = new AtomicLong();
+
+    /**
+     * Records a hold.
+     *
+     * @param nanos the hold time in nanoseconds
+     */
+    public void record(long nanos) {
+        long millis = nanos / 1000000;
+        int bucket = 0;
+        while (bucket < BOUNDS.length && millis >= BOUNDS[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        total.addAndGet(nanos);
+        long current = maximum.get();
+        while (nanos > current && !maximum.compareAndSet(current, nanos)) {
+            current = maximum.get();
+        }
+    }
+
+    /**
+     * Returns the number of holds recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the upper bound in milliseconds of the bucket holding the given
+     * fraction of the holds, an estimate of the percentile.
+     *
+     * @param fraction the fraction, between zero and one
+     * @return the bucket bound, or the maximum hold time for the open bucket
+     */
+    public long getPercentileMillis(double fraction) {
+        long count = getCount();
+        long needed = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            seen += counts.get(i);
+            if (seen >= needed && seen > 0) {
+                return BOUNDS[i];
+            }
+        }
+        return maximum.get() / 1000000;
+    }
+
+    /**
+     * Returns a summary of the histogram: the count, average, estimated
+     * median and 99th percentile, maximum and the non-empty buckets.
+     *
+     * @return the summary
+     */
+    public String getSummary() {
+        long count = getCount();
+        StringBuilder builder = new StringBuilder();
+        builder.append("count ").append(count);
+        if (count == 0) {
+            return builder.toString();
+        }
+        builder.append(", average ").append(String.format("%.1f", total.get() / 1000000.0 / count))
+                .append("ms, p50 <").append(getPercentileMillis(0.5))
+                .append("ms, p99 <").append(getPercentileMillis(0.99))
+                .append("ms, max ").append(maximum.get() / 1000000).append("ms;");
+        for (int i = 0; i < counts.length(); i++) {
+            long bucketCount = counts.get(i);
+            if (bucketCount > 0) {
+                builder.append(' ').append(i < BOUNDS.length ? "<" + BOUNDS[i] : ">=" + BOUNDS[i - 1])
+                        .append("ms:").append(bucketCount);
+            }
+        }
+        return builder.toString();
+    }
+}
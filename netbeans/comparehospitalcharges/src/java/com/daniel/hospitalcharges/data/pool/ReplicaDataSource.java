@@ -0,0 +1,573 @@
+package com.daniel.hospitalcharges.data.pool;
+
+import com.daniel.hospitalcharges.utility.ManagementUtility;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This class routes the connections of a logical database across a set of
+ * replica data sources serving the same data. Connections are taken from the
+ * healthy replicas in turn, preferring those whose replication lag is within
+ * the maximum lag; lagging replicas are used, least lagging first, only when
+ * no other is healthy, and replicas that failed their last check are tried
+ * last. A replica whose connection request fails is marked down and the next
+ * one is tried. A background check validates every replica and reads its
+ * lag from the replication status, so a replica returns to the rotation when
+ * it recovers. A replica whose replication status cannot be read, often for
+ * lack of the REPLICATION CLIENT privilege, has an unknown lag and is routed
+ * as the most lagging. The replicas of each data source are published as a
+ * JMX MXBean.
+ *
+ * @author Bryan Daniel
+ */
+public class ReplicaDataSource implements DataSource, ReplicaDataSourceMXBean {
+
+    /**
+     * The default largest replication lag in seconds of a preferred replica
+     */
+    public static final long DEFAULT_MAXIMUM_LAG = 30;
+
+    /**
+     * The default time in milliseconds between health checks
+     */
+    public static final long DEFAULT_CHECK_INTERVAL = 5000;
+
+    /**
+     * The query reading the replication status of a replica
+     */
+    private static final String LAG_QUERY = "SHOW SLAVE STATUS";
+
+    /**
+     * The replication status column holding the lag in seconds
+     */
+    private static final String LAG_COLUMN = "Seconds_Behind_Master";
+
+    /**
+     * The time in seconds a health check waits for a connection to validate
+     */
+    private static final int VALIDATION_TIMEOUT = 2;
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(ReplicaDataSource.class);
+
+    /**
+     * A replica and its last known state.
+     */
+    private static class Replica {
+
+        /**
+         * The name of the replica
+         */
+        private final String name;
+
+        /**
+         * The data source of the replica
+         */
+        private final DataSource dataSource;
+
+        /**
+         * Whether the replica passed its last check
+         */
+        private volatile boolean healthy = true;
+
+        /**
+         * The replication lag in seconds, Long.MAX_VALUE if replication is
+         * stopped or the lag is unknown
+         */
+        private volatile long lag;
+
+        /**
+         * Whether the last check could not read the replication status
+         */
+        private volatile boolean statusUnreadable;
+
+        /**
+         * The number of connections obtained
+         */
+        private final AtomicLong connectionCount = new AtomicLong();
+
+        /**
+         * The number of connection requests and checks that failed
+         */
+        private final AtomicLong failureCount = new AtomicLong();
+
+        /**
+         * Creates a replica.
+         *
+         * @param name the name of the replica
+         * @param dataSource the data source of the replica
+         */
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    /**
+     * The name of the logical database
+     */
+    private final String name;
+
+    /**
+     * The replicas
+     */
+    private final List<Replica> replicas;
+
+    /**
+     * The position of the next replica in turn
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * The number of connections obtained after the first replica tried failed
+     */
+    private final AtomicLong failoverCount = new AtomicLong();
+
+    /**
+     * The largest replication lag in seconds of a preferred replica
+     */
+    private volatile long maximumLag = DEFAULT_MAXIMUM_LAG;
+
+    /**
+     * The time in milliseconds between health checks
+     */
+    private volatile long checkInterval;
+
+    /**
+     * The thread running the health checks
+     */
+    private ScheduledExecutorService checker;
+
+    /**
+     * The name under which the MXBean is registered
+     */
+    private volatile ObjectName objectName;
+
+    /**
+     * Creates a data source routing across the given replicas and registers
+     * its MXBean. The health checks are not started.
+     *
+     * @param name the name of the logical database
+     * @param dataSources the data sources of the replicas by name, in the
+     * order they are first tried
+     */
+    public ReplicaDataSource(String name, Map<String, DataSource> dataSources) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("The " + name + " database has no replicas.");
+        }
+        this.name = name;
+        List<Replica> list = new ArrayList<>(dataSources.size());
+        for (Map.Entry<String, DataSource> entry : dataSources.entrySet()) {
+            list.add(new Replica(entry.getKey(), entry.getValue()));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        objectName = ManagementUtility.register("ReplicaDataSource", name, this);
+    }
+
+    /**
+     * Checks every replica and starts checking them at the given interval.
+     *
+     * @param checkIntervalMillis the time in milliseconds between checks
+     */
+    public synchronized void start(long checkIntervalMillis) {
+        stop();
+        checkNow();
+        checker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "replica-check-" + name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        checker.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                checkNow();
+            }
+        }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+        checkInterval = checkIntervalMillis;
+    }
+
+    /**
+     * Stops the health checks.
+     */
+    public synchronized void stop() {
+        if (checker != null) {
+            checker.shutdownNow();
+            checker = null;
+        }
+        checkInterval = 0;
+    }
+
+    /**
+     * Stops the health checks and removes the MXBean from the platform MBean
+     * server.
+     */
+    public void close() {
+        stop();
+        ManagementUtility.unregister(objectName);
+        objectName = null;
+    }
+
+    /**
+     * Returns a connection from the first replica in the routing order that
+     * can provide one.
+     *
+     * @return the connection
+     * @throws SQLException if no replica can provide a connection
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    /**
+     * Returns a connection with the given credentials from the first replica
+     * in the routing order that can provide one.
+     *
+     * @param username the user name
+     * @param password the password
+     * @return the connection
+     * @throws SQLException if no replica can provide a connection
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        SQLException failure = null;
+        List<Replica> route = route();
+        for (int i = 0; i < route.size(); i++) {
+            Replica replica = route.get(i);
+            try {
+                Connection connection = username == null
+                        ? replica.dataSource.getConnection()
+                        : replica.dataSource.getConnection(username, password);
+                replica.connectionCount.incrementAndGet();
+                if (i > 0) {
+                    failoverCount.incrementAndGet();
+                }
+                return connection;
+            } catch (SQLException e) {
+                replica.failureCount.incrementAndGet();
+                //an exhausted pool is busy, not down
+                if (!(e instanceof SQLTimeoutException || e.getCause() instanceof NoSuchElementException)) {
+                    markDown(replica, e);
+                }
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.setNextException(e);
+                }
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Checks the health and replication lag of every replica now.
+     */
+    @Override
+    public void checkNow() {
+        for (Replica replica : replicas) {
+            check(replica);
+        }
+    }
+
+    /**
+     * Returns the state of each replica: its name, health, replication lag
+     * and connection count.
+     *
+     * @return the replica states
+     */
+    @Override
+    public String[] getReplicaStates() {
+        String[] states = new String[replicas.size()];
+        for (int i = 0; i < states.length; i++) {
+            Replica replica = replicas.get(i);
+            states[i] = replica.name + (replica.healthy ? " up" : " down")
+                    + ", lag " + (replica.lag == Long.MAX_VALUE ? "unknown" : replica.lag + "s")
+                    + ", " + replica.connectionCount.get() + " connections, "
+                    + replica.failureCount.get() + " failures";
+        }
+        return states;
+    }
+
+    /**
+     * Returns the number of healthy replicas.
+     *
+     * @return the healthy count
+     */
+    @Override
+    public int getHealthyCount() {
+        int healthy = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * Returns the number of connections obtained from a replica other than
+     * the first one tried.
+     *
+     * @return the failover count
+     */
+    @Override
+    public long getFailoverCount() {
+        return failoverCount.get();
+    }
+
+    /**
+     * Returns the largest replication lag in seconds of a replica preferred
+     * for reads.
+     *
+     * @return the maximum lag
+     */
+    @Override
+    public long getMaximumLagSeconds() {
+        return maximumLag;
+    }
+
+    /**
+     * Sets the largest replication lag in seconds of a replica preferred for
+     * reads.
+     *
+     * @param maximumLagSeconds the maximum lag
+     */
+    @Override
+    public void setMaximumLagSeconds(long maximumLagSeconds) {
+        this.maximumLag = Math.max(0, maximumLagSeconds);
+    }
+
+    /**
+     * Returns the time in milliseconds between health checks.
+     *
+     * @return the check interval, zero if the checks are not running
+     */
+    @Override
+    public long getCheckIntervalMillis() {
+        return checkInterval;
+    }
+
+    /**
+     * Resets the connection, failure and failover counts.
+     */
+    @Override
+    public void resetStatistics() {
+        for (Replica replica : replicas) {
+            replica.connectionCount.set(0);
+            replica.failureCount.set(0);
+        }
+        failoverCount.set(0);
+    }
+
+    /**
+     * Returns the replicas in the order they are tried: the healthy replicas
+     * within the maximum lag in turn, then the lagging healthy replicas by
+     * lag, then the replicas that are down.
+     *
+     * @return the routing order
+     */
+    private List<Replica> route() {
+        List<Replica> current = new ArrayList<>(replicas.size());
+        List<Replica> lagging = new ArrayList<>();
+        List<Replica> down = new ArrayList<>();
+        for (Replica replica : replicas) {
+            if (!replica.healthy) {
+                down.add(replica);
+            } else if (replica.lag > maximumLag) {
+                lagging.add(replica);
+            } else {
+                current.add(replica);
+            }
+        }
+        if (current.size() > 1) {
+            Collections.rotate(current, -Math.abs(next.getAndIncrement() % current.size()));
+        }
+        Collections.sort(lagging, new Comparator<Replica>() {
+            @Override
+            public int compare(Replica first, Replica second) {
+                return Long.compare(first.lag, second.lag);
+            }
+        });
+        current.addAll(lagging);
+        current.addAll(down);
+        return current;
+    }
+
+    /**
+     * Validates a replica and reads its replication lag. A data source that
+     * is not a replica has no lag.
+     *
+     * @param replica the replica
+     */
+    private void check(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT)) {
+                throw new SQLException("The connection is not valid.");
+            }
+            replica.lag = readLag(replica, connection);
+            if (!replica.healthy) {
+                logger.info("The " + name + " replica " + replica.name + " is up.");
+            }
+            replica.healthy = true;
+        } catch (SQLException e) {
+            replica.failureCount.incrementAndGet();
+            markDown(replica, e);
+        }
+    }
+
+    /**
+     * Reads the replication lag of a replica. The first time the status
+     * cannot be read is logged, and the lag is unknown until it can be read
+     * again.
+     *
+     * @param replica the replica
+     * @param connection a connection to the replica
+     * @return the lag in seconds, Long.MAX_VALUE if replication is stopped or
+     * the status cannot be read
+     */
+    private long readLag(Replica replica, Connection connection) {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            replica.statusUnreadable = false;
+            if (!resultSet.next()) {
+                return 0;
+            }
+            long lag = resultSet.getLong(LAG_COLUMN);
+            return resultSet.wasNull() ? Long.MAX_VALUE : lag;
+        } catch (SQLException e) {
+            if (!replica.statusUnreadable) {
+                logger.warn("The replication status of the " + name + " replica " + replica.name
+                        + " could not be read, so its lag is unknown.", e);
+            }
+            replica.statusUnreadable = true;
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Marks a replica down until its next successful check.
+     *
+     * @param replica the replica
+     * @param cause the failure
+     */
+    private void markDown(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            logger.warn("The " + name + " replica " + replica.name + " is down.", cause);
+        }
+        replica.healthy = false;
+    }
+
+    /**
+     * Returns the log writer of the first replica.
+     *
+     * @return the log writer
+     * @throws SQLException if the log writer cannot be read
+     */
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return replicas.get(0).dataSource.getLogWriter();
+    }
+
+    /**
+     * Sets the log writer of every replica.
+     *
+     * @param out the log writer
+     * @throws SQLException if the log writer cannot be set
+     */
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        for (Replica replica : replicas) {
+            replica.dataSource.setLogWriter(out);
+        }
+    }
+
+    /**
+     * Sets the login timeout of every replica.
+     *
+     * @param seconds the login timeout
+     * @throws SQLException if the login timeout cannot be set
+     */
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        for (Replica replica : replicas) {
+            replica.dataSource.setLoginTimeout(seconds);
+        }
+    }
+
+    /**
+     * Returns the login timeout of the first replica.
+     *
+     * @return the login timeout
+     * @throws SQLException if the login timeout cannot be read
+     */
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return replicas.get(0).dataSource.getLoginTimeout();
+    }
+
+    /**
+     * The replicas may use different loggers, so no parent logger is
+     * reported.
+     *
+     * @return never
+     * @throws SQLFeatureNotSupportedException always
+     */
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("The replicas have no common parent logger.");
+    }
+
+    /**
+     * Returns this data source if it implements the given interface.
+     *
+     * @param <T> the interface type
+     * @param iface the interface
+     * @return this data source
+     * @throws SQLException if it does not implement the interface
+     */
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("The " + name + " replica data source is not a " + iface.getName() + ".");
+    }
+
+    /**
+     * Returns whether this data source implements the given interface.
+     *
+     * @param iface the interface
+     * @return true if it does
+     */
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,66 @@
+package com.daniel.hospitalcharges.data.pool;
+
+/**
+ * This interface exposes the replicas and routing settings of a replica data
+ * source through JMX.
+ *
+ * @author Bryan Daniel
+ */
+public interface ReplicaDataSourceMXBean {
+
+    /**
+     * Returns the state of each replica: its name, health, replication lag
+     * and connection count.
+     *
+     * @return the replica states
+     */
+    public String[] getReplicaStates();
+
+    /**
+     * Returns the number of healthy replicas.
+     *
+     * @return the healthy count
+     */
+    public int getHealthyCount();
+
+    /**
+     * Returns the number of connections obtained from a replica other than
+     * the first one tried.
+     *
+     * @return the failover count
+     */
+    public long getFailoverCount();
+
+    /**
+     * Returns the largest replication lag in seconds of a replica preferred
+     * for reads.
+     *
+     * @return the maximum lag
+     */
+    public long getMaximumLagSeconds();
+
+    /**
+     * Sets the largest replication lag in seconds of a replica preferred for
+     * reads.
+     *
+     * @param maximumLagSeconds the maximum lag
+     */
+    public void setMaximumLagSeconds(long maximumLagSeconds);
+
+    /**
+     * Returns the time in milliseconds between health checks.
+     *
+     * @return the check interval, zero if the checks are not running
+     */
+    public long getCheckIntervalMillis();
+
+    /**
+     * Checks the health and replication lag of every replica now.
+     */
+    public void checkNow();
+
+    /**
+     * Resets the connection, failure and failover counts.
+     */
+    public void resetStatistics();
+}
@@ -16,16 +16,20 @@
 package com.daniel.hospitalcharges.filter;
 
 import java.io.IOException;
+import java.util.HashSet;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /**
- * This Filter implementation clears the browser cache.
+ * This Filter implementation clears the browser cache. The servlet paths
+ * listed in the <code>excludedPaths</code> init parameter set their own cache
+ * headers and are passed through unchanged.
  *
  * @author Bryan Daniel
  * @version 2, March 16, 2017
@@ -43,6 +47,11 @@ public class HeadersFilter implements Filter {
      */
     private FilterConfig filterConfig = null;
 
+    /**
+     * The servlet paths left to set their own cache headers
+     */
+    private final HashSet<String> excludedPaths = new HashSet<>();
+
     /**
      * Default constructor
      */
@@ -66,6 +75,11 @@ public class HeadersFilter implements Filter {
 
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
+        if (excludedPaths.contains(((HttpServletRequest) request).getServletPath())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
         httpResponse.setHeader("Cache-Control", "no-cache, no-store, must-revalidate"); // HTTP 1.1.
         httpResponse.setHeader("Pragma", "no-cache"); // HTTP 1.0.
         httpResponse.setDateHeader("Expires", 0); // Proxies.
@@ -93,6 +107,14 @@ public class HeadersFilter implements Filter {
             if (debug) {
                 log("HeadersFilter:Initializing filter");
             }
+            String paths = filterConfig.getInitParameter("excludedPaths");
+            if (paths != null) {
+                for (String path : paths.split(",")) {
+                    if (!path.trim().isEmpty()) {
+                        excludedPaths.add(path.trim());
+                    }
+                }
+            }
         }
     }
 
@@ -0,0 +1,387 @@
+package com.daniel.hospitalcharges.listener;
+
+import com.daniel.hospitalcharges.chart.ChartRenderService;
+import com.daniel.hospitalcharges.concurrent.CircuitBreaker;
+import com.daniel.hospitalcharges.concurrent.ConcurrencyLimiter;
+import com.daniel.hospitalcharges.concurrent.LookupExecutor;
+import com.daniel.hospitalcharges.data.StatisticsCache;
+import com.daniel.hospitalcharges.data.access.Procedure;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import com.daniel.hospitalcharges.data.pool.ConnectionPool;
+import com.daniel.hospitalcharges.data.pool.ReplicaDataSource;
+import com.daniel.hospitalcharges.service.ServiceCache;
+import com.daniel.hospitalcharges.service.ServiceManager;
+import com.daniel.hospitalcharges.service.ServiceMetrics;
+import com.daniel.hospitalcharges.servlet.AsyncRequestExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This listener loads the in-memory charge engines when the application
+ * starts if the <code>hospitalcharges.IN_MEMORY_ENGINE</code> context
+ * parameter is true, or from SQL scripts if the
+ * <code>hospitalcharges.DATA_MODE</code> context parameter is embedded. It
+ * also starts the chart render threads, which pre-render the histograms once
+ * the data is available, the threads running concurrent lookups and the
+ * threads serving asynchronous requests, and it installs the service result
+ * cache.
+ *
+ * @author Bryan Daniel
+ */
+public class DataLoadListener implements ServletContextListener {
+
+    /**
+     * The name of the context parameter enabling the in-memory engines
+     */
+    public static final String IN_MEMORY_ENGINE = "hospitalcharges.IN_MEMORY_ENGINE";
+
+    /**
+     * The name of the context parameter selecting where the charge data comes
+     * from: database, the default, or embedded
+     */
+    public static final String DATA_MODE = "hospitalcharges.DATA_MODE";
+
+    /**
+     * The data mode loading the charge engines from SQL scripts instead of
+     * the databases
+     */
+    public static final String EMBEDDED_DATA_MODE = "embedded";
+
+    /**
+     * The name of the context parameter setting the location of the SQL
+     * script populating the inpatient tables in the embedded mode
+     */
+    public static final String EMBEDDED_INPATIENT_SCRIPT = "hospitalcharges.EMBEDDED_INPATIENT_SCRIPT";
+
+    /**
+     * The name of the context parameter setting the location of the SQL
+     * script populating the outpatient tables in the embedded mode
+     */
+    public static final String EMBEDDED_OUTPATIENT_SCRIPT = "hospitalcharges.EMBEDDED_OUTPATIENT_SCRIPT";
+
+    /**
+     * The name of the context parameter setting the number of render threads
+     */
+    public static final String CHART_RENDER_THREADS = "hospitalcharges.CHART_RENDER_THREADS";
+
+    /**
+     * The name of the context parameter setting the render queue size
+     */
+    public static final String CHART_RENDER_QUEUE = "hospitalcharges.CHART_RENDER_QUEUE";
+
+    /**
+     * The name of the context parameter setting how many milliseconds a
+     * request waits for a chart
+     */
+    public static final String CHART_RENDER_TIMEOUT = "hospitalcharges.CHART_RENDER_TIMEOUT";
+
+    /**
+     * The name of the context parameter enabling chart pre-rendering
+     */
+    public static final String CHART_PRERENDER = "hospitalcharges.CHART_PRERENDER";
+
+    /**
+     * The name of the context parameter enabling virtual threads for lookups
+     */
+    public static final String LOOKUP_VIRTUAL_THREADS = "hospitalcharges.LOOKUP_VIRTUAL_THREADS";
+
+    /**
+     * The name of the context parameter setting the number of lookup threads
+     * when virtual threads are not used
+     */
+    public static final String LOOKUP_THREADS = "hospitalcharges.LOOKUP_THREADS";
+
+    /**
+     * The name of the context parameter setting how many milliseconds a
+     * request waits for its lookups
+     */
+    public static final String LOOKUP_TIMEOUT = "hospitalcharges.LOOKUP_TIMEOUT";
+
+    /**
+     * The name of the context parameter setting the number of asynchronous
+     * request threads
+     */
+    public static final String ASYNC_REQUEST_THREADS = "hospitalcharges.ASYNC_REQUEST_THREADS";
+
+    /**
+     * The name of the context parameter setting the asynchronous request
+     * queue size
+     */
+    public static final String ASYNC_REQUEST_QUEUE = "hospitalcharges.ASYNC_REQUEST_QUEUE";
+
+    /**
+     * The name of the context parameter setting how many milliseconds an
+     * asynchronous request may take
+     */
+    public static final String ASYNC_REQUEST_TIMEOUT = "hospitalcharges.ASYNC_REQUEST_TIMEOUT";
+
+    /**
+     * The name of the context parameter setting how many seconds a database
+     * call may run
+     */
+    public static final String QUERY_TIMEOUT = "hospitalcharges.QUERY_TIMEOUT";
+
+    /**
+     * The name of the context parameter setting the number of consecutive
+     * database failures opening the circuit of a database
+     */
+    public static final String CIRCUIT_FAILURE_THRESHOLD = "hospitalcharges.CIRCUIT_FAILURE_THRESHOLD";
+
+    /**
+     * The name of the context parameter setting how many milliseconds the
+     * circuit of a database stays open before a trial call
+     */
+    public static final String CIRCUIT_OPEN_DURATION = "hospitalcharges.CIRCUIT_OPEN_DURATION";
+
+    /**
+     * The name of the context parameter setting the largest number of calls
+     * in flight to a database, the limit adapting below it
+     */
+    public static final String CONCURRENCY_LIMIT = "hospitalcharges.CONCURRENCY_LIMIT";
+
+    /**
+     * The name of the context parameter setting the time in milliseconds
+     * after which a borrowed connection is reported as a leak suspect
+     */
+    public static final String LEAK_THRESHOLD = "hospitalcharges.LEAK_THRESHOLD";
+
+    /**
+     * The name of the context parameter setting the time in milliseconds
+     * between sweeps logging the leak suspects, where zero sweeps never
+     */
+    public static final String LEAK_SWEEP_INTERVAL = "hospitalcharges.LEAK_SWEEP_INTERVAL";
+
+    /**
+     * The name of the context parameter setting the number of connection
+     * borrows per borrow recording its stack, where zero records none
+     */
+    public static final String STACK_SAMPLE_RATE = "hospitalcharges.STACK_SAMPLE_RATE";
+
+    /**
+     * The name of the context parameter listing the JNDI names of the read
+     * replicas of the inpatient database, separated by commas
+     */
+    public static final String INPATIENT_REPLICAS = "hospitalcharges.INPATIENT_REPLICAS";
+
+    /**
+     * The name of the context parameter listing the JNDI names of the read
+     * replicas of the outpatient database, separated by commas
+     */
+    public static final String OUTPATIENT_REPLICAS = "hospitalcharges.OUTPATIENT_REPLICAS";
+
+    /**
+     * The name of the context parameter setting the largest replication lag
+     * in seconds of a replica preferred for reads
+     */
+    public static final String REPLICA_MAXIMUM_LAG = "hospitalcharges.REPLICA_MAXIMUM_LAG";
+
+    /**
+     * The name of the context parameter setting the time in milliseconds
+     * between replica health checks
+     */
+    public static final String REPLICA_CHECK_INTERVAL = "hospitalcharges.REPLICA_CHECK_INTERVAL";
+
+    /**
+     * The name of the context parameter setting the location of the service
+     * configuration, a file path or class path resource
+     */
+    public static final String SERVICE_CONFIGURATION = "hospitalcharges.SERVICE_CONFIGURATION";
+
+    /**
+     * The name of the context parameter setting the maximum weight of the
+     * service cache, where zero disables the cache
+     */
+    public static final String SERVICE_CACHE_WEIGHT = "hospitalcharges.SERVICE_CACHE_WEIGHT";
+
+    /**
+     * The name of the context parameter setting the default time to live in
+     * milliseconds of cached service results
+     */
+    public static final String SERVICE_CACHE_TTL = "hospitalcharges.SERVICE_CACHE_TTL";
+
+    /**
+     * The name of the context parameter setting the times to live of single
+     * service methods, as a comma-separated list of method=milliseconds
+     */
+    public static final String SERVICE_CACHE_METHOD_TTLS = "hospitalcharges.SERVICE_CACHE_METHOD_TTLS";
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(DataLoadListener.class);
+
+    /**
+     * Starts the chart render, lookup and asynchronous request threads,
+     * configures the database calls, installs the service cache, registers
+     * the statistics cache and the chart pre-rendering for data refreshes,
+     * and loads the charge engines.
+     *
+     * @param event the servlet context event
+     */
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        ServletContext context = event.getServletContext();
+        ChartRenderService renderService = ChartRenderService.getInstance();
+        renderService.start(
+                getInitParameter(context, CHART_RENDER_THREADS, ChartRenderService.DEFAULT_THREADS),
+                getInitParameter(context, CHART_RENDER_QUEUE, ChartRenderService.DEFAULT_QUEUE_SIZE),
+                getInitParameter(context, CHART_RENDER_TIMEOUT, (int) ChartRenderService.DEFAULT_TIMEOUT));
+        boolean prerender = !"false".equalsIgnoreCase(context.getInitParameter(CHART_PRERENDER));
+        LookupExecutor.getInstance().start(
+                !"false".equalsIgnoreCase(context.getInitParameter(LOOKUP_VIRTUAL_THREADS)),
+                getInitParameter(context, LOOKUP_THREADS, LookupExecutor.DEFAULT_THREADS),
+                getInitParameter(context, LOOKUP_TIMEOUT, (int) LookupExecutor.DEFAULT_TIMEOUT));
+        AsyncRequestExecutor.getInstance().start(
+                getInitParameter(context, ASYNC_REQUEST_THREADS, AsyncRequestExecutor.DEFAULT_THREADS),
+                getInitParameter(context, ASYNC_REQUEST_QUEUE, AsyncRequestExecutor.DEFAULT_QUEUE_SIZE),
+                getInitParameter(context, ASYNC_REQUEST_TIMEOUT, (int) AsyncRequestExecutor.DEFAULT_TIMEOUT));
+        configurePool(context, ConnectionPool.getInpatientPool(), INPATIENT_REPLICAS);
+        configurePool(context, ConnectionPool.getOutpatientPool(), OUTPATIENT_REPLICAS);
+        installServiceCache(context);
+
+        ChargeEngineManager.addRefreshListener(StatisticsCache.getInstance());
+        if (prerender) {
+            ChargeEngineManager.addRefreshListener(renderService);
+        }
+        if (EMBEDDED_DATA_MODE.equalsIgnoreCase(context.getInitParameter(DATA_MODE))) {
+            if (!ChargeEngineManager.loadScripts(context.getInitParameter(EMBEDDED_INPATIENT_SCRIPT),
+                    context.getInitParameter(EMBEDDED_OUTPATIENT_SCRIPT))) {
+                logger.error("The embedded charge data was not fully loaded. Lookups will use the databases.");
+            }
+        } else if (Boolean.parseBoolean(context.getInitParameter(IN_MEMORY_ENGINE))) {
+            if (!ChargeEngineManager.load()) {
+                logger.warn("The charge engines were not fully loaded. Lookups will use the databases.");
+            }
+        }
+        if (prerender && ChargeEngineManager.getDatasetVersion() == 0) {
+            //no data refresh occurred, so render the charts from the databases
+            renderService.prerender();
+        }
+    }
+
+    /**
+     * Stops the chart render, lookup and asynchronous request threads,
+     * releases the charge engines, removes the service cache and removes the
+     * connection pool and service MXBeans.
+     *
+     * @param event the servlet context event
+     */
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        ChargeEngineManager.removeRefreshListener(ChartRenderService.getInstance());
+        ChartRenderService.getInstance().shutdown();
+        LookupExecutor.getInstance().shutdown();
+        AsyncRequestExecutor.getInstance().shutdown();
+        ChargeEngineManager.unload();
+        ChargeEngineManager.removeRefreshListener(StatisticsCache.getInstance());
+        ConnectionPool.getInpatientPool().unregister();
+        ConnectionPool.getOutpatientPool().unregister();
+        Procedure.getCalls().unregister();
+        Procedure.getLastKnownGood().unregister();
+        ServiceManager.removeCache();
+        ServiceManager.unregister();
+        ServiceMetrics.getInstance().unregister();
+    }
+
+    /**
+     * Sets the query timeout, circuit breaker, concurrency limit and leak
+     * detection settings of a connection pool, starts its leak sweeps and
+     * routes it across its read replicas, if any.
+     *
+     * @param context the servlet context
+     * @param pool the connection pool
+     * @param replicasParameter the name of the context parameter listing the
+     * replicas of the pool
+     */
+    private static void configurePool(ServletContext context, ConnectionPool pool, String replicasParameter) {
+        pool.setQueryTimeoutSeconds(getInitParameter(context, QUERY_TIMEOUT, ConnectionPool.DEFAULT_QUERY_TIMEOUT));
+        pool.setLeakThresholdMillis(getInitParameter(context, LEAK_THRESHOLD,
+                (int) ConnectionPool.DEFAULT_LEAK_THRESHOLD));
+        pool.setStackSampleRate(getInitParameter(context, STACK_SAMPLE_RATE,
+                ConnectionPool.DEFAULT_STACK_SAMPLE_RATE));
+        pool.startLeakSweep(getInitParameter(context, LEAK_SWEEP_INTERVAL,
+                (int) ConnectionPool.DEFAULT_LEAK_SWEEP_INTERVAL));
+        CircuitBreaker circuitBreaker = pool.getCircuitBreaker();
+        circuitBreaker.setFailureThreshold(getInitParameter(context, CIRCUIT_FAILURE_THRESHOLD,
+                CircuitBreaker.DEFAULT_FAILURE_THRESHOLD));
+        circuitBreaker.setOpenDurationMillis(getInitParameter(context, CIRCUIT_OPEN_DURATION,
+                (int) CircuitBreaker.DEFAULT_OPEN_DURATION));
+        pool.getConcurrencyLimiter().setMaximumLimit(getInitParameter(context, CONCURRENCY_LIMIT,
+                ConcurrencyLimiter.DEFAULT_MAXIMUM_LIMIT));
+        String replicas = context.getInitParameter(replicasParameter);
+        if (replicas != null && !replicas.trim().isEmpty()) {
+            List<String> jndiNames = new ArrayList<>();
+            for (String jndiName : replicas.split(",")) {
+                if (!jndiName.trim().isEmpty()) {
+                    jndiNames.add(jndiName.trim());
+                }
+            }
+            pool.useReplicas(jndiNames,
+                    getInitParameter(context, REPLICA_MAXIMUM_LAG, (int) ReplicaDataSource.DEFAULT_MAXIMUM_LAG),
+                    getInitParameter(context, REPLICA_CHECK_INTERVAL, (int) ReplicaDataSource.DEFAULT_CHECK_INTERVAL));
+        }
+    }
+
+    /**
+     * Loads the service configuration and installs the service cache unless
+     * its maximum weight is zero.
+     *
+     * @param context the servlet context
+     */
+    private static void installServiceCache(ServletContext context) {
+        String configuration = context.getInitParameter(SERVICE_CONFIGURATION);
+        if (configuration != null && !configuration.trim().isEmpty()
+                && !ServiceManager.setConfiguration(configuration.trim())) {
+            logger.warn("The service configuration " + configuration + " was not used.");
+        }
+        int weight = getInitParameter(context, SERVICE_CACHE_WEIGHT, (int) ServiceCache.DEFAULT_MAXIMUM_WEIGHT);
+        if (weight <= 0) {
+            ServiceManager.removeCache();
+            return;
+        }
+        ServiceCache cache = new ServiceCache("services", weight,
+                getInitParameter(context, SERVICE_CACHE_TTL, (int) ServiceCache.DEFAULT_TIME_TO_LIVE));
+        String methodTimesToLive = context.getInitParameter(SERVICE_CACHE_METHOD_TTLS);
+        if (methodTimesToLive != null) {
+            for (String methodTimeToLive : methodTimesToLive.split(",")) {
+                String[] parts = methodTimeToLive.split("=");
+                try {
+                    cache.setTimeToLive(parts[0].trim(), Long.parseLong(parts[1].trim()));
+                } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                    if (!methodTimeToLive.trim().isEmpty()) {
+                        logger.warn("Invalid " + SERVICE_CACHE_METHOD_TTLS + " value: " + methodTimeToLive);
+                    }
+                }
+            }
+        }
+        ServiceManager.installCache(cache);
+    }
+
+    /**
+     * Returns the value of an integer context parameter.
+     *
+     * @param context the servlet context
+     * @param name the parameter name
+     * @param defaultValue the value used when the parameter is missing or
+     * invalid
+     * @return the parameter value
+     */
+    private static int getInitParameter(ServletContext context, String name, int defaultValue) {
+        String value = context.getInitParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid " + name + " value: " + value);
+            return defaultValue;
+        }
+    }
+}
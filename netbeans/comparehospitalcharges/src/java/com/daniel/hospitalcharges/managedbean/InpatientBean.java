@@ -1,10 +1,13 @@
 package com.daniel.hospitalcharges.managedbean;
 
+import com.daniel.hospitalcharges.concurrent.RequestTracker;
+import com.daniel.hospitalcharges.concurrent.TrackedRequest;
 import com.daniel.hospitalcharges.service.ServiceManager;
 import com.daniel.hospitalcharges.model.InpatientComparisonResult;
 import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
 import javax.faces.bean.ManagedBean;
 import javax.faces.bean.SessionScoped;
 import org.apache.commons.lang3.StringUtils;
@@ -24,6 +27,11 @@ public class InpatientBean implements Serializable {
      */
     private static final long serialVersionUID = -830992314447819931L;
 
+    /**
+     * The latest queries of the session, which cancel the superseded ones
+     */
+    private final RequestTracker requestTracker = new RequestTracker();
+
     /**
      * The inpatientState selection for the search
      */
@@ -32,7 +40,7 @@ public class InpatientBean implements Serializable {
     /**
      * The list of inpatientCities to choose from
      */
-    private ArrayList<String> inpatientCities;
+    private List<String> inpatientCities;
 
     /**
      * The selected inpatientCity
@@ -106,7 +114,15 @@ public class InpatientBean implements Serializable {
             selectedDrgDefinition = null;
             results = null;
         } else {
-            drgs = ServiceManager.getRegionalInpatientService().getDRGsByRegion(inpatientState, inpatientCity);
+            TrackedRequest request = requestTracker.start("drgs");
+            try {
+                ArrayList<DiagnosisRelatedGroup> found = ServiceManager.getRegionalInpatientService().getDRGsByRegion(inpatientState, inpatientCity);
+                if (!request.isCancelled()) {
+                    drgs = found;
+                }
+            } finally {
+                requestTracker.finish(request);
+            }
             drgId = null;
             selectedDrgDefinition = null;
             results = null;
@@ -144,7 +160,15 @@ public class InpatientBean implements Serializable {
                     break;
                 }
             }
-            results = ServiceManager.getRegionalInpatientService().getRegionalResults(inpatientState, inpatientCity, drgId);
+            TrackedRequest request = requestTracker.start("results");
+            try {
+                ArrayList<InpatientComparisonResult> found = ServiceManager.getRegionalInpatientService().getRegionalResults(inpatientState, inpatientCity, drgId);
+                if (!request.isCancelled()) {
+                    results = found;
+                }
+            } finally {
+                requestTracker.finish(request);
+            }
         }
     }
 
@@ -181,7 +205,7 @@ public class InpatientBean implements Serializable {
      *
      * @return the list of inpatientCities to choose from
      */
-    public ArrayList<String> getInpatientCities() {
+    public List<String> getInpatientCities() {
         return inpatientCities;
     }
 
@@ -190,7 +214,7 @@ public class InpatientBean implements Serializable {
      *
      * @param inpatientCities the list of inpatientCities to set
      */
-    public void setInpatientCities(ArrayList<String> inpatientCities) {
+    public void setInpatientCities(List<String> inpatientCities) {
         this.inpatientCities = inpatientCities;
     }
 
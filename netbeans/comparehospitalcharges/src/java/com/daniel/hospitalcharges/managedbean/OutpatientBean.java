@@ -1,10 +1,13 @@
 package com.daniel.hospitalcharges.managedbean;
 
+import com.daniel.hospitalcharges.concurrent.RequestTracker;
+import com.daniel.hospitalcharges.concurrent.TrackedRequest;
 import com.daniel.hospitalcharges.service.ServiceManager;
 import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
 import com.daniel.hospitalcharges.model.OutpatientComparisonResult;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
 import javax.faces.bean.ManagedBean;
 import javax.faces.bean.SessionScoped;
 import org.apache.commons.lang3.StringUtils;
@@ -24,6 +27,11 @@ public class OutpatientBean implements Serializable {
      */
     private static final long serialVersionUID = -5795433778150549785L;
 
+    /**
+     * The latest queries of the session, which cancel the superseded ones
+     */
+    private final RequestTracker requestTracker = new RequestTracker();
+
     /**
      * The outpatientState selection for the search
      */
@@ -32,7 +40,7 @@ public class OutpatientBean implements Serializable {
     /**
      * The list of outpatientCities to choose from
      */
-    private ArrayList<String> outpatientCities;
+    private List<String> outpatientCities;
 
     /**
      * The selected outpatientCity
@@ -106,7 +114,15 @@ public class OutpatientBean implements Serializable {
             selectedApcDefinition = null;
             results = null;
         } else {
-            apcs = ServiceManager.getRegionalOutpatientService().getAPCsByRegion(outpatientState, outpatientCity);
+            TrackedRequest request = requestTracker.start("apcs");
+            try {
+                ArrayList<AmbulatoryPaymentClassification> found = ServiceManager.getRegionalOutpatientService().getAPCsByRegion(outpatientState, outpatientCity);
+                if (!request.isCancelled()) {
+                    apcs = found;
+                }
+            } finally {
+                requestTracker.finish(request);
+            }
             apcId = null;
             selectedApcDefinition = null;
             results = null;
@@ -144,7 +160,15 @@ public class OutpatientBean implements Serializable {
                     break;
                 }
             }
-            results = ServiceManager.getRegionalOutpatientService().getRegionalResults(outpatientState, outpatientCity, apcId);
+            TrackedRequest request = requestTracker.start("results");
+            try {
+                ArrayList<OutpatientComparisonResult> found = ServiceManager.getRegionalOutpatientService().getRegionalResults(outpatientState, outpatientCity, apcId);
+                if (!request.isCancelled()) {
+                    results = found;
+                }
+            } finally {
+                requestTracker.finish(request);
+            }
         }
     }
 
@@ -181,7 +205,7 @@ public class OutpatientBean implements Serializable {
      *
      * @return the list of outpatientCities to choose from
      */
-    public ArrayList<String> getOutpatientCities() {
+    public List<String> getOutpatientCities() {
         return outpatientCities;
     }
 
@@ -190,7 +214,7 @@ public class OutpatientBean implements Serializable {
      *
      * @param outpatientCities the list of outpatientCities to set
      */
-    public void setOutpatientCities(ArrayList<String> outpatientCities) {
+    public void setOutpatientCities(List<String> outpatientCities) {
         this.outpatientCities = outpatientCities;
     }
 
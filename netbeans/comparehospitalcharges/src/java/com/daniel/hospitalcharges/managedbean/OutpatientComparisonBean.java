@@ -1,11 +1,14 @@
 package com.daniel.hospitalcharges.managedbean;
 
+import com.daniel.hospitalcharges.concurrent.RequestTracker;
+import com.daniel.hospitalcharges.concurrent.TrackedRequest;
 import com.daniel.hospitalcharges.service.ServiceManager;
 import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
 import com.daniel.hospitalcharges.model.OutpatientComparisonResult;
 import com.daniel.hospitalcharges.model.Provider;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
 import javax.faces.bean.ManagedBean;
 import javax.faces.bean.SessionScoped;
 import org.apache.commons.lang3.StringUtils;
@@ -25,10 +28,15 @@ public class OutpatientComparisonBean implements Serializable {
      */
     private static final long serialVersionUID = -1190845609012603435L;
 
+    /**
+     * The latest queries of the session, which cancel the superseded ones
+     */
+    private final RequestTracker requestTracker = new RequestTracker();
+
     /**
      * The list of ambulatory payment classifications to choose from
      */
-    private ArrayList<AmbulatoryPaymentClassification> apcs;
+    private List<AmbulatoryPaymentClassification> apcs;
 
     /**
      * The selected APC ID
@@ -43,12 +51,12 @@ public class OutpatientComparisonBean implements Serializable {
     /**
      * The list of states to choose from
      */
-    private ArrayList<String> states;
+    private List<String> states;
 
     /**
      * The second list of states to choose from
      */
-    private ArrayList<String> compareToStates;
+    private List<String> compareToStates;
 
     /**
      * The state selection for the search
@@ -63,12 +71,12 @@ public class OutpatientComparisonBean implements Serializable {
     /**
      * The list of cities to choose from
      */
-    private ArrayList<String> cities;
+    private List<String> cities;
 
     /**
      * The second list of cities to choose from
      */
-    private ArrayList<String> compareToCities;
+    private List<String> compareToCities;
 
     /**
      * The selected city
@@ -126,7 +134,7 @@ public class OutpatientComparisonBean implements Serializable {
         if (apcId != null) {
             states = ServiceManager.getOutpatientComparisonService().getStates(apcId);
             setApcDefinition();
-            compareToStates = new ArrayList(states);
+            compareToStates = states;
             state = null;
             secondState = null;
             cities = null;
@@ -238,7 +246,15 @@ public class OutpatientComparisonBean implements Serializable {
             providerId = null;
             result = null;
         } else {
-            providers = ServiceManager.getOutpatientComparisonService().getProviders(state, city, apcId);
+            TrackedRequest request = requestTracker.start("providers");
+            try {
+                ArrayList<Provider> found = ServiceManager.getOutpatientComparisonService().getProviders(state, city, apcId);
+                if (!request.isCancelled()) {
+                    providers = found;
+                }
+            } finally {
+                requestTracker.finish(request);
+            }
             providerId = null;
             result = null;
         }
@@ -273,7 +289,15 @@ public class OutpatientComparisonBean implements Serializable {
             secondProviderId = null;
             secondResult = null;
         } else {
-            compareToProviders = ServiceManager.getOutpatientComparisonService().getProviders(secondState, secondCity, apcId);
+            TrackedRequest request = requestTracker.start("compareToProviders");
+            try {
+                ArrayList<Provider> found = ServiceManager.getOutpatientComparisonService().getProviders(secondState, secondCity, apcId);
+                if (!request.isCancelled()) {
+                    compareToProviders = found;
+                }
+            } finally {
+                requestTracker.finish(request);
+            }
             secondProviderId = null;
             secondResult = null;
         }
@@ -309,7 +333,15 @@ public class OutpatientComparisonBean implements Serializable {
         } else if (providerId == null) {
             result = null;
         } else {
-            result = ServiceManager.getOutpatientComparisonService().getResult(providers, providerId, apcs, apcId);
+            TrackedRequest request = requestTracker.start("result");
+            try {
+                OutpatientComparisonResult found = ServiceManager.getOutpatientComparisonService().getResult(providers, providerId, apcId);
+                if (!request.isCancelled()) {
+                    result = found;
+                }
+            } finally {
+                requestTracker.finish(request);
+            }
         }
     }
 
@@ -343,7 +375,15 @@ public class OutpatientComparisonBean implements Serializable {
         } else if (secondProviderId == null) {
             secondResult = null;
         } else {
-            secondResult = ServiceManager.getOutpatientComparisonService().getResult(compareToProviders, secondProviderId, apcs, apcId);
+            TrackedRequest request = requestTracker.start("secondResult");
+            try {
+                OutpatientComparisonResult found = ServiceManager.getOutpatientComparisonService().getResult(compareToProviders, secondProviderId, apcId);
+                if (!request.isCancelled()) {
+                    secondResult = found;
+                }
+            } finally {
+                requestTracker.finish(request);
+            }
         }
     }
 
@@ -362,7 +402,7 @@ public class OutpatientComparisonBean implements Serializable {
      *
      * @return the list of APCs
      */
-    public ArrayList<AmbulatoryPaymentClassification> getApcs() {
+    public List<AmbulatoryPaymentClassification> getApcs() {
         return apcs;
     }
 
@@ -371,7 +411,7 @@ public class OutpatientComparisonBean implements Serializable {
      *
      * @param apcs the list of APCs
      */
-    public void setApcs(ArrayList<AmbulatoryPaymentClassification> apcs) {
+    public void setApcs(List<AmbulatoryPaymentClassification> apcs) {
         this.apcs = apcs;
     }
 
@@ -416,7 +456,7 @@ public class OutpatientComparisonBean implements Serializable {
      *
      * @return the states
      */
-    public ArrayList<String> getStates() {
+    public List<String> getStates() {
         return states;
     }
 
@@ -425,7 +465,7 @@ public class OutpatientComparisonBean implements Serializable {
      *
      * @param states the states
      */
-    public void setStates(ArrayList<String> states) {
+    public void setStates(List<String> states) {
         this.states = states;
     }
 
@@ -434,7 +474,7 @@ public class OutpatientComparisonBean implements Serializable {
      *
      * @return the second list of states
      */
-    public ArrayList<String> getCompareToStates() {
+    public List<String> getCompareToStates() {
         return compareToStates;
     }
 
@@ -443,7 +483,7 @@ public class OutpatientComparisonBean implements Serializable {
      *
      * @param compareToStates the second list of states
      */
-    public void setCompareToStates(ArrayList<String> compareToStates) {
+    public void setCompareToStates(List<String> compareToStates) {
         this.compareToStates = compareToStates;
     }
 
@@ -488,7 +528,7 @@ public class OutpatientComparisonBean implements Serializable {
      *
      * @return the list of cities to choose from
      */
-    public ArrayList<String> getCities() {
+    public List<String> getCities() {
         return cities;
     }
 
@@ -497,7 +537,7 @@ public class OutpatientComparisonBean implements Serializable {
      *
      * @param cities the list of cities to set
      */
-    public void setCities(ArrayList<String> cities) {
+    public void setCities(List<String> cities) {
         this.cities = cities;
     }
 
@@ -506,7 +546,7 @@ public class OutpatientComparisonBean implements Serializable {
      *
      * @return the second list of cites
      */
-    public ArrayList<String> getCompareToCities() {
+    public List<String> getCompareToCities() {
         return compareToCities;
     }
 
@@ -515,7 +555,7 @@ public class OutpatientComparisonBean implements Serializable {
      *
      * @param compareToCities the second list of cites
      */
-    public void setCompareToCities(ArrayList<String> compareToCities) {
+    public void setCompareToCities(List<String> compareToCities) {
         this.compareToCities = compareToCities;
     }
 
@@ -58,6 +58,20 @@ public class AmbulatoryPaymentClassification implements Serializable {
         
         avgPaymentsPercentileRank = null;
     }
+
+    /**
+     * Copy constructor.
+     *
+     * @param original the ambulatory payment classification to copy
+     */
+    public AmbulatoryPaymentClassification(AmbulatoryPaymentClassification original) {
+        apcId = original.apcId;
+        apcDefinition = original.apcDefinition;
+        avgCharges = original.avgCharges;
+        avgPayments = original.avgPayments;
+        avgChargesPercentileRank = original.avgChargesPercentileRank;
+        avgPaymentsPercentileRank = original.avgPaymentsPercentileRank;
+    }
     
     /**
      * Get the value of apcId
@@ -71,6 +71,22 @@ public class DiagnosisRelatedGroup implements Serializable {
         avgMedicarePaymentsPercentileRank = null;
     }
 
+    /**
+     * Copy constructor.
+     *
+     * @param original the diagnosis related group to copy
+     */
+    public DiagnosisRelatedGroup(DiagnosisRelatedGroup original) {
+        drgId = original.drgId;
+        drgDefinition = original.drgDefinition;
+        avgCharges = original.avgCharges;
+        avgPayments = original.avgPayments;
+        avgMedicarePayments = original.avgMedicarePayments;
+        avgChargesPercentileRank = original.avgChargesPercentileRank;
+        avgPaymentsPercentileRank = original.avgPaymentsPercentileRank;
+        avgMedicarePaymentsPercentileRank = original.avgMedicarePaymentsPercentileRank;
+    }
+
     /**
      * Returns the drg definition
      *
@@ -2,7 +2,6 @@ package com.daniel.hospitalcharges.model;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
-import java.util.ArrayList;
 
 /**
  * Holds statistical information for a provider charge
@@ -27,7 +26,8 @@ public class StatisticsResult implements Serializable {
     private BigDecimal maxCharge;    
     private Provider maxProvider;    
     private Provider minProvider;    
-    private ArrayList<BigDecimal> allCharges;
+    private int[] histogramCounts;
+    private double[] histogramEdges;
     
 
     /**
@@ -43,25 +43,66 @@ public class StatisticsResult implements Serializable {
         maxCharge = null;
         maxProvider = null;
         minProvider = null;
-        allCharges = null;
+        histogramCounts = null;
+        histogramEdges = null;
+    }
+
+    /**
+     * Copy constructor. The providers and the histogram arrays are shared with
+     * the original.
+     *
+     * @param original the statistics to copy
+     */
+    public StatisticsResult(StatisticsResult original) {
+        header = original.header;
+        avgCharge = original.avgCharge;
+        median = original.median;
+        stdDeviation = original.stdDeviation;
+        range = original.range;
+        minCharge = original.minCharge;
+        maxCharge = original.maxCharge;
+        maxProvider = original.maxProvider;
+        minProvider = original.minProvider;
+        histogramCounts = original.histogramCounts;
+        histogramEdges = original.histogramEdges;
     }
     
     /**
-     * Get the value of allCharges
+     * Get the value of histogramCounts, the number of charges in each
+     * histogram bin
+     *
+     * @return the value of histogramCounts
+     */
+    public int[] getHistogramCounts() {
+        return histogramCounts;
+    }
+
+    /**
+     * Set the value of histogramCounts
+     *
+     * @param histogramCounts new value of histogramCounts
+     */
+    public void setHistogramCounts(int[] histogramCounts) {
+        this.histogramCounts = histogramCounts;
+    }
+
+    /**
+     * Get the value of histogramEdges, the bounds of the histogram bins with
+     * one more entry than there are bins
      *
-     * @return the value of allCharges
+     * @return the value of histogramEdges
      */
-    public ArrayList<BigDecimal> getAllCharges() {
-        return allCharges;
+    public double[] getHistogramEdges() {
+        return histogramEdges;
     }
 
     /**
-     * Set the value of allCharges
+     * Set the value of histogramEdges
      *
-     * @param allCharges new value of allCharges
+     * @param histogramEdges new value of histogramEdges
      */
-    public void setAllCharges(ArrayList<BigDecimal> allCharges) {
-        this.allCharges = allCharges;
+    public void setHistogramEdges(double[] histogramEdges) {
+        this.histogramEdges = histogramEdges;
     }
     
     /**
@@ -0,0 +1,234 @@
+package com.daniel.hospitalcharges.service;
+
+import com.daniel.hospitalcharges.model.Provider;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class keeps the results of a comparison service in a service cache.
+ * It builds the cache keys from the method names and arguments and
+ * implements the methods shared by the inpatient and outpatient services,
+ * whose subclasses only name their cached methods and delegate to their
+ * service. The cached results are shared, so they must not be modified.
+ *
+ * @author Bryan Daniel
+ * @param <S> the type of the service
+ * @param <C> the type of the classifications, DRGs or APCs
+ * @param <R> the type of the comparison result
+ */
+public abstract class CachingComparisonService<S, C, R> {
+
+    /**
+     * The service called for results that are not cached
+     */
+    private final S service;
+
+    /**
+     * The cache
+     */
+    private final ServiceCache cache;
+
+    /**
+     * The cached method name of the classifications
+     */
+    private final String getClassificationsMethod;
+
+    /**
+     * The cached method name of the states
+     */
+    private final String getStatesMethod;
+
+    /**
+     * The cached method name of the cities to compare
+     */
+    private final String getCitiesToCompareMethod;
+
+    /**
+     * The cached method name of the providers
+     */
+    private final String getProvidersMethod;
+
+    /**
+     * The cached method name of the result
+     */
+    private final String getResultMethod;
+
+    /**
+     * Creates a caching service.
+     *
+     * @param service the service called for results that are not cached
+     * @param cache the cache
+     * @param getClassificationsMethod the method name of the classifications
+     * @param getStatesMethod the method name of the states
+     * @param getCitiesToCompareMethod the method name of the cities to compare
+     * @param getProvidersMethod the method name of the providers
+     * @param getResultMethod the method name of the result
+     */
+    protected CachingComparisonService(S service, ServiceCache cache, String getClassificationsMethod,
+            String getStatesMethod, String getCitiesToCompareMethod, String getProvidersMethod,
+            String getResultMethod) {
+        this.service = service;
+        this.cache = cache;
+        this.getClassificationsMethod = getClassificationsMethod;
+        this.getStatesMethod = getStatesMethod;
+        this.getCitiesToCompareMethod = getCitiesToCompareMethod;
+        this.getProvidersMethod = getProvidersMethod;
+        this.getResultMethod = getResultMethod;
+    }
+
+    /**
+     * Returns the service called for results that are not cached.
+     *
+     * @return the service
+     */
+    public S getService() {
+        return service;
+    }
+
+    /**
+     * Calls the service for all classifications.
+     *
+     * @return the classifications
+     */
+    protected abstract List<C> loadClassifications();
+
+    /**
+     * Calls the service for the states of a classification.
+     *
+     * @param id the DRG or APC ID
+     * @return the list of states
+     */
+    protected abstract List<String> loadStates(int id);
+
+    /**
+     * Calls the service for the cities to compare of a classification and
+     * state.
+     *
+     * @param id the DRG or APC ID
+     * @param state the state
+     * @return the list of cities
+     */
+    protected abstract List<String> loadCitiesToCompare(int id, String state);
+
+    /**
+     * Calls the service for the providers of a city and classification.
+     *
+     * @param state the state
+     * @param city the city
+     * @param id the DRG or APC ID
+     * @return the list of providers
+     */
+    protected abstract ArrayList<Provider> loadProviders(String state, String city, int id);
+
+    /**
+     * Calls the service for the result of a provider and classification.
+     *
+     * @param providers the list of providers
+     * @param providerId the provider ID
+     * @param id the DRG or APC ID
+     * @return the result
+     */
+    protected abstract R loadResult(ArrayList<Provider> providers, int providerId, int id);
+
+    /**
+     * Returns whether a result holds the charges of its classification.
+     *
+     * @param result the result
+     * @return true if the classification of the result was found
+     */
+    protected abstract boolean isFound(R result);
+
+    /**
+     * Returns the cached list of all classifications.
+     *
+     * @return the classifications
+     */
+    protected List<C> getClassifications() {
+        return cache.get(getClassificationsMethod, new ServiceCache.Loader<List<C>>() {
+            @Override
+            public List<C> load() {
+                return loadClassifications();
+            }
+        });
+    }
+
+    /**
+     * Returns the list of states based on the given DRG or APC ID
+     *
+     * @param id the DRG or APC ID
+     * @return the list of states
+     */
+    public List<String> getStates(final int id) {
+        return cache.get(getStatesMethod, new ServiceCache.Loader<List<String>>() {
+            @Override
+            public List<String> load() {
+                return loadStates(id);
+            }
+        }, id);
+    }
+
+    /**
+     * Returns the list of cities to compare based on the given DRG or APC ID
+     * and state
+     *
+     * @param id the DRG or APC ID
+     * @param state the state
+     * @return the list of cities
+     */
+    public List<String> getCitiesToCompare(final int id, final String state) {
+        return cache.get(getCitiesToCompareMethod, new ServiceCache.Loader<List<String>>() {
+            @Override
+            public List<String> load() {
+                return loadCitiesToCompare(id, state);
+            }
+        }, id, state);
+    }
+
+    /**
+     * Returns the list of providers based on the given state, city, and DRG
+     * or APC ID
+     *
+     * @param state the state
+     * @param city the city
+     * @param id the DRG or APC ID
+     * @return the list of providers
+     */
+    public ArrayList<Provider> getProviders(final String state, final String city, final int id) {
+        return cache.get(getProvidersMethod, new ServiceCache.Loader<ArrayList<Provider>>() {
+            @Override
+            public ArrayList<Provider> load() {
+                return loadProviders(state, city, id);
+            }
+        }, state, city, id);
+    }
+
+    /**
+     * Returns the information on a hospital charge based on the provider and
+     * DRG or APC. Only results for a provider in the given list with charges
+     * found are cached, since the list supplies the provider of the result.
+     *
+     * @param providers the list of providers
+     * @param providerId the provider ID
+     * @param id the DRG or APC ID
+     * @return the result
+     */
+    public R getResult(final ArrayList<Provider> providers, final int providerId, final int id) {
+        ServiceCache.Loader<R> loader = new ServiceCache.Loader<R>() {
+            @Override
+            public R load() {
+                return loadResult(providers, providerId, id);
+            }
+
+            @Override
+            public boolean isCacheable(R result) {
+                return result != null && isFound(result);
+            }
+        };
+        for (Provider p : providers) {
+            if (p.getId() == providerId) {
+                return cache.get(getResultMethod, loader, providerId, id);
+            }
+        }
+        return loader.load();
+    }
+}
@@ -0,0 +1,135 @@
+package com.daniel.hospitalcharges.service;
+
+import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
+import com.daniel.hospitalcharges.model.InpatientComparisonResult;
+import com.daniel.hospitalcharges.model.Provider;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This inpatient comparison service keeps the results of another
+ * implementation in a service cache. The cached results are shared, so they
+ * must not be modified.
+ *
+ * @author Bryan Daniel
+ */
+public class CachingInpatientComparisonService
+        extends CachingComparisonService<InpatientComparisonService, DiagnosisRelatedGroup,
+                InpatientComparisonResult>
+        implements InpatientComparisonService {
+
+    /**
+     * The cached method name of getDRGs
+     */
+    public static final String GET_DRGS = "inpatient.getDRGs";
+
+    /**
+     * The cached method name of getStates
+     */
+    public static final String GET_STATES = "inpatient.getStates";
+
+    /**
+     * The cached method name of getCitiesToCompare
+     */
+    public static final String GET_CITIES_TO_COMPARE = "inpatient.getCitiesToCompare";
+
+    /**
+     * The cached method name of getProviders
+     */
+    public static final String GET_PROVIDERS = "inpatient.getProviders";
+
+    /**
+     * The cached method name of getResult
+     */
+    public static final String GET_RESULT = "inpatient.getResult";
+
+    /**
+     * Creates a caching service.
+     *
+     * @param service the service called for results that are not cached
+     * @param cache the cache
+     */
+    public CachingInpatientComparisonService(InpatientComparisonService service, ServiceCache cache) {
+        super(service, cache, GET_DRGS, GET_STATES, GET_CITIES_TO_COMPARE, GET_PROVIDERS, GET_RESULT);
+    }
+
+    /**
+     * Returns the list of all diagnosis-related groups
+     *
+     * @return the DRGs
+     */
+    @Override
+    public List<DiagnosisRelatedGroup> getDRGs() {
+        return getClassifications();
+    }
+
+    /**
+     * Calls the service for all DRGs.
+     *
+     * @return the DRGs
+     */
+    @Override
+    protected List<DiagnosisRelatedGroup> loadClassifications() {
+        return getService().getDRGs();
+    }
+
+    /**
+     * Calls the service for the states of a DRG.
+     *
+     * @param drgId the DRG ID
+     * @return the list of states
+     */
+    @Override
+    protected List<String> loadStates(int drgId) {
+        return getService().getStates(drgId);
+    }
+
+    /**
+     * Calls the service for the cities to compare of a DRG and state.
+     *
+     * @param drgId the DRG ID
+     * @param state the state
+     * @return the list of cities
+     */
+    @Override
+    protected List<String> loadCitiesToCompare(int drgId, String state) {
+        return getService().getCitiesToCompare(drgId, state);
+    }
+
+    /**
+     * Calls the service for the providers of a city and DRG.
+     *
+     * @param state the state
+     * @param city the city
+     * @param drgId the DRG ID
+     * @return the list of providers
+     */
+    @Override
+    protected ArrayList<Provider> loadProviders(String state, String city, int drgId) {
+        return getService().getProviders(state, city, drgId);
+    }
+
+    /**
+     * Calls the service for the result of a provider and DRG.
+     *
+     * @param providers the list of providers
+     * @param providerId the provider ID
+     * @param drgId the DRG ID
+     * @return the result
+     */
+    @Override
+    protected InpatientComparisonResult loadResult(ArrayList<Provider> providers, int providerId, int drgId) {
+        return getService().getResult(providers, providerId, drgId);
+    }
+
+    /**
+     * Returns whether a result holds the charges of its DRG.
+     *
+     * @param result the result
+     * @return true if the DRG of the result was found
+     */
+    @Override
+    protected boolean isFound(InpatientComparisonResult result) {
+        return result.getDrg() != null;
+    }
+}
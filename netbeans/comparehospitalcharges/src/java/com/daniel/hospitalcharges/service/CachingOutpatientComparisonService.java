@@ -0,0 +1,135 @@
+package com.daniel.hospitalcharges.service;
+
+import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
+import com.daniel.hospitalcharges.model.OutpatientComparisonResult;
+import com.daniel.hospitalcharges.model.Provider;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This outpatient comparison service keeps the results of another
+ * implementation in a service cache. The cached results are shared, so they
+ * must not be modified.
+ *
+ * @author Bryan Daniel
+ */
+public class CachingOutpatientComparisonService
+        extends CachingComparisonService<OutpatientComparisonService, AmbulatoryPaymentClassification,
+                OutpatientComparisonResult>
+        implements OutpatientComparisonService {
+
+    /**
+     * The cached method name of getAPCs
+     */
+    public static final String GET_APCS = "outpatient.getAPCs";
+
+    /**
+     * The cached method name of getStates
+     */
+    public static final String GET_STATES = "outpatient.getStates";
+
+    /**
+     * The cached method name of getCitiesToCompare
+     */
+    public static final String GET_CITIES_TO_COMPARE = "outpatient.getCitiesToCompare";
+
+    /**
+     * The cached method name of getProviders
+     */
+    public static final String GET_PROVIDERS = "outpatient.getProviders";
+
+    /**
+     * The cached method name of getResult
+     */
+    public static final String GET_RESULT = "outpatient.getResult";
+
+    /**
+     * Creates a caching service.
+     *
+     * @param service the service called for results that are not cached
+     * @param cache the cache
+     */
+    public CachingOutpatientComparisonService(OutpatientComparisonService service, ServiceCache cache) {
+        super(service, cache, GET_APCS, GET_STATES, GET_CITIES_TO_COMPARE, GET_PROVIDERS, GET_RESULT);
+    }
+
+    /**
+     * Returns the list of all ambulatory payment classifications
+     *
+     * @return the APCs
+     */
+    @Override
+    public List<AmbulatoryPaymentClassification> getAPCs() {
+        return getClassifications();
+    }
+
+    /**
+     * Calls the service for all APCs.
+     *
+     * @return the APCs
+     */
+    @Override
+    protected List<AmbulatoryPaymentClassification> loadClassifications() {
+        return getService().getAPCs();
+    }
+
+    /**
+     * Calls the service for the states of a APC.
+     *
+     * @param apcId the APC ID
+     * @return the list of states
+     */
+    @Override
+    protected List<String> loadStates(int apcId) {
+        return getService().getStates(apcId);
+    }
+
+    /**
+     * Calls the service for the cities to compare of a APC and state.
+     *
+     * @param apcId the APC ID
+     * @param state the state
+     * @return the list of cities
+     */
+    @Override
+    protected List<String> loadCitiesToCompare(int apcId, String state) {
+        return getService().getCitiesToCompare(apcId, state);
+    }
+
+    /**
+     * Calls the service for the providers of a city and APC.
+     *
+     * @param state the state
+     * @param city the city
+     * @param apcId the APC ID
+     * @return the list of providers
+     */
+    @Override
+    protected ArrayList<Provider> loadProviders(String state, String city, int apcId) {
+        return getService().getProviders(state, city, apcId);
+    }
+
+    /**
+     * Calls the service for the result of a provider and APC.
+     *
+     * @param providers the list of providers
+     * @param providerId the provider ID
+     * @param apcId the APC ID
+     * @return the result
+     */
+    @Override
+    protected OutpatientComparisonResult loadResult(ArrayList<Provider> providers, int providerId, int apcId) {
+        return getService().getResult(providers, providerId, apcId);
+    }
+
+    /**
+     * Returns whether a result holds the charges of its APC.
+     *
+     * @param result the result
+     * @return true if the APC of the result was found
+     */
+    @Override
+    protected boolean isFound(OutpatientComparisonResult result) {
+        return result.getApc() != null;
+    }
+}
@@ -0,0 +1,93 @@
+package com.daniel.hospitalcharges.service;
+
+import com.daniel.hospitalcharges.model.InpatientComparisonResult;
+import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This regional inpatient service keeps the results of another
+ * implementation in a service cache. The cached results are shared, so they
+ * must not be modified.
+ *
+ * @author Bryan Daniel
+ */
+public class CachingRegionalInpatientService
+        extends CachingRegionalService<RegionalInpatientService, DiagnosisRelatedGroup,
+                InpatientComparisonResult>
+        implements RegionalInpatientService {
+
+    /**
+     * The cached method name of getCities
+     */
+    public static final String GET_CITIES = "regionalInpatient.getCities";
+
+    /**
+     * The cached method name of getDRGsByRegion
+     */
+    public static final String GET_DRGS_BY_REGION = "regionalInpatient.getDRGsByRegion";
+
+    /**
+     * The cached method name of getRegionalResults
+     */
+    public static final String GET_REGIONAL_RESULTS = "regionalInpatient.getRegionalResults";
+
+    /**
+     * Creates a caching service.
+     *
+     * @param service the service called for results that are not cached
+     * @param cache the cache
+     */
+    public CachingRegionalInpatientService(RegionalInpatientService service, ServiceCache cache) {
+        super(service, cache, GET_CITIES, GET_DRGS_BY_REGION, GET_REGIONAL_RESULTS);
+    }
+
+    /**
+     * Returns a list of diagnosis-related groups based on the given city and
+     * state
+     *
+     * @param state the given state
+     * @param city the given city
+     * @return the list of diagnosis-related groups
+     */
+    @Override
+    public ArrayList<DiagnosisRelatedGroup> getDRGsByRegion(String state, String city) {
+        return getClassificationsByRegion(state, city);
+    }
+
+    /**
+     * Calls the service for the cities of a state.
+     *
+     * @param state the state
+     * @return the list of cities
+     */
+    @Override
+    protected List<String> loadCities(String state) {
+        return getService().getCities(state);
+    }
+
+    /**
+     * Calls the service for the DRGs of a region.
+     *
+     * @param state the state
+     * @param city the city
+     * @return the list of DRGs
+     */
+    @Override
+    protected ArrayList<DiagnosisRelatedGroup> loadClassificationsByRegion(String state, String city) {
+        return getService().getDRGsByRegion(state, city);
+    }
+
+    /**
+     * Calls the service for the results of a region and DRG.
+     *
+     * @param state the state
+     * @param city the city
+     * @param drgId the DRG ID
+     * @return the list of results
+     */
+    @Override
+    protected ArrayList<InpatientComparisonResult> loadRegionalResults(String state, String city, Integer drgId) {
+        return getService().getRegionalResults(state, city, drgId);
+    }
+}
@@ -0,0 +1,93 @@
+package com.daniel.hospitalcharges.service;
+
+import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
+import com.daniel.hospitalcharges.model.OutpatientComparisonResult;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This regional outpatient service keeps the results of another
+ * implementation in a service cache. The cached results are shared, so they
+ * must not be modified.
+ *
+ * @author Bryan Daniel
+ */
+public class CachingRegionalOutpatientService
+        extends CachingRegionalService<RegionalOutpatientService, AmbulatoryPaymentClassification,
+                OutpatientComparisonResult>
+        implements RegionalOutpatientService {
+
+    /**
+     * The cached method name of getCities
+     */
+    public static final String GET_CITIES = "regionalOutpatient.getCities";
+
+    /**
+     * The cached method name of getAPCsByRegion
+     */
+    public static final String GET_APCS_BY_REGION = "regionalOutpatient.getAPCsByRegion";
+
+    /**
+     * The cached method name of getRegionalResults
+     */
+    public static final String GET_REGIONAL_RESULTS = "regionalOutpatient.getRegionalResults";
+
+    /**
+     * Creates a caching service.
+     *
+     * @param service the service called for results that are not cached
+     * @param cache the cache
+     */
+    public CachingRegionalOutpatientService(RegionalOutpatientService service, ServiceCache cache) {
+        super(service, cache, GET_CITIES, GET_APCS_BY_REGION, GET_REGIONAL_RESULTS);
+    }
+
+    /**
+     * Returns a list of ambulatory payment classifications based on the given
+     * city and state
+     *
+     * @param state the given state
+     * @param city the given city
+     * @return the list of ambulatory payment classifications
+     */
+    @Override
+    public ArrayList<AmbulatoryPaymentClassification> getAPCsByRegion(String state, String city) {
+        return getClassificationsByRegion(state, city);
+    }
+
+    /**
+     * Calls the service for the cities of a state.
+     *
+     * @param state the state
+     * @return the list of cities
+     */
+    @Override
+    protected List<String> loadCities(String state) {
+        return getService().getCities(state);
+    }
+
+    /**
+     * Calls the service for the APCs of a region.
+     *
+     * @param state the state
+     * @param city the city
+     * @return the list of APCs
+     */
+    @Override
+    protected ArrayList<AmbulatoryPaymentClassification> loadClassificationsByRegion(String state, String city) {
+        return getService().getAPCsByRegion(state, city);
+    }
+
+    /**
+     * Calls the service for the results of a region and APC.
+     *
+     * @param state the state
+     * @param city the city
+     * @param apcId the APC ID
+     * @return the list of results
+     */
+    @Override
+    protected ArrayList<OutpatientComparisonResult> loadRegionalResults(String state, String city, Integer apcId) {
+        return getService().getRegionalResults(state, city, apcId);
+    }
+}
@@ -0,0 +1,148 @@
+package com.daniel.hospitalcharges.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class keeps the results of a regional service in a service cache. It
+ * builds the cache keys from the method names and arguments and implements
+ * the methods shared by the regional inpatient and outpatient services, whose
+ * subclasses only name their cached methods and delegate to their service.
+ * The cached results are shared, so they must not be modified.
+ *
+ * @author Bryan Daniel
+ * @param <S> the type of the service
+ * @param <C> the type of the classifications, DRGs or APCs
+ * @param <R> the type of the regional results
+ */
+public abstract class CachingRegionalService<S, C, R> {
+
+    /**
+     * The service called for results that are not cached
+     */
+    private final S service;
+
+    /**
+     * The cache
+     */
+    private final ServiceCache cache;
+
+    /**
+     * The cached method name of the cities
+     */
+    private final String getCitiesMethod;
+
+    /**
+     * The cached method name of the classifications of a region
+     */
+    private final String getClassificationsByRegionMethod;
+
+    /**
+     * The cached method name of the regional results
+     */
+    private final String getRegionalResultsMethod;
+
+    /**
+     * Creates a caching service.
+     *
+     * @param service the service called for results that are not cached
+     * @param cache the cache
+     * @param getCitiesMethod the method name of the cities
+     * @param getClassificationsByRegionMethod the method name of the
+     * classifications of a region
+     * @param getRegionalResultsMethod the method name of the regional results
+     */
+    protected CachingRegionalService(S service, ServiceCache cache, String getCitiesMethod,
+            String getClassificationsByRegionMethod, String getRegionalResultsMethod) {
+        this.service = service;
+        this.cache = cache;
+        this.getCitiesMethod = getCitiesMethod;
+        this.getClassificationsByRegionMethod = getClassificationsByRegionMethod;
+        this.getRegionalResultsMethod = getRegionalResultsMethod;
+    }
+
+    /**
+     * Returns the service called for results that are not cached.
+     *
+     * @return the service
+     */
+    public S getService() {
+        return service;
+    }
+
+    /**
+     * Calls the service for the cities of a state.
+     *
+     * @param state the state
+     * @return the list of cities
+     */
+    protected abstract List<String> loadCities(String state);
+
+    /**
+     * Calls the service for the classifications of a region.
+     *
+     * @param state the state
+     * @param city the city
+     * @return the list of classifications
+     */
+    protected abstract ArrayList<C> loadClassificationsByRegion(String state, String city);
+
+    /**
+     * Calls the service for the results of a region and classification.
+     *
+     * @param state the state
+     * @param city the city
+     * @param id the DRG or APC ID
+     * @return the list of results
+     */
+    protected abstract ArrayList<R> loadRegionalResults(String state, String city, Integer id);
+
+    /**
+     * Returns a list of cities based on the given state
+     *
+     * @param state the given state
+     * @return the list of cities
+     */
+    public List<String> getCities(final String state) {
+        return cache.get(getCitiesMethod, new ServiceCache.Loader<List<String>>() {
+            @Override
+            public List<String> load() {
+                return loadCities(state);
+            }
+        }, state);
+    }
+
+    /**
+     * Returns the cached list of classifications based on the given city and
+     * state.
+     *
+     * @param state the given state
+     * @param city the given city
+     * @return the list of classifications
+     */
+    protected ArrayList<C> getClassificationsByRegion(final String state, final String city) {
+        return cache.get(getClassificationsByRegionMethod, new ServiceCache.Loader<ArrayList<C>>() {
+            @Override
+            public ArrayList<C> load() {
+                return loadClassificationsByRegion(state, city);
+            }
+        }, state, city);
+    }
+
+    /**
+     * Returns a list of regional results for comparison
+     *
+     * @param state the given state
+     * @param city the given city
+     * @param id the given DRG or APC ID
+     * @return the list of results
+     */
+    public ArrayList<R> getRegionalResults(final String state, final String city, final Integer id) {
+        return cache.get(getRegionalResultsMethod, new ServiceCache.Loader<ArrayList<R>>() {
+            @Override
+            public ArrayList<R> load() {
+                return loadRegionalResults(state, city, id);
+            }
+        }, state, city, id);
+    }
+}
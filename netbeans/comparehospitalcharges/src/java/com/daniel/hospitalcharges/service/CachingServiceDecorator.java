@@ -0,0 +1,74 @@
+package com.daniel.hospitalcharges.service;
+
+/**
+ * This decorator wraps the services in the caching services when a service
+ * cache is installed in the service manager, and leaves them unchanged
+ * otherwise.
+ *
+ * @author Bryan Daniel
+ */
+public class CachingServiceDecorator implements ServiceDecorator {
+
+    /**
+     * The name of the decorator
+     */
+    public static final String NAME = "cache";
+
+    /**
+     * Returns the name of the decorator used in the service configuration.
+     *
+     * @return the name
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Decorates a regional inpatient service.
+     *
+     * @param service the service
+     * @return the caching service
+     */
+    @Override
+    public RegionalInpatientService decorate(RegionalInpatientService service) {
+        ServiceCache cache = ServiceManager.getServiceCache();
+        return cache == null ? service : new CachingRegionalInpatientService(service, cache);
+    }
+
+    /**
+     * Decorates a regional outpatient service.
+     *
+     * @param service the service
+     * @return the caching service
+     */
+    @Override
+    public RegionalOutpatientService decorate(RegionalOutpatientService service) {
+        ServiceCache cache = ServiceManager.getServiceCache();
+        return cache == null ? service : new CachingRegionalOutpatientService(service, cache);
+    }
+
+    /**
+     * Decorates an inpatient comparison service.
+     *
+     * @param service the service
+     * @return the caching service
+     */
+    @Override
+    public InpatientComparisonService decorate(InpatientComparisonService service) {
+        ServiceCache cache = ServiceManager.getServiceCache();
+        return cache == null ? service : new CachingInpatientComparisonService(service, cache);
+    }
+
+    /**
+     * Decorates an outpatient comparison service.
+     *
+     * @param service the service
+     * @return the caching service
+     */
+    @Override
+    public OutpatientComparisonService decorate(OutpatientComparisonService service) {
+        ServiceCache cache = ServiceManager.getServiceCache();
+        return cache == null ? service : new CachingOutpatientComparisonService(service, cache);
+    }
+}
@@ -4,6 +4,7 @@ import com.daniel.hospitalcharges.model.InpatientComparisonResult;
 import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
 import com.daniel.hospitalcharges.model.Provider;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This interface contains the methods for retrieving data associated with
@@ -18,7 +19,7 @@ public interface InpatientComparisonService {
      *
      * @return the DRGs
      */
-    public ArrayList<DiagnosisRelatedGroup> getDRGs();
+    public List<DiagnosisRelatedGroup> getDRGs();
 
     /**
      * Returns the list of states based on the given DRG ID
@@ -26,7 +27,7 @@ public interface InpatientComparisonService {
      * @param drgId the DRG ID
      * @return the list of states
      */
-    public ArrayList<String> getStates(int drgId);
+    public List<String> getStates(int drgId);
 
     /**
      * Returns the list of cities to compare based on the given DRG ID and state
@@ -35,7 +36,7 @@ public interface InpatientComparisonService {
      * @param state the state
      * @return the list of cities
      */
-    public ArrayList<String> getCitiesToCompare(int drgId, String state);
+    public List<String> getCitiesToCompare(int drgId, String state);
 
     /**
      * Returns the list of providers based on the given state, city, and DRG ID
@@ -52,10 +53,9 @@ public interface InpatientComparisonService {
      *
      * @param providers the list of providers
      * @param providerId the provider ID
-     * @param drgs the list of DRGs
      * @param drgId the DRG ID
      * @return the result
      */
     public InpatientComparisonResult getResult(ArrayList<Provider> providers, int providerId, 
-            ArrayList<DiagnosisRelatedGroup> drgs, int drgId);
+            int drgId);
 }
@@ -0,0 +1,108 @@
+package com.daniel.hospitalcharges.service;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * This decorator records the calls of the services in the service metrics.
+ * Placed last in a stack, it measures the whole stack as the managed beans
+ * see it.
+ *
+ * @author Bryan Daniel
+ */
+public class MetricsServiceDecorator implements ServiceDecorator {
+
+    /**
+     * The name of the decorator
+     */
+    public static final String NAME = "metrics";
+
+    /**
+     * Returns the name of the decorator used in the service configuration.
+     *
+     * @return the name
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Decorates a regional inpatient service.
+     *
+     * @param service the service
+     * @return the measured service
+     */
+    @Override
+    public RegionalInpatientService decorate(RegionalInpatientService service) {
+        return measure(RegionalInpatientService.class, service);
+    }
+
+    /**
+     * Decorates a regional outpatient service.
+     *
+     * @param service the service
+     * @return the measured service
+     */
+    @Override
+    public RegionalOutpatientService decorate(RegionalOutpatientService service) {
+        return measure(RegionalOutpatientService.class, service);
+    }
+
+    /**
+     * Decorates an inpatient comparison service.
+     *
+     * @param service the service
+     * @return the measured service
+     */
+    @Override
+    public InpatientComparisonService decorate(InpatientComparisonService service) {
+        return measure(InpatientComparisonService.class, service);
+    }
+
+    /**
+     * Decorates an outpatient comparison service.
+     *
+     * @param service the service
+     * @return the measured service
+     */
+    @Override
+    public OutpatientComparisonService decorate(OutpatientComparisonService service) {
+        return measure(OutpatientComparisonService.class, service);
+    }
+
+    /**
+     * Wraps a service in a proxy recording the time of each call.
+     *
+     * @param <T> the service interface
+     * @param type the service interface
+     * @param service the service
+     * @return the proxy
+     */
+    private static <T> T measure(final Class<T> type, final T service) {
+        final ServiceMetrics metrics = ServiceMetrics.getInstance();
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+                        if (method.getDeclaringClass() == Object.class) {
+                            return method.invoke(service, arguments);
+                        }
+                        String name = type.getSimpleName() + "." + method.getName();
+                        long start = System.nanoTime();
+                        boolean failed = true;
+                        try {
+                            Object result = method.invoke(service, arguments);
+                            failed = false;
+                            return result;
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        } finally {
+                            metrics.record(name, System.nanoTime() - start, failed);
+                        }
+                    }
+                }));
+    }
+}
@@ -4,6 +4,7 @@ import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
 import com.daniel.hospitalcharges.model.OutpatientComparisonResult;
 import com.daniel.hospitalcharges.model.Provider;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This interface contains the methods for retrieving data associated with
@@ -18,7 +19,7 @@ public interface OutpatientComparisonService {
      *
      * @return the APCs
      */
-    public ArrayList<AmbulatoryPaymentClassification> getAPCs();
+    public List<AmbulatoryPaymentClassification> getAPCs();
 
     /**
      * Returns the list of states based on the given APC ID
@@ -26,7 +27,7 @@ public interface OutpatientComparisonService {
      * @param apcId the APC ID
      * @return the list of states
      */
-    public ArrayList<String> getStates(int apcId);
+    public List<String> getStates(int apcId);
 
     /**
      * Returns the list of cities to compare based on the given DRG ID and state
@@ -35,7 +36,7 @@ public interface OutpatientComparisonService {
      * @param state the state
      * @return the list of cities
      */
-    public ArrayList<String> getCitiesToCompare(int apcId, String state);
+    public List<String> getCitiesToCompare(int apcId, String state);
 
     /**
      * Returns the list of providers based on the given state, city, and DRG ID
@@ -52,10 +53,9 @@ public interface OutpatientComparisonService {
      *
      * @param providers the list of providers
      * @param providerId the provider ID
-     * @param apcs the list of APCs
      * @param apcId the APC ID
      * @return the result
      */
     public OutpatientComparisonResult getResult(ArrayList<Provider> providers, int providerId, 
-            ArrayList<AmbulatoryPaymentClassification> apcs, int apcId);
+            int apcId);
 }
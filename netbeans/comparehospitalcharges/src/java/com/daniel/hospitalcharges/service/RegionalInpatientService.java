@@ -3,6 +3,7 @@ package com.daniel.hospitalcharges.service;
 import com.daniel.hospitalcharges.model.InpatientComparisonResult;
 import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This interface contains the methods for retrieving data associated with
@@ -18,7 +19,7 @@ public interface RegionalInpatientService {
      * @param state the given state
      * @return the list of cities
      */
-    public ArrayList<String> getCities(String state);
+    public List<String> getCities(String state);
 
     /**
      * Returns a list of diagnosis-related groups based on the given city and
@@ -0,0 +1,47 @@
+package com.daniel.hospitalcharges.service;
+
+/**
+ * This interface is implemented by the backends creating the innermost
+ * service implementations of the service manager. Backends other than the
+ * built-in ones are found with ServiceLoader and selected by name in the
+ * service configuration.
+ *
+ * @author Bryan Daniel
+ */
+public interface ServiceBackend {
+
+    /**
+     * Returns the name of the backend used in the service configuration.
+     *
+     * @return the name
+     */
+    public String getName();
+
+    /**
+     * Creates a regional inpatient service.
+     *
+     * @return the regional inpatient service
+     */
+    public RegionalInpatientService createRegionalInpatientService();
+
+    /**
+     * Creates a regional outpatient service.
+     *
+     * @return the regional outpatient service
+     */
+    public RegionalOutpatientService createRegionalOutpatientService();
+
+    /**
+     * Creates an inpatient comparison service.
+     *
+     * @return the inpatient comparison service
+     */
+    public InpatientComparisonService createInpatientComparisonService();
+
+    /**
+     * Creates an outpatient comparison service.
+     *
+     * @return the outpatient comparison service
+     */
+    public OutpatientComparisonService createOutpatientComparisonService();
+}
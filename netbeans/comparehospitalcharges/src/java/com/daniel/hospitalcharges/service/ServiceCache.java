@@ -0,0 +1,420 @@
+package com.daniel.hospitalcharges.service;
+
+import com.daniel.hospitalcharges.data.access.LastKnownGoodCache;
+import com.daniel.hospitalcharges.data.access.Procedure;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import com.daniel.hospitalcharges.utility.ManagementUtility;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ObjectName;
+
+/**
+ * This class keeps the results of the service methods, which are fully
+ * determined by their arguments and the dataset version. Each result weighs
+ * one plus the number of elements it holds, and the least recently used
+ * results are dropped when the total weight exceeds the maximum. Results
+ * expire after the time to live of their method, null results and failed
+ * lookups are never kept, and neither are results loaded while a procedure
+ * call was answered with a last known good result, which may be stale. The
+ * whole cache is cleared when the dataset version changes. The statistics of
+ * the cache are published as a JMX MXBean.
+ *
+ * @author Bryan Daniel
+ */
+public class ServiceCache implements ServiceCacheMXBean {
+
+    /**
+     * The default maximum total weight of the cached results
+     */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 200000;
+
+    /**
+     * The default time to live in milliseconds of a result
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = 600000;
+
+    /**
+     * The loader of a result that is not cached.
+     *
+     * @param <T> the type of the result
+     */
+    public abstract static class Loader<T> {
+
+        /**
+         * Calls the service method.
+         *
+         * @return the result
+         */
+        public abstract T load();
+
+        /**
+         * Returns whether a loaded result may be cached.
+         *
+         * @param value the result
+         * @return true unless the result is null
+         */
+        public boolean isCacheable(T value) {
+            return value != null;
+        }
+    }
+
+    /**
+     * The cached results by method and arguments, in access order
+     */
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * The times to live in milliseconds by method
+     */
+    private final ConcurrentHashMap<String, Long> timesToLive = new ConcurrentHashMap<>();
+
+    /**
+     * The time to live in milliseconds of methods without their own
+     */
+    private final long defaultTimeToLive;
+
+    /**
+     * The maximum total weight of the cached results
+     */
+    private long maximumWeight;
+
+    /**
+     * The total weight of the cached results
+     */
+    private long weight;
+
+    /**
+     * The dataset version of the cached results
+     */
+    private long version;
+
+    /**
+     * The number of calls answered from the cache
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * The number of calls passed to the service
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * The number of results removed to stay within the maximum weight
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * The number of results removed because they expired
+     */
+    private final AtomicLong expirationCount = new AtomicLong();
+
+    /**
+     * The name under which the MXBean is registered
+     */
+    private volatile ObjectName objectName;
+
+    /**
+     * Creates a cache and registers its MXBean.
+     *
+     * @param name the name of the cache
+     * @param maximumWeight the maximum total weight of the cached results
+     * @param defaultTimeToLive the time to live in milliseconds of methods
+     * without their own
+     */
+    public ServiceCache(String name, long maximumWeight, long defaultTimeToLive) {
+        this.maximumWeight = maximumWeight;
+        this.defaultTimeToLive = defaultTimeToLive;
+        this.version = ChargeEngineManager.getDatasetVersion();
+        objectName = ManagementUtility.register("ServiceCache", name, this);
+    }
+
+    /**
+     * Sets the time to live of the results of a method.
+     *
+     * @param method the method name, as passed to get
+     * @param timeToLive the time to live in milliseconds, zero to not cache
+     * the method
+     */
+    public void setTimeToLive(String method, long timeToLive) {
+        timesToLive.put(method, timeToLive);
+    }
+
+    /**
+     * Returns the cached result of a method call, calling the loader if the
+     * result is not cached or has expired.
+     *
+     * @param <T> the type of the result
+     * @param method the method name
+     * @param loader the loader calling the service method
+     * @param arguments the method arguments
+     * @return the result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String method, Loader<T> loader, Object... arguments) {
+        Long methodTimeToLive = timesToLive.get(method);
+        long timeToLive = methodTimeToLive == null ? defaultTimeToLive : methodTimeToLive;
+        if (timeToLive <= 0) {
+            return loader.load();
+        }
+
+        List<Object> key = new ArrayList<>(arguments.length + 1);
+        key.add(method);
+        for (Object argument : arguments) {
+            key.add(argument);
+        }
+        long datasetVersion = ChargeEngineManager.getDatasetVersion();
+        synchronized (this) {
+            checkVersion(datasetVersion);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expires - System.nanoTime() > 0) {
+                    hitCount.incrementAndGet();
+                    return (T) entry.value;
+                }
+                remove(key, entry);
+                expirationCount.incrementAndGet();
+            }
+        }
+
+        missCount.incrementAndGet();
+        LastKnownGoodCache lastKnownGood = Procedure.getLastKnownGood();
+        long fallbacks = lastKnownGood.getFallbackCount();
+        T value = loader.load();
+        //the loader may run its calls on other threads, so any fallback meanwhile counts
+        if (loader.isCacheable(value) && lastKnownGood.getFallbackCount() == fallbacks) {
+            put(key, datasetVersion, new Entry(value, getWeight(value),
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeToLive)));
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of calls answered from the cache.
+     *
+     * @return the hit count
+     */
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of calls passed to the service.
+     *
+     * @return the miss count
+     */
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the fraction of calls answered from the cache.
+     *
+     * @return the hit ratio
+     */
+    @Override
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the number of results removed to stay within the maximum
+     * weight.
+     *
+     * @return the eviction count
+     */
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the number of results removed because their time to live
+     * passed.
+     *
+     * @return the expiration count
+     */
+    @Override
+    public long getExpirationCount() {
+        return expirationCount.get();
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the size
+     */
+    @Override
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the total weight of the cached results.
+     *
+     * @return the weight
+     */
+    @Override
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the maximum total weight of the cached results.
+     *
+     * @return the maximum weight
+     */
+    @Override
+    public synchronized long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Sets the maximum total weight of the cached results, evicting results
+     * if the cache is heavier.
+     *
+     * @param maximumWeight the maximum weight
+     */
+    @Override
+    public synchronized void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        evict();
+    }
+
+    /**
+     * Returns the time to live in milliseconds of the results of methods
+     * without their own time to live.
+     *
+     * @return the default time to live
+     */
+    @Override
+    public long getDefaultTimeToLiveMillis() {
+        return defaultTimeToLive;
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+        version = ChargeEngineManager.getDatasetVersion();
+    }
+
+    /**
+     * Resets the hit, miss, eviction and expiration counts.
+     */
+    @Override
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+        expirationCount.set(0);
+    }
+
+    /**
+     * Removes the MXBean of the cache from the platform MBean server.
+     */
+    public void unregister() {
+        ManagementUtility.unregister(objectName);
+        objectName = null;
+    }
+
+    /**
+     * Stores a result. The result is discarded if it was loaded for an
+     * earlier dataset version or is heavier than the whole cache.
+     *
+     * @param key the method and arguments
+     * @param datasetVersion the dataset version the result was loaded for
+     * @param entry the result
+     */
+    private synchronized void put(List<Object> key, long datasetVersion, Entry entry) {
+        checkVersion(ChargeEngineManager.getDatasetVersion());
+        if (datasetVersion != version || entry.weight > maximumWeight) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entry.weight;
+        evict();
+    }
+
+    /**
+     * Removes a result.
+     *
+     * @param key the method and arguments
+     * @param entry the result
+     */
+    private void remove(List<Object> key, Entry entry) {
+        entries.remove(key);
+        weight -= entry.weight;
+    }
+
+    /**
+     * Removes the least recently used results until the cache is within its
+     * maximum weight.
+     */
+    private void evict() {
+        Iterator<Map.Entry<List<Object>, Entry>> iterator = entries.entrySet().iterator();
+        while (weight > maximumWeight && iterator.hasNext()) {
+            weight -= iterator.next().getValue().weight;
+            iterator.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Clears the cache if the dataset version has changed.
+     *
+     * @param datasetVersion the current dataset version
+     */
+    private void checkVersion(long datasetVersion) {
+        if (version != datasetVersion) {
+            entries.clear();
+            weight = 0;
+            version = datasetVersion;
+        }
+    }
+
+    /**
+     * Returns the weight of a result.
+     *
+     * @param value the result
+     * @return one plus the number of elements of the result
+     */
+    private static long getWeight(Object value) {
+        if (value instanceof Collection) {
+            return 1 + ((Collection<?>) value).size();
+        }
+        return 1;
+    }
+
+    /**
+     * A cached result
+     */
+    private static class Entry {
+
+        final Object value;
+        final long weight;
+        final long expires;
+
+        Entry(Object value, long weight, long expires) {
+            this.value = value;
+            this.weight = weight;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.daniel.hospitalcharges.service;
+
+/**
+ * This interface exposes the statistics and limits of the service result
+ * cache through JMX.
+ *
+ * @author Bryan Daniel
+ */
+public interface ServiceCacheMXBean {
+
+    /**
+     * Returns the number of calls answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount();
+
+    /**
+     * Returns the number of calls passed to the service.
+     *
+     * @return the miss count
+     */
+    public long getMissCount();
+
+    /**
+     * Returns the fraction of calls answered from the cache.
+     *
+     * @return the hit ratio
+     */
+    public double getHitRatio();
+
+    /**
+     * Returns the number of results removed to stay within the maximum
+     * weight.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount();
+
+    /**
+     * Returns the number of results removed because their time to live
+     * passed.
+     *
+     * @return the expiration count
+     */
+    public long getExpirationCount();
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the size
+     */
+    public int getSize();
+
+    /**
+     * Returns the total weight of the cached results.
+     *
+     * @return the weight
+     */
+    public long getWeight();
+
+    /**
+     * Returns the maximum total weight of the cached results.
+     *
+     * @return the maximum weight
+     */
+    public long getMaximumWeight();
+
+    /**
+     * Sets the maximum total weight of the cached results.
+     *
+     * @param maximumWeight the maximum weight
+     */
+    public void setMaximumWeight(long maximumWeight);
+
+    /**
+     * Returns the time to live in milliseconds of the results of methods
+     * without their own time to live.
+     *
+     * @return the default time to live
+     */
+    public long getDefaultTimeToLiveMillis();
+
+    /**
+     * Removes all cached results.
+     */
+    public void clear();
+
+    /**
+     * Resets the hit, miss, eviction and expiration counts.
+     */
+    public void resetStatistics();
+}
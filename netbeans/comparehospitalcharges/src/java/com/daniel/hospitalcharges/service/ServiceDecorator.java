@@ -0,0 +1,51 @@
+package com.daniel.hospitalcharges.service;
+
+/**
+ * This interface is implemented by the decorators wrapped around the
+ * services of the service manager. Decorators other than the built-in ones
+ * are found with ServiceLoader and selected by name in the service
+ * configuration. A decorator may return the given service unchanged.
+ *
+ * @author Bryan Daniel
+ */
+public interface ServiceDecorator {
+
+    /**
+     * Returns the name of the decorator used in the service configuration.
+     *
+     * @return the name
+     */
+    public String getName();
+
+    /**
+     * Decorates a regional inpatient service.
+     *
+     * @param service the service
+     * @return the decorated service
+     */
+    public RegionalInpatientService decorate(RegionalInpatientService service);
+
+    /**
+     * Decorates a regional outpatient service.
+     *
+     * @param service the service
+     * @return the decorated service
+     */
+    public RegionalOutpatientService decorate(RegionalOutpatientService service);
+
+    /**
+     * Decorates an inpatient comparison service.
+     *
+     * @param service the service
+     * @return the decorated service
+     */
+    public InpatientComparisonService decorate(InpatientComparisonService service);
+
+    /**
+     * Decorates an outpatient comparison service.
+     *
+     * @param service the service
+     * @return the decorated service
+     */
+    public OutpatientComparisonService decorate(OutpatientComparisonService service);
+}
@@ -1,40 +1,156 @@
 package com.daniel.hospitalcharges.service;
 
+import com.daniel.hospitalcharges.utility.ManagementUtility;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import javax.management.ObjectName;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
 /**
- * This class constructs and returns service implementations.
+ * This class constructs and returns service implementations. Each service is
+ * built as a stack: a backend creating the implementation, wrapped by a list
+ * of decorators. The stacks are read from a properties configuration naming
+ * the backend and decorators of each service, for example
+ * <code>inpatientComparison.backend=simple</code> and
+ * <code>inpatientComparison.decorators=cache,metrics</code>, with the
+ * <code>default.</code> keys applying to services not named. The built-in
+ * backends and decorators are completed by those found with ServiceLoader.
+ * The configuration can be changed and reloaded at runtime, also through the
+ * ServiceManager MXBean, and a stack that cannot be built leaves the running
+ * services unchanged.
  *
  * @author Bryan Daniel
  */
 public class ServiceManager {
 
+    /**
+     * The default location of the service configuration, on the class path
+     */
+    public static final String DEFAULT_CONFIGURATION = "/services.properties";
+
+    /**
+     * The configuration name of the regional inpatient service
+     */
+    public static final String REGIONAL_INPATIENT = "regionalInpatient";
+
+    /**
+     * The configuration name of the regional outpatient service
+     */
+    public static final String REGIONAL_OUTPATIENT = "regionalOutpatient";
+
+    /**
+     * The configuration name of the inpatient comparison service
+     */
+    public static final String INPATIENT_COMPARISON = "inpatientComparison";
+
+    /**
+     * The configuration name of the outpatient comparison service
+     */
+    public static final String OUTPATIENT_COMPARISON = "outpatientComparison";
+
+    /**
+     * The configuration name of the settings applying to every service
+     */
+    public static final String DEFAULT = "default";
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(ServiceManager.class);
+
     /**
      * The service for comparing regional inpatient charges
      */
-    private static RegionalInpatientService regionalInpatientService = null;
+    private static volatile RegionalInpatientService regionalInpatientService = null;
 
     /**
      * The service for comparing regional outpatient charges
      */
-    private static RegionalOutpatientService regionalOutpatientService = null;
+    private static volatile RegionalOutpatientService regionalOutpatientService = null;
 
     /**
      * The service for comparing two inpatient charges
      */
-    private static InpatientComparisonService inpatientComparisonService = null;
+    private static volatile InpatientComparisonService inpatientComparisonService = null;
 
     /**
      * The service for comparing two outpatient charges
      */
-    private static OutpatientComparisonService outpatientComparisonService = null;
+    private static volatile OutpatientComparisonService outpatientComparisonService = null;
+
+    /**
+     * The installed service cache
+     */
+    private static ServiceCache serviceCache = null;
+
+    /**
+     * The backends by name
+     */
+    private static final Map<String, ServiceBackend> backends = new LinkedHashMap<>();
+
+    /**
+     * The decorators by name
+     */
+    private static final Map<String, ServiceDecorator> decorators = new LinkedHashMap<>();
+
+    /**
+     * The location of the service configuration
+     */
+    private static String configuration = DEFAULT_CONFIGURATION;
 
     /**
-     * This block constructs the service implementations.
+     * The last configuration loaded
+     */
+    private static Properties properties = new Properties();
+
+    /**
+     * The stack of each service, described as the backend followed by the
+     * decorators
+     */
+    private static Map<String, String> stacks = new LinkedHashMap<>();
+
+    /**
+     * The name under which the MXBean is registered
+     */
+    private static ObjectName objectName;
+
+    /**
+     * This block finds the backends and decorators and constructs the service
+     * implementations.
      */
     static {
-        regionalInpatientService = new SimpleRegionalInpatientService();
-        regionalOutpatientService = new SimpleRegionalOutpatientService();
-        inpatientComparisonService = new SimpleInpatientComparisonService();
-        outpatientComparisonService = new SimpleOutpatientComparisonService();
+        addBackend(new SimpleServiceBackend());
+        addDecorator(new CachingServiceDecorator());
+        addDecorator(new MetricsServiceDecorator());
+        try {
+            for (ServiceBackend backend : ServiceLoader.load(ServiceBackend.class)) {
+                addBackend(backend);
+            }
+            for (ServiceDecorator decorator : ServiceLoader.load(ServiceDecorator.class)) {
+                addDecorator(decorator);
+            }
+        } catch (ServiceConfigurationError e) {
+            logger.error("The service backends and decorators could not be loaded.", e);
+        }
+        if (!reload()) {
+            build(properties);
+        }
+        objectName = ManagementUtility.register("ServiceManager", "services", new Management());
+    }
+
+    // not called
+    private ServiceManager() {
     }
 
     /**
@@ -72,4 +188,291 @@ public class ServiceManager {
     public static OutpatientComparisonService getOutpatientComparisonService() {
         return outpatientComparisonService;
     }
+
+    /**
+     * Installs the cache used by the cache decorator, replacing any cache
+     * already installed, and rebuilds the services.
+     *
+     * @param cache the service cache
+     */
+    public static synchronized void installCache(ServiceCache cache) {
+        if (serviceCache != null) {
+            serviceCache.unregister();
+        }
+        serviceCache = cache;
+        build(properties);
+    }
+
+    /**
+     * Removes and unregisters the installed cache and rebuilds the services
+     * without it.
+     */
+    public static synchronized void removeCache() {
+        if (serviceCache == null) {
+            return;
+        }
+        serviceCache.unregister();
+        serviceCache = null;
+        build(properties);
+    }
+
+    /**
+     * This method returns the installed service cache.
+     *
+     * @return the service cache or null if none is installed
+     */
+    public static synchronized ServiceCache getServiceCache() {
+        return serviceCache;
+    }
+
+    /**
+     * Sets the location of the service configuration and reloads it. The
+     * location is a file path or, if no such file exists, a class path
+     * resource.
+     *
+     * @param location the location of the configuration
+     * @return true if the configuration was loaded, false if the services
+     * were left unchanged
+     */
+    public static synchronized boolean setConfiguration(String location) {
+        configuration = location;
+        return reload();
+    }
+
+    /**
+     * Returns the location of the service configuration.
+     *
+     * @return the location
+     */
+    public static synchronized String getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Reads the service configuration and rebuilds every service. The
+     * services are left unchanged if the configuration cannot be read or
+     * names an unknown backend or decorator.
+     *
+     * @return true if the services were rebuilt
+     */
+    public static synchronized boolean reload() {
+        Properties loaded = new Properties();
+        try (InputStream in = open(configuration)) {
+            if (in == null) {
+                logger.error("The service configuration " + configuration + " was not found.");
+                return false;
+            }
+            loaded.load(in);
+        } catch (IOException e) {
+            logger.error("The service configuration " + configuration + " could not be read.", e);
+            return false;
+        }
+        if (!build(loaded)) {
+            return false;
+        }
+        properties = loaded;
+        return true;
+    }
+
+    /**
+     * Returns the stack of each service.
+     *
+     * @return the backend and decorators of each service by service name
+     */
+    public static synchronized Map<String, String> getStacks() {
+        return new LinkedHashMap<>(stacks);
+    }
+
+    /**
+     * Removes the MXBean of the service manager from the platform MBean
+     * server.
+     */
+    public static synchronized void unregister() {
+        ManagementUtility.unregister(objectName);
+        objectName = null;
+    }
+
+    /**
+     * Builds every service from a configuration.
+     *
+     * @param configured the configuration
+     * @return true if the services were rebuilt
+     */
+    private static boolean build(Properties configured) {
+        Map<String, String> built = new LinkedHashMap<>();
+        try {
+            ServiceBackend backend = getBackend(configured, REGIONAL_INPATIENT, built);
+            RegionalInpatientService regionalInpatient = backend.createRegionalInpatientService();
+            for (ServiceDecorator decorator : getDecorators(configured, REGIONAL_INPATIENT, built)) {
+                regionalInpatient = decorator.decorate(regionalInpatient);
+            }
+
+            backend = getBackend(configured, REGIONAL_OUTPATIENT, built);
+            RegionalOutpatientService regionalOutpatient = backend.createRegionalOutpatientService();
+            for (ServiceDecorator decorator : getDecorators(configured, REGIONAL_OUTPATIENT, built)) {
+                regionalOutpatient = decorator.decorate(regionalOutpatient);
+            }
+
+            backend = getBackend(configured, INPATIENT_COMPARISON, built);
+            InpatientComparisonService inpatientComparison = backend.createInpatientComparisonService();
+            for (ServiceDecorator decorator : getDecorators(configured, INPATIENT_COMPARISON, built)) {
+                inpatientComparison = decorator.decorate(inpatientComparison);
+            }
+
+            backend = getBackend(configured, OUTPATIENT_COMPARISON, built);
+            OutpatientComparisonService outpatientComparison = backend.createOutpatientComparisonService();
+            for (ServiceDecorator decorator : getDecorators(configured, OUTPATIENT_COMPARISON, built)) {
+                outpatientComparison = decorator.decorate(outpatientComparison);
+            }
+
+            regionalInpatientService = regionalInpatient;
+            regionalOutpatientService = regionalOutpatient;
+            inpatientComparisonService = inpatientComparison;
+            outpatientComparisonService = outpatientComparison;
+        } catch (IllegalArgumentException e) {
+            logger.error("The services were not rebuilt: " + e.getMessage());
+            return false;
+        }
+        stacks = built;
+        logger.info("Services built: " + built);
+        return true;
+    }
+
+    /**
+     * Returns the backend configured for a service.
+     *
+     * @param properties the configuration
+     * @param service the service name
+     * @param built the stack of each service, receiving the backend name
+     * @return the backend
+     * @throws IllegalArgumentException if the backend is unknown
+     */
+    private static ServiceBackend getBackend(Properties properties, String service, Map<String, String> built) {
+        String name = getProperty(properties, service, "backend", SimpleServiceBackend.NAME);
+        ServiceBackend backend = backends.get(name);
+        if (backend == null) {
+            throw new IllegalArgumentException("unknown backend " + name + " for " + service);
+        }
+        built.put(service, name);
+        return backend;
+    }
+
+    /**
+     * Returns the decorators configured for a service, from the innermost.
+     *
+     * @param properties the configuration
+     * @param service the service name
+     * @param built the stack of each service, receiving the decorator names
+     * @return the decorators
+     * @throws IllegalArgumentException if a decorator is unknown
+     */
+    private static List<ServiceDecorator> getDecorators(Properties properties, String service,
+            Map<String, String> built) {
+        List<ServiceDecorator> stack = new ArrayList<>();
+        StringBuilder description = new StringBuilder(built.get(service));
+        for (String name : getProperty(properties, service, "decorators", CachingServiceDecorator.NAME).split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            ServiceDecorator decorator = decorators.get(name);
+            if (decorator == null) {
+                throw new IllegalArgumentException("unknown decorator " + name + " for " + service);
+            }
+            stack.add(decorator);
+            description.append(" > ").append(name);
+        }
+        built.put(service, description.toString());
+        return stack;
+    }
+
+    /**
+     * Returns a setting of a service, falling back to the default setting.
+     *
+     * @param properties the configuration
+     * @param service the service name
+     * @param key the setting
+     * @param defaultValue the value used when neither is configured
+     * @return the value
+     */
+    private static String getProperty(Properties properties, String service, String key, String defaultValue) {
+        String value = properties.getProperty(service + "." + key);
+        if (value == null) {
+            value = properties.getProperty(DEFAULT + "." + key, defaultValue);
+        }
+        return value.trim();
+    }
+
+    /**
+     * Opens the service configuration.
+     *
+     * @param location a file path or class path resource
+     * @return the input stream or null if the configuration does not exist
+     * @throws IOException if the file cannot be opened
+     */
+    private static InputStream open(String location) throws IOException {
+        File file = new File(location);
+        if (file.isFile()) {
+            return new FileInputStream(file);
+        }
+        return ServiceManager.class.getResourceAsStream(location);
+    }
+
+    /**
+     * Adds a backend, replacing a backend of the same name.
+     *
+     * @param backend the backend
+     */
+    private static void addBackend(ServiceBackend backend) {
+        backends.put(backend.getName(), backend);
+    }
+
+    /**
+     * Adds a decorator, replacing a decorator of the same name.
+     *
+     * @param decorator the decorator
+     */
+    private static void addDecorator(ServiceDecorator decorator) {
+        decorators.put(decorator.getName(), decorator);
+    }
+
+    /**
+     * The MXBean of the service manager
+     */
+    private static class Management implements ServiceManagerMXBean {
+
+        @Override
+        public String getConfiguration() {
+            return ServiceManager.getConfiguration();
+        }
+
+        @Override
+        public boolean loadConfiguration(String location) {
+            return ServiceManager.setConfiguration(location);
+        }
+
+        @Override
+        public boolean reload() {
+            return ServiceManager.reload();
+        }
+
+        @Override
+        public Map<String, String> getStacks() {
+            return ServiceManager.getStacks();
+        }
+
+        @Override
+        public List<String> getBackends() {
+            synchronized (ServiceManager.class) {
+                return new ArrayList<>(backends.keySet());
+            }
+        }
+
+        @Override
+        public List<String> getDecorators() {
+            synchronized (ServiceManager.class) {
+                return new ArrayList<>(decorators.keySet());
+            }
+        }
+    }
 }
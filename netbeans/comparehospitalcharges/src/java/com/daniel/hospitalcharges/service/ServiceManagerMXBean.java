@@ -0,0 +1,56 @@
+package com.daniel.hospitalcharges.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This interface exposes the service stacks through JMX, so the service
+ * configuration can be switched and reloaded at runtime.
+ *
+ * @author Bryan Daniel
+ */
+public interface ServiceManagerMXBean {
+
+    /**
+     * Returns the location of the service configuration.
+     *
+     * @return the location
+     */
+    public String getConfiguration();
+
+    /**
+     * Loads the service configuration at a new location.
+     *
+     * @param location a file path or class path resource
+     * @return true if the services were rebuilt
+     */
+    public boolean loadConfiguration(String location);
+
+    /**
+     * Reloads the service configuration.
+     *
+     * @return true if the services were rebuilt
+     */
+    public boolean reload();
+
+    /**
+     * Returns the stack of each service.
+     *
+     * @return the backend and decorators of each service by service name
+     */
+    public Map<String, String> getStacks();
+
+    /**
+     * Returns the names of the available backends.
+     *
+     * @return the backend names
+     */
+    public List<String> getBackends();
+
+    /**
+     * Returns the names of the available decorators.
+     *
+     * @return the decorator names
+     */
+    public List<String> getDecorators();
+}
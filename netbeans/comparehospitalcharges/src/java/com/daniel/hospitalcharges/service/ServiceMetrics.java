@@ -0,0 +1,162 @@
+package com.daniel.hospitalcharges.service;
+
+import com.daniel.hospitalcharges.utility.ManagementUtility;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.ObjectName;
+
+/**
+ * This class records the number, errors and times of the calls of the
+ * service methods passing through the metrics decorator, so implementation
+ * stacks can be compared under the same load. The statistics are published
+ * as a JMX MXBean.
+ *
+ * @author Bryan Daniel
+ */
+public class ServiceMetrics implements ServiceMetricsMXBean {
+
+    /**
+     * The single instance of the metrics
+     */
+    private static final ServiceMetrics metrics = new ServiceMetrics();
+
+    /**
+     * The statistics by service interface and method name
+     */
+    private final ConcurrentHashMap<String, MethodStatistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * The name under which the MXBean is registered
+     */
+    private volatile ObjectName objectName;
+
+    /**
+     * The private constructor ensures that only a single instance of
+     * ServiceMetrics is created.
+     */
+    private ServiceMetrics() {
+        objectName = ManagementUtility.register("ServiceMetrics", "services", this);
+    }
+
+    /**
+     * This static method returns the ServiceMetrics object.
+     *
+     * @return the ServiceMetrics object
+     */
+    public static ServiceMetrics getInstance() {
+        return metrics;
+    }
+
+    /**
+     * Records a call of a method.
+     *
+     * @param method the service interface and method name
+     * @param nanos the time of the call in nanoseconds
+     * @param failed whether the call threw an exception
+     */
+    public void record(String method, long nanos, boolean failed) {
+        MethodStatistics methodStatistics = statistics.get(method);
+        if (methodStatistics == null) {
+            MethodStatistics created = new MethodStatistics();
+            methodStatistics = statistics.putIfAbsent(method, created);
+            if (methodStatistics == null) {
+                methodStatistics = created;
+            }
+        }
+        methodStatistics.calls.incrementAndGet();
+        if (failed) {
+            methodStatistics.errors.incrementAndGet();
+        }
+        methodStatistics.total.addAndGet(nanos);
+        long maximum = methodStatistics.maximum.get();
+        while (nanos > maximum && !methodStatistics.maximum.compareAndSet(maximum, nanos)) {
+            maximum = methodStatistics.maximum.get();
+        }
+    }
+
+    /**
+     * Returns the number of calls of each method.
+     *
+     * @return the call counts
+     */
+    @Override
+    public Map<String, Long> getCallCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, MethodStatistics> entry : statistics.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().calls.get());
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of calls of each method that threw an exception.
+     *
+     * @return the error counts
+     */
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, MethodStatistics> entry : statistics.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().errors.get());
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the average time in milliseconds of a call of each method.
+     *
+     * @return the average call times
+     */
+    @Override
+    public Map<String, Double> getAverageMillis() {
+        Map<String, Double> averages = new TreeMap<>();
+        for (Map.Entry<String, MethodStatistics> entry : statistics.entrySet()) {
+            long calls = entry.getValue().calls.get();
+            averages.put(entry.getKey(), calls == 0 ? 0 : entry.getValue().total.get() / 1000000.0 / calls);
+        }
+        return averages;
+    }
+
+    /**
+     * Returns the longest time in milliseconds of a call of each method.
+     *
+     * @return the maximum call times
+     */
+    @Override
+    public Map<String, Long> getMaximumMillis() {
+        Map<String, Long> maximums = new TreeMap<>();
+        for (Map.Entry<String, MethodStatistics> entry : statistics.entrySet()) {
+            maximums.put(entry.getKey(), entry.getValue().maximum.get() / 1000000);
+        }
+        return maximums;
+    }
+
+    /**
+     * Removes the statistics of all methods.
+     */
+    @Override
+    public void resetStatistics() {
+        statistics.clear();
+    }
+
+    /**
+     * Removes the MXBean of the metrics from the platform MBean server.
+     */
+    public void unregister() {
+        ManagementUtility.unregister(objectName);
+        objectName = null;
+    }
+
+    /**
+     * The statistics of one method
+     */
+    private static class MethodStatistics {
+
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong maximum = new AtomicLong();
+    }
+}
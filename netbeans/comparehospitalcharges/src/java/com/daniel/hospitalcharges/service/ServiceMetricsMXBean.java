@@ -0,0 +1,45 @@
+package com.daniel.hospitalcharges.service;
+
+import java.util.Map;
+
+/**
+ * This interface exposes the call statistics of the service methods through
+ * JMX. The statistics are keyed by service interface and method name.
+ *
+ * @author Bryan Daniel
+ */
+public interface ServiceMetricsMXBean {
+
+    /**
+     * Returns the number of calls of each method.
+     *
+     * @return the call counts
+     */
+    public Map<String, Long> getCallCounts();
+
+    /**
+     * Returns the number of calls of each method that threw an exception.
+     *
+     * @return the error counts
+     */
+    public Map<String, Long> getErrorCounts();
+
+    /**
+     * Returns the average time in milliseconds of a call of each method.
+     *
+     * @return the average call times
+     */
+    public Map<String, Double> getAverageMillis();
+
+    /**
+     * Returns the longest time in milliseconds of a call of each method.
+     *
+     * @return the maximum call times
+     */
+    public Map<String, Long> getMaximumMillis();
+
+    /**
+     * Removes the statistics of all methods.
+     */
+    public void resetStatistics();
+}
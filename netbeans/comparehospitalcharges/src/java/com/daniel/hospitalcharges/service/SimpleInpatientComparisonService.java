@@ -1,11 +1,16 @@
 package com.daniel.hospitalcharges.service;
 
+import com.daniel.hospitalcharges.concurrent.LookupExecutor;
 import com.daniel.hospitalcharges.data.InpatientIO;
+import com.daniel.hospitalcharges.data.ReferenceCatalog;
 import com.daniel.hospitalcharges.model.InpatientComparisonResult;
 import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
 import com.daniel.hospitalcharges.model.Provider;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * This inpatient comparison service implementation contains the methods for
@@ -26,8 +31,8 @@ public class SimpleInpatientComparisonService implements InpatientComparisonServ
      * @return the DRGs
      */
     @Override
-    public ArrayList<DiagnosisRelatedGroup> getDRGs() {
-        return InpatientIO.getDiagnosisRelatedGroups();
+    public List<DiagnosisRelatedGroup> getDRGs() {
+        return ReferenceCatalog.getInstance().getDiagnosisRelatedGroups();
     }
 
     /**
@@ -37,8 +42,8 @@ public class SimpleInpatientComparisonService implements InpatientComparisonServ
      * @return the list of states
      */
     @Override
-    public ArrayList<String> getStates(int drgId) {
-        return InpatientIO.getStates(drgId);
+    public List<String> getStates(int drgId) {
+        return ReferenceCatalog.getInstance().getInpatientStates(drgId);
     }
 
     /**
@@ -49,8 +54,8 @@ public class SimpleInpatientComparisonService implements InpatientComparisonServ
      * @return the list of cities
      */
     @Override
-    public ArrayList<String> getCitiesToCompare(int drgId, String state) {
-        return InpatientIO.getCitiesToCompare(drgId, state);
+    public List<String> getCitiesToCompare(int drgId, String state) {
+        return ReferenceCatalog.getInstance().getInpatientCitiesToCompare(drgId, state);
     }
 
     /**
@@ -72,13 +77,23 @@ public class SimpleInpatientComparisonService implements InpatientComparisonServ
      *
      * @param providers the list of providers
      * @param providerId the provider ID
-     * @param drgs the list of DRGs
      * @param drgId the DRG ID
      * @return the result
      */
     @Override
-    public InpatientComparisonResult getResult(ArrayList<Provider> providers, int providerId,
-            ArrayList<DiagnosisRelatedGroup> drgs, int drgId) {
+    public InpatientComparisonResult getResult(ArrayList<Provider> providers, final int providerId,
+            final int drgId) {
+
+        //the charges come from the database while the provider and DRG are found here
+        LookupExecutor lookupExecutor = LookupExecutor.getInstance();
+        long deadline = lookupExecutor.getDeadline();
+        Future<DiagnosisRelatedGroup> charges
+                = lookupExecutor.submit(new Callable<DiagnosisRelatedGroup>() {
+                    @Override
+                    public DiagnosisRelatedGroup call() {
+                        return InpatientIO.getCharges(drgId, providerId);
+                    }
+                });
 
         Provider providerResult = null;
         for (Provider p : providers) {
@@ -86,11 +101,14 @@ public class SimpleInpatientComparisonService implements InpatientComparisonServ
                 providerResult = p;
             }
         }
+        DiagnosisRelatedGroup d = ReferenceCatalog.getInstance().getDiagnosisRelatedGroup(drgId);
 
-        DiagnosisRelatedGroup drgResult = InpatientIO
-                .getCharges(drgId, providerId);
-        for (DiagnosisRelatedGroup d : drgs) {
-            if (d.getDrgId() == drgId) {
+        //the charges may be shared with other requests, so the name goes on a copy
+        DiagnosisRelatedGroup drgResult = null;
+        DiagnosisRelatedGroup shared = lookupExecutor.join(charges, deadline, "DRG charges");
+        if (shared != null) {
+            drgResult = new DiagnosisRelatedGroup(shared);
+            if (d != null) {
                 drgResult.setDrgId(d.getDrgId());
                 drgResult.setDrgDefinition(d.getDrgDefinition());
             }
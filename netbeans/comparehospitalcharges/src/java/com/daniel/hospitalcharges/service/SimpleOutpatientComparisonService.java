@@ -1,11 +1,16 @@
 package com.daniel.hospitalcharges.service;
 
+import com.daniel.hospitalcharges.concurrent.LookupExecutor;
 import com.daniel.hospitalcharges.data.OutpatientIO;
+import com.daniel.hospitalcharges.data.ReferenceCatalog;
 import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
 import com.daniel.hospitalcharges.model.OutpatientComparisonResult;
 import com.daniel.hospitalcharges.model.Provider;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * This outpatient comparison service implementation contains the methods for
@@ -26,8 +31,8 @@ public class SimpleOutpatientComparisonService implements OutpatientComparisonSe
      * @return the APCs
      */
     @Override
-    public ArrayList<AmbulatoryPaymentClassification> getAPCs() {
-        return OutpatientIO.getAmbulatoryPaymentClassifications();
+    public List<AmbulatoryPaymentClassification> getAPCs() {
+        return ReferenceCatalog.getInstance().getAmbulatoryPaymentClassifications();
     }
 
     /**
@@ -37,8 +42,8 @@ public class SimpleOutpatientComparisonService implements OutpatientComparisonSe
      * @return the list of states
      */
     @Override
-    public ArrayList<String> getStates(int apcId) {
-        return OutpatientIO.getStates(apcId);
+    public List<String> getStates(int apcId) {
+        return ReferenceCatalog.getInstance().getOutpatientStates(apcId);
     }
 
     /**
@@ -49,8 +54,8 @@ public class SimpleOutpatientComparisonService implements OutpatientComparisonSe
      * @return the list of cities
      */
     @Override
-    public ArrayList<String> getCitiesToCompare(int apcId, String state) {
-        return OutpatientIO.getCitiesToCompare(apcId, state);
+    public List<String> getCitiesToCompare(int apcId, String state) {
+        return ReferenceCatalog.getInstance().getOutpatientCitiesToCompare(apcId, state);
     }
 
     /**
@@ -72,13 +77,23 @@ public class SimpleOutpatientComparisonService implements OutpatientComparisonSe
      *
      * @param providers the list of providers
      * @param providerId the provider ID
-     * @param apcs the list of APCs
      * @param apcId the APC ID
      * @return the result
      */
     @Override
-    public OutpatientComparisonResult getResult(ArrayList<Provider> providers, int providerId,
-            ArrayList<AmbulatoryPaymentClassification> apcs, int apcId) {
+    public OutpatientComparisonResult getResult(ArrayList<Provider> providers, final int providerId,
+            final int apcId) {
+
+        //the charges come from the database while the provider and APC are found here
+        LookupExecutor lookupExecutor = LookupExecutor.getInstance();
+        long deadline = lookupExecutor.getDeadline();
+        Future<AmbulatoryPaymentClassification> charges
+                = lookupExecutor.submit(new Callable<AmbulatoryPaymentClassification>() {
+                    @Override
+                    public AmbulatoryPaymentClassification call() {
+                        return OutpatientIO.getCharges(apcId, providerId);
+                    }
+                });
 
         Provider providerResult = null;
         for (Provider p : providers) {
@@ -86,11 +101,14 @@ public class SimpleOutpatientComparisonService implements OutpatientComparisonSe
                 providerResult = p;
             }
         }
+        AmbulatoryPaymentClassification a = ReferenceCatalog.getInstance().getAmbulatoryPaymentClassification(apcId);
 
-        AmbulatoryPaymentClassification apcResult
-                = OutpatientIO.getCharges(apcId, providerId);
-        for (AmbulatoryPaymentClassification a : apcs) {
-            if (a.getApcId() == apcId) {
+        //the charges may be shared with other requests, so the name goes on a copy
+        AmbulatoryPaymentClassification apcResult = null;
+        AmbulatoryPaymentClassification shared = lookupExecutor.join(charges, deadline, "APC charges");
+        if (shared != null) {
+            apcResult = new AmbulatoryPaymentClassification(shared);
+            if (a != null) {
                 apcResult.setApcId(a.getApcId());
                 apcResult.setApcDefinition(a.getApcDefinition());
             }
@@ -1,10 +1,12 @@
 package com.daniel.hospitalcharges.service;
 
 import com.daniel.hospitalcharges.data.InpatientIO;
+import com.daniel.hospitalcharges.data.ReferenceCatalog;
 import com.daniel.hospitalcharges.model.InpatientComparisonResult;
 import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This regional inpatient service implementation contains the methods for retrieving data associated with
@@ -26,8 +28,8 @@ public class SimpleRegionalInpatientService implements RegionalInpatientService,
      * @return the list of cities
      */
     @Override
-    public ArrayList<String> getCities(String state) {
-        return InpatientIO.getCities(state);
+    public List<String> getCities(String state) {
+        return ReferenceCatalog.getInstance().getInpatientCities(state);
     }
 
     /**
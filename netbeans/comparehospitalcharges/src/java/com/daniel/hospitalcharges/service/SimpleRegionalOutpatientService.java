@@ -1,10 +1,12 @@
 package com.daniel.hospitalcharges.service;
 
 import com.daniel.hospitalcharges.data.OutpatientIO;
+import com.daniel.hospitalcharges.data.ReferenceCatalog;
 import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
 import com.daniel.hospitalcharges.model.OutpatientComparisonResult;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This regional outpatient service implementation contains the methods for
@@ -26,8 +28,8 @@ public class SimpleRegionalOutpatientService implements RegionalOutpatientServic
      * @return the list of cities
      */
     @Override
-    public ArrayList<String> getCities(String state) {
-        return OutpatientIO.getCities(state);
+    public List<String> getCities(String state) {
+        return ReferenceCatalog.getInstance().getOutpatientCities(state);
     }
 
     /**
@@ -0,0 +1,65 @@
+package com.daniel.hospitalcharges.service;
+
+/**
+ * This backend creates the simple service implementations, which read the
+ * in-memory charge engines when they are loaded and the databases otherwise.
+ *
+ * @author Bryan Daniel
+ */
+public class SimpleServiceBackend implements ServiceBackend {
+
+    /**
+     * The name of the backend
+     */
+    public static final String NAME = "simple";
+
+    /**
+     * Returns the name of the backend used in the service configuration.
+     *
+     * @return the name
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Creates a regional inpatient service.
+     *
+     * @return the regional inpatient service
+     */
+    @Override
+    public RegionalInpatientService createRegionalInpatientService() {
+        return new SimpleRegionalInpatientService();
+    }
+
+    /**
+     * Creates a regional outpatient service.
+     *
+     * @return the regional outpatient service
+     */
+    @Override
+    public RegionalOutpatientService createRegionalOutpatientService() {
+        return new SimpleRegionalOutpatientService();
+    }
+
+    /**
+     * Creates an inpatient comparison service.
+     *
+     * @return the inpatient comparison service
+     */
+    @Override
+    public InpatientComparisonService createInpatientComparisonService() {
+        return new SimpleInpatientComparisonService();
+    }
+
+    /**
+     * Creates an outpatient comparison service.
+     *
+     * @return the outpatient comparison service
+     */
+    @Override
+    public OutpatientComparisonService createOutpatientComparisonService() {
+        return new SimpleOutpatientComparisonService();
+    }
+}
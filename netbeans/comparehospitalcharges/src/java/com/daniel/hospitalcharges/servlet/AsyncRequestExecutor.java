@@ -0,0 +1,263 @@
+package com.daniel.hospitalcharges.servlet;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This class runs the blocking work of the statistics and chart requests on a
+ * bounded pool of threads, so the container thread is returned to the
+ * connector while the database is queried or a chart is rendered. A request
+ * that times out or cannot be queued is answered with 503 Service
+ * Unavailable. Requests are handled on the calling thread when the executor
+ * is not started or the request does not support asynchronous processing.
+ *
+ * @author Bryan Daniel
+ */
+public class AsyncRequestExecutor {
+
+    /**
+     * The default number of request threads
+     */
+    public static final int DEFAULT_THREADS = 8;
+
+    /**
+     * The default number of requests waiting for a thread
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 100;
+
+    /**
+     * The default time in milliseconds before an asynchronous request times
+     * out
+     */
+    public static final long DEFAULT_TIMEOUT = 30000;
+
+    /**
+     * The seconds after which a client should retry a rejected request
+     */
+    private static final int RETRY_AFTER = 5;
+
+    /**
+     * The single instance of the executor
+     */
+    private static final AsyncRequestExecutor requestExecutor = new AsyncRequestExecutor();
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(AsyncRequestExecutor.class);
+
+    /**
+     * The request threads
+     */
+    private volatile ThreadPoolExecutor executor;
+
+    /**
+     * The time in milliseconds before an asynchronous request times out
+     */
+    private volatile long timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * The private constructor ensures that only a single instance of
+     * AsyncRequestExecutor is created.
+     */
+    private AsyncRequestExecutor() {
+    }
+
+    /**
+     * This static method returns the AsyncRequestExecutor object.
+     *
+     * @return the AsyncRequestExecutor object
+     */
+    public static AsyncRequestExecutor getInstance() {
+        return requestExecutor;
+    }
+
+    /**
+     * Starts the request threads, replacing any threads already started.
+     *
+     * @param threads the number of request threads
+     * @param queueSize the number of requests waiting for a thread
+     * @param timeout the time in milliseconds before a request times out
+     */
+    public synchronized void start(int threads, int queueSize, long timeout) {
+        shutdown();
+        this.timeout = timeout;
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "async-request-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        logger.info("Asynchronous requests started with " + threads + " threads and a queue of "
+                + queueSize + ".");
+    }
+
+    /**
+     * Stops the request threads.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Handles a request on a request thread and dispatches it to the path
+     * returned by the work, or completes it if the work wrote the response.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @param work the blocking work of the request
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    public void execute(HttpServletRequest request, HttpServletResponse response, final RequestWork work)
+            throws ServletException, IOException {
+        ThreadPoolExecutor current = executor;
+        if (current == null || !request.isAsyncSupported()) {
+            String path = work.handle(request, response);
+            if (path != null) {
+                request.getServletContext().getRequestDispatcher(path).forward(request, response);
+            }
+            return;
+        }
+
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeout);
+        final AtomicBoolean finished = new AtomicBoolean();
+        final AtomicReference<Future<?>> task = new AtomicReference<>();
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                if (finished.compareAndSet(false, true)) {
+                    cancel(task.get());
+                    logger.warn("An asynchronous request timed out: " + describe(asyncContext));
+                    finish(asyncContext, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                if (finished.compareAndSet(false, true)) {
+                    cancel(task.get());
+                    logger.error("An error occurred in an asynchronous request: " + describe(asyncContext),
+                            event.getThrowable());
+                    asyncContext.complete();
+                }
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        try {
+            task.set(current.submit(new Runnable() {
+                @Override
+                public void run() {
+                    handle(asyncContext, work, finished);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            if (finished.compareAndSet(false, true)) {
+                logger.warn("An asynchronous request was rejected: " + describe(asyncContext));
+                response.setHeader("Retry-After", String.valueOf(RETRY_AFTER));
+                finish(asyncContext, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+        }
+    }
+
+    /**
+     * Runs the work of a request on a request thread.
+     *
+     * @param asyncContext the asynchronous context
+     * @param work the blocking work
+     * @param finished set once the request is dispatched or completed
+     */
+    private static void handle(AsyncContext asyncContext, RequestWork work, AtomicBoolean finished) {
+        try {
+            String path = work.handle((HttpServletRequest) asyncContext.getRequest(),
+                    (HttpServletResponse) asyncContext.getResponse());
+            if (finished.compareAndSet(false, true)) {
+                if (path != null) {
+                    asyncContext.dispatch(path);
+                } else {
+                    asyncContext.complete();
+                }
+            }
+        } catch (ServletException | IOException | RuntimeException e) {
+            if (finished.compareAndSet(false, true)) {
+                logger.error("An exception occurred in an asynchronous request: " + describe(asyncContext), e);
+                finish(asyncContext, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+
+    /**
+     * Sends an error status if the response is not yet committed and
+     * completes the request.
+     *
+     * @param asyncContext the asynchronous context
+     * @param status the error status
+     */
+    private static void finish(AsyncContext asyncContext, int status) {
+        try {
+            HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+            if (!response.isCommitted()) {
+                response.sendError(status);
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.warn("The error status could not be sent.", e);
+        }
+        asyncContext.complete();
+    }
+
+    /**
+     * Interrupts the work of a request.
+     *
+     * @param task the work
+     */
+    private static void cancel(Future<?> task) {
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Describes a request for log messages.
+     *
+     * @param asyncContext the asynchronous context
+     * @return the request URI and query string
+     */
+    private static String describe(AsyncContext asyncContext) {
+        HttpServletRequest request = (HttpServletRequest) asyncContext.getRequest();
+        String query = request.getQueryString();
+        return request.getRequestURI() + (query == null ? "" : "?" + query);
+    }
+}
@@ -1,82 +1,87 @@
 package com.daniel.hospitalcharges.servlet;
 
-import com.daniel.hospitalcharges.model.StatisticsResult;
-import java.awt.BasicStroke;
-import java.awt.Color;
-import java.awt.GradientPaint;
-import java.awt.geom.Point2D;
+import com.daniel.hospitalcharges.chart.ChartCache;
+import com.daniel.hospitalcharges.chart.ChartRenderService;
+import com.daniel.hospitalcharges.chart.ChartRenderer;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.concurrent.TimeoutException;
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
-import org.jfree.chart.ChartFactory;
-import org.jfree.chart.ChartUtilities;
-import org.jfree.chart.JFreeChart;
-import org.jfree.chart.plot.PlotOrientation;
-import org.jfree.chart.plot.XYPlot;
-import org.jfree.chart.renderer.xy.XYBarRenderer;
-import org.jfree.data.statistics.HistogramDataset;
 
 /**
- * Creates the histograms for the statistics page
+ * Creates the histograms for the statistics page. A request with a
+ * <code>drg</code> or <code>apc</code> parameter is answered without a session
+ * from the chart cache, with an ETag and cache lifetime tied to the dataset
+ * version, and any other request is rejected. Charts that must be rendered
+ * are served off the container thread.
  *
  * @author Bryan Daniel
  */
 public class ChartAndGraphServlet extends HttpServlet {
 
     /**
-     * The ending x coordinate for the histogram bar color gradient
+     * The name of the context parameter setting the number of cached charts
      */
-    private static final float BAR_GRADIENT_END_X_COORDINATE = 15.0f;
+    public static final String CHART_CACHE_SIZE = "hospitalcharges.CHART_CACHE_SIZE";
 
     /**
-     * The x-axis offset for the chart shadow
+     * The cache lifetime in seconds of a chart requested for the current
+     * dataset version
      */
-    private static final double SHADOW_X_OFFSET = 3.0;
+    private static final int VERSIONED_MAX_AGE = 31536000;
 
     /**
-     * The y-axis offset for the chart shadow
+     * The seconds after which a client should request a chart again when it
+     * was served the placeholder
      */
-    private static final double SHADOW_Y_OFFSET = 1.5;
+    private static final int PLACEHOLDER_RETRY_AFTER = 5;
 
     /**
-     * The number of bins for a dataset
-     */
-    private static final int DATASET_BINS = 30;
-
-    /**
-     * The width of the stroke for the border
-     */
-    private static final float STROKE_WIDTH = 5.0f;
-
-    /**
-     * The width of the chart
+     * Serial version UID
      */
-    private static final int CHART_WIDTH = 750;
+    private static final long serialVersionUID = -1841973865169496804L;
 
     /**
-     * The height of the chart
+     * The logger for this class
      */
-    private static final int CHART_HEIGHT = 550;
+    private static Logger logger = LogManager.getLogger(ChartAndGraphServlet.class);
 
     /**
-     * Serial version UID
+     * Sets the size of the chart cache from the context parameter.
      */
-    private static final long serialVersionUID = -1841973865169496804L;
+    @Override
+    public void init() {
+        String size = getServletContext().getInitParameter(CHART_CACHE_SIZE);
+        if (size != null) {
+            try {
+                ChartCache.getInstance().setMaximumSize(Integer.parseInt(size.trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid " + CHART_CACHE_SIZE + " value: " + size);
+            }
+        }
+    }
 
     /**
-     * The logger for this class
+     * The chart work run off the container thread
      */
-    private static Logger logger = LogManager.getLogger(ChartAndGraphServlet.class);
+    private final RequestWork chartWork = new RequestWork() {
+        @Override
+        public String handle(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            getCachedChart(request, response);
+            return null;
+        }
+    };
 
     /**
-     * Invokes the getChart method when a request is received
+     * Serves the chart named by a request. Charts that are cached are served
+     * on the container thread, and all others are rendered by the
+     * AsyncRequestExecutor.
      *
      * @param request the request
      * @param response the response
@@ -85,94 +90,132 @@ public class ChartAndGraphServlet extends HttpServlet {
     protected void doGet(HttpServletRequest request, HttpServletResponse response) {
 
         try {
-            getChart(request, response);
-        } catch (IOException e) {
-            logger.error("An IOException occurred in the doGet method.", e);
+            if (isCached(request)) {
+                getCachedChart(request, response);
+            } else {
+                AsyncRequestExecutor.getInstance().execute(request, response, chartWork);
+            }
+        } catch (ServletException | IOException e) {
+            logger.error("An exception occurred in the doGet method.", e);
         }
     }
 
     /**
-     * Creates a histogram displaying the distribution of charges
+     * Determines if a request can be answered from the chart cache without
+     * rendering.
+     *
+     * @param request the request
+     * @return true if the chart is cached, matches the client copy or the
+     * request is invalid
+     */
+    private boolean isCached(HttpServletRequest request) {
+        String type = getType(request);
+        if (type == null) {
+            return true;
+        }
+        int id;
+        try {
+            id = Integer.parseInt(request.getParameter(type));
+        } catch (NumberFormatException nfe) {
+            return true;
+        }
+        String eTag = "\"" + ChartCache.getKey(type, id) + "-" + ChargeEngineManager.getDatasetVersion() + "\"";
+        return matchesETag(request.getHeader("If-None-Match"), eTag)
+                || ChartCache.getInstance().get(ChartCache.getKey(type, id)) != null;
+    }
+
+    /**
+     * Serves the histogram of a DRG or APC from the chart cache. A chart that
+     * is not cached is rendered by the chart render service, and a placeholder
+     * is served if it is not ready in time.
      *
      * @param request the request
      * @param response the response
      * @throws IOException
      */
-    public void getChart(HttpServletRequest request,
+    public void getCachedChart(HttpServletRequest request,
             HttpServletResponse response) throws IOException {
-        response.setContentType("image/png");
-        OutputStream outputStream = response.getOutputStream();
-        HttpSession session = request.getSession();
-        String action = request.getParameter("action");
-
-        switch (action) {
-            case "showhistogram": {
-                StatisticsResult stats
-                        = (StatisticsResult) session.getAttribute("chartResult");
-
-                if (stats == null) {
-                    break;
-                }
-
-                HistogramDataset dataset = new HistogramDataset();
-                ArrayList<BigDecimal> charges = stats.getAllCharges();
-                if (charges.size() > 0) {
-                    double[] vector = new double[charges.size()];
-
-                    for (int i = 0; i < vector.length; i++) {
-                        vector[i] = charges.get(i).doubleValue();
-                    }
-
-                    //add the data
-                    dataset.addSeries("number of providers", vector, DATASET_BINS);
-
-                    //remove reference
-                    session.setAttribute("chartResult", null);
-
-                    boolean legend = true;
-                    boolean tooltips = false;
-                    boolean urls = false;
-
-                    //get the chart
-                    JFreeChart chart = ChartFactory.createHistogram(
-                            "Price Distribution", "charge in dollars", "number of providers",
-                            dataset, PlotOrientation.VERTICAL, legend, tooltips, urls);
-
-                    chart.setBorderPaint(Color.BLACK);
-                    chart.setBorderStroke(new BasicStroke(STROKE_WIDTH));
-                    chart.setBorderVisible(true);
+        String type = getType(request);
+        if (type == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        int id;
+        try {
+            id = Integer.parseInt(request.getParameter(type));
+        } catch (NumberFormatException nfe) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
 
-                    XYPlot plot = chart.getXYPlot();
+        long version = ChargeEngineManager.getDatasetVersion();
+        String eTag = "\"" + ChartCache.getKey(type, id) + "-" + version + "\"";
+        String cacheControl = String.valueOf(version).equals(request.getParameter("v"))
+                ? "public, max-age=" + VERSIONED_MAX_AGE + ", immutable"
+                : "public, no-cache";
+        //placeholders and missing charts replace the lifetime with no-store below
+        response.setHeader("ETag", eTag);
+        response.setHeader("Cache-Control", cacheControl);
+        if (matchesETag(request.getHeader("If-None-Match"), eTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
 
-                    //setting bar color
-                    final XYBarRenderer renderer = (XYBarRenderer) plot.getRenderer();
-                    GradientPaint gp = getCoolPaint();
-                    renderer.setSeriesPaint(0, gp);
+        byte[] png;
+        try {
+            png = ChartRenderService.getInstance().getChart(type, id);
+        } catch (TimeoutException e) {
+            png = ChartRenderer.getPlaceholder();
+            response.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+            response.setHeader("Retry-After", String.valueOf(PLACEHOLDER_RETRY_AFTER));
+            response.setContentType("image/png");
+            response.setContentLength(png.length);
+            response.getOutputStream().write(png);
+            return;
+        }
+        if (png == null) {
+            response.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
 
-                    //creating a shadow
-                    renderer.setShadowXOffset(SHADOW_X_OFFSET);
-                    renderer.setShadowYOffset(SHADOW_Y_OFFSET);
-                    renderer.setShadowVisible(true);
+        response.setContentType("image/png");
+        response.setContentLength(png.length);
+        OutputStream outputStream = response.getOutputStream();
+        outputStream.write(png);
+    }
 
-                    ChartUtilities.writeChartAsPNG(outputStream, chart, CHART_WIDTH, CHART_HEIGHT);
-                }
-                break;
-            }
-            default:
-                break;
-        }
+    /**
+     * Returns the chart type named by the parameters of a request.
+     *
+     * @param request the request
+     * @return the DRG or APC type or null if neither is named
+     */
+    private static String getType(HttpServletRequest request) {
+        return request.getParameter(ChartCache.DRG) != null ? ChartCache.DRG
+                : request.getParameter(ChartCache.APC) != null ? ChartCache.APC : null;
     }
 
     /**
-     * Returns a nice gradient paint for the histogram bars.
+     * Determines if an If-None-Match header matches the ETag of a chart.
      *
-     * @return the gradient paint
+     * @param ifNoneMatch the header value
+     * @param eTag the ETag
+     * @return true if the header matches
      */
-    private GradientPaint getCoolPaint() {
-        Point2D start = new Point2D.Float(0, 0);
-        Point2D end = new Point2D.Float(BAR_GRADIENT_END_X_COORDINATE, 0);
-        GradientPaint p
-                = new GradientPaint(start, Color.GREEN, end, Color.GREEN.darker().darker());
-        return p;
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
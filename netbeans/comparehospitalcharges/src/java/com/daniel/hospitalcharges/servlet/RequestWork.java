@@ -0,0 +1,27 @@
+package com.daniel.hospitalcharges.servlet;
+
+import java.io.IOException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This interface is the blocking part of a request, run by the
+ * AsyncRequestExecutor.
+ *
+ * @author Bryan Daniel
+ */
+public interface RequestWork {
+
+    /**
+     * Handles the request.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @return the path to dispatch to or null if the response is written
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    public String handle(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException;
+}
@@ -1,14 +1,17 @@
 package com.daniel.hospitalcharges.servlet;
 
+import com.daniel.hospitalcharges.chart.ChartCache;
+import com.daniel.hospitalcharges.concurrent.LookupExecutor;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
 import com.daniel.hospitalcharges.model.AmbulatoryPaymentClassification;
 import com.daniel.hospitalcharges.model.DiagnosisRelatedGroup;
 import com.daniel.hospitalcharges.model.StatisticsResult;
-import com.daniel.hospitalcharges.data.OutpatientIO;
-import com.daniel.hospitalcharges.data.InpatientIO;
+import com.daniel.hospitalcharges.data.ReferenceCatalog;
 import com.daniel.hospitalcharges.data.StatisticsIO;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -17,11 +20,12 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 /**
- * Handles requests for the statistics page
+ * Handles requests for the statistics page. The statistics are looked up off
+ * the container thread by the AsyncRequestExecutor.
  *
  * @author Bryan Daniel
  */
-@WebServlet(name = "StatisticsServlet", urlPatterns = {"/StatisticsServlet"})
+@WebServlet(name = "StatisticsServlet", urlPatterns = {"/StatisticsServlet"}, asyncSupported = true)
 public class StatisticsServlet extends HttpServlet {
 
     /**
@@ -29,18 +33,49 @@ public class StatisticsServlet extends HttpServlet {
      */
     private static final long serialVersionUID = 6657798581546532113L;
 
+    /**
+     * The statistics work run off the container thread
+     */
+    private final RequestWork statisticsWork = new RequestWork() {
+        @Override
+        public String handle(HttpServletRequest request, HttpServletResponse response)
+                throws ServletException, IOException {
+            return processRequest(request, response);
+        }
+    };
+
     /**
      * Processes requests for both HTTP <code>GET</code> and <code>POST</code>
      * methods.
      *
      * @param request servlet request
      * @param response servlet response
+     * @return the path of the page to show
      * @throws ServletException if a servlet-specific error occurs
      * @throws IOException if an I/O error occurs
      */
-    protected void processRequest(HttpServletRequest request, HttpServletResponse response)
+    protected String processRequest(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         HttpSession session = request.getSession();
+        final ReferenceCatalog catalog = ReferenceCatalog.getInstance();
+
+        //the lists load alongside the statistics of the selected DRG or APC
+        LookupExecutor lookupExecutor = LookupExecutor.getInstance();
+        long deadline = lookupExecutor.getDeadline();
+        Future<List<DiagnosisRelatedGroup>> drgs
+                = lookupExecutor.submit(new Callable<List<DiagnosisRelatedGroup>>() {
+                    @Override
+                    public List<DiagnosisRelatedGroup> call() {
+                        return catalog.getDiagnosisRelatedGroups();
+                    }
+                });
+        Future<List<AmbulatoryPaymentClassification>> apcs
+                = lookupExecutor.submit(new Callable<List<AmbulatoryPaymentClassification>>() {
+                    @Override
+                    public List<AmbulatoryPaymentClassification> call() {
+                        return catalog.getAmbulatoryPaymentClassifications();
+                    }
+                });
         String url = "/statistics/index.jsp";
         String message;
         int drgId;
@@ -48,36 +83,25 @@ public class StatisticsServlet extends HttpServlet {
         String action = request.getParameter("action");
         if (action == null) {
             action = "get lists";
-        } else {
-            request.setAttribute("timeActionExecuted", new Date().getTime());
         }
         switch (action) {
             case "get lists": {
                 session.setAttribute("statsResult", null);
-                ArrayList<DiagnosisRelatedGroup> drgs = InpatientIO.getDiagnosisRelatedGroups();
-                ArrayList<AmbulatoryPaymentClassification> apcs
-                        = OutpatientIO.getAmbulatoryPaymentClassifications();
-                session.setAttribute("drgs", drgs);
-                session.setAttribute("apcs", apcs);
                 break;
             }
             case "selectDRG": {
                 try {
                     drgId = Integer.parseInt(request.getParameter("selectedDRG"));
                     StatisticsResult statsResult = StatisticsIO.getDiagnosisRelatedGroupStats(drgId);
-                    ArrayList<DiagnosisRelatedGroup> drgs
-                            = (ArrayList<DiagnosisRelatedGroup>) session.getAttribute("drgs");
-                    for (DiagnosisRelatedGroup d : drgs) {
-                        if (d.getDrgId() == drgId) {
-                            statsResult.setHeader(d.getDrgDefinition());
-                        }
+                    DiagnosisRelatedGroup drg = catalog.getDiagnosisRelatedGroup(drgId);
+                    if (drg != null) {
+                        statsResult.setHeader(drg.getDrgDefinition());
                     }
-                    session.setAttribute("chartResult", statsResult);
                     session.setAttribute("statsResult", statsResult);
+                    setChartAttributes(request, ChartCache.DRG, drgId);
                 } catch (NumberFormatException nfe) {
                     message = "You must select a diagnosis-related group.";
                     request.setAttribute("statsDRGMessage", message);
-                    session.setAttribute("chartResult", null);
                     session.setAttribute("statsResult", null);
                 }
                 break;
@@ -86,19 +110,15 @@ public class StatisticsServlet extends HttpServlet {
                 try {
                     apcId = Integer.parseInt(request.getParameter("selectedAPC"));
                     StatisticsResult statsResult = StatisticsIO.getAmbulatoryPaymentClassificationStats(apcId);
-                    ArrayList<AmbulatoryPaymentClassification> apcs
-                            = (ArrayList<AmbulatoryPaymentClassification>) session.getAttribute("apcs");
-                    for (AmbulatoryPaymentClassification a : apcs) {
-                        if (a.getApcId() == apcId) {
-                            statsResult.setHeader(a.getApcDefinition());
-                        }
+                    AmbulatoryPaymentClassification apc = catalog.getAmbulatoryPaymentClassification(apcId);
+                    if (apc != null) {
+                        statsResult.setHeader(apc.getApcDefinition());
                     }
-                    session.setAttribute("chartResult", statsResult);
                     session.setAttribute("statsResult", statsResult);
+                    setChartAttributes(request, ChartCache.APC, apcId);
                 } catch (NumberFormatException nfe) {
                     message = "You must select an ambulatory payment classification.";
                     request.setAttribute("statsAPCMessage", message);
-                    session.setAttribute("chartResult", null);
                     session.setAttribute("statsResult", null);
                 }
                 break;
@@ -106,8 +126,24 @@ public class StatisticsServlet extends HttpServlet {
             default:
                 break;
         }
-        getServletContext().getRequestDispatcher(url)
-                .forward(request, response);
+        request.setAttribute("drgs", lookupExecutor.join(drgs, deadline, "DRG list"));
+        request.setAttribute("apcs", lookupExecutor.join(apcs, deadline, "APC list"));
+        return url;
+    }
+
+    /**
+     * Sets the request attributes naming the chart shown with the statistics.
+     * The dataset version lets the browser cache the chart until the data
+     * changes.
+     *
+     * @param request servlet request
+     * @param chartType the chart type
+     * @param chartId the DRG or APC ID
+     */
+    private void setChartAttributes(HttpServletRequest request, String chartType, int chartId) {
+        request.setAttribute("chartType", chartType);
+        request.setAttribute("chartId", chartId);
+        request.setAttribute("datasetVersion", ChargeEngineManager.getDatasetVersion());
     }
 
     // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
@@ -122,7 +158,7 @@ public class StatisticsServlet extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
-        processRequest(request, response);
+        AsyncRequestExecutor.getInstance().execute(request, response, statisticsWork);
     }
 
     /**
@@ -136,6 +172,6 @@ public class StatisticsServlet extends HttpServlet {
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
-        processRequest(request, response);
+        AsyncRequestExecutor.getInstance().execute(request, response, statisticsWork);
     }
 }
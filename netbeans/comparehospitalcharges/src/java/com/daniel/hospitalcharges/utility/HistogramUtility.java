@@ -0,0 +1,65 @@
+package com.daniel.hospitalcharges.utility;
+
+import com.daniel.hospitalcharges.model.StatisticsResult;
+
+/**
+ * This class divides charges into the bins of the statistics page histogram.
+ * The bins are laid out the way JFreeChart's HistogramDataset lays them out,
+ * so the chart looks the same as when it was built from every charge.
+ *
+ * @author Bryan Daniel
+ */
+public class HistogramUtility {
+
+    /**
+     * The number of bins for a histogram
+     */
+    public static final int HISTOGRAM_BINS = 30;
+
+    // not called
+    private HistogramUtility() {
+    }
+
+    /**
+     * Computes the histogram of the given values and sets its bin counts and
+     * edges on the statistics result.
+     *
+     * @param statsResult the statistics result
+     * @param values the values
+     * @param size the number of values used
+     */
+    public static void setHistogram(StatisticsResult statsResult, double[] values, int size) {
+        if (size == 0) {
+            statsResult.setHistogramCounts(new int[0]);
+            statsResult.setHistogramEdges(new double[0]);
+            return;
+        }
+
+        double minimum = values[0];
+        double maximum = values[0];
+        for (int i = 1; i < size; i++) {
+            minimum = Math.min(minimum, values[i]);
+            maximum = Math.max(maximum, values[i]);
+        }
+
+        double binWidth = (maximum - minimum) / HISTOGRAM_BINS;
+        double[] edges = new double[HISTOGRAM_BINS + 1];
+        for (int i = 0; i < HISTOGRAM_BINS; i++) {
+            edges[i] = minimum + binWidth * i;
+        }
+        edges[HISTOGRAM_BINS] = maximum;
+
+        int[] counts = new int[HISTOGRAM_BINS];
+        for (int i = 0; i < size; i++) {
+            int binIndex = HISTOGRAM_BINS - 1;
+            if (values[i] < maximum) {
+                double fraction = (values[i] - minimum) / (maximum - minimum);
+                binIndex = Math.min((int) (fraction * HISTOGRAM_BINS), HISTOGRAM_BINS - 1);
+            }
+            counts[binIndex]++;
+        }
+
+        statsResult.setHistogramCounts(counts);
+        statsResult.setHistogramEdges(edges);
+    }
+}
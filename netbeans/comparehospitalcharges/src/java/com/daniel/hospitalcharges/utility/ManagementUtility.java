@@ -0,0 +1,73 @@
+package com.daniel.hospitalcharges.utility;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * This class registers the MXBeans of the application with the platform
+ * MBean server.
+ *
+ * @author Bryan Daniel
+ */
+public class ManagementUtility {
+
+    /**
+     * The JMX domain of the application MXBeans
+     */
+    public static final String JMX_DOMAIN = "com.daniel.hospitalcharges";
+
+    /**
+     * The logger for this class
+     */
+    @SuppressWarnings("FieldMayBeFinal")
+    private static Logger logger = LogManager.getLogger(ManagementUtility.class);
+
+    // not called
+    private ManagementUtility() {
+    }
+
+    /**
+     * Registers an MXBean, replacing a bean of the same name left by an
+     * earlier deployment.
+     *
+     * @param type the bean type
+     * @param name the bean name
+     * @param bean the bean
+     * @return the name under which the bean is registered or null if it could
+     * not be registered
+     */
+    public static ObjectName register(String type, String name, Object bean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(bean, objectName);
+            return objectName;
+        } catch (JMException e) {
+            logger.warn("The " + name + " " + type + " MXBean could not be registered.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Removes an MXBean.
+     *
+     * @param objectName the name under which the bean is registered, or null
+     */
+    public static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.warn("The MXBean " + objectName + " could not be unregistered.", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.daniel.hospitalcharges.data;
+
+import static com.daniel.hospitalcharges.data.memory.ChargeEngineFixture.DEGENERATIVE;
+import static com.daniel.hospitalcharges.data.memory.ChargeEngineFixture.EXTRACRANIAL;
+import static com.daniel.hospitalcharges.data.memory.ChargeEngineFixture.HEMORRHAGE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import com.daniel.hospitalcharges.data.memory.ChargeEngine;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineFixture;
+import com.daniel.hospitalcharges.model.StatisticsResult;
+import com.daniel.hospitalcharges.utility.HistogramUtility;
+import java.math.BigDecimal;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * This class checks the statistics computed from the charge engine against
+ * the results of the getDRGStats procedure for the fixture data: AVG, the
+ * mean of the middle rows, the population standard deviation of STD, and
+ * every DECIMAL(9,2) value rounded half up. It also checks that the cache
+ * hands out copies, since callers set the header of their statistics.
+ *
+ * @author Bryan Daniel
+ */
+public class StatisticsCacheTest {
+
+    /**
+     * The engine of the fixture
+     */
+    private static ChargeEngine engine;
+
+    /**
+     * Builds the engine of the fixture.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        engine = ChargeEngineFixture.inpatient();
+    }
+
+    /**
+     * An odd number of charges with a tie at the median.
+     */
+    @Test
+    public void testOddCount() {
+        StatisticsResult statsResult = compute(EXTRACRANIAL);
+        assertEquals(new BigDecimal("300.00"), statsResult.getAvgCharge());
+        assertEquals(new BigDecimal("300.00"), statsResult.getMedian());
+        assertEquals(new BigDecimal("167.33"), statsResult.getStdDeviation());
+        assertEquals(new BigDecimal("500.00"), statsResult.getRange());
+        assertEquals(new BigDecimal("100.00"), statsResult.getMinCharge());
+        assertEquals(new BigDecimal("600.00"), statsResult.getMaxCharge());
+        assertEquals(10, statsResult.getMinProvider().getId());
+        assertEquals(50, statsResult.getMaxProvider().getId());
+
+        int[] counts = statsResult.getHistogramCounts();
+        assertEquals(HistogramUtility.HISTOGRAM_BINS, counts.length);
+        assertEquals(1, counts[0]);
+        assertEquals(1, counts[6]);
+        assertEquals(2, counts[12]);
+        assertEquals(1, counts[HistogramUtility.HISTOGRAM_BINS - 1]);
+    }
+
+    /**
+     * An even number of charges, whose mean, median and deviation end in half
+     * a cent.
+     */
+    @Test
+    public void testEvenCountRoundsHalfUp() {
+        StatisticsResult statsResult = compute(DEGENERATIVE);
+        assertEquals(new BigDecimal("175.38"), statsResult.getAvgCharge());
+        assertEquals(new BigDecimal("175.38"), statsResult.getMedian());
+        assertEquals(new BigDecimal("75.13"), statsResult.getStdDeviation());
+        assertEquals(new BigDecimal("150.25"), statsResult.getRange());
+        assertEquals(new BigDecimal("100.25"), statsResult.getMinCharge());
+        assertEquals(new BigDecimal("250.50"), statsResult.getMaxCharge());
+        assertEquals(40, statsResult.getMinProvider().getId());
+        assertEquals(10, statsResult.getMaxProvider().getId());
+    }
+
+    /**
+     * A single charge is its own mean, median, minimum and maximum.
+     */
+    @Test
+    public void testSingleCharge() {
+        StatisticsResult statsResult = compute(HEMORRHAGE);
+        assertEquals(new BigDecimal("500.00"), statsResult.getAvgCharge());
+        assertEquals(new BigDecimal("500.00"), statsResult.getMedian());
+        assertEquals(new BigDecimal("0.00"), statsResult.getStdDeviation());
+        assertEquals(new BigDecimal("0.00"), statsResult.getRange());
+        assertEquals(30, statsResult.getMinProvider().getId());
+        assertEquals(30, statsResult.getMaxProvider().getId());
+    }
+
+    /**
+     * Stored statistics are copied in and out, so a caller setting the header
+     * of its statistics changes neither the cache nor the stored result.
+     */
+    @Test
+    public void testStatsAreCopied() {
+        int drgId = -1;
+        StatisticsCache cache = StatisticsCache.getInstance();
+        StatisticsResult stored = compute(EXTRACRANIAL);
+        cache.putDiagnosisRelatedGroupStats(drgId, stored);
+
+        StatisticsResult first = cache.getDiagnosisRelatedGroupStats(drgId);
+        first.setHeader("first");
+        stored.setHeader("stored");
+        StatisticsResult second = cache.getDiagnosisRelatedGroupStats(drgId);
+        assertNotSame(first, second);
+        assertNull(second.getHeader());
+        assertEquals(new BigDecimal("300.00"), second.getMedian());
+        cache.invalidate();
+    }
+
+    /**
+     * Computes the statistics of a DRG.
+     *
+     * @param drgId the DRG ID
+     * @return the statistics
+     */
+    private static StatisticsResult compute(int drgId) {
+        return StatisticsCache.compute(engine, engine.findClassification(drgId));
+    }
+}
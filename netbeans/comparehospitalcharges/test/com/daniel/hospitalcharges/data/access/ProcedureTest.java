@@ -0,0 +1,129 @@
+package com.daniel.hospitalcharges.data.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import com.daniel.hospitalcharges.concurrent.CircuitBreaker;
+import com.daniel.hospitalcharges.concurrent.ConcurrencyLimiter;
+import com.daniel.hospitalcharges.data.pool.ConnectionPool;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This class checks how a procedure call is guarded by the circuit breaker and
+ * the concurrency limiter of its pool, and which failures count as cancelled
+ * calls or may be answered with an earlier result. No call reaches a
+ * database.
+ *
+ * @author Bryan Daniel
+ */
+public class ProcedureTest {
+
+    /**
+     * The handler of the procedure, never called
+     */
+    private static final ResultHandler<Integer> HANDLER = new ResultHandler<Integer>() {
+        @Override
+        public Integer handle(ResultReader reader) throws SQLException {
+            throw new AssertionError("The procedure was executed.");
+        }
+    };
+
+    /**
+     * The pool of the calls
+     */
+    private final ConnectionPool pool = ConnectionPool.getInpatientPool();
+
+    /**
+     * The slot holding the concurrency limit of the pool
+     */
+    private long slot;
+
+    /**
+     * Limits the pool to one call and takes that call.
+     */
+    @Before
+    public void setUp() {
+        ConcurrencyLimiter concurrencyLimiter = pool.getConcurrencyLimiter();
+        concurrencyLimiter.setMinimumLimit(1);
+        concurrencyLimiter.setMaximumLimit(1);
+        slot = concurrencyLimiter.acquire();
+        assertTrue(slot >= 0);
+    }
+
+    /**
+     * Frees the call, closes the circuit and restores the limits of the pool.
+     */
+    @After
+    public void tearDown() {
+        ConcurrencyLimiter concurrencyLimiter = pool.getConcurrencyLimiter();
+        concurrencyLimiter.abandon();
+        concurrencyLimiter.setMaximumLimit(ConcurrencyLimiter.DEFAULT_MAXIMUM_LIMIT);
+        concurrencyLimiter.setMinimumLimit(ConcurrencyLimiter.DEFAULT_MINIMUM_LIMIT);
+        CircuitBreaker circuitBreaker = pool.getCircuitBreaker();
+        circuitBreaker.reset();
+        circuitBreaker.setOpenDurationMillis(CircuitBreaker.DEFAULT_OPEN_DURATION);
+    }
+
+    /**
+     * A trial call rejected by the concurrency limiter never reached the
+     * database, so the circuit allows another trial call instead of staying
+     * half open.
+     */
+    @Test
+    public void testTrialRejectedByLimiterAllowsAnotherTrial() {
+        CircuitBreaker circuitBreaker = pool.getCircuitBreaker();
+        circuitBreaker.setOpenDurationMillis(0);
+        circuitBreaker.trip();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getCircuitState());
+
+        Procedure procedure = new Procedure("trialProcedure", 1);
+        try {
+            procedure.call(pool, HANDLER, 1);
+            fail("The call was not rejected.");
+        } catch (SQLTransientConnectionException e) {
+            //the limit is reached
+        } catch (SQLException e) {
+            fail("The call failed: " + e.getMessage());
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getCircuitState());
+        assertTrue(circuitBreaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getCircuitState());
+    }
+
+    /**
+     * Only the SQL states of a superseded call and of a statement cancelled by
+     * the driver mark a cancelled call.
+     */
+    @Test
+    public void testIsCancelled() {
+        assertTrue(Procedure.isCancelled(new SQLException("superseded", "HY008")));
+        assertTrue(Procedure.isCancelled(new SQLException("cancelled", "S1008")));
+        assertFalse(Procedure.isCancelled(new SQLException("link failure", "08S01")));
+        assertFalse(Procedure.isCancelled(new SQLTransientConnectionException("limit reached")));
+    }
+
+    /**
+     * Only a rejected call, a connection failure or a timeout may be answered
+     * with an earlier result, never a cancelled call or an error of the call
+     * itself.
+     */
+    @Test
+    public void testIsUnavailable() {
+        assertTrue(Procedure.isUnavailable(new SQLTransientConnectionException("circuit open")));
+        assertTrue(Procedure.isUnavailable(new SQLTimeoutException("timed out")));
+        assertTrue(Procedure.isUnavailable(new SQLException("link failure", "08S01")));
+        assertTrue(Procedure.isUnavailable(new SQLException("timed out", "S1T00")));
+        assertFalse(Procedure.isUnavailable(new SQLException("superseded", "HY008")));
+        assertFalse(Procedure.isUnavailable(new SQLException("cancelled", "S1008")));
+        assertFalse(Procedure.isUnavailable(new SQLSyntaxErrorException("bad call", "42000")));
+        assertFalse(Procedure.isUnavailable(new SQLException("no state")));
+    }
+}
@@ -0,0 +1,75 @@
+package com.daniel.hospitalcharges.data.memory;
+
+/**
+ * This class builds a small inpatient charge engine whose procedure results
+ * are worked out by hand in the tests. Springfield and Chatham share a
+ * hospital referral region, while Peoria and Austin each have their own.
+ *
+ * <pre>
+ * DRG 3 "039 - EXTRACRANIAL PROCEDURES"  10: 100.00  20: 300.00  30: 300.00
+ *                                        40: 200.00  50: 600.00
+ * DRG 1 "057 - DEGENERATIVE DISORDERS"   10: 250.50  40: 100.25
+ * DRG 2 "064 - INTRACRANIAL HEMORRHAGE"  30: 500.00
+ * </pre>
+ *
+ * @author Bryan Daniel
+ */
+public class ChargeEngineFixture {
+
+    /**
+     * The DRG charged by every provider
+     */
+    public static final int EXTRACRANIAL = 3;
+
+    /**
+     * The DRG charged by two providers
+     */
+    public static final int DEGENERATIVE = 1;
+
+    /**
+     * The DRG charged by one provider
+     */
+    public static final int HEMORRHAGE = 2;
+
+    /**
+     * A DRG that does not exist
+     */
+    public static final int UNKNOWN = 99;
+
+    // not called
+    private ChargeEngineFixture() {
+    }
+
+    /**
+     * Builds the inpatient engine of the fixture.
+     *
+     * @return the charge engine
+     */
+    public static ChargeEngine inpatient() {
+        ChargeEngineLoader loader = new ChargeEngineLoader(ChargeSchema.INPATIENT);
+        loader.addRegion("Springfield", "IL", "IL - Springfield");
+        loader.addRegion("Chatham", "IL", "IL - Springfield");
+        loader.addRegion("Peoria", "IL", "IL - Peoria");
+        loader.addRegion("Austin", "TX", "TX - Austin");
+
+        loader.addProvider(10, "Memorial Hospital", "1 First St", "Springfield", "IL", "62701");
+        loader.addProvider(20, "Abbott Clinic", "2 Second St", "Springfield", "IL", "62702");
+        loader.addProvider(30, "Chatham Medical", "3 Third St", "Chatham", "IL", "62629");
+        loader.addProvider(40, "Peoria General", "4 Fourth St", "Peoria", "IL", "61602");
+        loader.addProvider(50, "Austin Regional", "5 Fifth St", "Austin", "TX", "78701");
+
+        loader.addClassification(DEGENERATIVE, "057 - DEGENERATIVE DISORDERS");
+        loader.addClassification(HEMORRHAGE, "064 - INTRACRANIAL HEMORRHAGE");
+        loader.addClassification(EXTRACRANIAL, "039 - EXTRACRANIAL PROCEDURES");
+
+        loader.addCharge(EXTRACRANIAL, 50, 60000, 50000, 40000);
+        loader.addCharge(EXTRACRANIAL, 10, 10000, 9000, 8000);
+        loader.addCharge(EXTRACRANIAL, 20, 30000, 9000, 8000);
+        loader.addCharge(EXTRACRANIAL, 30, 30000, 20000, 15000);
+        loader.addCharge(EXTRACRANIAL, 40, 20000, 15000, 12000);
+        loader.addCharge(DEGENERATIVE, 40, 10025, 9000, 7000);
+        loader.addCharge(DEGENERATIVE, 10, 25050, 20000, 18000);
+        loader.addCharge(HEMORRHAGE, 30, 50000, 40000, 30000);
+        return loader.build();
+    }
+}
@@ -0,0 +1,238 @@
+package com.daniel.hospitalcharges.data.memory;
+
+import static com.daniel.hospitalcharges.data.memory.ChargeEngineFixture.DEGENERATIVE;
+import static com.daniel.hospitalcharges.data.memory.ChargeEngineFixture.EXTRACRANIAL;
+import static com.daniel.hospitalcharges.data.memory.ChargeEngineFixture.HEMORRHAGE;
+import static com.daniel.hospitalcharges.data.memory.ChargeEngineFixture.UNKNOWN;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import com.daniel.hospitalcharges.model.Provider;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * This class checks the lookups of the charge engine against the results the
+ * stored procedures return for the fixture data.
+ *
+ * @author Bryan Daniel
+ */
+public class ChargeEngineTest {
+
+    /**
+     * The engine under test
+     */
+    private static ChargeEngine engine;
+
+    /**
+     * Builds the engine of the fixture.
+     */
+    @BeforeClass
+    public static void setUpClass() {
+        engine = ChargeEngineFixture.inpatient();
+    }
+
+    /**
+     * getDRGs orders the DRGs by definition.
+     */
+    @Test
+    public void testClassificationsAreOrderedByDefinition() {
+        assertEquals(3, engine.getClassificationCount());
+        assertEquals(EXTRACRANIAL, engine.getClassificationId(0));
+        assertEquals(DEGENERATIVE, engine.getClassificationId(1));
+        assertEquals(HEMORRHAGE, engine.getClassificationId(2));
+        assertEquals("057 - DEGENERATIVE DISORDERS", engine.getClassificationDefinition(1));
+        assertEquals(ChargeEngine.NOT_FOUND, engine.findClassification(UNKNOWN));
+    }
+
+    /**
+     * getStates returns the distinct states of the providers charging for a
+     * DRG in order.
+     */
+    @Test
+    public void testGetStates() {
+        assertEquals(Arrays.asList("IL", "TX"), engine.getStates(EXTRACRANIAL));
+        assertEquals(Collections.singletonList("IL"), engine.getStates(HEMORRHAGE));
+        assertEquals(Collections.emptyList(), engine.getStates(UNKNOWN));
+    }
+
+    /**
+     * getCities returns the cities of the Region table in a state in order.
+     */
+    @Test
+    public void testGetCities() {
+        assertEquals(Arrays.asList("Chatham", "Peoria", "Springfield"), engine.getCities("IL"));
+        assertEquals(Collections.singletonList("Austin"), engine.getCities("TX"));
+        assertEquals(Collections.emptyList(), engine.getCities("ZZ"));
+    }
+
+    /**
+     * getCitiesToCompare returns the cities of a state with a provider
+     * charging for a DRG.
+     */
+    @Test
+    public void testGetCitiesToCompare() {
+        assertEquals(Arrays.asList("Peoria", "Springfield"), engine.getCitiesToCompare(DEGENERATIVE, "IL"));
+        assertEquals(Arrays.asList("Chatham", "Peoria", "Springfield"),
+                engine.getCitiesToCompare(EXTRACRANIAL, "IL"));
+        assertEquals(Collections.emptyList(), engine.getCitiesToCompare(DEGENERATIVE, "TX"));
+    }
+
+    /**
+     * getProviders returns the providers of a city charging for a DRG, ordered
+     * by name.
+     */
+    @Test
+    public void testGetProviders() {
+        assertArrayEquals(new int[]{20, 10}, providerIds(engine.getProviders("IL", "Springfield", EXTRACRANIAL)));
+        assertArrayEquals(new int[]{10}, providerIds(engine.getProviders("IL", "Springfield", DEGENERATIVE)));
+        assertArrayEquals(new int[0], providerIds(engine.getProviders("IL", "Chatham", DEGENERATIVE)));
+        assertArrayEquals(new int[0], providerIds(engine.getProviders("IL", "Nowhere", EXTRACRANIAL)));
+
+        Provider provider = engine.getProvider(engine.findProvider(30));
+        assertEquals("Chatham Medical", provider.getName());
+        assertEquals("3 Third St", provider.getStreet());
+        assertEquals("Chatham", provider.getCity());
+        assertEquals("IL", provider.getState());
+        assertEquals("62629", provider.getZipCode());
+    }
+
+    /**
+     * getRegionalDRGs returns the DRGs charged anywhere in the hospital
+     * referral region of a city, in definition order.
+     */
+    @Test
+    public void testGetRegionalClassifications() {
+        assertArrayEquals(new int[]{EXTRACRANIAL, DEGENERATIVE, HEMORRHAGE},
+                classificationIds(engine.getRegionalClassifications("IL", "Chatham")));
+        assertArrayEquals(new int[]{EXTRACRANIAL, DEGENERATIVE, HEMORRHAGE},
+                classificationIds(engine.getRegionalClassifications("IL", "Springfield")));
+        assertArrayEquals(new int[]{EXTRACRANIAL, DEGENERATIVE},
+                classificationIds(engine.getRegionalClassifications("IL", "Peoria")));
+        assertArrayEquals(new int[]{EXTRACRANIAL},
+                classificationIds(engine.getRegionalClassifications("TX", "Austin")));
+        assertArrayEquals(new int[0], classificationIds(engine.getRegionalClassifications("TX", "Chatham")));
+    }
+
+    /**
+     * getRegionalCharges returns the charges for a DRG of the providers in the
+     * hospital referral region of a city, ordered by provider name.
+     */
+    @Test
+    public void testGetRegionalCharges() {
+        int[] rows = engine.getRegionalCharges("IL", "Chatham", EXTRACRANIAL);
+        assertArrayEquals(new int[]{20, 30, 10}, chargeProviderIds(rows));
+        assertEquals(30000, engine.getAmount(rows[0], ChargeColumn.AVG_CHARGES));
+        assertEquals(10000, engine.getAmount(rows[2], ChargeColumn.AVG_CHARGES));
+
+        assertArrayEquals(new int[]{10}, chargeProviderIds(engine.getRegionalCharges("IL", "Springfield",
+                DEGENERATIVE)));
+        assertArrayEquals(new int[0], chargeProviderIds(engine.getRegionalCharges("TX", "Austin", HEMORRHAGE)));
+    }
+
+    /**
+     * getCharges returns the amounts of a provider's charge.
+     */
+    @Test
+    public void testFindChargeRow() {
+        int row = engine.findChargeRow(DEGENERATIVE, 10);
+        assertEquals(25050, engine.getAmount(row, ChargeColumn.AVG_CHARGES));
+        assertEquals(20000, engine.getAmount(row, ChargeColumn.AVG_PAYMENTS));
+        assertEquals(18000, engine.getAmount(row, ChargeColumn.AVG_MEDICARE_PAYMENTS));
+        assertEquals(ChargeEngine.NOT_FOUND, engine.findChargeRow(DEGENERATIVE, 20));
+        assertEquals(ChargeEngine.NOT_FOUND, engine.findChargeRow(UNKNOWN, 10));
+        assertEquals(ChargeEngine.NOT_FOUND, engine.findChargeRow(DEGENERATIVE, 99));
+    }
+
+    /**
+     * getCharges ranks a charge one above the number of smaller charges of its
+     * DRG, so tied charges share the lower rank, and reports the percentile
+     * 100 * (rank - 0.5) / count.
+     */
+    @Test
+    public void testGetPercentileRank() {
+        assertEquals(new BigDecimal("10.00"), rank(EXTRACRANIAL, 10, ChargeColumn.AVG_CHARGES));
+        assertEquals(new BigDecimal("30.00"), rank(EXTRACRANIAL, 40, ChargeColumn.AVG_CHARGES));
+        assertEquals(new BigDecimal("50.00"), rank(EXTRACRANIAL, 20, ChargeColumn.AVG_CHARGES));
+        assertEquals(new BigDecimal("50.00"), rank(EXTRACRANIAL, 30, ChargeColumn.AVG_CHARGES));
+        assertEquals(new BigDecimal("90.00"), rank(EXTRACRANIAL, 50, ChargeColumn.AVG_CHARGES));
+
+        assertEquals(new BigDecimal("10.00"), rank(EXTRACRANIAL, 10, ChargeColumn.AVG_PAYMENTS));
+        assertEquals(new BigDecimal("10.00"), rank(EXTRACRANIAL, 20, ChargeColumn.AVG_PAYMENTS));
+        assertEquals(new BigDecimal("50.00"), rank(EXTRACRANIAL, 40, ChargeColumn.AVG_PAYMENTS));
+        assertEquals(new BigDecimal("70.00"), rank(EXTRACRANIAL, 30, ChargeColumn.AVG_PAYMENTS));
+        assertEquals(new BigDecimal("10.00"), rank(EXTRACRANIAL, 20, ChargeColumn.AVG_MEDICARE_PAYMENTS));
+
+        assertEquals(new BigDecimal("25.00"), rank(DEGENERATIVE, 40, ChargeColumn.AVG_CHARGES));
+        assertEquals(new BigDecimal("75.00"), rank(DEGENERATIVE, 10, ChargeColumn.AVG_CHARGES));
+        assertEquals(new BigDecimal("50.00"), rank(HEMORRHAGE, 30, ChargeColumn.AVG_CHARGES));
+    }
+
+    /**
+     * The outpatient schema records no Medicare payments.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutpatientHasNoMedicarePayments() {
+        ChargeEngineLoader loader = new ChargeEngineLoader(ChargeSchema.OUTPATIENT);
+        loader.addClassification(5, "0012 - Level I Debridement");
+        loader.addProvider(10, "Memorial Hospital", "1 First St", "Springfield", "IL", "62701");
+        loader.addCharge(5, 10, 10000, 5000, 0);
+        loader.build().getPercentileIndex(ChargeColumn.AVG_MEDICARE_PAYMENTS);
+    }
+
+    /**
+     * Returns the percentile rank of a provider's charge.
+     *
+     * @param classificationId the DRG ID
+     * @param providerId the provider ID
+     * @param column the amount column
+     * @return the percentile rank
+     */
+    private static BigDecimal rank(int classificationId, int providerId, ChargeColumn column) {
+        return engine.getPercentileRank(engine.findChargeRow(classificationId, providerId), column);
+    }
+
+    /**
+     * Returns the IDs of providers given by position.
+     *
+     * @param positions the provider positions
+     * @return the provider IDs
+     */
+    private static int[] providerIds(int[] positions) {
+        int[] ids = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            ids[i] = engine.getProvider(positions[i]).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the provider IDs of charge rows.
+     *
+     * @param rows the charge rows
+     * @return the provider IDs
+     */
+    private static int[] chargeProviderIds(int[] rows) {
+        int[] ids = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            ids[i] = engine.getProvider(engine.getChargeProvider(rows[i])).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the IDs of classifications given by position.
+     *
+     * @param positions the classification positions
+     * @return the DRG IDs
+     */
+    private static int[] classificationIds(int[] positions) {
+        int[] ids = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            ids[i] = engine.getClassificationId(positions[i]);
+        }
+        return ids;
+    }
+}
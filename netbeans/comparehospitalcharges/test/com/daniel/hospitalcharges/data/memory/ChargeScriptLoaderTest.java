@@ -0,0 +1,86 @@
+package com.daniel.hospitalcharges.data.memory;
+
+import static org.junit.Assert.assertEquals;
+import com.daniel.hospitalcharges.model.Provider;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+/**
+ * This class checks that the script loader reads the INSERT statements of the
+ * populator scripts, with or without a column list.
+ *
+ * @author Bryan Daniel
+ */
+public class ChargeScriptLoaderTest {
+
+    /**
+     * Rows in the column order of the database scripts are read by position.
+     *
+     * @throws IOException if the script cannot be parsed
+     */
+    @Test
+    public void testInsertWithoutColumns() throws IOException {
+        ChargeEngine engine = ChargeScriptLoader.load(new StringReader(
+                "INSERT INTO Region VALUES ('Springfield', 'IL', 'IL - Springfield');\n"
+                + "INSERT INTO Provider VALUES (10, 'Memorial Hospital', '1 First St', 'Springfield', 'IL',"
+                + " '62701');\n"
+                + "INSERT INTO DRG VALUES (3, '039 - EXTRACRANIAL PROCEDURES');\n"
+                + "INSERT INTO Charge VALUES (3, 10, 100.00, 90.00, 80.00);\n"), ChargeSchema.INPATIENT);
+        check(engine);
+    }
+
+    /**
+     * Rows of statements listing their columns, in any order, are read by
+     * column name, and columns the loader does not read are ignored.
+     *
+     * @throws IOException if the script cannot be parsed
+     */
+    @Test
+    public void testInsertWithColumns() throws IOException {
+        ChargeEngine engine = ChargeScriptLoader.load(new StringReader(
+                "INSERT INTO `Region` (`provider_hrr`, `provider_state`, `provider_city`)"
+                + " VALUES ('IL - Springfield', 'IL', 'Springfield');\n"
+                + "INSERT INTO `Provider` (`provider_zip`, `provider_id`, `provider_city`, `provider_state`,"
+                + " `provider_street`, `provider_name`)"
+                + " VALUES ('62701', 10, 'Springfield', 'IL', '1 First St', 'Memorial Hospital');\n"
+                + "INSERT INTO `DRG` (`drg_definition`, `drg_id`) VALUES ('039 - EXTRACRANIAL PROCEDURES', 3);\n"
+                + "INSERT INTO `Charge` (`provider_id`, `drg_id`, `total_discharges`, `avg_medicare_payments`,"
+                + " `avg_payments`, `avg_charges`) VALUES (10, 3, 12, 80.00, 90.00, 100.00);\n"),
+                ChargeSchema.INPATIENT);
+        check(engine);
+    }
+
+    /**
+     * A column list without a column the loader reads is rejected.
+     *
+     * @throws IOException if the script cannot be parsed
+     */
+    @Test(expected = IOException.class)
+    public void testInsertWithMissingColumn() throws IOException {
+        ChargeScriptLoader.load(new StringReader(
+                "INSERT INTO DRG (drg_id) VALUES (3);\n"), ChargeSchema.INPATIENT);
+    }
+
+    /**
+     * Checks the engine loaded from either script.
+     *
+     * @param engine the charge engine
+     */
+    private static void check(ChargeEngine engine) {
+        assertEquals(1, engine.getClassificationCount());
+        assertEquals(3, engine.getClassificationId(0));
+        assertEquals("039 - EXTRACRANIAL PROCEDURES", engine.getClassificationDefinition(0));
+
+        Provider provider = engine.getProvider(engine.findProvider(10));
+        assertEquals("Memorial Hospital", provider.getName());
+        assertEquals("1 First St", provider.getStreet());
+        assertEquals("62701", provider.getZipCode());
+        assertEquals(1, engine.getRegionalClassifications("IL", "Springfield").length);
+
+        int row = engine.findChargeRow(3, 10);
+        assertEquals(10000, engine.getAmount(row, ChargeColumn.AVG_CHARGES));
+        assertEquals(9000, engine.getAmount(row, ChargeColumn.AVG_PAYMENTS));
+        assertEquals(8000, engine.getAmount(row, ChargeColumn.AVG_MEDICARE_PAYMENTS));
+    }
+}
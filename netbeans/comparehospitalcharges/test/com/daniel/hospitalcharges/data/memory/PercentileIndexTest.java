@@ -0,0 +1,75 @@
+package com.daniel.hospitalcharges.data.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import java.math.BigDecimal;
+import org.junit.Test;
+
+/**
+ * This class checks the ranks of the percentile index against the rank the
+ * getCharges procedure computes: one more than the number of smaller values
+ * of the classification, or zero for a provider without a charge.
+ *
+ * @author Bryan Daniel
+ */
+public class PercentileIndexTest {
+
+    /**
+     * Two classifications: four values with a tie, then three equal values
+     */
+    private final PercentileIndex index = new PercentileIndex(new long[]{400, 100, 300, 300, 700, 700, 700},
+            new int[]{0, 4, 7});
+
+    /**
+     * The values are sorted within each classification only.
+     */
+    @Test
+    public void testValuesAreSortedWithinClassification() {
+        assertEquals(4, index.getCount(0));
+        assertEquals(3, index.getCount(1));
+        assertEquals(100, index.getValue(0, 1));
+        assertEquals(300, index.getValue(0, 2));
+        assertEquals(300, index.getValue(0, 3));
+        assertEquals(400, index.getValue(0, 4));
+        assertEquals(700, index.getValue(1, 1));
+    }
+
+    /**
+     * Equal values share the lowest rank and a value between two others ranks
+     * above the smaller ones.
+     */
+    @Test
+    public void testGetRank() {
+        assertEquals(1, index.getRank(0, 100));
+        assertEquals(2, index.getRank(0, 300));
+        assertEquals(4, index.getRank(0, 400));
+        assertEquals(4, index.getRank(0, 350));
+        assertEquals(1, index.getRank(0, 50));
+        assertEquals(5, index.getRank(0, 900));
+        assertEquals(1, index.getRank(1, 700));
+    }
+
+    /**
+     * The percentile rank is 100 * (rank - 0.5) / count, rounded half up to
+     * two places.
+     */
+    @Test
+    public void testGetPercentileRank() {
+        assertEquals(new BigDecimal("12.50"), index.getPercentileRank(0, 100));
+        assertEquals(new BigDecimal("37.50"), index.getPercentileRank(0, 300));
+        assertEquals(new BigDecimal("87.50"), index.getPercentileRank(0, 400));
+        assertEquals(new BigDecimal("16.67"), index.getPercentileRank(1, 700));
+    }
+
+    /**
+     * A provider without a charge has a rank of zero, so its percentile rank
+     * is negative as in the original getCharges procedure, and a
+     * classification without charges has no percentile rank.
+     */
+    @Test
+    public void testGetMissingPercentileRank() {
+        assertEquals(new BigDecimal("-12.50"), index.getMissingPercentileRank(0));
+        assertEquals(new BigDecimal("-16.67"), index.getMissingPercentileRank(1));
+        assertNull(new PercentileIndex(new long[0], new int[]{0, 0}).getMissingPercentileRank(0));
+    }
+}
@@ -0,0 +1,137 @@
+package com.daniel.hospitalcharges.data.pool;
+
+import static org.junit.Assert.assertEquals;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This class checks the borrow tracking of a connection pool against a data
+ * source whose connections only know whether they are closed.
+ *
+ * @author Bryan Daniel
+ */
+public class ConnectionPoolTest {
+
+    /**
+     * The pool under test
+     */
+    private final ConnectionPool pool = ConnectionPool.getOutpatientPool();
+
+    /**
+     * The data source of the pool before the test
+     */
+    private DataSource previousDataSource;
+
+    /**
+     * Points the pool at the connections of the test.
+     */
+    @Before
+    public void setUp() {
+        previousDataSource = pool.getDataSource();
+        pool.setDataSource(new TestDataSource());
+    }
+
+    /**
+     * Restores the data source of the pool.
+     */
+    @After
+    public void tearDown() {
+        pool.setDataSource(previousDataSource);
+    }
+
+    /**
+     * A connection closed without being freed is forgotten by the next
+     * sweep, while a connection still open stays borrowed until it is freed.
+     *
+     * @throws SQLException if a connection cannot be obtained
+     */
+    @Test
+    public void testSweepForgetsClosedConnections() throws SQLException {
+        int active = pool.getActiveCount();
+        Connection leaked = pool.getConnection("leaked");
+        Connection held = pool.getConnection("held");
+        assertEquals(active + 2, pool.getActiveCount());
+
+        leaked.close();
+        pool.sweepLeaks();
+        assertEquals(active + 1, pool.getActiveCount());
+
+        pool.freeConnection(held);
+        assertEquals(active, pool.getActiveCount());
+    }
+
+    /**
+     * A data source handing out connections that only know whether they are
+     * closed.
+     */
+    private static class TestDataSource implements DataSource {
+
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new InvocationHandler() {
+                        private boolean closed;
+
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            switch (method.getName()) {
+                                case "close":
+                                    closed = true;
+                                    return null;
+                                case "isClosed":
+                                    return closed;
+                                default:
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        }
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            throw new SQLException("Not a wrapper.");
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.daniel.hospitalcharges.data.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * This class checks the routing and failover of a replica data source across
+ * data sources whose connections only validate, close and report a
+ * replication lag.
+ *
+ * @author Bryan Daniel
+ */
+public class ReplicaDataSourceTest {
+
+    /**
+     * The data source under test
+     */
+    private ReplicaDataSource replicaDataSource;
+
+    /**
+     * Removes the MXBean of the data source.
+     */
+    @After
+    public void tearDown() {
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+        }
+    }
+
+    /**
+     * Replicas within the maximum lag take connections in turn.
+     *
+     * @throws SQLException if a connection cannot be obtained
+     */
+    @Test
+    public void testRoundRobin() throws SQLException {
+        TestDataSource first = new TestDataSource(0);
+        TestDataSource second = new TestDataSource(0);
+        TestDataSource third = new TestDataSource(0);
+        create(first, second, third);
+
+        for (int i = 0; i < 6; i++) {
+            replicaDataSource.getConnection().close();
+        }
+        assertEquals(2, first.connectionCount);
+        assertEquals(2, second.connectionCount);
+        assertEquals(2, third.connectionCount);
+        assertEquals(0, replicaDataSource.getFailoverCount());
+    }
+
+    /**
+     * A replica beyond the maximum lag is used only when no current replica
+     * can provide a connection, and an unreadable replication status counts
+     * as an unknown lag.
+     *
+     * @throws SQLException if a connection cannot be obtained
+     */
+    @Test
+    public void testLaggingReplicasLast() throws SQLException {
+        TestDataSource lagging = new TestDataSource(ReplicaDataSource.DEFAULT_MAXIMUM_LAG + 1);
+        TestDataSource unreadable = new TestDataSource(0);
+        unreadable.statusReadable = false;
+        TestDataSource current = new TestDataSource(0);
+        create(lagging, unreadable, current);
+        checkNow(lagging, unreadable, current);
+        assertTrue(replicaDataSource.getReplicaStates()[1].contains("lag unknown"));
+
+        for (int i = 0; i < 3; i++) {
+            replicaDataSource.getConnection().close();
+        }
+        assertEquals(3, current.connectionCount);
+
+        current.down = true;
+        replicaDataSource.getConnection().close();
+        assertEquals(1, lagging.connectionCount);
+        assertEquals(0, unreadable.connectionCount);
+        assertEquals(1, replicaDataSource.getFailoverCount());
+    }
+
+    /**
+     * A replica that fails its check is tried last, and returns to the
+     * rotation once a check succeeds.
+     *
+     * @throws SQLException if a connection cannot be obtained
+     */
+    @Test
+    public void testDownReplicasLast() throws SQLException {
+        TestDataSource failing = new TestDataSource(0);
+        TestDataSource healthy = new TestDataSource(0);
+        create(failing, healthy);
+        failing.down = true;
+        checkNow(failing, healthy);
+        assertEquals(1, replicaDataSource.getHealthyCount());
+
+        for (int i = 0; i < 2; i++) {
+            replicaDataSource.getConnection().close();
+        }
+        assertEquals(2, healthy.connectionCount);
+        assertEquals(1, failing.failedRequests);
+
+        failing.down = false;
+        checkNow(failing, healthy);
+        assertEquals(2, replicaDataSource.getHealthyCount());
+        for (int i = 0; i < 2; i++) {
+            replicaDataSource.getConnection().close();
+        }
+        assertEquals(1, failing.connectionCount);
+    }
+
+    /**
+     * A replica whose pool is exhausted fails over to the next replica but is
+     * not marked down.
+     *
+     * @throws SQLException if a connection cannot be obtained
+     */
+    @Test
+    public void testBusyReplicaNotMarkedDown() throws SQLException {
+        TestDataSource busy = new TestDataSource(0);
+        TestDataSource idle = new TestDataSource(0);
+        create(busy, idle);
+        busy.busy = true;
+
+        for (int i = 0; i < 2; i++) {
+            replicaDataSource.getConnection().close();
+        }
+        assertEquals(2, idle.connectionCount);
+        assertEquals(1, replicaDataSource.getFailoverCount());
+        assertEquals(2, replicaDataSource.getHealthyCount());
+    }
+
+    /**
+     * Creates the data source under test over the given replicas.
+     *
+     * @param dataSources the replicas in order
+     */
+    private void create(TestDataSource... dataSources) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < dataSources.length; i++) {
+            replicas.put("replica" + i, dataSources[i]);
+        }
+        replicaDataSource = new ReplicaDataSource("test", replicas);
+    }
+
+    /**
+     * Checks the replicas now, not counting the connections of the check.
+     *
+     * @param dataSources the replicas
+     */
+    private void checkNow(TestDataSource... dataSources) {
+        replicaDataSource.checkNow();
+        for (TestDataSource dataSource : dataSources) {
+            dataSource.connectionCount = 0;
+        }
+    }
+
+    /**
+     * A replica handing out connections that validate, close and report a
+     * replication lag, and that may be down, busy or unable to read its
+     * replication status.
+     */
+    private static class TestDataSource implements DataSource {
+
+        final long lag;
+        boolean down;
+        boolean busy;
+        boolean statusReadable = true;
+        int connectionCount;
+        int failedRequests;
+
+        TestDataSource(long lag) {
+            this.lag = lag;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                failedRequests++;
+                throw new SQLException("Communications link failure", "08S01");
+            }
+            if (busy) {
+                throw new SQLTimeoutException("Timeout waiting for idle object");
+            }
+            connectionCount++;
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+                            switch (method.getName()) {
+                                case "close":
+                                    return null;
+                                case "isValid":
+                                    return true;
+                                case "createStatement":
+                                    if (!statusReadable) {
+                                        throw new SQLException("Access denied; you need the REPLICATION CLIENT"
+                                                + " privilege", "42000");
+                                    }
+                                    return statement();
+                                default:
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        }
+                    });
+        }
+
+        /**
+         * Returns a statement whose query reports the lag of the replica.
+         *
+         * @return the statement
+         */
+        private Statement statement() {
+            final ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            switch (method.getName()) {
+                                case "next":
+                                    return true;
+                                case "getLong":
+                                    return lag;
+                                case "wasNull":
+                                    return false;
+                                case "close":
+                                    return null;
+                                default:
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        }
+                    });
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                    new Class<?>[]{Statement.class}, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            switch (method.getName()) {
+                                case "executeQuery":
+                                    return resultSet;
+                                case "close":
+                                    return null;
+                                default:
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        }
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            throw new SQLException("Not a wrapper.");
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.daniel.hospitalcharges.service;
+
+import static org.junit.Assert.assertEquals;
+import com.daniel.hospitalcharges.data.access.LastKnownGoodCache;
+import com.daniel.hospitalcharges.data.access.Procedure;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This class checks how the service cache weighs, expires and clears the
+ * results it keeps, counting the calls that reach the loader.
+ *
+ * @author Bryan Daniel
+ */
+public class ServiceCacheTest {
+
+    /**
+     * The method of the cached calls
+     */
+    private static final String METHOD = "test.getList";
+
+    /**
+     * The cache under test
+     */
+    private ServiceCache cache;
+
+    /**
+     * The number of loader calls
+     */
+    private int loads;
+
+    /**
+     * Creates a cache holding at most ten elements.
+     */
+    @Before
+    public void setUp() {
+        cache = new ServiceCache("test", 10, ServiceCache.DEFAULT_TIME_TO_LIVE);
+        loads = 0;
+    }
+
+    /**
+     * Removes the MXBean of the cache.
+     */
+    @After
+    public void tearDown() {
+        cache.unregister();
+    }
+
+    /**
+     * A result weighs one plus its elements, and the least recently used
+     * results are evicted once the total weight exceeds the maximum.
+     */
+    @Test
+    public void testLeastRecentlyUsedEvictedByWeight() {
+        get(1, 3);
+        get(2, 3);
+        assertEquals(8, cache.getWeight());
+
+        get(1, 3);
+        assertEquals(1, cache.getHitCount());
+        get(3, 3);
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(8, cache.getWeight());
+        assertEquals(3, loads);
+
+        get(1, 3);
+        assertEquals(3, loads);
+        get(2, 3);
+        assertEquals(4, loads);
+    }
+
+    /**
+     * A result heavier than the whole cache is never kept.
+     */
+    @Test
+    public void testHeavierThanCacheNotKept() {
+        get(1, 10);
+        get(1, 10);
+        assertEquals(2, loads);
+        assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * A result expires after the time to live of its method, and a time to
+     * live of zero keeps no result.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    public void testTimeToLive() throws InterruptedException {
+        cache.setTimeToLive(METHOD, 1);
+        get(1, 1);
+        Thread.sleep(5);
+        get(1, 1);
+        assertEquals(2, loads);
+        assertEquals(1, cache.getExpirationCount());
+
+        cache.setTimeToLive(METHOD, 0);
+        get(2, 1);
+        get(2, 1);
+        assertEquals(4, loads);
+    }
+
+    /**
+     * The cache is cleared when the dataset version changes.
+     */
+    @Test
+    public void testClearedOnVersionChange() {
+        get(1, 1);
+        get(1, 1);
+        assertEquals(1, loads);
+
+        ChargeEngineManager.unload();
+        get(1, 1);
+        assertEquals(2, loads);
+        assertEquals(1, cache.getSize());
+        assertEquals(2, cache.getWeight());
+    }
+
+    /**
+     * A result loaded while a procedure call was answered with a last known
+     * good result is not kept.
+     */
+    @Test
+    public void testFallbackResultNotKept() {
+        final LastKnownGoodCache lastKnownGood = Procedure.getLastKnownGood();
+        final List<Object> key = Arrays.<Object>asList("serviceCacheTest");
+        lastKnownGood.put(key, Collections.emptyList());
+        ServiceCache.Loader<List<Integer>> loader = new ServiceCache.Loader<List<Integer>>() {
+            @Override
+            public List<Integer> load() {
+                loads++;
+                lastKnownGood.getFallback(key);
+                return new ArrayList<>();
+            }
+        };
+        cache.get(METHOD, loader, 1);
+        cache.get(METHOD, loader, 1);
+        assertEquals(2, loads);
+        assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * Gets a list from the cache, loading a list of the given size if it is
+     * not cached.
+     *
+     * @param argument the argument of the call
+     * @param size the size of a loaded list
+     * @return the list
+     */
+    private List<Integer> get(int argument, final int size) {
+        return cache.get(METHOD, new ServiceCache.Loader<List<Integer>>() {
+            @Override
+            public List<Integer> load() {
+                loads++;
+                return new ArrayList<>(Collections.nCopies(size, 0));
+            }
+        }, argument);
+    }
+}
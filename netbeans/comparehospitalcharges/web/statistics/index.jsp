@@ -170,8 +170,8 @@
                 </div>
                 <div class="chart">
                     <img src='<c:url value="drawchart">
-                             <c:param name="action" value="showhistogram"/>
-                             <c:param name="time" value="${requestScope.timeActionExecuted}"/>
+                             <c:param name="${requestScope.chartType}" value="${requestScope.chartId}"/>
+                             <c:param name="v" value="${requestScope.datasetVersion}"/>
                          </c:url>' 
                          alt="histogram"/>
                 </div>
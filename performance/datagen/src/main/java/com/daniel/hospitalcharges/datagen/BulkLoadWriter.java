@@ -0,0 +1,150 @@
+package com.daniel.hospitalcharges.datagen;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class writes a dataset as bulk-load files: one tab-separated file per
+ * table, such as Charge.tsv, in the output directory, and a script loading
+ * them with LOAD DATA, for example outpatientload.sql. The files use the
+ * default field, line and escape characters of LOAD DATA, and the script
+ * names them relative to the output directory, so the mysql client is run
+ * from there with local-infile enabled. Loading this way is much faster than
+ * running the populator script on large datasets.
+ *
+ * @author Bryan Daniel
+ */
+public class BulkLoadWriter implements DatasetWriter {
+
+    /**
+     * The schema
+     */
+    private final Schema schema;
+
+    /**
+     * The output directory
+     */
+    private final File directory;
+
+    /**
+     * The output of the Charge file, opened with the first charge
+     */
+    private Writer charges;
+
+    /**
+     * Writes the load script.
+     *
+     * @param schema the schema
+     * @param directory the output directory
+     * @param description the description of the dataset for the header
+     * @throws IOException if the script cannot be written
+     */
+    public BulkLoadWriter(Schema schema, File directory, String description) throws IOException {
+        this.schema = schema;
+        this.directory = directory;
+        try (Writer out = open(schema.getName() + "load.sql")) {
+            out.write("/***************************************************************************\n");
+            out.write("* Load a synthetic dataset into the " + schema.getDatabase() + " database\n");
+            out.write("* " + description + "\n");
+            out.write("* Run from this directory: mysql --local-infile=1 < " + schema.getName() + "load.sql\n");
+            out.write("*****************************************************************************/\n\n");
+            out.write("USE " + schema.getDatabase() + ";\n");
+            out.write("SET foreign_key_checks = 0;\n");
+            out.write("SET unique_checks = 0;\n\n");
+            for (String table : schema.getTables()) {
+                out.write("LOAD DATA LOCAL INFILE '" + table + ".tsv' INTO TABLE " + table
+                        + " CHARACTER SET utf8mb4 (" + String.join(", ", schema.getColumns(table)) + ");\n");
+            }
+            out.write("\nSET unique_checks = 1;\n");
+            out.write("SET foreign_key_checks = 1;\n");
+        }
+    }
+
+    @Override
+    public void writeReferenceData(Dataset dataset) throws IOException {
+        try (Writer out = open("State.tsv")) {
+            for (String state : dataset.getStates()) {
+                writeLine(out, state);
+            }
+        }
+        try (Writer out = open("Region.tsv")) {
+            for (Dataset.Region region : dataset.getRegions()) {
+                writeLine(out, region.getValues());
+            }
+        }
+        try (Writer out = open("Provider.tsv")) {
+            for (Dataset.Provider provider : dataset.getProviders()) {
+                writeLine(out, provider.getValues());
+            }
+        }
+        try (Writer out = open(schema.getCodeTable() + ".tsv")) {
+            for (Dataset.Code code : dataset.getCodes()) {
+                writeLine(out, code.getValues());
+            }
+        }
+    }
+
+    @Override
+    public void writeCharge(int codeId, int providerId, long charges, long payments, long medicarePayments)
+            throws IOException {
+        if (this.charges == null) {
+            this.charges = open("Charge.tsv");
+        }
+        Writer out = this.charges;
+        out.write(Integer.toString(codeId));
+        out.write('\t');
+        out.write(Integer.toString(providerId));
+        out.write('\t');
+        out.write(Dataset.formatCents(charges));
+        out.write('\t');
+        out.write(Dataset.formatCents(payments));
+        if (schema.hasMedicarePayments()) {
+            out.write('\t');
+            out.write(Dataset.formatCents(medicarePayments));
+        }
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (charges == null) {
+            //a dataset without charges still gets its file
+            charges = open("Charge.tsv");
+        }
+        charges.close();
+    }
+
+    /**
+     * Opens a file of the output directory.
+     *
+     * @param name the file name
+     * @return the output
+     * @throws IOException if the file cannot be created
+     */
+    private Writer open(String name) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(directory, name)),
+                StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /**
+     * Writes a line of tab-separated values, escaped as LOAD DATA expects.
+     *
+     * @param out the output
+     * @param values the column values
+     * @throws IOException if the line cannot be written
+     */
+    private static void writeLine(Writer out, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write('\t');
+            }
+            out.write(values[i].toString().replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n"));
+        }
+        out.write('\n');
+    }
+}
@@ -0,0 +1,572 @@
+package com.daniel.hospitalcharges.datagen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This class generates a synthetic dataset shaped like the 2015 CMS charge
+ * data of a schema. Every state keeps its 2015 share of the providers and its
+ * hospital referral regions; providers grow with the scale factor and cities
+ * with its square root, so regions grow denser as they would with real
+ * growth. Providers are spread over cities and cities over referral regions
+ * by Zipf distributions, so a few large cities and regions hold many
+ * providers while most cities have one.
+ * <p>
+ * Each classification has a median charge, a share of providers charging for
+ * it, favoring the larger providers, and a payment ratio. A charge is drawn
+ * log-normally around the median, moved by the price level of the provider
+ * and its state, while payments vary much less, as Medicare pays by fixed
+ * rates. The states, regions, providers and classifications are held in
+ * memory; the charges are streamed to the writers, so the dataset size is
+ * bound by disk only. The same schema, scales and seed always give the same
+ * data.
+ *
+ * @author Bryan Daniel
+ */
+public class Dataset {
+
+    /**
+     * The Zipf exponent of the providers of the cities and the cities of the
+     * referral regions
+     */
+    private static final double ZIPF_EXPONENT = 1.0;
+
+    /**
+     * The spread of the logarithm of the provider sizes
+     */
+    private static final double SIZE_SPREAD = 0.6;
+
+    /**
+     * The spread of the logarithm of the state price levels
+     */
+    private static final double STATE_PRICE_SPREAD = 0.2;
+
+    /**
+     * The spread of the logarithm of the provider price levels
+     */
+    private static final double PROVIDER_PRICE_SPREAD = 0.35;
+
+    /**
+     * The spread of the logarithm of the payments of a classification
+     */
+    private static final double PAYMENT_SPREAD = 0.15;
+
+    /**
+     * The schema of the dataset
+     */
+    private final Schema schema;
+
+    /**
+     * The seed of the charges
+     */
+    private final long chargeSeed;
+
+    /**
+     * The states
+     */
+    private final List<String> states = new ArrayList<>();
+
+    /**
+     * The regions
+     */
+    private final List<Region> regions = new ArrayList<>();
+
+    /**
+     * The providers in ID order
+     */
+    private final List<Provider> providers = new ArrayList<>();
+
+    /**
+     * The classifications in ID order
+     */
+    private final List<Code> codes = new ArrayList<>();
+
+    /**
+     * The mean provider size
+     */
+    private double meanSize;
+
+    /**
+     * Creates an empty dataset.
+     *
+     * @param schema the schema
+     * @param seed the random seed
+     */
+    private Dataset(Schema schema, long seed) {
+        this.schema = schema;
+        this.chargeSeed = mix(seed, schema.ordinal() * 2 + 1);
+    }
+
+    /**
+     * Generates the states, regions, providers and classifications of a
+     * dataset.
+     *
+     * @param schema the schema
+     * @param scale the providers relative to the 2015 data
+     * @param codeScale the classifications relative to the 2015 data
+     * @param seed the random seed
+     * @return the dataset
+     * @throws IllegalArgumentException if a scale is not positive
+     */
+    public static Dataset generate(Schema schema, double scale, double codeScale, long seed) {
+        if (scale <= 0 || codeScale <= 0) {
+            throw new IllegalArgumentException("The scales must be positive.");
+        }
+        Dataset dataset = new Dataset(schema, seed);
+        Random random = new Random(mix(seed, schema.ordinal() * 2));
+        dataset.generateProviders(scale, random);
+        dataset.generateCodes(codeScale, random);
+        return dataset;
+    }
+
+    /**
+     * Generates the states, regions and providers.
+     *
+     * @param scale the providers relative to the 2015 data
+     * @param random the random generator
+     */
+    private void generateProviders(double scale, Random random) {
+        List<StateProfile> profiles = StateProfile.getProfiles();
+        int[] providerCounts = new int[profiles.size()];
+        int largest = 0;
+        for (int i = 0; i < profiles.size(); i++) {
+            providerCounts[i] = Math.max(1, (int) Math.round(profiles.get(i).getProviders() * scale
+                    * schema.getProviderFactor()));
+            largest = Math.max(largest, providerCounts[i]);
+        }
+        //CMS provider IDs start with a state number followed by a sequence
+        int idBlock = 10000;
+        while (idBlock <= largest) {
+            idBlock *= 10;
+        }
+
+        double sizeSum = 0;
+        for (int i = 0; i < profiles.size(); i++) {
+            StateProfile profile = profiles.get(i);
+            String state = profile.getState();
+            states.add(state);
+            double statePrice = random.nextGaussian() * STATE_PRICE_SPREAD;
+
+            int cityCount = Math.max(1, (int) Math.round(profile.getCities() * Math.sqrt(scale)));
+            int hubCount = Math.min(cityCount, Math.max(1, profile.getReferralRegions()));
+            double[] hubWeights = cumulativeZipf(hubCount);
+            Set<String> used = new HashSet<>();
+            List<String> cities = new ArrayList<>();
+            for (int c = 0; c < cityCount; c++) {
+                String city = Names.city(random, used);
+                cities.add(city);
+                //the first cities are the hubs naming the referral regions
+                int hub = c < hubCount ? c : sample(hubWeights, random);
+                regions.add(new Region(city, state, state + " - " + cities.get(hub)));
+            }
+
+            //every city has a provider before the large cities get more
+            double[] cityWeights = cumulativeZipf(cityCount);
+            List<Provider> stateProviders = new ArrayList<>();
+            for (int p = 0; p < providerCounts[i]; p++) {
+                String city = cities.get(p < cityCount ? p : sample(cityWeights, random));
+                double size = Math.exp(random.nextGaussian() * SIZE_SPREAD);
+                sizeSum += size;
+                stateProviders.add(new Provider(0, Names.hospital(city, random), Names.street(random), city,
+                        state, String.format("%05d", profile.getZipPrefix() * 100 + random.nextInt(100)), size,
+                        statePrice + random.nextGaussian() * PROVIDER_PRICE_SPREAD, statePrice / 2));
+            }
+            Collections.shuffle(stateProviders, random);
+            for (int p = 0; p < stateProviders.size(); p++) {
+                Provider provider = stateProviders.get(p);
+                providers.add(new Provider((i + 1) * idBlock + p + 1, provider.name, provider.street,
+                        provider.city, provider.state, provider.zip, provider.size, provider.priceLevel,
+                        provider.paymentLevel));
+            }
+        }
+        meanSize = sizeSum / providers.size();
+    }
+
+    /**
+     * Generates the classifications.
+     *
+     * @param codeScale the classifications relative to the 2015 data
+     * @param random the random generator
+     */
+    private void generateCodes(double codeScale, Random random) {
+        int count = Math.max(1, (int) Math.round(schema.getCodeCount() * codeScale));
+        int limit = Math.max(schema.getCodeLimit(), count * 2);
+        TreeSet<Integer> ids = new TreeSet<>();
+        while (ids.size() < count) {
+            ids.add(1 + random.nextInt(limit));
+        }
+        int index = 0;
+        for (int id : ids) {
+            double median = schema.getMedianCharge() * Math.exp(random.nextGaussian() * schema.getMedianSpread());
+            double spread = 0.25 + random.nextDouble() * 0.25;
+            double coverage = uniform(random, schema.getMinimumCoverage(), schema.getMaximumCoverage());
+            double paymentRatio = uniform(random, schema.getMinimumPaymentRatio(), schema.getMaximumPaymentRatio());
+            codes.add(new Code(id, Names.definition(schema, id, index++), median, spread, coverage, paymentRatio));
+        }
+    }
+
+    /**
+     * Generates the charges and writes them, by classification and provider
+     * ID, the order of the primary key of the Charge table.
+     *
+     * @param writers the writers receiving the charges
+     * @return the number of charges
+     * @throws IOException if a writer fails
+     */
+    public long writeCharges(DatasetWriter... writers) throws IOException {
+        Random random = new Random(chargeSeed);
+        long maximum = schema.getMaximumAmount();
+        long count = 0;
+        for (Code code : codes) {
+            double payment = code.medianCharge * code.paymentRatio;
+            for (Provider provider : providers) {
+                //larger providers are likelier to charge, and every one does at full coverage
+                if (random.nextDouble() >= 1 - Math.pow(1 - code.coverage, provider.size / meanSize)) {
+                    continue;
+                }
+                double charges = code.medianCharge
+                        * Math.exp(provider.priceLevel + random.nextGaussian() * code.spread);
+                double payments = payment
+                        * Math.exp(provider.paymentLevel + random.nextGaussian() * PAYMENT_SPREAD);
+                double medicarePayments = payments * (0.75 + random.nextDouble() * 0.2);
+                long chargeCents = Math.min(maximum, Math.max(100, Math.round(charges * 100)));
+                long paymentCents = Math.min(chargeCents, Math.max(1, Math.round(payments * 100)));
+                long medicareCents = Math.min(paymentCents, Math.round(medicarePayments * 100));
+                for (DatasetWriter writer : writers) {
+                    writer.writeCharge(code.id, provider.id, chargeCents, paymentCents, medicareCents);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the schema of the dataset.
+     *
+     * @return the schema
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Returns the states.
+     *
+     * @return the states
+     */
+    public List<String> getStates() {
+        return states;
+    }
+
+    /**
+     * Returns the regions.
+     *
+     * @return the regions
+     */
+    public List<Region> getRegions() {
+        return regions;
+    }
+
+    /**
+     * Returns the providers in ID order.
+     *
+     * @return the providers
+     */
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    /**
+     * Returns the classifications in ID order.
+     *
+     * @return the classifications
+     */
+    public List<Code> getCodes() {
+        return codes;
+    }
+
+    /**
+     * Returns the number of hospital referral regions.
+     *
+     * @return the referral region count
+     */
+    public int getReferralRegionCount() {
+        Set<String> referralRegions = new HashSet<>();
+        for (Region region : regions) {
+            referralRegions.add(region.referralRegion);
+        }
+        return referralRegions.size();
+    }
+
+    /**
+     * Formats an amount in cents as a decimal with two places.
+     *
+     * @param cents the amount in cents
+     * @return the decimal text
+     */
+    public static String formatCents(long cents) {
+        long fraction = cents % 100;
+        return (cents / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    /**
+     * Returns the cumulative weights of a Zipf distribution.
+     *
+     * @param n the number of ranks
+     * @return the cumulative weights, the last being 1
+     */
+    private static double[] cumulativeZipf(int n) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Draws a rank from cumulative weights.
+     *
+     * @param cumulative the cumulative weights
+     * @param random the random generator
+     * @return the rank
+     */
+    private static int sample(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(cumulative.length - 1, index < 0 ? -index - 1 : index);
+    }
+
+    /**
+     * Draws a number uniformly from a range.
+     *
+     * @param random the random generator
+     * @param minimum the smallest number
+     * @param maximum the largest number
+     * @return the number
+     */
+    private static double uniform(Random random, double minimum, double maximum) {
+        return minimum + random.nextDouble() * (maximum - minimum);
+    }
+
+    /**
+     * Derives a seed for one stream of random numbers from the seed given.
+     *
+     * @param seed the seed given
+     * @param stream the stream number
+     * @return the seed of the stream
+     */
+    private static long mix(long seed, int stream) {
+        long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A row of a table of the dataset
+     */
+    public interface Row {
+
+        /**
+         * Returns the column values in the order of the table.
+         *
+         * @return the values
+         */
+        public Object[] getValues();
+    }
+
+    /**
+     * A city of a state and its hospital referral region
+     */
+    public static class Region implements Row {
+
+        /**
+         * The city
+         */
+        private final String city;
+
+        /**
+         * The state
+         */
+        private final String state;
+
+        /**
+         * The hospital referral region
+         */
+        private final String referralRegion;
+
+        /**
+         * Creates a region.
+         *
+         * @param city the city
+         * @param state the state
+         * @param referralRegion the hospital referral region
+         */
+        Region(String city, String state, String referralRegion) {
+            this.city = city;
+            this.state = state;
+            this.referralRegion = referralRegion;
+        }
+
+        @Override
+        public Object[] getValues() {
+            return new Object[]{city, state, referralRegion};
+        }
+    }
+
+    /**
+     * A provider and its size and price levels
+     */
+    public static class Provider implements Row {
+
+        /**
+         * The provider ID
+         */
+        private final int id;
+
+        /**
+         * The provider name
+         */
+        private final String name;
+
+        /**
+         * The street address
+         */
+        private final String street;
+
+        /**
+         * The city
+         */
+        private final String city;
+
+        /**
+         * The state
+         */
+        private final String state;
+
+        /**
+         * The ZIP code
+         */
+        private final String zip;
+
+        /**
+         * The size, setting how many classifications the provider charges for
+         */
+        private final double size;
+
+        /**
+         * The logarithm of the price level of the charges
+         */
+        private final double priceLevel;
+
+        /**
+         * The logarithm of the level of the payments
+         */
+        private final double paymentLevel;
+
+        /**
+         * Creates a provider.
+         *
+         * @param id the provider ID
+         * @param name the provider name
+         * @param street the street address
+         * @param city the city
+         * @param state the state
+         * @param zip the ZIP code
+         * @param size the size
+         * @param priceLevel the logarithm of the price level
+         * @param paymentLevel the logarithm of the payment level
+         */
+        Provider(int id, String name, String street, String city, String state, String zip, double size,
+                double priceLevel, double paymentLevel) {
+            this.id = id;
+            this.name = name;
+            this.street = street;
+            this.city = city;
+            this.state = state;
+            this.zip = zip;
+            this.size = size;
+            this.priceLevel = priceLevel;
+            this.paymentLevel = paymentLevel;
+        }
+
+        @Override
+        public Object[] getValues() {
+            return new Object[]{id, name, street, city, state, zip};
+        }
+    }
+
+    /**
+     * A classification and the shape of its charges
+     */
+    public static class Code implements Row {
+
+        /**
+         * The classification ID
+         */
+        private final int id;
+
+        /**
+         * The definition
+         */
+        private final String definition;
+
+        /**
+         * The median charge in dollars
+         */
+        private final double medianCharge;
+
+        /**
+         * The spread of the logarithm of the charges around the price level of
+         * the provider
+         */
+        private final double spread;
+
+        /**
+         * The share of the providers charging for the classification
+         */
+        private final double coverage;
+
+        /**
+         * The ratio of the payments to the median charge
+         */
+        private final double paymentRatio;
+
+        /**
+         * Creates a classification.
+         *
+         * @param id the classification ID
+         * @param definition the definition
+         * @param medianCharge the median charge in dollars
+         * @param spread the spread of the logarithm of the charges
+         * @param coverage the share of the providers
+         * @param paymentRatio the ratio of the payments to the median charge
+         */
+        Code(int id, String definition, double medianCharge, double spread, double coverage,
+                double paymentRatio) {
+            this.id = id;
+            this.definition = definition;
+            this.medianCharge = medianCharge;
+            this.spread = spread;
+            this.coverage = coverage;
+            this.paymentRatio = paymentRatio;
+        }
+
+        @Override
+        public Object[] getValues() {
+            return new Object[]{id, definition};
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.daniel.hospitalcharges.datagen;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class generates synthetic datasets for the performance tests. For
+ * each schema it writes a directory holding a SQL populator script and
+ * bulk-load files, so the procedures can be measured against data many times
+ * the size of the 2015 data. The same options always give the same data.
+ *
+ * <pre>
+ * java -jar datagen.jar --schema both --scale 10 --code-scale 1 --seed 1
+ *         --format sql,bulk --out dataset
+ * </pre>
+ *
+ * @author Bryan Daniel
+ */
+public class DatasetGenerator {
+
+    /**
+     * The schemas to generate
+     */
+    private final List<Schema> schemas = new ArrayList<>();
+
+    /**
+     * The providers relative to the 2015 data
+     */
+    private double scale = 1;
+
+    /**
+     * The classifications relative to the 2015 data
+     */
+    private double codeScale = 1;
+
+    /**
+     * The random seed
+     */
+    private long seed = 1;
+
+    /**
+     * Whether to write the SQL populator scripts
+     */
+    private boolean sql = true;
+
+    /**
+     * Whether to write the bulk-load files
+     */
+    private boolean bulk = true;
+
+    /**
+     * The output directory
+     */
+    private File directory = new File("dataset");
+
+    /**
+     * The output of the progress reports
+     */
+    private final PrintStream out;
+
+    /**
+     * Creates a generator reporting to the given output.
+     *
+     * @param out the output
+     */
+    public DatasetGenerator(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Generates the datasets.
+     *
+     * @param args the options, see the class description
+     */
+    public static void main(String[] args) {
+        DatasetGenerator generator = new DatasetGenerator(System.out);
+        try {
+            generator.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --schema inpatient|outpatient|both --scale FACTOR --code-scale FACTOR"
+                    + " --seed N --format sql|bulk|sql,bulk --out DIRECTORY");
+            System.exit(2);
+        }
+        try {
+            generator.run();
+        } catch (IOException e) {
+            System.err.println("The dataset could not be written: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the options.
+     *
+     * @param args the options
+     * @throws IllegalArgumentException if an option is unknown or malformed
+     */
+    void parse(String[] args) {
+        String schemaNames = "both";
+        String formats = "sql,bulk";
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (++i == args.length) {
+                throw new IllegalArgumentException("The option " + option + " has no value.");
+            }
+            String value = args[i];
+            try {
+                switch (option) {
+                    case "--schema":
+                        schemaNames = value;
+                        break;
+                    case "--scale":
+                        scale = Double.parseDouble(value);
+                        break;
+                    case "--code-scale":
+                        codeScale = Double.parseDouble(value);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--format":
+                        formats = value;
+                        break;
+                    case "--out":
+                        directory = new File(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + option + ".");
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The option " + option + " needs a number.");
+            }
+        }
+        if (scale <= 0 || codeScale <= 0) {
+            throw new IllegalArgumentException("The scales must be positive.");
+        }
+        if (schemaNames.equalsIgnoreCase("both")) {
+            schemas.add(Schema.INPATIENT);
+            schemas.add(Schema.OUTPATIENT);
+        } else {
+            schemas.add(Schema.forName(schemaNames));
+        }
+        sql = false;
+        bulk = false;
+        for (String format : formats.split(",")) {
+            switch (format.trim()) {
+                case "sql":
+                    sql = true;
+                    break;
+                case "bulk":
+                    bulk = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown format " + format + ".");
+            }
+        }
+    }
+
+    /**
+     * Generates and writes the dataset of every schema.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    void run() throws IOException {
+        String description = String.format(Locale.ROOT, "generated at scale %s, code scale %s and seed %d",
+                scale, codeScale, seed);
+        for (Schema schema : schemas) {
+            long start = System.nanoTime();
+            File schemaDirectory = new File(directory, schema.getName());
+            if (!schemaDirectory.isDirectory() && !schemaDirectory.mkdirs()) {
+                throw new IOException("The directory " + schemaDirectory + " cannot be created.");
+            }
+            Dataset dataset = Dataset.generate(schema, scale, codeScale, seed);
+
+            List<DatasetWriter> writers = new ArrayList<>();
+            try {
+                if (sql) {
+                    writers.add(new SqlPopulatorWriter(schema, schemaDirectory, description));
+                }
+                if (bulk) {
+                    writers.add(new BulkLoadWriter(schema, schemaDirectory, description));
+                }
+                for (DatasetWriter writer : writers) {
+                    writer.writeReferenceData(dataset);
+                }
+                long charges = dataset.writeCharges(writers.toArray(new DatasetWriter[writers.size()]));
+                out.printf(Locale.ROOT, "%s: %d states, %d regions, %d referral regions, %d providers,"
+                        + " %d %ss, %d charges in %.1f s, written to %s%n", schema.getName(),
+                        dataset.getStates().size(), dataset.getRegions().size(),
+                        dataset.getReferralRegionCount(), dataset.getProviders().size(),
+                        dataset.getCodes().size(), schema.getCodeTable(), charges,
+                        (System.nanoTime() - start) / 1e9, schemaDirectory);
+            } finally {
+                for (DatasetWriter writer : writers) {
+                    writer.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.daniel.hospitalcharges.datagen;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * This interface is a destination of a generated dataset. The states,
+ * regions, providers and classifications are written first, then every
+ * charge, and closing the writer completes the output.
+ *
+ * @author Bryan Daniel
+ */
+public interface DatasetWriter extends Closeable {
+
+    /**
+     * Writes the states, regions, providers and classifications of a dataset.
+     *
+     * @param dataset the dataset
+     * @throws IOException if the output cannot be written
+     */
+    public void writeReferenceData(Dataset dataset) throws IOException;
+
+    /**
+     * Writes a charge.
+     *
+     * @param codeId the classification ID
+     * @param providerId the provider ID
+     * @param charges the average charges in cents
+     * @param payments the average payments in cents
+     * @param medicarePayments the average Medicare payments in cents, left out
+     * by schemas without them
+     * @throws IOException if the output cannot be written
+     */
+    public void writeCharge(int codeId, int providerId, long charges, long payments, long medicarePayments)
+            throws IOException;
+}
@@ -0,0 +1,199 @@
+package com.daniel.hospitalcharges.datagen;
+
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class makes up the names of the generated data: cities, hospitals,
+ * streets and classification definitions, in the style of the CMS data.
+ *
+ * @author Bryan Daniel
+ */
+public class Names {
+
+    /**
+     * The longest name the name columns hold
+     */
+    public static final int MAXIMUM_LENGTH = 50;
+
+    /**
+     * The first parts of city names
+     */
+    private static final String[] CITY_STARTS = {"Ash", "Bel", "Brook", "Cam", "Cedar", "Clay", "Dal", "Eden",
+        "Fair", "Frank", "Glen", "Green", "Hamp", "Har", "Kings", "Lake", "Lin", "Mar", "Mill", "New", "Oak",
+        "Pine", "Red", "River", "Rock", "Spring", "Stan", "Sum", "West", "Wood"};
+
+    /**
+     * The last parts of city names
+     */
+    private static final String[] CITY_ENDS = {"ton", "ville", "field", "port", "burg", "dale", "wood", "ford",
+        "view", "mont", "land", "haven", " City", " Falls", " Springs"};
+
+    /**
+     * The prefixes distinguishing cities of the same name
+     */
+    private static final String[] CITY_PREFIXES = {"", "North ", "South ", "East ", "West ", "Port ", "Mount ",
+        "Lake "};
+
+    /**
+     * The family names of hospital founders
+     */
+    private static final String[] FOUNDERS = {"Baptist", "Mercy", "St Joseph", "St Mary's", "Providence",
+        "Methodist", "Presbyterian", "Good Samaritan", "Sacred Heart", "St Luke's", "Adventist", "Memorial"};
+
+    /**
+     * The kinds of hospitals
+     */
+    private static final String[] HOSPITAL_KINDS = {"Medical Center", "Regional Medical Center", "Hospital",
+        "Community Hospital", "Memorial Hospital", "General Hospital", "Regional Hospital", "Health System"};
+
+    /**
+     * The street names
+     */
+    private static final String[] STREETS = {"Main", "Oak", "Hospital", "Park", "Washington", "Lake", "Hill",
+        "Church", "Highland", "Maple", "Elm", "Pine", "Cedar", "Union", "Jefferson", "Medical Center"};
+
+    /**
+     * The street kinds
+     */
+    private static final String[] STREET_KINDS = {"Street", "Avenue", "Road", "Drive", "Boulevard", "Circle",
+        "Parkway"};
+
+    /**
+     * The inpatient conditions
+     */
+    private static final String[] CONDITIONS = {"SEPTICEMIA OR SEVERE SEPSIS W/O MV 96+ HOURS",
+        "HEART FAILURE & SHOCK", "SIMPLE PNEUMONIA & PLEURISY", "KIDNEY & URINARY TRACT INFECTIONS",
+        "G.I. HEMORRHAGE", "CELLULITIS", "SYNCOPE & COLLAPSE", "RENAL FAILURE",
+        "ESOPHAGITIS, GASTROENT & MISC DIGEST DISORDERS", "MAJOR JOINT REPLACEMENT OR REATTACHMENT OF LOWER EXTREMITY",
+        "PERMANENT CARDIAC PACEMAKER IMPLANT", "CARDIAC ARRHYTHMIA & CONDUCTION DISORDERS",
+        "CHRONIC OBSTRUCTIVE PULMONARY DISEASE", "INTRACRANIAL HEMORRHAGE OR CEREBRAL INFARCTION",
+        "DIABETES", "NUTRITIONAL & MISC METABOLIC DISORDERS", "RESPIRATORY INFECTIONS & INFLAMMATIONS",
+        "PERC CARDIOVASC PROC W DRUG-ELUTING STENT", "SPINAL FUSION EXCEPT CERVICAL",
+        "DISORDERS OF PANCREAS EXCEPT MALIGNANCY", "PULMONARY EMBOLISM", "CIRCULATORY DISORDERS EXCEPT AMI",
+        "SEIZURES", "HIP & FEMUR PROCEDURES EXCEPT MAJOR JOINT", "OTHER VASCULAR PROCEDURES"};
+
+    /**
+     * The inpatient severities
+     */
+    private static final String[] SEVERITIES = {"W MCC", "W CC", "W/O MCC", "W/O CC/MCC"};
+
+    /**
+     * The outpatient services
+     */
+    private static final String[] SERVICES = {"Debridement & Destruction", "Excision/ Biopsy",
+        "Endoscopy Upper Airway", "Nerve Injections", "Eye Tests & Treatments",
+        "Diagnostic and Screening Ultrasound", "Echocardiogram Without Contrast", "Pulmonary Tests",
+        "Cardiac Imaging", "Examinations & Related Services", "Drug Administration", "Hospital Clinic Visits",
+        "Imaging without Contrast", "Minor Procedures", "Radiation Therapy", "Urology and Related Services"};
+
+    /**
+     * The outpatient levels
+     */
+    private static final String[] LEVELS = {"I", "II", "III", "IV"};
+
+    // not called
+    private Names() {
+    }
+
+    /**
+     * Makes up a city name not yet used.
+     *
+     * @param random the random generator
+     * @param used the names used, to which the new name is added
+     * @return the city name
+     */
+    public static String city(Random random, Set<String> used) {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            //prefixes are used only once the plain names grow scarce
+            String prefix = CITY_PREFIXES[attempt < 10 ? 0 : random.nextInt(CITY_PREFIXES.length)];
+            String name = prefix + pick(CITY_STARTS, random) + pick(CITY_ENDS, random);
+            if (used.add(name)) {
+                return name;
+            }
+        }
+        String name = pick(CITY_STARTS, random) + pick(CITY_ENDS, random) + " " + (used.size() + 1);
+        used.add(name);
+        return name;
+    }
+
+    /**
+     * Makes up a hospital name.
+     *
+     * @param city the city of the hospital
+     * @param random the random generator
+     * @return the hospital name
+     */
+    public static String hospital(String city, Random random) {
+        String name;
+        switch (random.nextInt(3)) {
+            case 0:
+                name = pick(FOUNDERS, random) + " " + pick(HOSPITAL_KINDS, random);
+                break;
+            case 1:
+                name = pick(FOUNDERS, random) + " " + city + " " + pick(HOSPITAL_KINDS, random);
+                break;
+            default:
+                name = city + " " + pick(HOSPITAL_KINDS, random);
+                break;
+        }
+        return truncate(name);
+    }
+
+    /**
+     * Makes up a street address.
+     *
+     * @param random the random generator
+     * @return the street address
+     */
+    public static String street(Random random) {
+        return (1 + random.nextInt(9999)) + " " + pick(STREETS, random) + " " + pick(STREET_KINDS, random);
+    }
+
+    /**
+     * Makes up the definition of a classification. The definitions of the
+     * first few classifications of a schema differ; later ones are numbered
+     * variants.
+     *
+     * @param schema the schema
+     * @param id the classification ID
+     * @param index the position of the classification
+     * @return the definition
+     */
+    public static String definition(Schema schema, int id, int index) {
+        String definition;
+        int variant;
+        if (schema == Schema.INPATIENT) {
+            int kinds = CONDITIONS.length * SEVERITIES.length;
+            variant = index / kinds;
+            definition = String.format("%03d - %s %s", id, CONDITIONS[index % kinds / SEVERITIES.length],
+                    SEVERITIES[index % SEVERITIES.length]);
+        } else {
+            int kinds = SERVICES.length * LEVELS.length;
+            variant = index / kinds;
+            definition = "Level " + LEVELS[index % LEVELS.length] + " " + SERVICES[index % kinds / LEVELS.length];
+        }
+        return variant == 0 ? definition : definition + " (Variant " + variant + ")";
+    }
+
+    /**
+     * Picks one of the values at random.
+     *
+     * @param values the values
+     * @param random the random generator
+     * @return the value
+     */
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Shortens a name to the length of the name columns.
+     *
+     * @param name the name
+     * @return the name, shortened if needed
+     */
+    public static String truncate(String name) {
+        return name.length() <= MAXIMUM_LENGTH ? name : name.substring(0, MAXIMUM_LENGTH).trim();
+    }
+}
@@ -0,0 +1,329 @@
+package com.daniel.hospitalcharges.datagen;
+
+/**
+ * This enum describes the two charge databases a dataset is generated for:
+ * their table and column names and the shape of their 2015 charge data, which
+ * the generated data follows at scale 1.
+ *
+ * @author Bryan Daniel
+ */
+public enum Schema {
+
+    /**
+     * The inpatient database, charges by DRG
+     */
+    INPATIENT("inpatient", "hospital_hospitalcharges", "DRG", "drg_id", "drg_definition", true,
+            99999999999L, 1.13, 100, 999, 30000, 0.6, 0.15, 0.95, 0.18, 0.35),
+    /**
+     * The outpatient database, charges by APC
+     */
+    OUTPATIENT("outpatient", "hospital_outpatient", "APC", "apc_id", "apc_definition", false,
+            9999999999L, 0.98, 28, 9999, 1200, 1.0, 0.01, 1.0, 0.12, 0.45);
+
+    /**
+     * The name of the schema
+     */
+    private final String name;
+
+    /**
+     * The name of the database
+     */
+    private final String database;
+
+    /**
+     * The classification table, DRG or APC
+     */
+    private final String codeTable;
+
+    /**
+     * The classification ID column
+     */
+    private final String codeColumn;
+
+    /**
+     * The classification definition column
+     */
+    private final String definitionColumn;
+
+    /**
+     * Whether charges have a Medicare payment column
+     */
+    private final boolean medicarePayments;
+
+    /**
+     * The largest amount in cents the charge columns hold
+     */
+    private final long maximumAmount;
+
+    /**
+     * The providers of the schema relative to the providers of the state
+     * profiles
+     */
+    private final double providerFactor;
+
+    /**
+     * The number of classifications at scale 1
+     */
+    private final int codeCount;
+
+    /**
+     * The largest classification ID at scale 1
+     */
+    private final int codeLimit;
+
+    /**
+     * The median of the classification median charges in dollars
+     */
+    private final double medianCharge;
+
+    /**
+     * The standard deviation of the logarithms of the classification median
+     * charges
+     */
+    private final double medianSpread;
+
+    /**
+     * The smallest share of providers charging for a classification
+     */
+    private final double minimumCoverage;
+
+    /**
+     * The largest share of providers charging for a classification
+     */
+    private final double maximumCoverage;
+
+    /**
+     * The smallest ratio of payments to charges of a classification
+     */
+    private final double minimumPaymentRatio;
+
+    /**
+     * The largest ratio of payments to charges of a classification
+     */
+    private final double maximumPaymentRatio;
+
+    /**
+     * Sets the names and the data shape of the schema.
+     *
+     * @param name the name of the schema
+     * @param database the database
+     * @param codeTable the classification table
+     * @param codeColumn the classification ID column
+     * @param definitionColumn the classification definition column
+     * @param medicarePayments whether Medicare payments are recorded
+     * @param maximumAmount the largest amount in cents of the charge columns
+     * @param providerFactor the providers relative to the state profiles
+     * @param codeCount the number of classifications at scale 1
+     * @param codeLimit the largest classification ID at scale 1
+     * @param medianCharge the median classification charge in dollars
+     * @param medianSpread the spread of the classification charges
+     * @param minimumCoverage the smallest share of providers of a
+     * classification
+     * @param maximumCoverage the largest share of providers of a
+     * classification
+     * @param minimumPaymentRatio the smallest payment ratio
+     * @param maximumPaymentRatio the largest payment ratio
+     */
+    private Schema(String name, String database, String codeTable, String codeColumn, String definitionColumn,
+            boolean medicarePayments, long maximumAmount, double providerFactor, int codeCount, int codeLimit,
+            double medianCharge, double medianSpread, double minimumCoverage, double maximumCoverage,
+            double minimumPaymentRatio, double maximumPaymentRatio) {
+        this.name = name;
+        this.database = database;
+        this.codeTable = codeTable;
+        this.codeColumn = codeColumn;
+        this.definitionColumn = definitionColumn;
+        this.medicarePayments = medicarePayments;
+        this.maximumAmount = maximumAmount;
+        this.providerFactor = providerFactor;
+        this.codeCount = codeCount;
+        this.codeLimit = codeLimit;
+        this.medianCharge = medianCharge;
+        this.medianSpread = medianSpread;
+        this.minimumCoverage = minimumCoverage;
+        this.maximumCoverage = maximumCoverage;
+        this.minimumPaymentRatio = minimumPaymentRatio;
+        this.maximumPaymentRatio = maximumPaymentRatio;
+    }
+
+    /**
+     * Returns the schema with the given name.
+     *
+     * @param name inpatient or outpatient
+     * @return the schema
+     * @throws IllegalArgumentException if there is no such schema
+     */
+    public static Schema forName(String name) {
+        for (Schema schema : values()) {
+            if (schema.name.equalsIgnoreCase(name)) {
+                return schema;
+            }
+        }
+        throw new IllegalArgumentException("There is no schema named " + name + ".");
+    }
+
+    /**
+     * Returns the name of the schema.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the name of the database.
+     *
+     * @return the database
+     */
+    public String getDatabase() {
+        return database;
+    }
+
+    /**
+     * Returns the classification table.
+     *
+     * @return DRG or APC
+     */
+    public String getCodeTable() {
+        return codeTable;
+    }
+
+    /**
+     * Returns the columns of a table in the order of the database script.
+     *
+     * @param table the table
+     * @return the columns
+     */
+    public String[] getColumns(String table) {
+        switch (table) {
+            case "State":
+                return new String[]{"state"};
+            case "Region":
+                return new String[]{"provider_city", "provider_state", "provider_hrr"};
+            case "Provider":
+                return new String[]{"provider_id", "provider_name", "provider_street", "provider_city",
+                    "provider_state", "provider_zip"};
+            case "Charge":
+                return medicarePayments
+                        ? new String[]{codeColumn, "provider_id", "avg_charges", "avg_payments",
+                            "avg_medicare_payments"}
+                        : new String[]{codeColumn, "provider_id", "avg_charges", "avg_payments"};
+            default:
+                if (table.equals(codeTable)) {
+                    return new String[]{codeColumn, definitionColumn};
+                }
+                throw new IllegalArgumentException("There is no table named " + table + ".");
+        }
+    }
+
+    /**
+     * Returns the tables in the order they are populated.
+     *
+     * @return the tables
+     */
+    public String[] getTables() {
+        return new String[]{"State", "Region", "Provider", codeTable, "Charge"};
+    }
+
+    /**
+     * Indicates whether charges have a Medicare payment column.
+     *
+     * @return true for the inpatient schema
+     */
+    public boolean hasMedicarePayments() {
+        return medicarePayments;
+    }
+
+    /**
+     * Returns the largest amount in cents the charge columns hold.
+     *
+     * @return the maximum amount
+     */
+    public long getMaximumAmount() {
+        return maximumAmount;
+    }
+
+    /**
+     * Returns the providers of the schema relative to the providers of the
+     * state profiles.
+     *
+     * @return the provider factor
+     */
+    public double getProviderFactor() {
+        return providerFactor;
+    }
+
+    /**
+     * Returns the number of classifications at scale 1.
+     *
+     * @return the classification count
+     */
+    public int getCodeCount() {
+        return codeCount;
+    }
+
+    /**
+     * Returns the largest classification ID at scale 1.
+     *
+     * @return the classification ID limit
+     */
+    public int getCodeLimit() {
+        return codeLimit;
+    }
+
+    /**
+     * Returns the median of the classification median charges in dollars.
+     *
+     * @return the median charge
+     */
+    public double getMedianCharge() {
+        return medianCharge;
+    }
+
+    /**
+     * Returns the standard deviation of the logarithms of the classification
+     * median charges.
+     *
+     * @return the median spread
+     */
+    public double getMedianSpread() {
+        return medianSpread;
+    }
+
+    /**
+     * Returns the smallest share of providers charging for a classification.
+     *
+     * @return the minimum coverage
+     */
+    public double getMinimumCoverage() {
+        return minimumCoverage;
+    }
+
+    /**
+     * Returns the largest share of providers charging for a classification.
+     *
+     * @return the maximum coverage
+     */
+    public double getMaximumCoverage() {
+        return maximumCoverage;
+    }
+
+    /**
+     * Returns the smallest ratio of payments to charges of a classification.
+     *
+     * @return the minimum payment ratio
+     */
+    public double getMinimumPaymentRatio() {
+        return minimumPaymentRatio;
+    }
+
+    /**
+     * Returns the largest ratio of payments to charges of a classification.
+     *
+     * @return the maximum payment ratio
+     */
+    public double getMaximumPaymentRatio() {
+        return maximumPaymentRatio;
+    }
+}
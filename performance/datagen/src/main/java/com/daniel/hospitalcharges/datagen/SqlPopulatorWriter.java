@@ -0,0 +1,167 @@
+package com.daniel.hospitalcharges.datagen;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class writes a dataset as a SQL script populating the tables, in the
+ * format of outpatientpopulator.sql, for example outpatientpopulator.sql in
+ * the output directory. The script runs after the database script of the
+ * schema. Rows are inserted in statements of a limited number of rows, so
+ * large datasets stay within the packet size of the server. The script can
+ * also be loaded by the embedded data mode of the application.
+ *
+ * @author Bryan Daniel
+ */
+public class SqlPopulatorWriter implements DatasetWriter {
+
+    /**
+     * The largest number of rows of an INSERT statement
+     */
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    /**
+     * The schema
+     */
+    private final Schema schema;
+
+    /**
+     * The script output
+     */
+    private final Writer out;
+
+    /**
+     * The table of the INSERT statement being written or null
+     */
+    private String table;
+
+    /**
+     * The rows of the INSERT statement being written
+     */
+    private int rows;
+
+    /**
+     * Creates the script file and writes its header.
+     *
+     * @param schema the schema
+     * @param directory the output directory
+     * @param description the description of the dataset for the header
+     * @throws IOException if the file cannot be created
+     */
+    public SqlPopulatorWriter(Schema schema, File directory, String description) throws IOException {
+        this.schema = schema;
+        File file = new File(directory, schema.getName() + "populator.sql");
+        out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8),
+                1 << 16);
+        out.write("/***************************************************************************\n");
+        out.write("* Populate the " + schema.getDatabase() + " database with a synthetic dataset\n");
+        out.write("* " + description + "\n");
+        out.write("*****************************************************************************/\n\n");
+        out.write("USE " + schema.getDatabase() + ";\n");
+        out.write("SET foreign_key_checks = 0;\n");
+    }
+
+    @Override
+    public void writeReferenceData(Dataset dataset) throws IOException {
+        for (String state : dataset.getStates()) {
+            writeRow("State", state);
+        }
+        for (Dataset.Region region : dataset.getRegions()) {
+            writeRow("Region", region.getValues());
+        }
+        for (Dataset.Provider provider : dataset.getProviders()) {
+            writeRow("Provider", provider.getValues());
+        }
+        for (Dataset.Code code : dataset.getCodes()) {
+            writeRow(schema.getCodeTable(), code.getValues());
+        }
+    }
+
+    @Override
+    public void writeCharge(int codeId, int providerId, long charges, long payments, long medicarePayments)
+            throws IOException {
+        startRow("Charge");
+        out.write(Integer.toString(codeId));
+        out.write(',');
+        out.write(Integer.toString(providerId));
+        out.write(',');
+        out.write(Dataset.formatCents(charges));
+        out.write(',');
+        out.write(Dataset.formatCents(payments));
+        if (schema.hasMedicarePayments()) {
+            out.write(',');
+            out.write(Dataset.formatCents(medicarePayments));
+        }
+        out.write(')');
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            endStatement();
+            out.write("\nSET foreign_key_checks = 1;\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes a row of quoted strings and numbers.
+     *
+     * @param table the table
+     * @param values the column values
+     * @throws IOException if the row cannot be written
+     */
+    private void writeRow(String table, Object... values) throws IOException {
+        startRow(table);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (values[i] instanceof Number) {
+                out.write(values[i].toString());
+            } else {
+                out.write('\'');
+                out.write(values[i].toString().replace("\\", "\\\\").replace("'", "''"));
+                out.write('\'');
+            }
+        }
+        out.write(')');
+    }
+
+    /**
+     * Starts a row, beginning a new INSERT statement when the table changes or
+     * the statement is full.
+     *
+     * @param rowTable the table of the row
+     * @throws IOException if the output cannot be written
+     */
+    private void startRow(String rowTable) throws IOException {
+        if (!rowTable.equals(table) || rows == ROWS_PER_STATEMENT) {
+            endStatement();
+            out.write("\nINSERT INTO " + rowTable + " VALUES (");
+            table = rowTable;
+        } else {
+            out.write("\n,(");
+        }
+        rows++;
+    }
+
+    /**
+     * Ends the INSERT statement being written, if any.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    private void endStatement() throws IOException {
+        if (table != null) {
+            out.write("\n;\n");
+            table = null;
+            rows = 0;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.daniel.hospitalcharges.datagen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds the shape of a state in the 2015 charge data: its number
+ * of providers, cities and hospital referral regions and the first three
+ * digits of its ZIP codes. The counts are taken from the 2015 outpatient
+ * data; Maryland, which has no outpatient charges, is given the counts of a
+ * state of its size.
+ *
+ * @author Bryan Daniel
+ */
+public class StateProfile {
+
+    /**
+     * The profiles of the states in alphabetical order
+     */
+    private static final List<StateProfile> PROFILES;
+
+    static {
+        Object[][] rows = {
+            {"AK", 6, 5, 1, 995},
+            {"AL", 78, 66, 10, 350},
+            {"AR", 43, 36, 7, 716},
+            {"AZ", 47, 26, 5, 850},
+            {"CA", 244, 182, 26, 900},
+            {"CO", 43, 33, 8, 800},
+            {"CT", 27, 25, 3, 60},
+            {"DC", 7, 1, 1, 200},
+            {"DE", 5, 5, 2, 197},
+            {"FL", 160, 112, 19, 320},
+            {"GA", 93, 81, 11, 300},
+            {"HI", 11, 9, 1, 967},
+            {"IA", 34, 25, 10, 500},
+            {"ID", 10, 9, 4, 832},
+            {"IL", 122, 82, 18, 600},
+            {"IN", 79, 58, 11, 460},
+            {"KS", 47, 36, 6, 660},
+            {"KY", 62, 55, 9, 400},
+            {"LA", 80, 51, 10, 700},
+            {"MA", 52, 42, 5, 10},
+            {"MD", 46, 40, 5, 206},
+            {"ME", 18, 14, 2, 39},
+            {"MI", 88, 74, 17, 480},
+            {"MN", 43, 40, 8, 550},
+            {"MO", 65, 53, 7, 630},
+            {"MS", 52, 46, 10, 386},
+            {"MT", 11, 8, 3, 591},
+            {"NC", 79, 67, 11, 270},
+            {"ND", 6, 4, 4, 581},
+            {"NE", 22, 12, 3, 680},
+            {"NH", 13, 11, 3, 30},
+            {"NJ", 57, 57, 10, 70},
+            {"NM", 21, 17, 3, 871},
+            {"NV", 20, 8, 3, 890},
+            {"NY", 123, 102, 17, 100},
+            {"OH", 118, 92, 13, 430},
+            {"OK", 75, 53, 8, 730},
+            {"OR", 32, 25, 6, 970},
+            {"PA", 140, 108, 16, 150},
+            {"RI", 11, 8, 1, 28},
+            {"SC", 53, 42, 8, 290},
+            {"SD", 15, 10, 3, 570},
+            {"TN", 88, 68, 8, 370},
+            {"TX", 261, 159, 24, 750},
+            {"UT", 29, 24, 3, 840},
+            {"VA", 70, 60, 11, 201},
+            {"VT", 6, 6, 3, 52},
+            {"WA", 47, 34, 7, 980},
+            {"WI", 65, 48, 9, 530},
+            {"WV", 27, 23, 6, 247},
+            {"WY", 10, 9, 4, 820}
+        };
+        List<StateProfile> profiles = new ArrayList<>();
+        for (Object[] row : rows) {
+            profiles.add(new StateProfile((String) row[0], (Integer) row[1], (Integer) row[2],
+                    (Integer) row[3], (Integer) row[4]));
+        }
+        PROFILES = Collections.unmodifiableList(profiles);
+    }
+
+    /**
+     * The state abbreviation
+     */
+    private final String state;
+
+    /**
+     * The number of providers
+     */
+    private final int providers;
+
+    /**
+     * The number of cities
+     */
+    private final int cities;
+
+    /**
+     * The number of hospital referral regions
+     */
+    private final int referralRegions;
+
+    /**
+     * The first three digits of the ZIP codes
+     */
+    private final int zipPrefix;
+
+    /**
+     * Creates a state profile.
+     *
+     * @param state the state abbreviation
+     * @param providers the number of providers
+     * @param cities the number of cities
+     * @param referralRegions the number of hospital referral regions
+     * @param zipPrefix the first three digits of the ZIP codes
+     */
+    private StateProfile(String state, int providers, int cities, int referralRegions, int zipPrefix) {
+        this.state = state;
+        this.providers = providers;
+        this.cities = cities;
+        this.referralRegions = referralRegions;
+        this.zipPrefix = zipPrefix;
+    }
+
+    /**
+     * Returns the profiles of the states in alphabetical order.
+     *
+     * @return the profiles
+     */
+    public static List<StateProfile> getProfiles() {
+        return PROFILES;
+    }
+
+    /**
+     * Returns the state abbreviation.
+     *
+     * @return the state
+     */
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of providers.
+     *
+     * @return the providers
+     */
+    public int getProviders() {
+        return providers;
+    }
+
+    /**
+     * Returns the number of cities.
+     *
+     * @return the cities
+     */
+    public int getCities() {
+        return cities;
+    }
+
+    /**
+     * Returns the number of hospital referral regions.
+     *
+     * @return the referral regions
+     */
+    public int getReferralRegions() {
+        return referralRegions;
+    }
+
+    /**
+     * Returns the first three digits of the ZIP codes.
+     *
+     * @return the ZIP prefix
+     */
+    public int getZipPrefix() {
+        return zipPrefix;
+    }
+}
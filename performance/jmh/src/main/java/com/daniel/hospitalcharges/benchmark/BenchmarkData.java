@@ -0,0 +1,300 @@
+package com.daniel.hospitalcharges.benchmark;
+
+import com.daniel.hospitalcharges.benchmark.jdbc.SyntheticDatabase;
+import com.daniel.hospitalcharges.benchmark.jdbc.SyntheticTable;
+import com.daniel.hospitalcharges.data.access.RowMappers;
+import com.daniel.hospitalcharges.data.memory.ChargeEngine;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineLoader;
+import com.daniel.hospitalcharges.data.memory.ChargeSchema;
+import com.daniel.hospitalcharges.model.Provider;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class generates a seeded inpatient dataset for the benchmarks, shaped
+ * like the CMS inpatient charge data: providers spread over cities of a few
+ * states, each charging for every DRG with amounts drawn from a skewed
+ * distribution. The same seed and size always give the same data, so results
+ * of separate runs are comparable. The data is offered both as a charge
+ * engine and as the result sets of the stored procedures.
+ *
+ * @author Bryan Daniel
+ */
+public class BenchmarkData {
+
+    /**
+     * The seed used by the benchmarks
+     */
+    public static final long SEED = 20131231L;
+
+    /**
+     * The states of the providers
+     */
+    private static final String[] STATES = {"AL", "CA", "NY", "TX", "WA"};
+
+    /**
+     * The number of cities of each state
+     */
+    private static final int CITIES_PER_STATE = 8;
+
+    /**
+     * The number of DRGs
+     */
+    private static final int DRG_COUNT = 20;
+
+    /**
+     * The ID of the first DRG
+     */
+    public static final int FIRST_DRG_ID = 39;
+
+    /**
+     * The state of the regional lookups
+     */
+    public static final String STATE = STATES[0];
+
+    /**
+     * The city of the regional lookups
+     */
+    public static final String CITY = city(STATE, 0);
+
+    /**
+     * The providers
+     */
+    private final ArrayList<Provider> providers = new ArrayList<>();
+
+    /**
+     * The average charges, payments and Medicare payments in cents, by DRG and
+     * provider
+     */
+    private final long[][][] amounts;
+
+    /**
+     * Generates a dataset.
+     *
+     * @param seed the random seed
+     * @param providerCount the number of providers
+     */
+    public BenchmarkData(long seed, int providerCount) {
+        Random random = new Random(seed);
+        for (int i = 0; i < providerCount; i++) {
+            Provider provider = new Provider();
+            String state = STATES[i % STATES.length];
+            provider.setId(10001 + i);
+            provider.setName("GENERAL HOSPITAL " + (i + 1));
+            provider.setStreet((100 + random.nextInt(9900)) + " MAIN STREET");
+            provider.setState(state);
+            //the first city of each state has a larger share of the providers
+            int city = random.nextInt(3) == 0 ? 0 : random.nextInt(CITIES_PER_STATE);
+            provider.setCity(city(state, city));
+            provider.setZipCode(String.format("%05d", 10000 + random.nextInt(89999)));
+            providers.add(provider);
+        }
+        amounts = new long[DRG_COUNT][providerCount][3];
+        for (int drg = 0; drg < DRG_COUNT; drg++) {
+            double base = 5000 + random.nextInt(45000);
+            for (int p = 0; p < providerCount; p++) {
+                //charges are log-normally spread around the DRG base charge
+                long charges = Math.round(base * Math.exp(random.nextGaussian() * 0.5) * 100);
+                long payments = Math.round(charges * (0.15 + random.nextDouble() * 0.2));
+                long medicarePayments = Math.round(payments * (0.75 + random.nextDouble() * 0.2));
+                amounts[drg][p][0] = charges;
+                amounts[drg][p][1] = payments;
+                amounts[drg][p][2] = medicarePayments;
+            }
+        }
+    }
+
+    /**
+     * Returns the providers.
+     *
+     * @return the providers
+     */
+    public ArrayList<Provider> getProviders() {
+        return providers;
+    }
+
+    /**
+     * Returns the number of charges of each DRG.
+     *
+     * @return the charge count
+     */
+    public int getChargeCount() {
+        return providers.size();
+    }
+
+    /**
+     * Builds an inpatient charge engine holding the dataset.
+     *
+     * @return the charge engine
+     */
+    public ChargeEngine buildEngine() {
+        ChargeEngineLoader loader = new ChargeEngineLoader(ChargeSchema.INPATIENT);
+        for (String state : STATES) {
+            for (int city = 0; city < CITIES_PER_STATE; city++) {
+                loader.addRegion(city(state, city), state, state + " - " + city(state, 0));
+            }
+        }
+        for (Provider provider : providers) {
+            loader.addProvider(provider.getId(), provider.getName(), provider.getStreet(),
+                    provider.getCity(), provider.getState(), provider.getZipCode());
+        }
+        for (int drg = 0; drg < DRG_COUNT; drg++) {
+            loader.addClassification(FIRST_DRG_ID + drg, definition(drg));
+            for (int p = 0; p < providers.size(); p++) {
+                long[] charge = amounts[drg][p];
+                loader.addCharge(FIRST_DRG_ID + drg, providers.get(p).getId(), charge[0], charge[1], charge[2]);
+            }
+        }
+        return loader.build();
+    }
+
+    /**
+     * Builds a database answering the inpatient procedures with result sets
+     * of the given number of rows, as the MySQL procedures would shape them.
+     *
+     * @param rows the number of rows of the provider and regional charge
+     * result sets, at most the number of providers
+     * @return the database
+     */
+    public SyntheticDatabase buildDatabase(int rows) {
+        SyntheticDatabase database = new SyntheticDatabase();
+        rows = Math.min(rows, providers.size());
+
+        SyntheticTable drgs = new SyntheticTable("drg id", "drg definition");
+        for (int drg = 0; drg < DRG_COUNT; drg++) {
+            drgs.addRow(FIRST_DRG_ID + drg, definition(drg));
+        }
+        database.register("getDRGs", drgs);
+
+        SyntheticTable providerTable = new SyntheticTable(RowMappers.getProviderLabels("provider id"));
+        SyntheticTable regionalCharges = new SyntheticTable(RowMappers.concat(
+                RowMappers.getProviderLabels("provider id"), "drg id", "drg definition",
+                "avg charges", "avg payments", "avg medicare payments"));
+        for (int p = 0; p < rows; p++) {
+            Provider provider = providers.get(p);
+            long[] charge = amounts[0][p];
+            providerTable.addRow(providerValues(provider));
+            regionalCharges.addRow(concat(providerValues(provider), FIRST_DRG_ID, definition(0),
+                    cents(charge[0]), cents(charge[1]), cents(charge[2])));
+        }
+        database.register("getProviders", providerTable);
+        database.register("getRegionalCharges", regionalCharges);
+
+        long[] charge = amounts[0][0];
+        database.register("getCharges",
+                new SyntheticTable("avg charges", "avg payments", "avg medicare payments")
+                .addRow(cents(charge[0]), cents(charge[1]), cents(charge[2])),
+                new SyntheticTable("avg charges percentile").addRow("0.5000"),
+                new SyntheticTable("avg payments percentile").addRow("0.5000"),
+                new SyntheticTable("avg medicare payments percentile").addRow("0.5000"));
+
+        database.register("getDRGStats", buildStatisticsTables(0));
+        return database;
+    }
+
+    /**
+     * Builds the four result sets of getDRGStats for a DRG: the single
+     * statistics, every charge, and the maximum and minimum charge providers.
+     *
+     * @param drg the DRG position
+     * @return the result sets
+     */
+    private SyntheticTable[] buildStatisticsTables(int drg) {
+        SyntheticTable charges = new SyntheticTable("avg charges");
+        long sum = 0;
+        int minimum = 0;
+        int maximum = 0;
+        for (int p = 0; p < providers.size(); p++) {
+            long value = amounts[drg][p][0];
+            charges.addRow(cents(value));
+            sum += value;
+            if (value < amounts[drg][minimum][0]) {
+                minimum = p;
+            }
+            if (value > amounts[drg][maximum][0]) {
+                maximum = p;
+            }
+        }
+        long min = amounts[drg][minimum][0];
+        long max = amounts[drg][maximum][0];
+        SyntheticTable stats = new SyntheticTable("avg charge", "median", "std deviation", "range",
+                "min charge", "max charge");
+        stats.addRow(cents(sum / providers.size()), cents((min + max) / 2), cents((max - min) / 4),
+                cents(max - min), cents(min), cents(max));
+        return new SyntheticTable[]{
+            stats,
+            charges,
+            new SyntheticTable(RowMappers.getProviderLabels("max provider id"))
+            .addRow(providerValues(providers.get(maximum))),
+            new SyntheticTable(RowMappers.getProviderLabels("min provider id"))
+            .addRow(providerValues(providers.get(minimum)))
+        };
+    }
+
+    /**
+     * Returns the ID of a DRG.
+     *
+     * @param drg the DRG position
+     * @return the ID
+     */
+    public static int drgId(int drg) {
+        return FIRST_DRG_ID + drg;
+    }
+
+    /**
+     * Returns the definition of a DRG.
+     *
+     * @param drg the DRG position
+     * @return the definition
+     */
+    private static String definition(int drg) {
+        return String.format("%03d - SYNTHETIC DIAGNOSIS %d W MCC", FIRST_DRG_ID + drg, drg + 1);
+    }
+
+    /**
+     * Returns the name of a city of a state.
+     *
+     * @param state the state
+     * @param city the city number
+     * @return the city name
+     */
+    private static String city(String state, int city) {
+        return state + " CITY " + (city + 1);
+    }
+
+    /**
+     * Formats an amount in cents as the database sends a decimal.
+     *
+     * @param cents the amount in cents
+     * @return the decimal text
+     */
+    private static String cents(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+
+    /**
+     * Returns the values of the provider columns.
+     *
+     * @param provider the provider
+     * @return the values
+     */
+    private static Object[] providerValues(Provider provider) {
+        return new Object[]{provider.getId(), provider.getName(), provider.getStreet(),
+            provider.getCity(), provider.getState(), provider.getZipCode()};
+    }
+
+    /**
+     * Appends values to an array of column values.
+     *
+     * @param first the column values
+     * @param rest the values appended
+     * @return the joined values
+     */
+    private static Object[] concat(Object[] first, Object... rest) {
+        Object[] joined = Arrays.copyOf(first, first.length + rest.length);
+        System.arraycopy(rest, 0, joined, first.length, rest.length);
+        return joined;
+    }
+}
@@ -0,0 +1,66 @@
+package com.daniel.hospitalcharges.benchmark;
+
+import com.daniel.hospitalcharges.chart.ChartRenderer;
+import com.daniel.hospitalcharges.model.StatisticsResult;
+import com.daniel.hospitalcharges.utility.HistogramUtility;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the rendering of the charge histogram to PNG, the
+ * work of ChartAndGraphServlet for a chart not yet cached. The chart depends
+ * only on the histogram bins, so its cost does not grow with the number of
+ * charges.
+ *
+ * @author Bryan Daniel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Djava.awt.headless=true"})
+public class ChartBenchmark {
+
+    /**
+     * The statistics holding the histogram bins
+     */
+    private StatisticsResult stats;
+
+    /**
+     * Builds the histogram bins of a seeded set of charges.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        double[] charges = new double[3000];
+        for (int i = 0; i < charges.length; i++) {
+            charges[i] = 20000 * Math.exp(random.nextGaussian() * 0.5);
+        }
+        stats = new StatisticsResult();
+        HistogramUtility.setHistogram(stats, charges, charges.length);
+    }
+
+    /**
+     * Renders the histogram and encodes it as PNG.
+     *
+     * @return the image
+     * @throws IOException if the image cannot be encoded
+     */
+    @Benchmark
+    public byte[] renderHistogram() throws IOException {
+        return ChartRenderer.renderHistogram(stats);
+    }
+}
@@ -0,0 +1,124 @@
+package com.daniel.hospitalcharges.benchmark;
+
+import com.daniel.hospitalcharges.concurrent.LookupExecutor;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import com.daniel.hospitalcharges.data.pool.ConnectionPool;
+import com.daniel.hospitalcharges.model.InpatientComparisonResult;
+import com.daniel.hospitalcharges.model.Provider;
+import com.daniel.hospitalcharges.service.SimpleInpatientComparisonService;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the comparison result lookup of the inpatient
+ * comparison service, with the charges found by the charge engine or by the
+ * getCharges procedure of a synthetic database, and with the lookups run on
+ * the calling thread or on the lookup threads.
+ *
+ * @author Bryan Daniel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ComparisonServiceBenchmark {
+
+    /**
+     * Where the charges are found: engine or database
+     */
+    @Param({"engine", "database"})
+    public String source;
+
+    /**
+     * Where the lookups run: caller or threads
+     */
+    @Param({"caller", "threads"})
+    public String lookups;
+
+    /**
+     * The service
+     */
+    private final SimpleInpatientComparisonService service = new SimpleInpatientComparisonService();
+
+    /**
+     * The providers of the region, as held by the comparison bean
+     */
+    private ArrayList<Provider> providers;
+
+    /**
+     * The ID of the provider looked up, the last of the region
+     */
+    private int providerId;
+
+    /**
+     * The data source of the pool before the benchmark
+     */
+    private DataSource previousDataSource;
+
+    /**
+     * Installs the charge engine or points the inpatient pool at a synthetic
+     * database, and starts or stops the lookup threads.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(BenchmarkData.SEED, 3000);
+        providers = new ArrayList<>();
+        for (Provider provider : data.getProviders()) {
+            if (provider.getState().equals(BenchmarkData.STATE) && provider.getCity().equals(BenchmarkData.CITY)) {
+                providers.add(provider);
+            }
+        }
+        providerId = providers.get(providers.size() - 1).getId();
+
+        ConnectionPool pool = ConnectionPool.getInpatientPool();
+        previousDataSource = pool.getDataSource();
+        if (source.equals("engine")) {
+            ChargeEngineManager.install(data.buildEngine(), null);
+        } else {
+            ChargeEngineManager.unload();
+            pool.setDataSource(data.buildDatabase(providers.size()).getDataSource());
+        }
+        if (lookups.equals("threads")) {
+            LookupExecutor.getInstance().start(false, LookupExecutor.DEFAULT_THREADS, LookupExecutor.DEFAULT_TIMEOUT);
+        } else {
+            LookupExecutor.getInstance().shutdown();
+        }
+    }
+
+    /**
+     * Stops the lookup threads, unloads the engine and restores the data
+     * source of the inpatient pool.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        LookupExecutor.getInstance().shutdown();
+        ChargeEngineManager.unload();
+        ConnectionPool.getInpatientPool().setDataSource(previousDataSource);
+    }
+
+    /**
+     * Looks up the comparison result of a provider.
+     *
+     * @return the result
+     */
+    @Benchmark
+    public InpatientComparisonResult getResult() {
+        return service.getResult(providers, providerId, BenchmarkData.drgId(0));
+    }
+}
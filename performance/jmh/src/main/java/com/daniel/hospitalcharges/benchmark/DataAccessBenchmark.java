@@ -0,0 +1,94 @@
+package com.daniel.hospitalcharges.benchmark;
+
+import com.daniel.hospitalcharges.data.InpatientIO;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import com.daniel.hospitalcharges.data.pool.ConnectionPool;
+import com.daniel.hospitalcharges.model.InpatientComparisonResult;
+import com.daniel.hospitalcharges.model.Provider;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the inpatient data access methods reading the result
+ * sets of the stored procedures, which covers the procedure call, the row
+ * mappers and the connection pool bookkeeping. The procedures answer from a
+ * synthetic database in memory, so the network and the database server are
+ * left out of the measurement.
+ *
+ * @author Bryan Daniel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class DataAccessBenchmark {
+
+    /**
+     * The number of rows of each result set
+     */
+    @Param({"10", "100", "1000"})
+    public int rows;
+
+    /**
+     * The data source of the pool before the benchmark
+     */
+    private DataSource previousDataSource;
+
+    /**
+     * Points the inpatient pool at a synthetic database and unloads the
+     * charge engines, so the lookups call the procedures.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        ChargeEngineManager.unload();
+        BenchmarkData data = new BenchmarkData(BenchmarkData.SEED, rows);
+        ConnectionPool pool = ConnectionPool.getInpatientPool();
+        previousDataSource = pool.getDataSource();
+        pool.setDataSource(data.buildDatabase(rows).getDataSource());
+    }
+
+    /**
+     * Restores the data source of the inpatient pool.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ConnectionPool.getInpatientPool().setDataSource(previousDataSource);
+    }
+
+    /**
+     * Reads the regional charges of getRegionalCharges.
+     *
+     * @return the results
+     */
+    @Benchmark
+    public ArrayList<InpatientComparisonResult> regionalResults() {
+        return InpatientIO.getRegionalResults(BenchmarkData.STATE, BenchmarkData.CITY,
+                BenchmarkData.drgId(0));
+    }
+
+    /**
+     * Reads the providers of getProviders.
+     *
+     * @return the providers
+     */
+    @Benchmark
+    public ArrayList<Provider> providers() {
+        return InpatientIO.getProviders(BenchmarkData.STATE, BenchmarkData.CITY, BenchmarkData.drgId(0));
+    }
+}
@@ -0,0 +1,198 @@
+package com.daniel.hospitalcharges.benchmark.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+
+/**
+ * This class is a database answering stored procedure calls with synthetic
+ * tables held in memory. Its data source hands out connections whose calls
+ * return the result sets registered for the called procedure, so the data
+ * access classes run unchanged against it. Only the operations the data
+ * access classes use are supported; calling any other fails.
+ *
+ * @author Bryan Daniel
+ */
+public class SyntheticDatabase {
+
+    /**
+     * The result sets of each procedure
+     */
+    private final Map<String, List<SyntheticTable>> procedures = new ConcurrentHashMap<>();
+
+    /**
+     * The data source of the database
+     */
+    private final DataSource dataSource;
+
+    /**
+     * Creates an empty database.
+     */
+    public SyntheticDatabase() {
+        dataSource = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("getConnection")) {
+                    return createConnection();
+                }
+                return invokeDefault(proxy, method, args);
+            }
+        });
+    }
+
+    /**
+     * Registers the result sets returned by a procedure, replacing any
+     * registered before.
+     *
+     * @param procedure the procedure name
+     * @param tables the result sets in the order returned
+     */
+    public void register(String procedure, SyntheticTable... tables) {
+        procedures.put(procedure.toLowerCase(), Arrays.asList(tables.clone()));
+    }
+
+    /**
+     * Returns the data source of the database.
+     *
+     * @return the data source
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Creates a connection preparing calls of the registered procedures.
+     *
+     * @return the connection
+     */
+    private Connection createConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new InvocationHandler() {
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "prepareCall":
+                        if (closed) {
+                            throw new SQLException("The connection is closed.", "08003");
+                        }
+                        return createCall((String) args[0]);
+                    case "close":
+                        closed = true;
+                        return null;
+                    case "isClosed":
+                        return closed;
+                    case "isValid":
+                        return !closed;
+                    default:
+                        return invokeDefault(proxy, method, args);
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates a call of a registered procedure.
+     *
+     * @param sql the call escape, {CALL name(?, ...)}
+     * @return the call
+     * @throws SQLException if the procedure is not registered
+     */
+    private CallableStatement createCall(String sql) throws SQLException {
+        int start = sql.toUpperCase().indexOf("CALL ") + 5;
+        int end = sql.indexOf('(', start);
+        String procedure = sql.substring(start, end < 0 ? sql.length() : end).trim().toLowerCase();
+        final List<SyntheticTable> tables = procedures.get(procedure);
+        if (tables == null) {
+            throw new SQLException("PROCEDURE " + procedure + " does not exist", "42000");
+        }
+        return (CallableStatement) Proxy.newProxyInstance(CallableStatement.class.getClassLoader(),
+                new Class<?>[]{CallableStatement.class}, new InvocationHandler() {
+            private int result = -1;
+            private SyntheticResultSet resultSet;
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (closed && !name.equals("close") && !name.equals("isClosed")) {
+                    throw new SQLException("The statement is closed.", "S1009");
+                }
+                switch (name) {
+                    case "execute":
+                        result = 0;
+                        return open();
+                    case "getResultSet":
+                        return resultSet;
+                    case "getMoreResults":
+                        result++;
+                        return open();
+                    case "getUpdateCount":
+                        return -1;
+                    case "cancel":
+                    case "setQueryTimeout":
+                    case "registerOutParameter":
+                        return null;
+                    case "close":
+                        closed = true;
+                        return null;
+                    case "isClosed":
+                        return closed;
+                    default:
+                        if (name.startsWith("set")) {
+                            return null;
+                        }
+                        return invokeDefault(proxy, method, args);
+                }
+            }
+
+            private boolean open() throws SQLException {
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                resultSet = result < tables.size() ? new SyntheticResultSet(tables.get(result)) : null;
+                return resultSet != null;
+            }
+        });
+    }
+
+    /**
+     * Answers the methods of Object and fails any other method.
+     *
+     * @param proxy the proxy
+     * @param method the method
+     * @param args the arguments
+     * @return the result
+     * @throws SQLException if the method is not supported
+     */
+    private static Object invokeDefault(Object proxy, Method method, Object[] args) throws SQLException {
+        if (method.getDeclaringClass() == Object.class) {
+            try {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return method.invoke(new Object(), args);
+                }
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new SQLException(e);
+            }
+        }
+        throw new SQLFeatureNotSupportedException("The synthetic database does not support "
+                + method.getDeclaringClass().getSimpleName() + "." + method.getName() + ".");
+    }
+}
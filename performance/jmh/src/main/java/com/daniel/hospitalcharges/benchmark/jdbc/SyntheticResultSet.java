@@ -0,0 +1,211 @@
+package com.daniel.hospitalcharges.benchmark.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * This class is a forward-only result set over rows held in memory. The
+ * values are kept as text and parsed when read, as a MySQL driver parses the
+ * text protocol, so the benchmarks of the row mappers measure similar work to
+ * reading from the database without its network and server time.
+ *
+ * @author Bryan Daniel
+ */
+public class SyntheticResultSet extends ResultSetAdapter {
+
+    /**
+     * The column labels
+     */
+    private final String[] labels;
+
+    /**
+     * The rows of column values, shared with other result sets of the same
+     * table and never modified
+     */
+    private final String[][] rows;
+
+    /**
+     * The metadata reporting the column count and labels
+     */
+    private final ResultSetMetaData metaData;
+
+    /**
+     * The index of the current row
+     */
+    private int row = -1;
+
+    /**
+     * Whether the last value read was null
+     */
+    private boolean wasNull;
+
+    /**
+     * Whether the result set is closed
+     */
+    private boolean closed;
+
+    /**
+     * Creates a result set over a synthetic table.
+     *
+     * @param table the table
+     */
+    public SyntheticResultSet(SyntheticTable table) {
+        this.labels = table.getLabels();
+        this.rows = table.getRows();
+        this.metaData = table.getMetaData();
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        checkOpen();
+        if (row + 1 >= rows.length) {
+            row = rows.length;
+            return false;
+        }
+        row++;
+        return true;
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(columnLabel)) {
+                return i + 1;
+            }
+        }
+        throw new SQLException("Column '" + columnLabel + "' not found.", "S0022");
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        String value = value(columnIndex);
+        wasNull = value == null;
+        return value;
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        String value = value(columnIndex);
+        wasNull = value == null;
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        String value = value(columnIndex);
+        wasNull = value == null;
+        return value == null ? 0 : Double.parseDouble(value);
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        String value = value(columnIndex);
+        wasNull = value == null;
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        return getBigDecimal(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean wasNull() throws SQLException {
+        return wasNull;
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        checkOpen();
+        return metaData;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed;
+    }
+
+    /**
+     * Creates the metadata of a table, which reports only the column count
+     * and labels.
+     *
+     * @param labels the column labels
+     * @return the metadata
+     */
+    static ResultSetMetaData createMetaData(final String[] labels) {
+        return (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getColumnCount":
+                        return labels.length;
+                    case "getColumnLabel":
+                    case "getColumnName":
+                        int column = (Integer) args[0];
+                        if (column < 1 || column > labels.length) {
+                            throw new SQLException("Column index " + column + " is out of range.", "S1009");
+                        }
+                        return labels[column - 1];
+                    default:
+                        throw new SQLFeatureNotSupportedException(
+                                "The synthetic metadata reports only the column count and labels.");
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a value of the current row.
+     *
+     * @param columnIndex the column index starting at 1
+     * @return the value
+     * @throws SQLException if there is no current row or no such column
+     */
+    private String value(int columnIndex) throws SQLException {
+        checkOpen();
+        if (row < 0 || row >= rows.length) {
+            throw new SQLException("The result set has no current row.", "S1000");
+        }
+        if (columnIndex < 1 || columnIndex > labels.length) {
+            throw new SQLException("Column index " + columnIndex + " is out of range.", "S1009");
+        }
+        return rows[row][columnIndex - 1];
+    }
+
+    /**
+     * Checks that the result set is open.
+     *
+     * @throws SQLException if it is closed
+     */
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("The result set is closed.", "S1000");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.daniel.hospitalcharges.benchmark.jdbc;
+
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class holds the labels and rows of one result set returned by a
+ * synthetic stored procedure. A table is built once and read by any number of
+ * result sets.
+ *
+ * @author Bryan Daniel
+ */
+public class SyntheticTable {
+
+    /**
+     * The column labels
+     */
+    private final String[] labels;
+
+    /**
+     * The rows added so far
+     */
+    private final List<String[]> rowList = new ArrayList<>();
+
+    /**
+     * The rows as an array, built when first read
+     */
+    private String[][] rows;
+
+    /**
+     * The metadata reporting the column count and labels
+     */
+    private final ResultSetMetaData metaData;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param labels the column labels
+     */
+    public SyntheticTable(String... labels) {
+        this.labels = labels.clone();
+        this.metaData = SyntheticResultSet.createMetaData(this.labels);
+    }
+
+    /**
+     * Adds a row. Values are converted to text, as the database sends them.
+     *
+     * @param values the column values, with null for SQL NULL
+     * @return this table
+     */
+    public SyntheticTable addRow(Object... values) {
+        if (values.length != labels.length) {
+            throw new IllegalArgumentException("The table has " + labels.length + " columns.");
+        }
+        String[] row = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            row[i] = values[i] == null ? null : values[i].toString();
+        }
+        rowList.add(row);
+        rows = null;
+        return this;
+    }
+
+    /**
+     * Returns the column labels.
+     *
+     * @return the labels
+     */
+    String[] getLabels() {
+        return labels;
+    }
+
+    /**
+     * Returns the rows.
+     *
+     * @return the rows
+     */
+    synchronized String[][] getRows() {
+        if (rows == null) {
+            rows = rowList.toArray(new String[rowList.size()][]);
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the metadata of the table.
+     *
+     * @return the metadata
+     */
+    ResultSetMetaData getMetaData() {
+        return metaData;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the row count
+     */
+    public int getRowCount() {
+        return rowList.size();
+    }
+}
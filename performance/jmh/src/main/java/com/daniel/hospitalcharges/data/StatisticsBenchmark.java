@@ -0,0 +1,126 @@
+package com.daniel.hospitalcharges.data;
+
+import com.daniel.hospitalcharges.benchmark.BenchmarkData;
+import com.daniel.hospitalcharges.data.memory.ChargeColumn;
+import com.daniel.hospitalcharges.data.memory.ChargeEngine;
+import com.daniel.hospitalcharges.data.memory.ChargeEngineManager;
+import com.daniel.hospitalcharges.data.memory.PercentileIndex;
+import com.daniel.hospitalcharges.data.pool.ConnectionPool;
+import com.daniel.hospitalcharges.model.StatisticsResult;
+import com.daniel.hospitalcharges.utility.HistogramUtility;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the construction of the charge statistics of a DRG:
+ * reading the four result sets of getDRGStats, computing the statistics from
+ * the charge engine, and building the histogram bins. It lives in the data
+ * package to reach the statistics computation of the cache.
+ *
+ * @author Bryan Daniel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class StatisticsBenchmark {
+
+    /**
+     * The number of charges of the DRG, about the number of providers
+     * charging for a common DRG in the CMS data
+     */
+    @Param({"300", "3000"})
+    public int charges;
+
+    /**
+     * The charge engine holding the dataset
+     */
+    private ChargeEngine engine;
+
+    /**
+     * The charges of the DRG in dollars
+     */
+    private double[] values;
+
+    /**
+     * The data source of the pool before the benchmark
+     */
+    private DataSource previousDataSource;
+
+    /**
+     * Builds the dataset as a charge engine and as a synthetic database used
+     * by the inpatient pool. The engine is not installed, so the statistics
+     * lookups call the procedure.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        ChargeEngineManager.unload();
+        BenchmarkData data = new BenchmarkData(BenchmarkData.SEED, charges);
+        engine = data.buildEngine();
+        PercentileIndex index = engine.getPercentileIndex(ChargeColumn.AVG_CHARGES);
+        values = new double[charges];
+        for (int rank = 1; rank <= charges; rank++) {
+            values[rank - 1] = index.getValue(0, rank) / 100.0;
+        }
+        ConnectionPool pool = ConnectionPool.getInpatientPool();
+        previousDataSource = pool.getDataSource();
+        pool.setDataSource(data.buildDatabase(charges).getDataSource());
+    }
+
+    /**
+     * Restores the data source of the inpatient pool.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ConnectionPool.getInpatientPool().setDataSource(previousDataSource);
+    }
+
+    /**
+     * Reads the statistics from the result sets of getDRGStats, bypassing
+     * the statistics cache.
+     *
+     * @return the statistics
+     */
+    @Benchmark
+    public StatisticsResult procedure() {
+        StatisticsCache.getInstance().invalidate();
+        return StatisticsIO.getDiagnosisRelatedGroupStats(BenchmarkData.drgId(0));
+    }
+
+    /**
+     * Computes the statistics from the charge engine.
+     *
+     * @return the statistics
+     */
+    @Benchmark
+    public StatisticsResult engine() {
+        return StatisticsCache.compute(engine, 0);
+    }
+
+    /**
+     * Builds the histogram bins of the charges.
+     *
+     * @return the statistics holding the bins
+     */
+    @Benchmark
+    public StatisticsResult histogram() {
+        StatisticsResult statsResult = new StatisticsResult();
+        HistogramUtility.setHistogram(statsResult, values, values.length);
+        return statsResult;
+    }
+}
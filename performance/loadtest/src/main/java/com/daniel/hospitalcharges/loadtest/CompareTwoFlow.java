@@ -0,0 +1,80 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * This class scripts the two-sided comparison of inpatientcomparetwo.xhtml:
+ * the page and a DRG, then a state, a city and a provider on each side, each
+ * chosen with an Ajax partial request.
+ *
+ * @author Bryan Daniel
+ */
+public class CompareTwoFlow extends Flow {
+
+    /**
+     * The name of the flow
+     */
+    public static final String NAME = "compare";
+
+    /**
+     * The path of the page
+     */
+    private static final String PATH = "/inpatient/comparetwo/inpatientcomparetwo.xhtml";
+
+    /**
+     * Creates the flow.
+     */
+    public CompareTwoFlow() {
+        super(NAME);
+    }
+
+    /**
+     * Runs the flow once.
+     *
+     * @param client the browser of the visitor
+     * @throws IOException if a request fails
+     * @throws InterruptedException if the visitor is stopped while thinking
+     */
+    @Override
+    public void run(JsfClient client) throws IOException, InterruptedException {
+        Random random = client.getRandom();
+        JsfView view = JsfView.load(client, "compare page", PATH);
+
+        String drg = pick(view.getOptions("drg"), random);
+        if (drg == null) {
+            throw new IOException("The comparison page offers no DRGs.");
+        }
+        view.choose("compare drg", "drg", drg);
+
+        if (chooseSide(view, random, "", "compare ")) {
+            chooseSide(view, random, "second", "compare second ");
+        }
+    }
+
+    /**
+     * Chooses the state, city and provider of one side of the comparison.
+     *
+     * @param view the view
+     * @param random the random choices of the visitor
+     * @param prefix the ID prefix of the side, empty or second
+     * @param stepPrefix the step name prefix of the side
+     * @return true if a result was shown
+     * @throws IOException if a request fails
+     * @throws InterruptedException if the visitor is stopped while thinking
+     */
+    private static boolean chooseSide(JsfView view, Random random, String prefix, String stepPrefix)
+            throws IOException, InterruptedException {
+        String[] ids = prefix.isEmpty() ? new String[]{"state", "city", "provider"}
+                : new String[]{prefix + "State", prefix + "City", prefix + "Provider"};
+        String[] steps = {stepPrefix + "state", stepPrefix + "city", stepPrefix + "result"};
+        for (int i = 0; i < ids.length; i++) {
+            String option = pick(view.getOptions(ids[i]), random);
+            if (option == null) {
+                return false;
+            }
+            view.choose(steps[i], ids[i], option);
+        }
+        return true;
+    }
+}
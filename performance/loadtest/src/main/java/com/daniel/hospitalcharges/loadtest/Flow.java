@@ -0,0 +1,79 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class is a scripted sequence of requests made by a visitor, such as
+ * choosing a state, a city and a DRG on the regional charges page. Each
+ * request is recorded under the name of its step. A flow ends early without
+ * error when the data offers no option to choose, as a visitor would stop.
+ *
+ * @author Bryan Daniel
+ */
+public abstract class Flow {
+
+    /**
+     * The name of the flow
+     */
+    private final String name;
+
+    /**
+     * Creates a flow.
+     *
+     * @param name the name of the flow
+     */
+    protected Flow(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the flow.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Runs the flow once.
+     *
+     * @param client the browser of the visitor
+     * @throws IOException if a request fails
+     * @throws InterruptedException if the visitor is stopped while thinking
+     */
+    public abstract void run(JsfClient client) throws IOException, InterruptedException;
+
+    /**
+     * Chooses one of the options at random.
+     *
+     * @param options the options
+     * @param random the random choices of the visitor
+     * @return the option or null if there are none
+     */
+    protected static String pick(List<String> options, Random random) {
+        return options.isEmpty() ? null : options.get(random.nextInt(options.size()));
+    }
+
+    /**
+     * Returns the flow with the given name.
+     *
+     * @param name region, compare or statistics
+     * @return the flow
+     * @throws IllegalArgumentException if there is no such flow
+     */
+    public static Flow forName(String name) {
+        switch (name) {
+            case RegionFlow.NAME:
+                return new RegionFlow();
+            case CompareTwoFlow.NAME:
+                return new CompareTwoFlow();
+            case StatisticsFlow.NAME:
+                return new StatisticsFlow();
+            default:
+                throw new IllegalArgumentException("There is no flow named " + name + ".");
+        }
+    }
+}
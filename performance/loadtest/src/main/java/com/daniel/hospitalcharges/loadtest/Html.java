@@ -0,0 +1,193 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class finds the elements, attributes and options the scripted flows
+ * need in the markup rendered by the application. It reads the markup as
+ * Mojarra and the JSPs write it and is not a general HTML parser.
+ *
+ * @author Bryan Daniel
+ */
+public class Html {
+
+    /**
+     * Matches an option of a select element
+     */
+    private static final Pattern OPTION = Pattern.compile("<option\\s+value=\"([^\"]*)\"([^>]*)>");
+
+    /**
+     * Matches a numeric character reference
+     */
+    private static final Pattern CHARACTER_REFERENCE = Pattern.compile("&#(x?)([0-9a-fA-F]+);");
+
+    // not called
+    private Html() {
+    }
+
+    /**
+     * Returns the start tag of the first element with an attribute of the
+     * given name whose value matches a pattern.
+     *
+     * @param markup the markup
+     * @param tag the tag name
+     * @param attribute the attribute name
+     * @param valuePattern the pattern of the attribute value
+     * @return the start tag or null if there is no such element
+     */
+    public static String findStartTag(String markup, String tag, String attribute, String valuePattern) {
+        Matcher matcher = Pattern.compile("<" + tag + "\\b[^>]*\\s" + attribute + "=\"" + valuePattern
+                + "\"[^>]*>").matcher(markup);
+        return matcher.find() ? matcher.group() : null;
+    }
+
+    /**
+     * Returns the whole element starting at a start tag, through its matching
+     * end tag.
+     *
+     * @param markup the markup
+     * @param startTag the start tag, as found in the markup
+     * @return the element or null if the start tag is not found
+     */
+    public static String getElement(String markup, String startTag) {
+        int start = markup.indexOf(startTag);
+        if (start < 0) {
+            return null;
+        }
+        int end = findElementEnd(markup, start);
+        return markup.substring(start, end);
+    }
+
+    /**
+     * Replaces the element with the given ID.
+     *
+     * @param markup the markup
+     * @param id the element ID
+     * @param replacement the new element
+     * @return the markup with the element replaced, or unchanged if there is
+     * no such element
+     */
+    public static String replaceElement(String markup, String id, String replacement) {
+        Matcher matcher = Pattern.compile("<[a-zA-Z]+\\b[^>]*\\sid=\"" + Pattern.quote(id) + "\"[^>]*>")
+                .matcher(markup);
+        if (!matcher.find()) {
+            return markup;
+        }
+        int end = findElementEnd(markup, matcher.start());
+        return markup.substring(0, matcher.start()) + replacement + markup.substring(end);
+    }
+
+    /**
+     * Returns the value of an attribute of a start tag.
+     *
+     * @param startTag the start tag
+     * @param attribute the attribute name
+     * @return the unescaped value or null if the tag has no such attribute
+     */
+    public static String getAttribute(String startTag, String attribute) {
+        Matcher matcher = Pattern.compile("\\s" + attribute + "=(?:\"([^\"]*)\"|'([^']*)')").matcher(startTag);
+        if (!matcher.find()) {
+            return null;
+        }
+        return unescape(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+    }
+
+    /**
+     * Returns the values of the options of a select element, leaving out the
+     * empty prompt option.
+     *
+     * @param select the select element
+     * @return the unescaped option values
+     */
+    public static List<String> getOptionValues(String select) {
+        List<String> values = new ArrayList<>();
+        Matcher matcher = OPTION.matcher(select);
+        while (matcher.find()) {
+            if (!matcher.group(1).isEmpty()) {
+                values.add(unescape(matcher.group(1)));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the value of the selected option of a select element.
+     *
+     * @param select the select element
+     * @return the unescaped value, the first option value if none is
+     * selected, or the empty string if there are no options
+     */
+    public static String getSelectedValue(String select) {
+        Matcher matcher = OPTION.matcher(select);
+        String first = null;
+        while (matcher.find()) {
+            if (first == null) {
+                first = matcher.group(1);
+            }
+            if (matcher.group(2).contains("selected")) {
+                return unescape(matcher.group(1));
+            }
+        }
+        return first == null ? "" : unescape(first);
+    }
+
+    /**
+     * Replaces the character references and predefined entities of a value.
+     *
+     * @param value the escaped value
+     * @return the value
+     */
+    public static String unescape(String value) {
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        Matcher matcher = CHARACTER_REFERENCE.matcher(value);
+        StringBuffer buffer = new StringBuffer();
+        while (matcher.find()) {
+            int codePoint = Integer.parseInt(matcher.group(2), matcher.group(1).isEmpty() ? 10 : 16);
+            matcher.appendReplacement(buffer, Matcher.quoteReplacement(new String(Character.toChars(codePoint))));
+        }
+        matcher.appendTail(buffer);
+        return buffer.toString().replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    /**
+     * Finds the end of the element starting at an index, counting nested
+     * elements of the same tag.
+     *
+     * @param markup the markup
+     * @param start the index of the start tag
+     * @return the index after the end tag, or after the start tag if the
+     * element is empty or not closed
+     */
+    private static int findElementEnd(String markup, int start) {
+        int tagEnd = markup.indexOf('>', start) + 1;
+        if (markup.charAt(tagEnd - 2) == '/') {
+            return tagEnd;
+        }
+        int nameEnd = start + 1;
+        while (nameEnd < markup.length() && Character.isLetterOrDigit(markup.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        String name = markup.substring(start + 1, nameEnd);
+        Matcher matcher = Pattern.compile("<(/?)" + name + "\\b[^>]*?(/?)>", Pattern.CASE_INSENSITIVE)
+                .matcher(markup);
+        matcher.region(tagEnd, markup.length());
+        int depth = 1;
+        while (matcher.find()) {
+            if (!matcher.group(1).isEmpty()) {
+                depth--;
+                if (depth == 0) {
+                    return matcher.end();
+                }
+            } else if (matcher.group(2).isEmpty()) {
+                depth++;
+            }
+        }
+        return tagEnd;
+    }
+}
@@ -0,0 +1,413 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This class is the browser of one virtual user. It keeps the session cookies
+ * of the user, follows redirects, pauses for the think time before each
+ * request as a person choosing from a menu would, and records the latency of
+ * each request under the step it belongs to.
+ *
+ * @author Bryan Daniel
+ */
+public class JsfClient {
+
+    /**
+     * The most redirects followed for one request
+     */
+    private static final int MAXIMUM_REDIRECTS = 5;
+
+    /**
+     * The base URL of the application, without a trailing slash
+     */
+    private final String baseUrl;
+
+    /**
+     * The connect and read timeout in milliseconds
+     */
+    private final int timeout;
+
+    /**
+     * The mean think time in milliseconds
+     */
+    private final long thinkTime;
+
+    /**
+     * The random choices of the user
+     */
+    private final Random random;
+
+    /**
+     * The recorder of the requests
+     */
+    private final StepRecorder recorder;
+
+    /**
+     * The cookies of the user by name
+     */
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+
+    /**
+     * Creates the browser of a virtual user.
+     *
+     * @param baseUrl the base URL of the application
+     * @param timeout the connect and read timeout in milliseconds
+     * @param thinkTime the mean think time in milliseconds
+     * @param random the random choices of the user
+     * @param recorder the recorder of the requests
+     */
+    public JsfClient(String baseUrl, int timeout, long thinkTime, Random random, StepRecorder recorder) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.timeout = timeout;
+        this.thinkTime = thinkTime;
+        this.random = random;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Returns the random choices of the user.
+     *
+     * @return the random
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Returns the recorder of the requests.
+     *
+     * @return the recorder
+     */
+    public StepRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Forgets the session of the user, as a new visitor.
+     */
+    public void clearCookies() {
+        cookies.clear();
+    }
+
+    /**
+     * Resolves a path of the application or a URL relative to a page.
+     *
+     * @param location the path starting with a slash below the base URL, a
+     * root-relative path, a relative path, or an absolute URL
+     * @param page the URL of the page the location appears on
+     * @return the absolute URL
+     * @throws IOException if the location is malformed
+     */
+    public String resolve(String location, String page) throws IOException {
+        if (page == null) {
+            return location.startsWith("http") ? location : baseUrl + location;
+        }
+        return new URL(new URL(page), location).toString();
+    }
+
+    /**
+     * Returns the URL of a path of the application.
+     *
+     * @param path the path starting with a slash
+     * @return the URL
+     */
+    public String url(String path) {
+        return baseUrl + path;
+    }
+
+    /**
+     * Requests a page or image with GET.
+     *
+     * @param step the step name
+     * @param url the URL
+     * @return the response
+     * @throws IOException if the request fails or the response is an error
+     * @throws InterruptedException if interrupted while thinking
+     */
+    public Response get(String step, String url) throws IOException, InterruptedException {
+        return send(step, url, null, false);
+    }
+
+    /**
+     * Submits a form with POST.
+     *
+     * @param step the step name
+     * @param url the form action URL
+     * @param parameters the form fields
+     * @param ajax true for a JSF Ajax partial request
+     * @return the response
+     * @throws IOException if the request fails or the response is an error
+     * @throws InterruptedException if interrupted while thinking
+     */
+    public Response post(String step, String url, Map<String, String> parameters, boolean ajax)
+            throws IOException, InterruptedException {
+        return send(step, url, encode(parameters), ajax);
+    }
+
+    /**
+     * Sends a request after the think time and records it. A response that
+     * is not successful is recorded as a failure.
+     *
+     * @param step the step name
+     * @param url the URL
+     * @param body the form body or null for GET
+     * @param ajax true for a JSF Ajax partial request
+     * @return the response
+     * @throws IOException if the request fails
+     * @throws InterruptedException if interrupted while thinking
+     */
+    private Response send(String step, String url, byte[] body, boolean ajax)
+            throws IOException, InterruptedException {
+        if (thinkTime > 0) {
+            Thread.sleep((long) (random.nextDouble() * 2 * thinkTime));
+        }
+        long start = System.nanoTime();
+        try {
+            Response response = exchange(url, body, ajax);
+            for (int redirects = 0; response.isRedirect(); redirects++) {
+                if (redirects == MAXIMUM_REDIRECTS) {
+                    throw new IOException("Too many redirects from " + url + ".");
+                }
+                response = exchange(resolve(response.getLocation(), response.getUrl()), null, false);
+            }
+            if (response.getStatus() >= 400) {
+                throw new IOException("HTTP " + response.getStatus() + " from " + response.getUrl() + ".");
+            }
+            response.setLatency(System.nanoTime() - start);
+            return response;
+        } catch (IOException e) {
+            recorder.failure(step);
+            throw e;
+        }
+    }
+
+    /**
+     * Sends one request without following redirects.
+     *
+     * @param url the URL
+     * @param body the form body or null for GET
+     * @param ajax true for a JSF Ajax partial request
+     * @return the response
+     * @throws IOException if the request fails
+     */
+    private Response exchange(String url, byte[] body, boolean ajax) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setInstanceFollowRedirects(false);
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        connection.setUseCaches(false);
+        if (!cookies.isEmpty()) {
+            StringBuilder header = new StringBuilder();
+            for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+                if (header.length() > 0) {
+                    header.append("; ");
+                }
+                header.append(cookie.getKey()).append('=').append(cookie.getValue());
+            }
+            connection.setRequestProperty("Cookie", header.toString());
+        }
+        if (ajax) {
+            connection.setRequestProperty("Faces-Request", "partial/ajax");
+            connection.setRequestProperty("X-Requested-With", "XMLHttpRequest");
+        }
+        if (body != null) {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(body);
+            }
+        }
+        int status = connection.getResponseCode();
+        List<String> setCookies = connection.getHeaderFields().get("Set-Cookie");
+        if (setCookies != null) {
+            for (String setCookie : setCookies) {
+                int equals = setCookie.indexOf('=');
+                int end = setCookie.indexOf(';');
+                if (equals > 0) {
+                    cookies.put(setCookie.substring(0, equals).trim(),
+                            setCookie.substring(equals + 1, end < 0 ? setCookie.length() : end).trim());
+                }
+            }
+        }
+        InputStream input = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        if (input != null) {
+            try (InputStream in = input) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    content.write(buffer, 0, read);
+                }
+            }
+        }
+        return new Response(url, status, connection.getContentType(), connection.getHeaderField("Location"),
+                content.toByteArray());
+    }
+
+    /**
+     * Encodes form fields as a URL-encoded body.
+     *
+     * @param parameters the form fields
+     * @return the body
+     * @throws UnsupportedEncodingException never, UTF-8 is always supported
+     */
+    private static byte[] encode(Map<String, String> parameters) throws UnsupportedEncodingException {
+        StringBuilder body = new StringBuilder();
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            if (body.length() > 0) {
+                body.append('&');
+            }
+            body.append(URLEncoder.encode(parameter.getKey(), "UTF-8")).append('=')
+                    .append(URLEncoder.encode(parameter.getValue(), "UTF-8"));
+        }
+        return body.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The response to a request
+     */
+    public static class Response {
+
+        /**
+         * The URL requested
+         */
+        private final String url;
+
+        /**
+         * The HTTP status
+         */
+        private final int status;
+
+        /**
+         * The content type
+         */
+        private final String contentType;
+
+        /**
+         * The redirect location
+         */
+        private final String location;
+
+        /**
+         * The content
+         */
+        private final byte[] content;
+
+        /**
+         * The latency in nanoseconds, including redirects
+         */
+        private long latency;
+
+        /**
+         * Creates a response.
+         *
+         * @param url the URL requested
+         * @param status the HTTP status
+         * @param contentType the content type
+         * @param location the redirect location
+         * @param content the content
+         */
+        Response(String url, int status, String contentType, String location, byte[] content) {
+            this.url = url;
+            this.status = status;
+            this.contentType = contentType;
+            this.location = location;
+            this.content = content;
+        }
+
+        /**
+         * Returns the URL requested.
+         *
+         * @return the URL
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Returns the HTTP status.
+         *
+         * @return the status
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns the content type.
+         *
+         * @return the content type or null
+         */
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Returns the redirect location.
+         *
+         * @return the location or null
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        /**
+         * Returns the content.
+         *
+         * @return the content bytes
+         */
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * Returns the content as text.
+         *
+         * @return the text, decoded as UTF-8
+         */
+        public String getText() {
+            return new String(content, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the latency of the request.
+         *
+         * @return the latency in nanoseconds
+         */
+        public long getLatency() {
+            return latency;
+        }
+
+        /**
+         * Sets the latency of the request.
+         *
+         * @param latency the latency in nanoseconds
+         */
+        void setLatency(long latency) {
+            this.latency = latency;
+        }
+
+        /**
+         * Indicates whether the response is a redirect.
+         *
+         * @return true for a redirect with a location
+         */
+        boolean isRedirect() {
+            return status >= 300 && status < 400 && location != null;
+        }
+    }
+}
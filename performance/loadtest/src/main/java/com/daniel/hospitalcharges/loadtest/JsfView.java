@@ -0,0 +1,266 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class is a JSF view as a browser holds it: the rendered page, with
+ * the updates of Ajax partial responses applied, and the current view state.
+ * Choosing an option of a select menu sends the Ajax partial request the
+ * Mojarra script would send for its f:ajax behavior, with the fields of the
+ * whole form, and applies the updates of the response.
+ *
+ * @author Bryan Daniel
+ */
+public class JsfView {
+
+    /**
+     * The name of the view state field
+     */
+    private static final String VIEW_STATE = "javax.faces.ViewState";
+
+    /**
+     * Matches the arguments of the Mojarra Ajax call of an f:ajax behavior:
+     * the behavior event, execute and render
+     */
+    private static final Pattern AJAX_CALL
+            = Pattern.compile("mojarra\\.ab\\(this,event,'([^']*)','([^']*)','([^']*)'");
+
+    /**
+     * Matches an update of a partial response
+     */
+    private static final Pattern UPDATE
+            = Pattern.compile("<update id=\"([^\"]+)\"><!\\[CDATA\\[(.*?)\\]\\]></update>", Pattern.DOTALL);
+
+    /**
+     * Matches an error of a partial response
+     */
+    private static final Pattern ERROR = Pattern.compile("<error>.*?<error-message><!\\[CDATA\\[(.*?)\\]\\]>",
+            Pattern.DOTALL);
+
+    /**
+     * The browser of the user
+     */
+    private final JsfClient client;
+
+    /**
+     * The URL of the page
+     */
+    private final String url;
+
+    /**
+     * The page with the updates applied
+     */
+    private String page;
+
+    /**
+     * The current view state
+     */
+    private String viewState;
+
+    /**
+     * The options chosen so far by ID of their select menus
+     */
+    private final Map<String, String> chosen = new LinkedHashMap<>();
+
+    /**
+     * Creates a view from a loaded page.
+     *
+     * @param client the browser of the user
+     * @param url the URL of the page
+     * @param page the page
+     * @throws IOException if the page has no view state
+     */
+    private JsfView(JsfClient client, String url, String page) throws IOException {
+        this.client = client;
+        this.url = url;
+        this.page = page;
+        String field = Html.findStartTag(page, "input", "name", Pattern.quote(VIEW_STATE));
+        if (field == null) {
+            throw new IOException("The page " + url + " has no JSF view state.");
+        }
+        this.viewState = Html.getAttribute(field, "value");
+    }
+
+    /**
+     * Loads a JSF page, recording the request under a step.
+     *
+     * @param client the browser of the user
+     * @param step the step name
+     * @param path the path of the page below the base URL
+     * @return the view
+     * @throws IOException if the page cannot be loaded or is not a JSF view
+     * @throws InterruptedException if interrupted while thinking
+     */
+    public static JsfView load(JsfClient client, String step, String path)
+            throws IOException, InterruptedException {
+        JsfClient.Response response = client.get(step, client.url(path));
+        JsfView view;
+        try {
+            view = new JsfView(client, response.getUrl(), response.getText());
+        } catch (IOException e) {
+            client.getRecorder().failure(step);
+            throw e;
+        }
+        client.getRecorder().success(step, response.getLatency());
+        return view;
+    }
+
+    /**
+     * Returns the option values of a select menu, leaving out its prompt.
+     *
+     * @param id the component ID of the select menu, without the form ID
+     * @return the option values or an empty list if the menu is not rendered
+     */
+    public List<String> getOptions(String id) {
+        String select = findSelect(id);
+        return Html.getOptionValues(select == null ? "" : select);
+    }
+
+    /**
+     * Indicates whether the page, with the updates applied, contains a text.
+     *
+     * @param text the text
+     * @return true if the page contains the text
+     */
+    public boolean contains(String text) {
+        return page.contains(text);
+    }
+
+    /**
+     * Chooses an option of a select menu, sending the Ajax request of its
+     * f:ajax behavior and applying the response. The request is recorded
+     * under a step.
+     *
+     * @param step the step name
+     * @param id the component ID of the select menu, without the form ID
+     * @param value the option value
+     * @throws IOException if the request fails or the response holds an error
+     * @throws InterruptedException if interrupted while thinking
+     */
+    public void choose(String step, String id, String value) throws IOException, InterruptedException {
+        String select = findSelect(id);
+        if (select == null) {
+            client.getRecorder().failure(step);
+            throw new IOException("The select menu " + id + " is not rendered on " + url + ".");
+        }
+        String startTag = select.substring(0, select.indexOf('>') + 1);
+        String clientId = Html.getAttribute(startTag, "name");
+        String onchange = Html.getAttribute(startTag, "onchange");
+        Matcher call = onchange == null ? null : AJAX_CALL.matcher(onchange);
+        if (call == null || !call.find()) {
+            client.getRecorder().failure(step);
+            throw new IOException("The select menu " + id + " has no Ajax behavior.");
+        }
+        String formId = clientId.substring(0, clientId.indexOf(':'));
+        String action;
+        try {
+            action = getFormAction(formId);
+        } catch (IOException e) {
+            client.getRecorder().failure(step);
+            throw e;
+        }
+        chosen.put(clientId, value);
+
+        Map<String, String> parameters = getFormFields(formId);
+        parameters.put("javax.faces.source", clientId);
+        parameters.put("javax.faces.partial.event", "change");
+        parameters.put("javax.faces.partial.execute", resolveIds(call.group(2), formId, clientId));
+        parameters.put("javax.faces.partial.render", resolveIds(call.group(3), formId, clientId));
+        parameters.put("javax.faces.behavior.event", call.group(1));
+        parameters.put("javax.faces.partial.ajax", "true");
+
+        JsfClient.Response response = client.post(step, action, parameters, true);
+        String text = response.getText();
+        Matcher error = ERROR.matcher(text);
+        if (error.find()) {
+            client.getRecorder().failure(step);
+            throw new IOException("The partial request of " + id + " failed: " + error.group(1));
+        }
+        if (!text.contains("<partial-response") || text.contains("<redirect ")) {
+            //a redirect answers a partial request of an expired view
+            client.getRecorder().failure(step);
+            throw new IOException("The partial request of " + id + " was not answered by its view.");
+        }
+        Matcher update = UPDATE.matcher(text);
+        while (update.find()) {
+            String updateId = update.group(1);
+            String content = update.group(2).replace("]]]]><![CDATA[>", "]]>");
+            if (updateId.contains(VIEW_STATE)) {
+                viewState = content;
+            } else {
+                page = Html.replaceElement(page, updateId, content);
+            }
+        }
+        client.getRecorder().success(step, response.getLatency());
+    }
+
+    /**
+     * Returns the fields a browser would submit for a form: the form marker,
+     * every select menu with its chosen or selected option, and the view
+     * state.
+     *
+     * @param formId the form ID
+     * @return the fields
+     */
+    private Map<String, String> getFormFields(String formId) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(formId, formId);
+        String form = Html.getElement(page, Html.findStartTag(page, "form", "id", Pattern.quote(formId)));
+        Matcher selects = Pattern.compile("<select\\b[^>]*>").matcher(form);
+        while (selects.find()) {
+            String name = Html.getAttribute(selects.group(), "name");
+            String value = chosen.get(name);
+            if (value == null) {
+                value = Html.getSelectedValue(Html.getElement(form, selects.group()));
+            }
+            fields.put(name, value);
+        }
+        fields.put(VIEW_STATE, viewState);
+        return fields;
+    }
+
+    /**
+     * Returns the action URL of a form.
+     *
+     * @param formId the form ID
+     * @return the absolute URL
+     * @throws IOException if the form or its action is missing
+     */
+    private String getFormAction(String formId) throws IOException {
+        String form = Html.findStartTag(page, "form", "id", Pattern.quote(formId));
+        String action = form == null ? null : Html.getAttribute(form, "action");
+        if (action == null) {
+            throw new IOException("The form " + formId + " has no action.");
+        }
+        return client.resolve(action, url);
+    }
+
+    /**
+     * Returns a select menu of the page.
+     *
+     * @param id the component ID, without the form ID
+     * @return the select element or null if it is not rendered
+     */
+    private String findSelect(String id) {
+        String startTag = Html.findStartTag(page, "select", "id", "[^\"]*:" + Pattern.quote(id));
+        return startTag == null ? null : Html.getElement(page, startTag);
+    }
+
+    /**
+     * Replaces the @form and @this keywords of an execute or render list, as
+     * the Mojarra script does.
+     *
+     * @param ids the space-separated IDs
+     * @param formId the form ID
+     * @param clientId the ID of the source component
+     * @return the client IDs
+     */
+    private static String resolveIds(String ids, String formId, String clientId) {
+        return ids.replace("@form", formId).replace("@this", clientId).trim();
+    }
+}
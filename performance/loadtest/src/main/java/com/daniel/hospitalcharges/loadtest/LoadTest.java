@@ -0,0 +1,467 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class runs the load test. Each stage starts a number of virtual users
+ * running the scripted flows against a running instance, ramps them up
+ * during a warmup that is not recorded, and then records every request for
+ * the measured duration. The throughput and the p50, p99 and p999 latencies
+ * of every step are reported after each stage, followed by a summary of the
+ * stages showing where added users stop adding throughput, the saturation
+ * point of the node.
+ *
+ * <pre>
+ * java -jar loadtest.jar --url http://localhost:8080/comparehospitalcharges
+ *         --users 10,20,40,80 --warmup 15 --duration 60 --think 500
+ *         --flows region:5,compare:3,statistics:2 --seed 1 --csv results.csv
+ * </pre>
+ *
+ * @author Bryan Daniel
+ */
+public class LoadTest {
+
+    /**
+     * The default base URL, the application deployed on a local Tomcat
+     */
+    public static final String DEFAULT_URL = "http://localhost:8080/comparehospitalcharges";
+
+    /**
+     * The default users of each stage
+     */
+    public static final String DEFAULT_USERS = "10,20,40,80";
+
+    /**
+     * The default flows and their weights
+     */
+    public static final String DEFAULT_FLOWS = "region:5,compare:3,statistics:2";
+
+    /**
+     * The throughput gain, relative to the gain in users, below which a stage
+     * is taken as saturated
+     */
+    private static final double SATURATION_EFFICIENCY = 0.5;
+
+    /**
+     * The share of failed requests above which a stage is taken as saturated
+     */
+    private static final double SATURATION_ERRORS = 0.01;
+
+    /**
+     * The base URL of the application
+     */
+    private String url = DEFAULT_URL;
+
+    /**
+     * The users of each stage
+     */
+    private final List<Integer> stages = new ArrayList<>();
+
+    /**
+     * The seconds of warmup of each stage
+     */
+    private int warmup = 15;
+
+    /**
+     * The seconds measured of each stage
+     */
+    private int duration = 60;
+
+    /**
+     * The mean think time in milliseconds
+     */
+    private long thinkTime = 500;
+
+    /**
+     * The request timeout in milliseconds
+     */
+    private int timeout = 30000;
+
+    /**
+     * The flows and their weights
+     */
+    private String flowWeights = DEFAULT_FLOWS;
+
+    /**
+     * The random seed
+     */
+    private long seed = 1;
+
+    /**
+     * The flows, each listed as many times as its weight
+     */
+    private List<Flow> flows;
+
+    /**
+     * The CSV file receiving the results, or null
+     */
+    private String csvFile;
+
+    /**
+     * The output of the reports
+     */
+    private final PrintStream out;
+
+    /**
+     * Creates a load test reporting to the given output.
+     *
+     * @param out the output
+     */
+    public LoadTest(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args the options, see the class description
+     */
+    public static void main(String[] args) {
+        LoadTest loadTest = new LoadTest(System.out);
+        try {
+            loadTest.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --url URL --users N,N,... --warmup SECONDS --duration SECONDS"
+                    + " --think MILLIS --timeout MILLIS --flows NAME:WEIGHT,... --seed N --csv FILE");
+            System.exit(2);
+        }
+        try {
+            loadTest.run();
+        } catch (IOException e) {
+            System.err.println("The results could not be written: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the options.
+     *
+     * @param args the options
+     * @throws IllegalArgumentException if an option is unknown or malformed
+     */
+    void parse(String[] args) {
+        String users = DEFAULT_USERS;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (++i == args.length) {
+                throw new IllegalArgumentException("The option " + option + " has no value.");
+            }
+            String value = args[i];
+            try {
+                switch (option) {
+                    case "--url":
+                        url = value;
+                        break;
+                    case "--users":
+                        users = value;
+                        break;
+                    case "--warmup":
+                        warmup = Integer.parseInt(value);
+                        break;
+                    case "--duration":
+                        duration = Integer.parseInt(value);
+                        break;
+                    case "--think":
+                        thinkTime = Long.parseLong(value);
+                        break;
+                    case "--timeout":
+                        timeout = Integer.parseInt(value);
+                        break;
+                    case "--flows":
+                        flowWeights = value;
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--csv":
+                        csvFile = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + option + ".");
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The option " + option + " needs a number.");
+            }
+        }
+        for (String stage : users.split(",")) {
+            try {
+                stages.add(Integer.parseInt(stage.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The users must be numbers separated by commas.");
+            }
+        }
+        flows = createFlows();
+    }
+
+    /**
+     * Runs every stage and reports the results.
+     *
+     * @throws IOException if the CSV file cannot be written
+     * @throws InterruptedException if interrupted
+     */
+    void run() throws IOException, InterruptedException {
+        int maximumUsers = 0;
+        for (int users : stages) {
+            maximumUsers = Math.max(maximumUsers, users);
+        }
+        //keep a connection alive for every user
+        System.setProperty("http.maxConnections", String.valueOf(Math.max(5, maximumUsers)));
+
+        PrintWriter csv = null;
+        if (csvFile != null) {
+            csv = new PrintWriter(new FileWriter(csvFile, true));
+            csv.println("users,step,count,errors,throughput,p50 ms,p99 ms,p999 ms,max ms");
+        }
+        try {
+            List<StageResult> results = new ArrayList<>();
+            for (int i = 0; i < stages.size(); i++) {
+                out.printf(Locale.ROOT, "%nStage %d of %d: %d users, %d s warmup, %d s measured%n",
+                        i + 1, stages.size(), stages.get(i), warmup, duration);
+                StageResult result = runStage(stages.get(i), i);
+                report(result, csv);
+                results.add(result);
+            }
+            summarize(results);
+        } finally {
+            if (csv != null) {
+                csv.close();
+            }
+        }
+    }
+
+    /**
+     * Runs one stage.
+     *
+     * @param users the number of users
+     * @param stage the stage number, used to vary the seed
+     * @return the result
+     * @throws InterruptedException if interrupted
+     */
+    private StageResult runStage(int users, int stage) throws InterruptedException {
+        List<VirtualUser> virtualUsers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        long rampInterval = users == 0 ? 0 : TimeUnit.SECONDS.toMillis(warmup) / users;
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+        for (int i = 0; i < users; i++) {
+            Random random = new Random(seed * 1000003L + stage * 10007L + i);
+            VirtualUser user = new VirtualUser(new JsfClient(url, timeout, thinkTime, random,
+                    new StepRecorder()), flows);
+            Thread thread = new Thread(user, "user-" + (i + 1));
+            thread.setDaemon(true);
+            virtualUsers.add(user);
+            threads.add(thread);
+            thread.start();
+            Thread.sleep(rampInterval);
+        }
+        long remainingWarmup = warmupEnd - System.nanoTime();
+        if (remainingWarmup > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingWarmup);
+        }
+
+        long start = System.nanoTime();
+        for (VirtualUser user : virtualUsers) {
+            user.getRecorder().setRecording(true);
+        }
+        TimeUnit.SECONDS.sleep(duration);
+        for (VirtualUser user : virtualUsers) {
+            user.getRecorder().setRecording(false);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (int i = 0; i < users; i++) {
+            virtualUsers.get(i).stop();
+            threads.get(i).interrupt();
+        }
+        for (Thread thread : threads) {
+            thread.join(timeout + 1000);
+        }
+
+        StageResult result = new StageResult(users, seconds);
+        for (VirtualUser user : virtualUsers) {
+            result.add(user.getRecorder());
+        }
+        return result;
+    }
+
+    /**
+     * Reports the result of a stage.
+     *
+     * @param result the result
+     * @param csv the CSV output or null
+     */
+    private void report(StageResult result, PrintWriter csv) {
+        out.printf(Locale.ROOT, "%-28s %8s %7s %9s %9s %9s %9s %9s%n",
+                "step", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<String, StepStatistics> step : result.steps.entrySet()) {
+            reportStep(result, step.getKey(), step.getValue(), csv);
+        }
+        reportStep(result, "all steps", result.total, csv);
+        if (result.firstError != null) {
+            out.println("First failure: " + result.firstError);
+        }
+    }
+
+    /**
+     * Reports one step of a stage.
+     *
+     * @param result the stage result
+     * @param name the step name
+     * @param step the step statistics
+     * @param csv the CSV output or null
+     */
+    private void reportStep(StageResult result, String name, StepStatistics step, PrintWriter csv) {
+        double throughput = step.getCount() / result.seconds;
+        out.printf(Locale.ROOT, "%-28s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, step.getCount(),
+                step.getErrors(), throughput, step.getPercentileMillis(0.5), step.getPercentileMillis(0.99),
+                step.getPercentileMillis(0.999), step.getMaximumMillis());
+        if (csv != null) {
+            csv.printf(Locale.ROOT, "%d,%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n", result.users, name,
+                    step.getCount(), step.getErrors(), throughput, step.getPercentileMillis(0.5),
+                    step.getPercentileMillis(0.99), step.getPercentileMillis(0.999), step.getMaximumMillis());
+        }
+    }
+
+    /**
+     * Reports the throughput and latency of every stage and the stage at
+     * which the throughput stopped growing with the users.
+     *
+     * @param results the stage results
+     */
+    private void summarize(List<StageResult> results) {
+        out.printf(Locale.ROOT, "%nSummary%n%8s %9s %9s %9s %10s%n", "users", "req/s", "p99 ms", "errors",
+                "efficiency");
+        StageResult saturated = null;
+        StageResult previous = null;
+        for (StageResult result : results) {
+            double throughput = result.total.getCount() / result.seconds;
+            String efficiency = "";
+            if (previous != null && previous.users > 0 && previous.total.getCount() > 0) {
+                //the share of the added users that turned into added throughput
+                double gain = throughput / (previous.total.getCount() / previous.seconds);
+                double value = (gain - 1) / ((double) result.users / previous.users - 1);
+                efficiency = String.format(Locale.ROOT, "%.2f", value);
+                if (value < SATURATION_EFFICIENCY) {
+                    saturated = saturated == null ? result : saturated;
+                }
+            }
+            long requests = result.total.getCount() + result.total.getErrors();
+            if (result.total.getErrors() > SATURATION_ERRORS * requests) {
+                saturated = saturated == null ? result : saturated;
+            }
+            out.printf(Locale.ROOT, "%8d %9.2f %9.2f %9d %10s%n", result.users, throughput,
+                    result.total.getPercentileMillis(0.99), result.total.getErrors(), efficiency);
+            previous = result;
+        }
+        if (saturated != null) {
+            out.printf(Locale.ROOT, "The node saturated before %d users: added users no longer added"
+                    + " throughput in proportion or requests failed.%n", saturated.users);
+        } else {
+            out.println("The node did not saturate at the users tested.");
+        }
+    }
+
+    /**
+     * Creates the flows, each listed as many times as its weight.
+     *
+     * @return the flows
+     * @throws IllegalArgumentException if a flow is unknown or its weight is
+     * malformed
+     */
+    private List<Flow> createFlows() {
+        List<Flow> flows = new ArrayList<>();
+        for (String entry : flowWeights.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight;
+            try {
+                weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The weight of flow " + parts[0] + " must be a number.");
+            }
+            Flow flow = Flow.forName(parts[0]);
+            for (int i = 0; i < weight; i++) {
+                flows.add(flow);
+            }
+        }
+        if (flows.isEmpty()) {
+            throw new IllegalArgumentException("No flows are given.");
+        }
+        return flows;
+    }
+
+    /**
+     * The merged recordings of the users of a stage
+     */
+    private static class StageResult {
+
+        /**
+         * The number of users
+         */
+        private final int users;
+
+        /**
+         * The seconds measured
+         */
+        private final double seconds;
+
+        /**
+         * The statistics of each step, ordered by name to group the steps of
+         * each flow
+         */
+        private final Map<String, StepStatistics> steps = new TreeMap<>();
+
+        /**
+         * The statistics of all steps together
+         */
+        private final StepStatistics total = new StepStatistics();
+
+        /**
+         * The first failure noted by a user
+         */
+        private String firstError;
+
+        /**
+         * Creates an empty result.
+         *
+         * @param users the number of users
+         * @param seconds the seconds measured
+         */
+        StageResult(int users, double seconds) {
+            this.users = users;
+            this.seconds = seconds;
+        }
+
+        /**
+         * Adds the recordings of a user.
+         *
+         * @param recorder the recorder of the user
+         */
+        void add(StepRecorder recorder) {
+            for (Map.Entry<String, StepStatistics> step : recorder.getSteps().entrySet()) {
+                StepStatistics statistics = steps.get(step.getKey());
+                if (statistics == null) {
+                    statistics = new StepStatistics();
+                    steps.put(step.getKey(), statistics);
+                }
+                statistics.merge(step.getValue());
+                total.merge(step.getValue());
+            }
+            if (firstError == null) {
+                firstError = recorder.getFirstError();
+            }
+        }
+    }
+}
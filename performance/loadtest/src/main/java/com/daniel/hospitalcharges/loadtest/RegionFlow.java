@@ -0,0 +1,62 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * This class scripts the regional charges cascade of inpatientregion.xhtml:
+ * the page, then a state, a city and a DRG, each chosen with an Ajax partial
+ * request rendering the next menu, the last one rendering the results.
+ *
+ * @author Bryan Daniel
+ */
+public class RegionFlow extends Flow {
+
+    /**
+     * The name of the flow
+     */
+    public static final String NAME = "region";
+
+    /**
+     * The path of the page
+     */
+    private static final String PATH = "/inpatient/inpatientregion.xhtml";
+
+    /**
+     * Creates the flow.
+     */
+    public RegionFlow() {
+        super(NAME);
+    }
+
+    /**
+     * Runs the flow once.
+     *
+     * @param client the browser of the visitor
+     * @throws IOException if a request fails
+     * @throws InterruptedException if the visitor is stopped while thinking
+     */
+    @Override
+    public void run(JsfClient client) throws IOException, InterruptedException {
+        Random random = client.getRandom();
+        JsfView view = JsfView.load(client, "region page", PATH);
+
+        String state = pick(view.getOptions("state"), random);
+        if (state == null) {
+            throw new IOException("The regional charges page offers no states.");
+        }
+        view.choose("region state", "state", state);
+
+        String city = pick(view.getOptions("city"), random);
+        if (city == null) {
+            return;
+        }
+        view.choose("region city", "city", city);
+
+        String drg = pick(view.getOptions("drg"), random);
+        if (drg == null) {
+            return;
+        }
+        view.choose("region results", "drg", drg);
+    }
+}
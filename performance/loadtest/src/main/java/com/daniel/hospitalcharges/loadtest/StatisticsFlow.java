@@ -0,0 +1,79 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class scripts the statistics and chart pair: the statistics page, the
+ * statistics of a DRG posted from its menu, and the histogram image the
+ * statistics page then shows.
+ *
+ * @author Bryan Daniel
+ */
+public class StatisticsFlow extends Flow {
+
+    /**
+     * The name of the flow
+     */
+    public static final String NAME = "statistics";
+
+    /**
+     * The path of the statistics servlet
+     */
+    private static final String PATH = "/statistics";
+
+    /**
+     * Matches the source of the chart image
+     */
+    private static final Pattern CHART = Pattern.compile("<img\\s+src=['\"]([^'\"]*drawchart[^'\"]*)['\"]");
+
+    /**
+     * Creates the flow.
+     */
+    public StatisticsFlow() {
+        super(NAME);
+    }
+
+    /**
+     * Runs the flow once.
+     *
+     * @param client the browser of the visitor
+     * @throws IOException if a request fails
+     * @throws InterruptedException if the visitor is stopped while thinking
+     */
+    @Override
+    public void run(JsfClient client) throws IOException, InterruptedException {
+        StepRecorder recorder = client.getRecorder();
+        JsfClient.Response page = client.get("statistics page", client.url(PATH));
+        String select = Html.findStartTag(page.getText(), "select", "name", "selectedDRG");
+        String drg = select == null ? null
+                : pick(Html.getOptionValues(Html.getElement(page.getText(), select)), client.getRandom());
+        if (drg == null) {
+            recorder.failure("statistics page");
+            throw new IOException("The statistics page offers no DRGs.");
+        }
+        recorder.success("statistics page", page.getLatency());
+
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("action", "selectDRG");
+        parameters.put("selectedDRG", drg);
+        JsfClient.Response statistics = client.post("statistics drg", page.getUrl(), parameters, false);
+        Matcher chart = CHART.matcher(statistics.getText());
+        if (!chart.find()) {
+            recorder.failure("statistics drg");
+            throw new IOException("The statistics of DRG " + drg + " show no chart.");
+        }
+        recorder.success("statistics drg", statistics.getLatency());
+
+        String chartUrl = client.resolve(Html.unescape(chart.group(1).trim()), statistics.getUrl());
+        JsfClient.Response image = client.get("statistics chart", chartUrl);
+        if (image.getContentType() == null || !image.getContentType().startsWith("image/png")) {
+            recorder.failure("statistics chart");
+            throw new IOException("The chart of DRG " + drg + " is not a PNG image.");
+        }
+        recorder.success("statistics chart", image.getLatency());
+    }
+}
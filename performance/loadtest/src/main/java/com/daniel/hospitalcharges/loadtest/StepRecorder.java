@@ -0,0 +1,104 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class records the requests of the steps run by one virtual user. The
+ * steps are kept in the order first run, which is the order of the flows.
+ *
+ * @author Bryan Daniel
+ */
+public class StepRecorder {
+
+    /**
+     * The statistics of each step
+     */
+    private final Map<String, StepStatistics> steps = new LinkedHashMap<>();
+
+    /**
+     * Whether requests are recorded, false while warming up
+     */
+    private volatile boolean recording;
+
+    /**
+     * The message of the first failed flow recorded
+     */
+    private String firstError;
+
+    /**
+     * Records a successful request of a step.
+     *
+     * @param step the step name
+     * @param nanos the latency of the request in nanoseconds
+     */
+    public void success(String step, long nanos) {
+        if (recording) {
+            get(step).record(nanos);
+        }
+    }
+
+    /**
+     * Records a failed request of a step.
+     *
+     * @param step the step name
+     */
+    public void failure(String step) {
+        if (recording) {
+            get(step).recordError();
+        }
+    }
+
+    /**
+     * Notes the reason a flow failed, keeping the first one recorded.
+     *
+     * @param message the message
+     */
+    public void noteError(String message) {
+        if (recording && firstError == null) {
+            firstError = message;
+        }
+    }
+
+    /**
+     * Returns the reason the first recorded failed flow failed.
+     *
+     * @return the message or null if no flow failed
+     */
+    public String getFirstError() {
+        return firstError;
+    }
+
+    /**
+     * Starts or stops recording.
+     *
+     * @param recording true to record requests
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Returns the statistics of each step.
+     *
+     * @return the statistics by step name
+     */
+    public Map<String, StepStatistics> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Returns the statistics of a step, creating them if needed.
+     *
+     * @param step the step name
+     * @return the statistics
+     */
+    private StepStatistics get(String step) {
+        StepStatistics statistics = steps.get(step);
+        if (statistics == null) {
+            statistics = new StepStatistics();
+            steps.put(step, statistics);
+        }
+        return statistics;
+    }
+}
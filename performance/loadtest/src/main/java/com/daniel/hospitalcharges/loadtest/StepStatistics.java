@@ -0,0 +1,119 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * This class collects the latencies of one step of the scripted flows. Every
+ * latency is kept, so the percentiles are exact; a virtual user records into
+ * its own statistics, which are merged when a stage ends, so recording needs
+ * no locking.
+ *
+ * @author Bryan Daniel
+ */
+public class StepStatistics {
+
+    /**
+     * The initial capacity of the latency array
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The latencies of the successful requests in nanoseconds
+     */
+    private long[] latencies = new long[INITIAL_CAPACITY];
+
+    /**
+     * The number of latencies recorded
+     */
+    private int count;
+
+    /**
+     * The number of failed requests
+     */
+    private long errors;
+
+    /**
+     * Whether the latencies are sorted
+     */
+    private boolean sorted;
+
+    /**
+     * Records a successful request.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        sorted = false;
+    }
+
+    /**
+     * Records a failed request.
+     */
+    public void recordError() {
+        errors++;
+    }
+
+    /**
+     * Adds the requests of other statistics of the same step.
+     *
+     * @param other the other statistics
+     */
+    public void merge(StepStatistics other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, Math.max(count + other.count, count * 2));
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        errors += other.errors;
+        sorted = false;
+    }
+
+    /**
+     * Returns the number of successful requests.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of failed requests.
+     *
+     * @return the error count
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns a latency percentile by the nearest-rank method.
+     *
+     * @param fraction the percentile as a fraction, e.g. 0.99
+     * @return the latency in milliseconds or 0 if nothing was recorded
+     */
+    public double getPercentileMillis(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(latencies, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(fraction * count);
+        return latencies[Math.max(0, Math.min(count, rank) - 1)] / 1000000.0;
+    }
+
+    /**
+     * Returns the largest latency.
+     *
+     * @return the latency in milliseconds or 0 if nothing was recorded
+     */
+    public double getMaximumMillis() {
+        return getPercentileMillis(1.0);
+    }
+}
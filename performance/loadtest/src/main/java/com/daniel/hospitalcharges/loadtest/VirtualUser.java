@@ -0,0 +1,86 @@
+package com.daniel.hospitalcharges.loadtest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class is a visitor running flows one after another until stopped.
+ * Each flow is chosen at random by its weight, and the visitor starts a new
+ * session every few flows, as new visitors arrive.
+ *
+ * @author Bryan Daniel
+ */
+public class VirtualUser implements Runnable {
+
+    /**
+     * The number of flows run in one session
+     */
+    private static final int FLOWS_PER_VISIT = 5;
+
+    /**
+     * The browser of the visitor
+     */
+    private final JsfClient client;
+
+    /**
+     * The flows, each listed as many times as its weight
+     */
+    private final List<Flow> flows;
+
+    /**
+     * Whether the visitor keeps running flows
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Creates a visitor.
+     *
+     * @param client the browser of the visitor
+     * @param flows the flows, each listed as many times as its weight
+     */
+    public VirtualUser(JsfClient client, List<Flow> flows) {
+        this.client = client;
+        this.flows = flows;
+    }
+
+    /**
+     * Runs flows until stopped. A failed flow is recorded by its step and the
+     * visitor goes on with a new session.
+     */
+    @Override
+    public void run() {
+        Random random = client.getRandom();
+        int flowsRun = 0;
+        while (running) {
+            if (flowsRun++ % FLOWS_PER_VISIT == 0) {
+                client.clearCookies();
+            }
+            try {
+                flows.get(random.nextInt(flows.size())).run(client);
+            } catch (IOException e) {
+                client.getRecorder().noteError(e.toString());
+                client.clearCookies();
+                flowsRun = 1;
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops the visitor after its current request.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Returns the recorder of the requests of the visitor.
+     *
+     * @return the recorder
+     */
+    public StepRecorder getRecorder() {
+        return client.getRecorder();
+    }
+}
@@ -0,0 +1,135 @@
+package com.daniel.hospitalcharges.procbench;
+
+import com.daniel.hospitalcharges.datagen.Schema;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class draws representative arguments for the procedures from the
+ * loaded data. Classifications and states are drawn uniformly, as a visitor
+ * picks them from the select menus. Arguments combining a classification
+ * with a city or provider are drawn from a random sample of the charges, so
+ * every call asks for data that exists and larger cities and regions are
+ * asked for more often, in proportion to their charges.
+ *
+ * @author Bryan Daniel
+ */
+public class ArgumentSampler {
+
+    /**
+     * The classification IDs having charges
+     */
+    private final List<Integer> codes = new ArrayList<>();
+
+    /**
+     * The states having providers
+     */
+    private final List<String> states = new ArrayList<>();
+
+    /**
+     * The sampled charges: classification ID, provider ID, city and state
+     */
+    private final List<Object[]> charges = new ArrayList<>();
+
+    /**
+     * Reads the classifications and states and samples the charges.
+     *
+     * @param connection the connection to the database
+     * @param schema the schema of the database
+     * @param sampleSize the number of charges sampled
+     * @param seed the random seed
+     * @throws SQLException if the data cannot be read
+     */
+    public ArgumentSampler(Connection connection, Schema schema, int sampleSize, long seed) throws SQLException {
+        String codeColumn = schema.getColumns("Charge")[0];
+        long chargeCount = 0;
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("SELECT DISTINCT " + codeColumn
+                    + " FROM Charge ORDER BY " + codeColumn)) {
+                while (resultSet.next()) {
+                    codes.add(resultSet.getInt(1));
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery(
+                    "SELECT DISTINCT provider_state FROM Provider ORDER BY provider_state")) {
+                while (resultSet.next()) {
+                    states.add(resultSet.getString(1));
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM Charge")) {
+                resultSet.next();
+                chargeCount = resultSet.getLong(1);
+            }
+        }
+        if (codes.isEmpty()) {
+            throw new SQLException("The " + schema.getDatabase() + " database has no charges.");
+        }
+
+        //sample about twice the rows needed in one scan, then keep a random subset
+        double fraction = Math.min(1, 2.0 * sampleSize / chargeCount);
+        try (PreparedStatement statement = connection.prepareStatement("SELECT c." + codeColumn
+                + ", c.provider_id, p.provider_city, p.provider_state FROM Charge c, Provider p"
+                + " WHERE p.provider_id = c.provider_id AND RAND(?) < ?")) {
+            statement.setLong(1, seed);
+            statement.setDouble(2, fraction);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    charges.add(new Object[]{resultSet.getInt(1), resultSet.getInt(2), resultSet.getString(3),
+                        resultSet.getString(4)});
+                }
+            }
+        }
+        Collections.shuffle(charges, new Random(seed));
+        while (charges.size() > sampleSize) {
+            charges.remove(charges.size() - 1);
+        }
+        if (charges.isEmpty()) {
+            throw new SQLException("No charges of the " + schema.getDatabase() + " database were sampled.");
+        }
+    }
+
+    /**
+     * Draws the arguments of a call.
+     *
+     * @param procedure the procedure
+     * @param random the random generator
+     * @return the arguments in call order
+     */
+    public Object[] draw(BenchmarkProcedure procedure, Random random) {
+        List<BenchmarkProcedure.Argument> kinds = procedure.getArguments();
+        Object[] arguments = new Object[kinds.size()];
+        if (kinds.size() == 1 && kinds.get(0) == BenchmarkProcedure.Argument.CODE) {
+            arguments[0] = codes.get(random.nextInt(codes.size()));
+            return arguments;
+        }
+        if (kinds.size() == 1 && kinds.get(0) == BenchmarkProcedure.Argument.STATE) {
+            arguments[0] = states.get(random.nextInt(states.size()));
+            return arguments;
+        }
+        Object[] charge = charges.get(random.nextInt(charges.size()));
+        for (int i = 0; i < arguments.length; i++) {
+            switch (kinds.get(i)) {
+                case CODE:
+                    arguments[i] = charge[0];
+                    break;
+                case PROVIDER:
+                    arguments[i] = charge[1];
+                    break;
+                case CITY:
+                    arguments[i] = charge[2];
+                    break;
+                default:
+                    arguments[i] = charge[3];
+                    break;
+            }
+        }
+        return arguments;
+    }
+}
@@ -0,0 +1,122 @@
+package com.daniel.hospitalcharges.procbench;
+
+import com.daniel.hospitalcharges.datagen.Schema;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class describes a stored procedure called by the IO layer: its name
+ * and the kinds of its input parameters, from which representative arguments
+ * are drawn. The call string matches the one the IO layer prepares, the input
+ * parameters followed by the TINYINT output parameter.
+ *
+ * @author Bryan Daniel
+ */
+public class BenchmarkProcedure {
+
+    /**
+     * The kinds of input parameters
+     */
+    public enum Argument {
+
+        /**
+         * A DRG or APC ID
+         */
+        CODE,
+        /**
+         * A state abbreviation
+         */
+        STATE,
+        /**
+         * A city of the state
+         */
+        CITY,
+        /**
+         * A provider ID
+         */
+        PROVIDER
+    }
+
+    /**
+     * The name of the procedure
+     */
+    private final String name;
+
+    /**
+     * The input parameters in call order
+     */
+    private final List<Argument> arguments;
+
+    /**
+     * The call string
+     */
+    private final String sql;
+
+    /**
+     * Creates a procedure.
+     *
+     * @param name the name of the procedure
+     * @param arguments the input parameters in call order
+     */
+    public BenchmarkProcedure(String name, Argument... arguments) {
+        this.name = name;
+        this.arguments = Collections.unmodifiableList(Arrays.asList(arguments));
+        StringBuilder builder = new StringBuilder("{CALL ").append(name).append('(');
+        for (int i = 0; i < arguments.length; i++) {
+            builder.append("?, ");
+        }
+        this.sql = builder.append("?)}").toString();
+    }
+
+    /**
+     * Returns the procedures the IO layer calls on the database of a schema,
+     * as listed by InpatientIO or OutpatientIO and StatisticsIO.
+     *
+     * @param schema the schema
+     * @return the procedures
+     */
+    public static List<BenchmarkProcedure> forSchema(Schema schema) {
+        String code = schema.getCodeTable();
+        List<BenchmarkProcedure> procedures = new ArrayList<>();
+        procedures.add(new BenchmarkProcedure("get" + code + "s"));
+        procedures.add(new BenchmarkProcedure("getStates", Argument.CODE));
+        procedures.add(new BenchmarkProcedure("getCities", Argument.STATE));
+        procedures.add(new BenchmarkProcedure("getCitiesToCompare", Argument.CODE, Argument.STATE));
+        procedures.add(new BenchmarkProcedure("getProviders", Argument.CODE, Argument.CITY, Argument.STATE));
+        procedures.add(new BenchmarkProcedure("getRegional" + code + "s", Argument.CITY, Argument.STATE));
+        procedures.add(new BenchmarkProcedure("getCharges", Argument.CODE, Argument.PROVIDER));
+        procedures.add(new BenchmarkProcedure("getRegionalCharges", Argument.CODE, Argument.CITY,
+                Argument.STATE));
+        procedures.add(new BenchmarkProcedure("get" + code + "Stats", Argument.CODE));
+        return procedures;
+    }
+
+    /**
+     * Returns the name of the procedure.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the input parameters in call order.
+     *
+     * @return the parameters
+     */
+    public List<Argument> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Returns the call string of the procedure.
+     *
+     * @return the call string
+     */
+    public String getSql() {
+        return sql;
+    }
+}
@@ -0,0 +1,175 @@
+package com.daniel.hospitalcharges.procbench;
+
+import com.daniel.hospitalcharges.datagen.Dataset;
+import com.daniel.hospitalcharges.datagen.DatasetWriter;
+import com.daniel.hospitalcharges.datagen.Schema;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * This class loads a generated dataset into a database created by the
+ * database script of its schema. The tables are emptied first, and the rows
+ * are inserted in batches with the foreign key and unique checks off, as a
+ * bulk load would. Closing the writer commits the last batch and analyzes
+ * the tables, so the procedures are planned with statistics of the new data.
+ *
+ * @author Bryan Daniel
+ */
+public class JdbcDatasetWriter implements DatasetWriter {
+
+    /**
+     * The number of rows of a batch
+     */
+    private static final int BATCH_SIZE = 5000;
+
+    /**
+     * The connection
+     */
+    private final Connection connection;
+
+    /**
+     * The schema
+     */
+    private final Schema schema;
+
+    /**
+     * The statement inserting charges
+     */
+    private final PreparedStatement charges;
+
+    /**
+     * The charges in the batch not yet sent
+     */
+    private int batched;
+
+    /**
+     * Empties the tables of the database.
+     *
+     * @param connection the connection to the database
+     * @param schema the schema of the database
+     * @throws SQLException if the tables cannot be emptied
+     */
+    public JdbcDatasetWriter(Connection connection, Schema schema) throws SQLException {
+        this.connection = connection;
+        this.schema = schema;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET foreign_key_checks = 0");
+            statement.execute("SET unique_checks = 0");
+            String[] tables = schema.getTables();
+            for (int i = tables.length - 1; i >= 0; i--) {
+                statement.execute("TRUNCATE TABLE " + tables[i]);
+            }
+        }
+        connection.setAutoCommit(false);
+        charges = connection.prepareStatement(insertSql("Charge"));
+    }
+
+    @Override
+    public void writeReferenceData(Dataset dataset) throws IOException {
+        try {
+            try (PreparedStatement statement = connection.prepareStatement(insertSql("State"))) {
+                for (String state : dataset.getStates()) {
+                    statement.setString(1, state);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            insert("Region", dataset.getRegions());
+            insert("Provider", dataset.getProviders());
+            insert(schema.getCodeTable(), dataset.getCodes());
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("The reference data could not be loaded.", e);
+        }
+    }
+
+    @Override
+    public void writeCharge(int codeId, int providerId, long chargeCents, long paymentCents,
+            long medicareCents) throws IOException {
+        try {
+            charges.setInt(1, codeId);
+            charges.setInt(2, providerId);
+            charges.setString(3, Dataset.formatCents(chargeCents));
+            charges.setString(4, Dataset.formatCents(paymentCents));
+            if (schema.hasMedicarePayments()) {
+                charges.setString(5, Dataset.formatCents(medicareCents));
+            }
+            charges.addBatch();
+            if (++batched == BATCH_SIZE) {
+                charges.executeBatch();
+                connection.commit();
+                batched = 0;
+            }
+        } catch (SQLException e) {
+            throw new IOException("The charges could not be loaded.", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            try {
+                if (batched > 0) {
+                    charges.executeBatch();
+                }
+                connection.commit();
+            } finally {
+                charges.close();
+                connection.setAutoCommit(true);
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET unique_checks = 1");
+                statement.execute("SET foreign_key_checks = 1");
+                for (String table : schema.getTables()) {
+                    statement.execute("ANALYZE TABLE " + table);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("The load could not be completed.", e);
+        }
+    }
+
+    /**
+     * Inserts rows of reference data.
+     *
+     * @param table the table
+     * @param rows the rows
+     * @throws SQLException if the rows cannot be inserted
+     */
+    private void insert(String table, List<? extends Dataset.Row> rows) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(insertSql(table))) {
+            int count = 0;
+            for (Dataset.Row row : rows) {
+                Object[] values = row.getValues();
+                for (int i = 0; i < values.length; i++) {
+                    statement.setObject(i + 1, values[i]);
+                }
+                statement.addBatch();
+                if (++count % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Returns the INSERT statement of a table.
+     *
+     * @param table the table
+     * @return the statement
+     */
+    private String insertSql(String table) {
+        String[] columns = schema.getColumns(table);
+        StringBuilder builder = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                .append(String.join(", ", columns)).append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            builder.append(i == 0 ? "?" : ", ?");
+        }
+        return builder.append(')').toString();
+    }
+}
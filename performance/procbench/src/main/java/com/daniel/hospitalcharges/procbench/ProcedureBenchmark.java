@@ -0,0 +1,542 @@
+package com.daniel.hospitalcharges.procbench;
+
+import com.daniel.hospitalcharges.datagen.Dataset;
+import com.daniel.hospitalcharges.datagen.Schema;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This class measures the stored procedures the IO layer calls at several
+ * dataset scales. For each scale it loads a generated dataset into the
+ * database of each schema, then calls every procedure with representative
+ * arguments in random order, recording the latency of each call, including
+ * reading all of its result sets, and the rows it returned, examined and
+ * sorted and the temporary tables it created. After the last scale, the
+ * growth of the latency and rows examined of each procedure is compared with
+ * the growth of the charges, and procedures growing faster than the data are
+ * reported.
+ * <p>
+ * The databases must have been created by inpatientdbscript.sql and
+ * outpatientdbscript.sql; their data is replaced by each scale.
+ *
+ * <pre>
+ * java -jar procbench.jar --url jdbc:mysql://localhost:3306 --user root --password secret
+ *         --schema both --scales 1,4,16 --seed 1 --calls 200 --warmup 20 --csv procedures.csv
+ * </pre>
+ *
+ * @author Bryan Daniel
+ */
+public class ProcedureBenchmark {
+
+    /**
+     * The growth exponent above which a procedure is reported as growing
+     * faster than the data
+     */
+    private static final double NON_LINEAR_EXPONENT = 1.2;
+
+    /**
+     * The number of charges sampled for the arguments
+     */
+    private static final int SAMPLE_SIZE = 2000;
+
+    /**
+     * The connection properties added to the server URL
+     */
+    private static final String URL_PARAMETERS = "?useSSL=false&useInformationSchema=true"
+            + "&rewriteBatchedStatements=true&characterEncoding=UTF-8";
+
+    /**
+     * The server URL
+     */
+    private String url = "jdbc:mysql://localhost:3306";
+
+    /**
+     * The database user
+     */
+    private String user = "root";
+
+    /**
+     * The database password
+     */
+    private String password = "";
+
+    /**
+     * The schemas to measure
+     */
+    private final List<Schema> schemas = new ArrayList<>();
+
+    /**
+     * The dataset scales, or an empty list to measure the data as loaded
+     */
+    private final List<Double> scales = new ArrayList<>();
+
+    /**
+     * The random seed of the datasets and arguments
+     */
+    private long seed = 1;
+
+    /**
+     * The measured calls of each procedure at each scale
+     */
+    private int calls = 200;
+
+    /**
+     * The unrecorded calls of each procedure before measuring
+     */
+    private int warmup = 20;
+
+    /**
+     * The CSV file receiving the results, or null
+     */
+    private String csvFile;
+
+    /**
+     * The output of the reports
+     */
+    private final PrintStream out;
+
+    /**
+     * Creates a benchmark reporting to the given output.
+     *
+     * @param out the output
+     */
+    public ProcedureBenchmark(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the options, see the class description
+     */
+    public static void main(String[] args) {
+        ProcedureBenchmark benchmark = new ProcedureBenchmark(System.out);
+        try {
+            benchmark.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --url JDBC_SERVER_URL --user USER --password PASSWORD"
+                    + " --schema inpatient|outpatient|both --scales FACTOR,FACTOR,...|loaded --seed N"
+                    + " --calls N --warmup N --csv FILE");
+            System.exit(2);
+        }
+        try {
+            benchmark.run();
+        } catch (IOException | SQLException e) {
+            System.err.println("The benchmark failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the options.
+     *
+     * @param args the options
+     * @throws IllegalArgumentException if an option is unknown or malformed
+     */
+    void parse(String[] args) {
+        String schemaNames = "both";
+        String scaleList = "1,4,16";
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (++i == args.length) {
+                throw new IllegalArgumentException("The option " + option + " has no value.");
+            }
+            String value = args[i];
+            try {
+                switch (option) {
+                    case "--url":
+                        url = value;
+                        break;
+                    case "--user":
+                        user = value;
+                        break;
+                    case "--password":
+                        password = value;
+                        break;
+                    case "--schema":
+                        schemaNames = value;
+                        break;
+                    case "--scales":
+                        scaleList = value;
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--calls":
+                        calls = Integer.parseInt(value);
+                        break;
+                    case "--warmup":
+                        warmup = Integer.parseInt(value);
+                        break;
+                    case "--csv":
+                        csvFile = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + option + ".");
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The option " + option + " needs a number.");
+            }
+        }
+        if (schemaNames.equalsIgnoreCase("both")) {
+            schemas.add(Schema.INPATIENT);
+            schemas.add(Schema.OUTPATIENT);
+        } else {
+            schemas.add(Schema.forName(schemaNames));
+        }
+        if (!scaleList.equalsIgnoreCase("loaded")) {
+            for (String scale : scaleList.split(",")) {
+                try {
+                    scales.add(Double.parseDouble(scale.trim()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("The scales must be numbers separated by commas.");
+                }
+                if (scales.get(scales.size() - 1) <= 0) {
+                    throw new IllegalArgumentException("The scales must be positive.");
+                }
+            }
+            Collections.sort(scales);
+        }
+        if (calls <= 0 || warmup < 0) {
+            throw new IllegalArgumentException("The calls must be positive.");
+        }
+    }
+
+    /**
+     * Measures every schema at every scale and reports the results.
+     *
+     * @throws IOException if a dataset or the CSV file cannot be written
+     * @throws SQLException if the database cannot be used
+     */
+    void run() throws IOException, SQLException {
+        PrintWriter csv = null;
+        if (csvFile != null) {
+            csv = new PrintWriter(new FileWriter(csvFile, true));
+            csv.println("schema,scale,charges,procedure,calls,errors,p50 ms,p90 ms,p99 ms,max ms,rows returned,"
+                    + "rows examined,temporary tables,disk temporary tables,rows sorted");
+        }
+        try {
+            for (Schema schema : schemas) {
+                List<ScaleResult> results = new ArrayList<>();
+                try (Connection connection = DriverManager.getConnection(url + "/" + schema.getDatabase()
+                        + URL_PARAMETERS, user, password)) {
+                    disableQueryCache(connection);
+                    if (scales.isEmpty()) {
+                        results.add(measure(connection, schema, "loaded"));
+                    }
+                    for (double scale : scales) {
+                        load(connection, schema, scale);
+                        results.add(measure(connection, schema, String.valueOf(scale)));
+                    }
+                }
+                for (ScaleResult result : results) {
+                    report(result, csv);
+                }
+                summarize(schema, results);
+            }
+        } finally {
+            if (csv != null) {
+                csv.close();
+            }
+        }
+    }
+
+    /**
+     * Replaces the data of a database by a generated dataset.
+     *
+     * @param connection the connection to the database
+     * @param schema the schema of the database
+     * @param scale the dataset scale
+     * @throws IOException if the dataset cannot be loaded
+     * @throws SQLException if the tables cannot be emptied
+     */
+    private void load(Connection connection, Schema schema, double scale) throws IOException, SQLException {
+        long start = System.nanoTime();
+        Dataset dataset = Dataset.generate(schema, scale, 1, seed);
+        long charges;
+        try (JdbcDatasetWriter writer = new JdbcDatasetWriter(connection, schema)) {
+            writer.writeReferenceData(dataset);
+            charges = dataset.writeCharges(writer);
+        }
+        out.printf(Locale.ROOT, "Loaded %s at scale %s: %d providers, %d charges in %.1f s%n", schema.getName(),
+                scale, dataset.getProviders().size(), charges, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Calls every procedure of a schema with drawn arguments, in random order,
+     * and records the calls after the warmup.
+     *
+     * @param connection the connection to the database
+     * @param schema the schema of the database
+     * @param scale the label of the scale
+     * @return the result
+     * @throws SQLException if the database cannot be used
+     */
+    private ScaleResult measure(Connection connection, Schema schema, String scale) throws SQLException {
+        Random random = new Random(seed);
+        ArgumentSampler sampler = new ArgumentSampler(connection, schema, SAMPLE_SIZE, seed);
+        SessionCounters counters = new SessionCounters(connection);
+        List<BenchmarkProcedure> procedures = BenchmarkProcedure.forSchema(schema);
+        ScaleResult result = new ScaleResult(schema, scale, countCharges(connection));
+
+        Map<BenchmarkProcedure, CallableStatement> statements = new LinkedHashMap<>();
+        try {
+            for (BenchmarkProcedure procedure : procedures) {
+                statements.put(procedure, connection.prepareCall(procedure.getSql()));
+                result.statistics.put(procedure.getName(), new ProcedureStatistics());
+            }
+            List<BenchmarkProcedure> order = new ArrayList<>();
+            for (BenchmarkProcedure procedure : procedures) {
+                for (int i = 0; i < warmup + calls; i++) {
+                    order.add(procedure);
+                }
+            }
+            Collections.shuffle(order, random);
+            Map<BenchmarkProcedure, Integer> made = new LinkedHashMap<>();
+            for (BenchmarkProcedure procedure : order) {
+                Integer count = made.get(procedure);
+                int previous = count == null ? 0 : count;
+                made.put(procedure, previous + 1);
+                //the first calls of each procedure warm the buffer pool and are not recorded
+                ProcedureStatistics statistics = previous < warmup ? null
+                        : result.statistics.get(procedure.getName());
+                call(statements.get(procedure), procedure, sampler.draw(procedure, random), counters, statistics);
+            }
+        } finally {
+            for (CallableStatement statement : statements.values()) {
+                statement.close();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Makes one call, reading every row of every result set.
+     *
+     * @param statement the prepared call
+     * @param procedure the procedure
+     * @param arguments the arguments
+     * @param counters the session counters
+     * @param statistics the statistics recording the call, or null
+     * @throws SQLException if the session counters cannot be read
+     */
+    private void call(CallableStatement statement, BenchmarkProcedure procedure, Object[] arguments,
+            SessionCounters counters, ProcedureStatistics statistics) throws SQLException {
+        for (int i = 0; i < arguments.length; i++) {
+            statement.setObject(i + 1, arguments[i]);
+        }
+        statement.registerOutParameter(arguments.length + 1, Types.TINYINT);
+        long[] before = counters.read();
+        long start = System.nanoTime();
+        long rows = 0;
+        try {
+            boolean hasResultSet = statement.execute();
+            while (hasResultSet || statement.getUpdateCount() != -1) {
+                if (hasResultSet) {
+                    try (ResultSet resultSet = statement.getResultSet()) {
+                        int columns = resultSet.getMetaData().getColumnCount();
+                        while (resultSet.next()) {
+                            for (int c = 1; c <= columns; c++) {
+                                resultSet.getString(c);
+                            }
+                            rows++;
+                        }
+                    }
+                }
+                hasResultSet = statement.getMoreResults();
+            }
+            statement.getByte(arguments.length + 1);
+        } catch (SQLException e) {
+            if (statistics != null) {
+                statistics.recordError(procedure.getName() + " failed: " + e.getMessage());
+            }
+            return;
+        }
+        long latency = System.nanoTime() - start;
+        long[] after = counters.read();
+        if (statistics != null) {
+            statistics.record(latency, rows, counters.difference(before, after));
+        }
+    }
+
+    /**
+     * Reports the result of a schema at a scale.
+     *
+     * @param result the result
+     * @param csv the CSV output or null
+     */
+    private void report(ScaleResult result, PrintWriter csv) {
+        out.printf(Locale.ROOT, "%n%s at scale %s, %d charges%n", result.schema.getName(), result.scale,
+                result.charges);
+        out.printf(Locale.ROOT, "%-20s %6s %6s %9s %9s %9s %9s %9s %11s %7s %8s %9s%n", "procedure", "calls",
+                "errors", "p50 ms", "p90 ms", "p99 ms", "max ms", "rows", "examined", "tmp", "disk tmp", "sorted");
+        for (Map.Entry<String, ProcedureStatistics> entry : result.statistics.entrySet()) {
+            ProcedureStatistics statistics = entry.getValue();
+            out.printf(Locale.ROOT, "%-20s %6d %6d %9.2f %9.2f %9.2f %9.2f %9.1f %11.1f %7.2f %8.2f %9.1f%n",
+                    entry.getKey(), statistics.getCount(), statistics.getErrors(),
+                    statistics.getPercentileMillis(0.5), statistics.getPercentileMillis(0.9),
+                    statistics.getPercentileMillis(0.99), statistics.getPercentileMillis(1),
+                    statistics.getMeanRowsReturned(), statistics.getMean(SessionCounters.ROWS_EXAMINED),
+                    statistics.getMean(SessionCounters.TEMPORARY_TABLES),
+                    statistics.getMean(SessionCounters.DISK_TEMPORARY_TABLES),
+                    statistics.getMean(SessionCounters.ROWS_SORTED));
+            if (statistics.getFirstError() != null) {
+                out.println("  first failure: " + statistics.getFirstError());
+            }
+            if (csv != null) {
+                csv.printf(Locale.ROOT, "%s,%s,%d,%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%.1f,%.1f,%.3f,%.3f,%.1f%n",
+                        result.schema.getName(), result.scale, result.charges, entry.getKey(),
+                        statistics.getCount(), statistics.getErrors(), statistics.getPercentileMillis(0.5),
+                        statistics.getPercentileMillis(0.9), statistics.getPercentileMillis(0.99),
+                        statistics.getPercentileMillis(1), statistics.getMeanRowsReturned(),
+                        statistics.getMean(SessionCounters.ROWS_EXAMINED),
+                        statistics.getMean(SessionCounters.TEMPORARY_TABLES),
+                        statistics.getMean(SessionCounters.DISK_TEMPORARY_TABLES),
+                        statistics.getMean(SessionCounters.ROWS_SORTED));
+            }
+        }
+    }
+
+    /**
+     * Reports how the latency and rows examined of each procedure grew from
+     * the smallest to the largest scale, as the exponent b of growth = data
+     * growth ^ b, where 1 is linear in the charges. Procedures above the
+     * threshold, or spilling temporary tables to disk at the largest scale,
+     * are marked.
+     *
+     * @param schema the schema
+     * @param results the results by ascending scale
+     */
+    private void summarize(Schema schema, List<ScaleResult> results) {
+        if (results.size() < 2) {
+            return;
+        }
+        ScaleResult first = results.get(0);
+        ScaleResult last = results.get(results.size() - 1);
+        double dataGrowth = (double) last.charges / first.charges;
+        out.printf(Locale.ROOT, "%n%s growth from scale %s to %s, charges x%.2f%n", schema.getName(), first.scale,
+                last.scale, dataGrowth);
+        out.printf(Locale.ROOT, "%-20s %9s %9s %10s %10s  %s%n", "procedure", "p50 x", "exponent", "examined x",
+                "exponent", "notes");
+        for (String name : first.statistics.keySet()) {
+            ProcedureStatistics before = first.statistics.get(name);
+            ProcedureStatistics after = last.statistics.get(name);
+            double latencyGrowth = after.getPercentileMillis(0.5) / before.getPercentileMillis(0.5);
+            double examinedGrowth = after.getMean(SessionCounters.ROWS_EXAMINED)
+                    / before.getMean(SessionCounters.ROWS_EXAMINED);
+            double latencyExponent = exponent(latencyGrowth, dataGrowth);
+            double examinedExponent = exponent(examinedGrowth, dataGrowth);
+            List<String> notes = new ArrayList<>();
+            if (latencyExponent > NON_LINEAR_EXPONENT || examinedExponent > NON_LINEAR_EXPONENT) {
+                notes.add("NON-LINEAR");
+            }
+            if (after.getMean(SessionCounters.DISK_TEMPORARY_TABLES) > 0) {
+                notes.add("temporary tables on disk");
+            }
+            if (after.getErrors() > 0) {
+                notes.add("failures");
+            }
+            out.printf(Locale.ROOT, "%-20s %9.2f %9.2f %10.2f %10.2f  %s%n", name, latencyGrowth, latencyExponent,
+                    examinedGrowth, examinedExponent, String.join(", ", notes));
+        }
+    }
+
+    /**
+     * Returns the exponent relating a growth to the data growth.
+     *
+     * @param growth the growth of a measure
+     * @param dataGrowth the growth of the data
+     * @return the exponent, or 0 if either growth is undefined
+     */
+    private static double exponent(double growth, double dataGrowth) {
+        if (!(growth > 0) || Double.isInfinite(growth) || !(dataGrowth > 1)) {
+            return 0;
+        }
+        return Math.log(growth) / Math.log(dataGrowth);
+    }
+
+    /**
+     * Turns off the query cache of the session, on servers that have one, so
+     * repeated calls are executed again.
+     *
+     * @param connection the connection
+     */
+    private static void disableQueryCache(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET SESSION query_cache_type = OFF");
+        } catch (SQLException e) {
+            //MySQL 8 has no query cache
+        }
+    }
+
+    /**
+     * Returns the number of charges of the database.
+     *
+     * @param connection the connection
+     * @return the charge count
+     * @throws SQLException if the charges cannot be counted
+     */
+    private static long countCharges(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM Charge")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    /**
+     * The measurements of the procedures of a schema at one scale
+     */
+    private static class ScaleResult {
+
+        /**
+         * The schema
+         */
+        private final Schema schema;
+
+        /**
+         * The label of the scale
+         */
+        private final String scale;
+
+        /**
+         * The number of charges
+         */
+        private final long charges;
+
+        /**
+         * The statistics of each procedure
+         */
+        private final Map<String, ProcedureStatistics> statistics = new LinkedHashMap<>();
+
+        /**
+         * Creates an empty result.
+         *
+         * @param schema the schema
+         * @param scale the label of the scale
+         * @param charges the number of charges
+         */
+        ScaleResult(Schema schema, String scale, long charges) {
+            this.schema = schema;
+            this.scale = scale;
+            this.charges = charges;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.daniel.hospitalcharges.procbench;
+
+import java.util.Arrays;
+
+/**
+ * This class collects the measurements of the calls of one procedure at one
+ * dataset scale: every latency, so the percentiles are exact, and the totals
+ * of the rows returned and of the session counters, reported as means per
+ * call.
+ *
+ * @author Bryan Daniel
+ */
+public class ProcedureStatistics {
+
+    /**
+     * The latencies of the successful calls in nanoseconds
+     */
+    private long[] latencies = new long[256];
+
+    /**
+     * The number of successful calls
+     */
+    private int count;
+
+    /**
+     * The number of failed calls
+     */
+    private int errors;
+
+    /**
+     * The total rows returned
+     */
+    private long rowsReturned;
+
+    /**
+     * The totals of the session counters
+     */
+    private final long[] counters = new long[SessionCounters.COUNT];
+
+    /**
+     * The first failure or null
+     */
+    private String firstError;
+
+    /**
+     * Whether the latencies are sorted
+     */
+    private boolean sorted;
+
+    /**
+     * Records a successful call.
+     *
+     * @param nanos the latency in nanoseconds
+     * @param rows the rows returned
+     * @param change the change of the session counters
+     */
+    public void record(long nanos, long rows, long[] change) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        sorted = false;
+        rowsReturned += rows;
+        for (int c = 0; c < counters.length; c++) {
+            counters[c] += change[c];
+        }
+    }
+
+    /**
+     * Records a failed call.
+     *
+     * @param message the failure
+     */
+    public void recordError(String message) {
+        errors++;
+        if (firstError == null) {
+            firstError = message;
+        }
+    }
+
+    /**
+     * Returns the number of successful calls.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of failed calls.
+     *
+     * @return the errors
+     */
+    public int getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns the first failure.
+     *
+     * @return the failure or null
+     */
+    public String getFirstError() {
+        return firstError;
+    }
+
+    /**
+     * Returns a latency percentile by the nearest rank.
+     *
+     * @param fraction the percentile as a fraction, such as 0.99
+     * @return the latency in milliseconds or 0 without calls
+     */
+    public double getPercentileMillis(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(latencies, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(fraction * count);
+        return latencies[Math.max(0, Math.min(count, rank) - 1)] / 1e6;
+    }
+
+    /**
+     * Returns the mean rows returned by a call.
+     *
+     * @return the mean rows
+     */
+    public double getMeanRowsReturned() {
+        return count == 0 ? 0 : (double) rowsReturned / count;
+    }
+
+    /**
+     * Returns the mean change of a session counter by a call.
+     *
+     * @param counter the position of the counter in SessionCounters
+     * @return the mean change
+     */
+    public double getMean(int counter) {
+        return count == 0 ? 0 : (double) counters[counter] / count;
+    }
+}
@@ -0,0 +1,133 @@
+package com.daniel.hospitalcharges.procbench;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * This class reads the session status counters of a MySQL connection that
+ * show the work a call did: the rows read by the storage engine, which is the
+ * number of rows examined, the temporary tables created in memory and on
+ * disk, and the rows sorted. Reading the counters changes some of them, so
+ * the change caused by reading alone is measured once and taken off every
+ * difference.
+ *
+ * @author Bryan Daniel
+ */
+public class SessionCounters {
+
+    /**
+     * The position of the rows examined
+     */
+    public static final int ROWS_EXAMINED = 0;
+
+    /**
+     * The position of the temporary tables
+     */
+    public static final int TEMPORARY_TABLES = 1;
+
+    /**
+     * The position of the temporary tables created on disk
+     */
+    public static final int DISK_TEMPORARY_TABLES = 2;
+
+    /**
+     * The position of the rows sorted
+     */
+    public static final int ROWS_SORTED = 3;
+
+    /**
+     * The number of counters
+     */
+    public static final int COUNT = 4;
+
+    /**
+     * The statement reading the counters
+     */
+    private static final String SQL = "SHOW SESSION STATUS WHERE Variable_name IN ('Handler_read_first',"
+            + " 'Handler_read_key', 'Handler_read_last', 'Handler_read_next', 'Handler_read_prev',"
+            + " 'Handler_read_rnd', 'Handler_read_rnd_next', 'Created_tmp_tables', 'Created_tmp_disk_tables',"
+            + " 'Sort_rows')";
+
+    /**
+     * The number of readings of the calibration
+     */
+    private static final int CALIBRATION_READINGS = 5;
+
+    /**
+     * The connection
+     */
+    private final Connection connection;
+
+    /**
+     * The change of the counters caused by reading them
+     */
+    private final long[] overhead;
+
+    /**
+     * Creates the counters of a connection and measures the cost of reading
+     * them.
+     *
+     * @param connection the connection
+     * @throws SQLException if the counters cannot be read
+     */
+    public SessionCounters(Connection connection) throws SQLException {
+        this.connection = connection;
+        long[] smallest = new long[COUNT];
+        Arrays.fill(smallest, Long.MAX_VALUE);
+        long[] previous = read();
+        for (int i = 0; i < CALIBRATION_READINGS; i++) {
+            long[] current = read();
+            for (int c = 0; c < COUNT; c++) {
+                smallest[c] = Math.min(smallest[c], current[c] - previous[c]);
+            }
+            previous = current;
+        }
+        overhead = smallest;
+    }
+
+    /**
+     * Reads the counters.
+     *
+     * @return the counters by position
+     * @throws SQLException if the counters cannot be read
+     */
+    public final long[] read() throws SQLException {
+        long[] counters = new long[COUNT];
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(SQL)) {
+            while (resultSet.next()) {
+                String name = resultSet.getString(1);
+                long value = resultSet.getLong(2);
+                if (name.startsWith("Handler_read")) {
+                    counters[ROWS_EXAMINED] += value;
+                } else if (name.equalsIgnoreCase("Created_tmp_tables")) {
+                    counters[TEMPORARY_TABLES] = value;
+                } else if (name.equalsIgnoreCase("Created_tmp_disk_tables")) {
+                    counters[DISK_TEMPORARY_TABLES] = value;
+                } else {
+                    counters[ROWS_SORTED] = value;
+                }
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Returns the change of the counters between two readings, without the
+     * change caused by reading them.
+     *
+     * @param before the earlier reading
+     * @param after the later reading
+     * @return the change by position
+     */
+    public long[] difference(long[] before, long[] after) {
+        long[] difference = new long[COUNT];
+        for (int c = 0; c < COUNT; c++) {
+            difference[c] = Math.max(0, after[c] - before[c] - overhead[c]);
+        }
+        return difference;
+    }
+}